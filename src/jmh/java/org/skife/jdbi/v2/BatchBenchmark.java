@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch inserts through PreparedBatch, as one statement per row and as multi row inserts, and
+ * through a SqlObject <code>@SqlBatch</code> method.
+ */
+@State(Scope.Benchmark)
+public class BatchBenchmark
+{
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.HSQLDB})
+    public String database;
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private DBI dbi;
+    private Handle handle;
+    private Inserter inserter;
+    private List<Integer> ids;
+    private List<String> names;
+
+    @Setup
+    public void setUp()
+    {
+        dbi = BenchmarkDatabase.create(database);
+        handle = dbi.open();
+        inserter = handle.attach(Inserter.class);
+
+        ids = new ArrayList<Integer>(size);
+        names = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(i);
+            names.add("name " + i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate()
+    {
+        handle.execute("delete from something");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        handle.close();
+    }
+
+    @Benchmark
+    public int[] preparedBatch()
+    {
+        PreparedBatch batch = handle.prepareBatch("insert into something (id, name) values (:id, :name)");
+        for (int i = 0; i < size; i++) {
+            batch.add().bind("id", ids.get(i)).bind("name", names.get(i));
+        }
+        return batch.execute();
+    }
+
+    @Benchmark
+    public int[] multiRowValues()
+    {
+        PreparedBatch batch = handle.prepareBatch("insert into something (id, name) values (:id, :name)")
+                                    .multiRowValues(64);
+        for (int i = 0; i < size; i++) {
+            batch.add().bind("id", ids.get(i)).bind("name", names.get(i));
+        }
+        return batch.execute();
+    }
+
+    @Benchmark
+    public int[] sqlBatch()
+    {
+        return inserter.insert(ids, names);
+    }
+
+    public interface Inserter
+    {
+        @SqlBatch("insert into something (id, name) values (:id, :name)")
+        int[] insert(@Bind("id") List<Integer> ids, @Bind("name") List<String> names);
+    }
+}
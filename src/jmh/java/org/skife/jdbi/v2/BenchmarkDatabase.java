@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.util.UUID;
+
+/**
+ * The in-memory databases the benchmarks run against, chosen through a JMH <code>@Param</code>.
+ */
+final class BenchmarkDatabase
+{
+    static final String H2 = "h2";
+    static final String HSQLDB = "hsqldb";
+
+    private BenchmarkDatabase()
+    {
+    }
+
+    /**
+     * @return a DBI for a fresh, empty database with a <code>something</code> table
+     */
+    static DBI create(String database)
+    {
+        final DBI dbi;
+        if (H2.equals(database)) {
+            dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        }
+        else if (HSQLDB.equals(database)) {
+            dbi = new DBI("jdbc:hsqldb:mem:" + UUID.randomUUID(), "sa", "");
+        }
+        else {
+            throw new IllegalArgumentException("unknown database " + database);
+        }
+
+        Handle h = dbi.open();
+        try {
+            h.execute("create table something (id integer, name varchar(100), integerValue integer)");
+        }
+        finally {
+            h.close();
+        }
+        return dbi;
+    }
+
+    static void populate(DBI dbi, int rows)
+    {
+        Handle h = dbi.open();
+        try {
+            PreparedBatch batch = h.prepareBatch("insert into something (id, name, integerValue) values (?, ?, ?)");
+            for (int i = 0; i < rows; i++) {
+                batch.add(i, "name " + i, i * 2);
+            }
+            batch.execute();
+        }
+        finally {
+            h.close();
+        }
+    }
+
+}
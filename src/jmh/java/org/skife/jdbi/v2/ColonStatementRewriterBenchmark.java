@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares parse throughput of the hand written scanner and the ANTLR lexer on generated
+ * statements between 1 KB and 50 KB.
+ */
+@State(Scope.Benchmark)
+public class ColonStatementRewriterBenchmark
+{
+    @Param({"1024", "5120", "10240", "51200"})
+    public int size;
+
+    // caching disabled, every call parses
+    private final ColonPrefixNamedParamStatementRewriter scanner = new ColonPrefixNamedParamStatementRewriter(0);
+    private final ColonPrefixNamedParamStatementRewriter lexer = new AntlrColonPrefixNamedParamStatementRewriter(0);
+
+    private String sql;
+
+    @Setup
+    public void setUp()
+    {
+        sql = generate(size);
+    }
+
+    @Benchmark
+    public Object scanner()
+    {
+        return scanner.parseString(sql);
+    }
+
+    @Benchmark
+    public Object antlr()
+    {
+        return lexer.parseString(sql);
+    }
+
+    static String generate(int size)
+    {
+        StringBuilder b = new StringBuilder(size + 128);
+        b.append("select * from something where id in (");
+        int i = 0;
+        while (b.length() < size) {
+            if (i > 0) {
+                b.append(", ");
+            }
+            switch (i % 4) {
+            case 0:
+                b.append(":id").append(i);
+                break;
+            case 1:
+                b.append("'literal ").append(i).append("'");
+                break;
+            case 2:
+                b.append(":value").append(i).append("::int");
+                break;
+            default:
+                b.append("?");
+                break;
+            }
+            i++;
+        }
+        b.append(") and \"Name\" = :name");
+        return b.toString();
+    }
+}
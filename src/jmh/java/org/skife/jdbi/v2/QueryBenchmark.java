@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The full query pipeline: open a handle, create, bind, map, collect, close.
+ */
+@State(Scope.Benchmark)
+public class QueryBenchmark
+{
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.HSQLDB})
+    public String database;
+
+    @Param({"1", "100"})
+    public int rows;
+
+    private DBI dbi;
+    private final GeneratedBeanMapper<Something> generatedBeanMapper = new GeneratedBeanMapper<Something>(Something.class);
+
+    @Setup
+    public void setUp()
+    {
+        dbi = BenchmarkDatabase.create(database);
+        BenchmarkDatabase.populate(dbi, rows);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> defaultMapperList()
+    {
+        Handle h = dbi.open();
+        try {
+            return h.createQuery("select id, name, integerValue from something where id < :max")
+                    .bind("max", rows)
+                    .list();
+        }
+        finally {
+            h.close();
+        }
+    }
+
+    @Benchmark
+    public List<Something> beanMapperList()
+    {
+        Handle h = dbi.open();
+        try {
+            return h.createQuery("select id, name, integerValue from something where id < :max")
+                    .bind("max", rows)
+                    .map(new BeanMapper<Something>(Something.class))
+                    .list();
+        }
+        finally {
+            h.close();
+        }
+    }
+
+    @Benchmark
+    public List<Something> generatedBeanMapperList()
+    {
+        Handle h = dbi.open();
+        try {
+            return h.createQuery("select id, name, integerValue from something where id < :max")
+                    .bind("max", rows)
+                    .map(generatedBeanMapper)
+                    .list();
+        }
+        finally {
+            h.close();
+        }
+    }
+
+    @Benchmark
+    public long iterator()
+    {
+        Handle h = dbi.open();
+        try {
+            ResultIterator<Integer> it = h.createQuery("select id from something where id < :max")
+                                          .bind("max", rows)
+                                          .map(IntegerColumnMapper.PRIMITIVE)
+                                          .iterator();
+            long sum = 0;
+            try {
+                while (it.hasNext()) {
+                    sum += it.next();
+                }
+            }
+            finally {
+                it.close();
+            }
+            return sum;
+        }
+        finally {
+            h.close();
+        }
+    }
+
+    @Benchmark
+    public long columnar()
+    {
+        Handle h = dbi.open();
+        try {
+            int[] ids = h.createQuery("select id from something where id < :max")
+                         .bind("max", rows)
+                         .columnar()
+                         .getInts(0);
+            long sum = 0;
+            for (int id : ids) {
+                sum += id;
+            }
+            return sum;
+        }
+        finally {
+            h.close();
+        }
+    }
+
+    @Benchmark
+    public String first()
+    {
+        Handle h = dbi.open();
+        try {
+            return h.createQuery("select name from something where id = :id")
+                    .bind("id", 0)
+                    .mapTo(String.class)
+                    .first();
+        }
+        finally {
+            h.close();
+        }
+    }
+}
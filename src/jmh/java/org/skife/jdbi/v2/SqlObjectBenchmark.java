@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+
+/**
+ * SqlObject dispatch, both on demand (a handle per call) and attached to an open handle.
+ */
+@State(Scope.Benchmark)
+public class SqlObjectBenchmark
+{
+    @Param({BenchmarkDatabase.H2, BenchmarkDatabase.HSQLDB})
+    public String database;
+
+    private Handle handle;
+    private Dao onDemand;
+    private Dao attached;
+
+    @Setup
+    public void setUp()
+    {
+        DBI dbi = BenchmarkDatabase.create(database);
+        BenchmarkDatabase.populate(dbi, 10);
+        handle = dbi.open();
+        onDemand = dbi.onDemand(Dao.class);
+        attached = handle.attach(Dao.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        handle.close();
+    }
+
+    @Benchmark
+    public String onDemand()
+    {
+        return onDemand.findName(5);
+    }
+
+    @Benchmark
+    public String attached()
+    {
+        return attached.findName(5);
+    }
+
+    public interface Dao
+    {
+        @SqlQuery("select name from something where id = :id")
+        String findName(@Bind("id") int id);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.Token;
+import org.skife.jdbi.rewriter.colon.ColonStatementLexer;
+
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.DOUBLE_QUOTED_TEXT;
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.ESCAPED_TEXT;
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.LITERAL;
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.NAMED_PARAM;
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.POSITIONAL_PARAM;
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.QUOTED_TEXT;
+
+/**
+ * Statement rewriter which replaces named parameter tokens of the form :tokenName, parsing
+ * statements with the ANTLR generated <code>ColonStatementLexer</code>.
+ * <p/>
+ * This was the default statement rewriter before {@link ColonPrefixNamedParamStatementRewriter}
+ * got its own scanner, and is kept as a fallback.
+ */
+public class AntlrColonPrefixNamedParamStatementRewriter extends ColonPrefixNamedParamStatementRewriter
+{
+    public AntlrColonPrefixNamedParamStatementRewriter()
+    {
+        super();
+    }
+
+    /**
+     * @param cacheSize maximum number of parsed statements to retain, 0 disables caching
+     */
+    public AntlrColonPrefixNamedParamStatementRewriter(int cacheSize)
+    {
+        super(cacheSize);
+    }
+
+    @Override
+    ParsedStatement parseString(final String sql) throws IllegalArgumentException
+    {
+        ParsedStatement stmt = new ParsedStatement();
+        StringBuilder b = new StringBuilder(sql.length());
+        ColonStatementLexer lexer = new ColonStatementLexer(new ANTLRStringStream(sql));
+        Token t = lexer.nextToken();
+        while (t.getType() != ColonStatementLexer.EOF) {
+            switch (t.getType()) {
+            case LITERAL:
+                b.append(t.getText());
+                break;
+            case NAMED_PARAM:
+                stmt.addNamedParamAt(t.getText().substring(1, t.getText().length()));
+                b.append("?");
+                break;
+            case QUOTED_TEXT:
+                b.append(t.getText());
+                break;
+            case DOUBLE_QUOTED_TEXT:
+                b.append(t.getText());
+                break;
+            case POSITIONAL_PARAM:
+                b.append("?");
+                stmt.addPositionalParamAt();
+                break;
+            case ESCAPED_TEXT:
+                b.append(t.getText().substring(1));
+                break;
+            default:
+                break;
+            }
+            t = lexer.nextToken();
+        }
+        stmt.complete(b.toString());
+        return stmt;
+    }
+}
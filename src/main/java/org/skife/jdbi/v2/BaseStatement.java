@@ -55,6 +55,18 @@ abstract class BaseStatement
         return context;
     }
 
+    /**
+     * Drop the cached query results which the given statement, which has just been executed, may
+     * have changed.
+     */
+    final void invalidateQueryResults(String sql)
+    {
+        QueryResultCache.HandleScope scope = context.getResultCacheScope();
+        if (scope != null) {
+            scope.written(sql);
+        }
+    }
+
     protected void addCustomizers(final Collection<StatementCustomizer> customizers)
     {
         this.customizers.addAll(customizers);
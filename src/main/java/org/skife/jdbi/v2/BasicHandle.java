@@ -27,12 +27,16 @@ import org.skife.jdbi.v2.tweak.StatementLocator;
 import org.skife.jdbi.v2.tweak.StatementRewriter;
 import org.skife.jdbi.v2.tweak.TransactionHandler;
 
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 class BasicHandle implements Handle
 {
@@ -42,9 +46,14 @@ class BasicHandle implements Handle
     private SQLLog            log;
     private TimingCollector   timingCollector;
     private StatementBuilder  statementBuilder;
+    private final RewrittenStatementCache rewrittenStatementCache;
+    private final QueryResultCache.HandleScope resultCacheScope;
 
     private boolean closed = false;
 
+    // streaming batches holding a statement of this handle
+    private final Set<PreparedBatch> openBatches = Collections.newSetFromMap(new IdentityHashMap<PreparedBatch, Boolean>());
+
     private final Map<String, Object>      globalStatementAttributes;
     private final MappingRegistry          mappingRegistry;
     private final ContainerFactoryRegistry containerFactoryRegistry;
@@ -71,6 +80,26 @@ class BasicHandle implements Handle
                 Foreman foreman,
                 ContainerFactoryRegistry containerFactoryRegistry)
     {
+        this(transactions, statementLocator, preparedStatementCache, statementRewriter, null, null, connection,
+             globalStatementAttributes, log, timingCollector, mappingRegistry, foreman, containerFactoryRegistry);
+    }
+
+    BasicHandle(TransactionHandler transactions,
+                StatementLocator statementLocator,
+                StatementBuilder preparedStatementCache,
+                StatementRewriter statementRewriter,
+                RewrittenStatementCache rewrittenStatementCache,
+                QueryResultCache queryResultCache,
+                Connection connection,
+                Map<String, Object> globalStatementAttributes,
+                SQLLog log,
+                TimingCollector timingCollector,
+                MappingRegistry mappingRegistry,
+                Foreman foreman,
+                ContainerFactoryRegistry containerFactoryRegistry)
+    {
+        this.rewrittenStatementCache = rewrittenStatementCache;
+        this.resultCacheScope = queryResultCache == null ? null : new QueryResultCache.HandleScope(queryResultCache, this);
         this.statementBuilder = preparedStatementCache;
         this.statementRewriter = statementRewriter;
         this.transactions = transactions;
@@ -85,6 +114,13 @@ class BasicHandle implements Handle
         this.containerFactoryRegistry = containerFactoryRegistry.createChild();
     }
 
+    private ConcreteStatementContext createContext(MappingRegistry registry)
+    {
+        ConcreteStatementContext ctx = new ConcreteStatementContext(globalStatementAttributes, registry, sqlObjectContext.get());
+        ctx.setResultCacheScope(resultCacheScope);
+        return ctx;
+    }
+
     @Override
     public Query<Map<String, Object>> createQuery(String sql)
     {
@@ -93,10 +129,11 @@ class BasicHandle implements Handle
                                               new DefaultMapper(),
                                               statementLocator,
                                               statementRewriter,
+                                              rewrittenStatementCache,
                                               this,
                                               statementBuilder,
                                               sql,
-                                              new ConcreteStatementContext(globalStatementAttributes, queryRegistry, sqlObjectContext.get()),
+                                              createContext(queryRegistry),
                                               log,
                                               timingCollector,
                                               Collections.<StatementCustomizer>emptyList(),
@@ -121,6 +158,9 @@ class BasicHandle implements Handle
     {
         if (!closed) {
             try {
+                for (PreparedBatch batch : new ArrayList<PreparedBatch>(openBatches)) {
+                    batch.close();
+                }
                 statementBuilder.close(getConnection());
             } finally {
                 try {
@@ -130,6 +170,7 @@ class BasicHandle implements Handle
                     throw new UnableToCloseResourceException("Unable to close Connection", e);
                 }
                 finally {
+                    transactionEnded();
                     log.logReleaseHandle(this);
                     closed = true;
                 }
@@ -137,6 +178,16 @@ class BasicHandle implements Handle
         }
     }
 
+    void batchOpened(PreparedBatch batch)
+    {
+        openBatches.add(batch);
+    }
+
+    void batchClosed(PreparedBatch batch)
+    {
+        openBatches.remove(batch);
+    }
+
     @Override
     public boolean isClosed()
     {
@@ -167,7 +218,12 @@ class BasicHandle implements Handle
     public Handle commit()
     {
         final long start = System.nanoTime();
-        transactions.commit(this);
+        try {
+            transactions.commit(this);
+        }
+        finally {
+            transactionEnded();
+        }
         log.logCommitTransaction((System.nanoTime() - start) / 1000000L, this);
         return this;
     }
@@ -179,11 +235,23 @@ class BasicHandle implements Handle
     public Handle rollback()
     {
         final long start = System.nanoTime();
-        transactions.rollback(this);
+        try {
+            transactions.rollback(this);
+        }
+        finally {
+            transactionEnded();
+        }
         log.logRollbackTransaction((System.nanoTime() - start) / 1000000L, this);
         return this;
     }
 
+    private void transactionEnded()
+    {
+        if (resultCacheScope != null) {
+            resultCacheScope.transactionEnded();
+        }
+    }
+
     /**
      * Create a transaction checkpoint (savepoint in JDBC terminology) with the name provided.
      *
@@ -262,9 +330,10 @@ class BasicHandle implements Handle
         return new Update(this,
                           statementLocator,
                           statementRewriter,
+                          rewrittenStatementCache,
                           statementBuilder,
                           sql,
-                          new ConcreteStatementContext(globalStatementAttributes, new MappingRegistry(mappingRegistry), sqlObjectContext.get()),
+                          createContext(new MappingRegistry(mappingRegistry)),
                           log,
                           timingCollector,
                           foreman,
@@ -277,9 +346,10 @@ class BasicHandle implements Handle
         return new Call(this,
                         statementLocator,
                         statementRewriter,
+                        rewrittenStatementCache,
                         statementBuilder,
                         sql,
-                        new ConcreteStatementContext(globalStatementAttributes, new MappingRegistry(mappingRegistry), sqlObjectContext.get()),
+                        createContext(new MappingRegistry(mappingRegistry)),
                         log,
                         timingCollector,
                         Collections.<StatementCustomizer>emptyList(),
@@ -309,10 +379,11 @@ class BasicHandle implements Handle
     {
         return new PreparedBatch(statementLocator,
                                  statementRewriter,
+                                 rewrittenStatementCache,
                                  this,
                                  statementBuilder,
                                  sql,
-                                 new ConcreteStatementContext(globalStatementAttributes, new MappingRegistry(mappingRegistry), sqlObjectContext.get()),
+                                 createContext(new MappingRegistry(mappingRegistry)),
                                  log,
                                  timingCollector,
                                  Collections.<StatementCustomizer>emptyList(),
@@ -325,7 +396,7 @@ class BasicHandle implements Handle
     {
         return new Batch(this.statementRewriter,
                          this.connection,
-                         new ConcreteStatementContext(globalStatementAttributes, new MappingRegistry(mappingRegistry), sqlObjectContext.get()),
+                         createContext(new MappingRegistry(mappingRegistry)),
                          log,
                          timingCollector,
                          foreman.createChild());
@@ -413,7 +484,13 @@ class BasicHandle implements Handle
     @Override
     public Script createScript(String name)
     {
-        return new Script(this, statementLocator, name, new ConcreteStatementContext(globalStatementAttributes, new MappingRegistry(mappingRegistry), sqlObjectContext.get()));
+        return new Script(this, statementLocator, name, createContext(new MappingRegistry(mappingRegistry)));
+    }
+
+    @Override
+    public Script createScript(Reader reader)
+    {
+        return new Script(this, reader, createContext(new MappingRegistry(mappingRegistry)));
     }
 
     @Override
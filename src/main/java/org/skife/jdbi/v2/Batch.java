@@ -120,6 +120,10 @@ public class Batch extends BaseStatement
                 logger.log(elapsedTime / 1000000L);
                 // Null for statement, because for batches, we don't really have a good way to keep the sql around.
                 timingCollector.collect(elapsedTime, getContext());
+                for (String part : parts)
+                {
+                    invalidateQueryResults(part);
+                }
                 return rs;
 
             }
@@ -21,9 +21,11 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +37,7 @@ public class BeanMapper<T> implements ResultSetMapper<T>
 {
     private final Class<T> type;
     private final Map<String, PropertyDescriptor> properties = new HashMap<String, PropertyDescriptor>();
+    private final ColumnPlans<ColumnPlan> plans = new ColumnPlans<ColumnPlan>();
 
     public BeanMapper(Class<T> type)
     {
@@ -65,47 +68,109 @@ public class BeanMapper<T> implements ResultSetMapper<T>
                                                              "which was not instantiable", type.getName()), e);
         }
 
+        final ColumnPlan plan = planFor(row, rs, ctx);
+
+        for (int c = 0; c < plan.columns.length; c++) {
+            final int i = plan.columns[c];
+            final ResultColumnMapper<?> mapper = plan.mappers[c];
+
+            Object value;
+            if (mapper != null) {
+                value = mapper.mapColumn(rs, i, ctx);
+            }
+            else {
+                value = rs.getObject(i);
+            }
+
+            try
+            {
+                plan.setters[c].invoke(bean, value);
+            }
+            catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format("Unable to access setter for " +
+                                                                 "property, %s", plan.names[c]), e);
+            }
+            catch (InvocationTargetException e) {
+                throw new IllegalArgumentException(String.format("Invocation target exception trying to " +
+                                                                 "invoker setter for the %s property", plan.names[c]), e);
+            }
+            catch (NullPointerException e) {
+                throw new IllegalArgumentException(String.format("No appropriate method to " +
+                                                                 "write property %s", plan.names[c]), e);
+            }
+        }
+
+        return bean;
+    }
+
+    /**
+     * The plan is computed from the metadata on the first row of a result set and reused for
+     * the following rows of the same result set.
+     */
+    private ColumnPlan planFor(int row, ResultSet rs, StatementContext ctx) throws SQLException
+    {
+        ColumnPlan plan = row > 0 ? plans.get(rs, ctx) : null;
+        if (plan != null) {
+            return plan;
+        }
+
         ResultSetMetaData metadata = rs.getMetaData();
+        int columnCount = metadata.getColumnCount();
+
+        int[] columns = new int[columnCount];
+        String[] names = new String[columnCount];
+        Method[] setters = new Method[columnCount];
+        ResultColumnMapper<?>[] mappers = new ResultColumnMapper<?>[columnCount];
+        int n = 0;
 
-        for (int i = 1; i <= metadata.getColumnCount(); ++i) {
+        for (int i = 1; i <= columnCount; ++i) {
             String name = metadata.getColumnLabel(i).toLowerCase();
 
             PropertyDescriptor descriptor = properties.get(name);
 
             if (descriptor != null) {
-                Class type = descriptor.getPropertyType();
-
-                Object value;
-                ResultColumnMapper mapper = ctx.columnMapperFor(type);
-                if (mapper != null) {
-                    value = mapper.mapColumn(rs, i, ctx);
-                }
-                else {
-                    value = rs.getObject(i);
-                }
-
-                try
-                {
-                    descriptor.getWriteMethod().invoke(bean, value);
-                }
-                catch (IllegalAccessException e) {
-                    throw new IllegalArgumentException(String.format("Unable to access setter for " +
-                                                                     "property, %s", name), e);
-                }
-                catch (InvocationTargetException e) {
-                    throw new IllegalArgumentException(String.format("Invocation target exception trying to " +
-                                                                     "invoker setter for the %s property", name), e);
-                }
-                catch (NullPointerException e) {
-                    throw new IllegalArgumentException(String.format("No appropriate method to " +
-                                                                     "write property %s", name), e);
-                }
-
+                columns[n] = i;
+                names[n] = name;
+                setters[n] = descriptor.getWriteMethod();
+                mappers[n] = ctx.columnMapperFor(descriptor.getPropertyType());
+                n++;
             }
         }
 
-        return bean;
+        plan = new ColumnPlan(Arrays.copyOf(columns, n), Arrays.copyOf(names, n),
+                              Arrays.copyOf(setters, n), Arrays.copyOf(mappers, n));
+        plans.put(rs, ctx, plan);
+        return plan;
     }
 
-}
+    private static final class ColumnPlan
+    {
+        private final int[] columns;
+        private final String[] names;
+        private final Method[] setters;
+        private final ResultColumnMapper<?>[] mappers;
+
+        ColumnPlan(int[] columns, String[] names, Method[] setters, ResultColumnMapper<?>[] mappers)
+        {
+            this.columns = columns;
+            this.names = names;
+            this.setters = setters;
+            this.mappers = mappers;
+        }
+    }
 
+    /**
+     * Two BeanMappers of the same bean type map rows identically, and are therefore equal.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        return o != null && o.getClass() == getClass() && type.equals(((BeanMapper<?>) o).type);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return type.hashCode();
+    }
+}
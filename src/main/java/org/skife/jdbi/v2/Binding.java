@@ -42,15 +42,14 @@ public class Binding
      * @return the bound Argument
      */
     public Argument forName(String name) {
-        if (named.containsKey(name)) {
-            return named.get(name);
+        final Argument argument = named.get(name);
+        if (argument != null || named.containsKey(name)) {
+            return argument;
         }
-        else {
-            for (NamedArgumentFinder arguments : namedArgumentFinder) {
-                Argument arg = arguments.find(name);
-                if (arg != null) {
-                    return arg;
-                }
+        for (int i = 0; i < namedArgumentFinder.size(); i++) {
+            Argument arg = namedArgumentFinder.get(i).find(name);
+            if (arg != null) {
+                return arg;
             }
         }
         return null;
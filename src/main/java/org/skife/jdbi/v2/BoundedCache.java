@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size bounded, strongly referenced, least recently used cache which is safe for
+ * concurrent use. Entries are spread over a number of independently locked segments
+ * so that readers on different keys do not contend on a single monitor.
+ * <p/>
+ * A maximum size of zero disables caching entirely.
+ */
+class BoundedCache<K, V>
+{
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    BoundedCache(int maxSize)
+    {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("cache size must be >= 0, was " + maxSize);
+        }
+        this.maxSize = maxSize;
+
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxSize) {
+            segmentCount <<= 1;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+
+        final int perSegment = (maxSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<K, V>(perSegment, evictions);
+        }
+    }
+
+    /**
+     * @return the cached value, or null if there is none
+     */
+    V get(K key)
+    {
+        final V value = segmentFor(key).get(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    void put(K key, V value)
+    {
+        if (maxSize > 0) {
+            segmentFor(key).put(key, value);
+        }
+    }
+
+    void remove(K key)
+    {
+        segmentFor(key).remove(key);
+    }
+
+    void clear()
+    {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    int size()
+    {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    CacheStats stats()
+    {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size(), maxSize);
+    }
+
+    private Segment<K, V> segmentFor(K key)
+    {
+        int h = key.hashCode();
+        // spread the high bits down, as the segment is picked from the low bits only
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return segments[h & segmentMask];
+    }
+
+    private static final class Segment<K, V>
+    {
+        private final LinkedHashMap<K, V> entries;
+
+        Segment(final int capacity, final AtomicLong evictions)
+        {
+            this.entries = new LinkedHashMap<K, V>(16, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+                {
+                    if (size() > capacity) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized V get(K key)
+        {
+            return entries.get(key);
+        }
+
+        synchronized void put(K key, V value)
+        {
+            entries.put(key, value);
+        }
+
+        synchronized void remove(K key)
+        {
+            entries.remove(key);
+        }
+
+        synchronized void clear()
+        {
+            entries.clear();
+        }
+
+        synchronized int size()
+        {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.StatementBuilder;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A StatementBuilder which decorates another StatementBuilder and keeps a bounded, least recently
+ * used pool of the prepared and callable statements it created for one connection.
+ * <p/>
+ * Statements are keyed on the SQL and on the options they were prepared with (callable or not,
+ * generated keys and their column names, concurrent updatable result sets). A statement is taken
+ * out of the pool while a SQLStatement uses it and put back, with its parameters and any
+ * customized settings reset, when that SQLStatement is cleaned up; two open queries on the same SQL
+ * therefore never share a statement. Statements falling out of the pool are closed.
+ *
+ * @see BoundedCachingStatementBuilderFactory
+ */
+public class BoundedCachingStatementBuilder implements StatementBuilder
+{
+    private final StatementBuilder builder;
+    private final int maxSize;
+    private final Counters counters;
+
+    private final Map<StatementKey, List<CachedStatement>> idle;
+    private final Map<Statement, CachedStatement> inUse = new IdentityHashMap<Statement, CachedStatement>();
+    private int idleCount = 0;
+
+    /**
+     * Create a new BoundedCachingStatementBuilder which decorates the one passed in.
+     *
+     * @param builder The StatementBuilder used to actually create statements
+     * @param maxSize The maximum number of idle statements to keep open
+     */
+    public BoundedCachingStatementBuilder(StatementBuilder builder, int maxSize)
+    {
+        this(builder, maxSize, new Counters());
+    }
+
+    BoundedCachingStatementBuilder(StatementBuilder builder, int maxSize, Counters counters)
+    {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("cache size must be >= 0, was " + maxSize);
+        }
+        this.builder = builder;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.idle = new LinkedHashMap<StatementKey, List<CachedStatement>>(16, 0.75f, true);
+    }
+
+    @Override
+    public PreparedStatement create(Connection conn, String sql, StatementContext ctx) throws SQLException
+    {
+        StatementKey key = StatementKey.forPrepare(sql, ctx);
+        PreparedStatement stmt = (PreparedStatement) checkOut(key);
+        if (stmt == null) {
+            stmt = builder.create(conn, sql, ctx);
+            register(conn, key, stmt);
+        }
+        return stmt;
+    }
+
+    @Override
+    public CallableStatement createCall(Connection conn, String sql, StatementContext ctx) throws SQLException
+    {
+        StatementKey key = StatementKey.forCall(sql);
+        CallableStatement stmt = (CallableStatement) checkOut(key);
+        if (stmt == null) {
+            stmt = builder.createCall(conn, sql, ctx);
+            register(conn, key, stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Returns the statement to the pool, or closes it through the decorated builder if it cannot
+     * be reused.
+     */
+    @Override
+    public void close(Connection conn, String sql, Statement stmt) throws SQLException
+    {
+        final CachedStatement cached;
+        synchronized (this) {
+            cached = inUse.remove(stmt);
+        }
+        if (cached == null) {
+            builder.close(conn, sql, stmt);
+            return;
+        }
+
+        if (maxSize == 0 || !cached.reset()) {
+            builder.close(conn, sql, stmt);
+            return;
+        }
+
+        final List<CachedStatement> evicted = new ArrayList<CachedStatement>();
+        synchronized (this) {
+            List<CachedStatement> statements = idle.get(cached.key);
+            if (statements == null) {
+                statements = new ArrayList<CachedStatement>(1);
+                idle.put(cached.key, statements);
+            }
+            statements.add(cached);
+            idleCount++;
+            counters.size.incrementAndGet();
+
+            while (idleCount > maxSize) {
+                evicted.add(removeEldest());
+            }
+        }
+
+        for (CachedStatement statement : evicted) {
+            counters.evictions.incrementAndGet();
+            closeQuietly(conn, statement);
+        }
+    }
+
+    /**
+     * Close all pooled statements.
+     */
+    @Override
+    public void close(Connection conn)
+    {
+        final List<CachedStatement> statements = new ArrayList<CachedStatement>();
+        synchronized (this) {
+            for (List<CachedStatement> list : idle.values()) {
+                statements.addAll(list);
+            }
+            idle.clear();
+            counters.size.addAndGet(-idleCount);
+            idleCount = 0;
+        }
+        for (CachedStatement statement : statements) {
+            closeQuietly(conn, statement);
+        }
+        builder.close(conn);
+    }
+
+    /**
+     * @return hit, miss and eviction counters for this connection's statement pool
+     */
+    public CacheStats getCacheStats()
+    {
+        synchronized (this) {
+            return counters.stats(idleCount, maxSize);
+        }
+    }
+
+    private synchronized Statement checkOut(StatementKey key)
+    {
+        List<CachedStatement> statements = idle.get(key);
+        if (statements == null) {
+            counters.misses.incrementAndGet();
+            return null;
+        }
+        CachedStatement cached = statements.remove(statements.size() - 1);
+        if (statements.isEmpty()) {
+            idle.remove(key);
+        }
+        idleCount--;
+        counters.size.decrementAndGet();
+        counters.hits.incrementAndGet();
+        inUse.put(cached.statement, cached);
+        return cached.statement;
+    }
+
+    private void register(Connection conn, StatementKey key, Statement stmt) throws SQLException
+    {
+        if (maxSize == 0) {
+            return;
+        }
+        final CachedStatement cached;
+        try {
+            cached = new CachedStatement(key, stmt);
+        }
+        catch (SQLException e) {
+            builder.close(conn, key.sql, stmt);
+            throw e;
+        }
+        synchronized (this) {
+            inUse.put(stmt, cached);
+        }
+    }
+
+    private CachedStatement removeEldest()
+    {
+        Map.Entry<StatementKey, List<CachedStatement>> eldest = idle.entrySet().iterator().next();
+        List<CachedStatement> statements = eldest.getValue();
+        CachedStatement statement = statements.remove(0);
+        if (statements.isEmpty()) {
+            idle.remove(eldest.getKey());
+        }
+        idleCount--;
+        counters.size.decrementAndGet();
+        return statement;
+    }
+
+    @SuppressWarnings("PMD.EmptyCatchBlock")
+    private void closeQuietly(Connection conn, CachedStatement cached)
+    {
+        try {
+            builder.close(conn, cached.key.sql, cached.statement);
+        }
+        catch (SQLException e) {
+            // nothing we can do!
+        }
+    }
+
+    /**
+     * Counters shared by all builders created from one factory.
+     */
+    static final class Counters
+    {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicInteger size = new AtomicInteger();
+
+        CacheStats stats(int size, int maxSize)
+        {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), size, maxSize);
+        }
+    }
+
+    /**
+     * A pooled statement, remembering the settings it was created with so that changes made by
+     * statement customizers can be undone before it is reused.
+     */
+    private static final class CachedStatement
+    {
+        private final StatementKey key;
+        private final Statement statement;
+        private final int maxRows;
+        private final int fetchSize;
+        private final int queryTimeout;
+        private final int maxFieldSize;
+        private final int fetchDirection;
+
+        CachedStatement(StatementKey key, Statement statement) throws SQLException
+        {
+            this.key = key;
+            this.statement = statement;
+            this.maxRows = statement.getMaxRows();
+            this.fetchSize = statement.getFetchSize();
+            this.queryTimeout = statement.getQueryTimeout();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.fetchDirection = statement.getFetchDirection();
+        }
+
+        /**
+         * @return true if the statement is fit for reuse
+         */
+        boolean reset()
+        {
+            try {
+                if (statement.isClosed()) {
+                    return false;
+                }
+                ((PreparedStatement) statement).clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                if (statement.getMaxRows() != maxRows) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (statement.getFetchSize() != fetchSize) {
+                    statement.setFetchSize(fetchSize);
+                }
+                if (statement.getQueryTimeout() != queryTimeout) {
+                    statement.setQueryTimeout(queryTimeout);
+                }
+                if (statement.getMaxFieldSize() != maxFieldSize) {
+                    statement.setMaxFieldSize(maxFieldSize);
+                }
+                if (statement.getFetchDirection() != fetchDirection) {
+                    statement.setFetchDirection(fetchDirection);
+                }
+                return true;
+            }
+            catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    private static final class StatementKey
+    {
+        private static final int PREPARE = 0;
+        private static final int PREPARE_GENERATED_KEYS = 1;
+        private static final int PREPARE_CONCURRENT_UPDATABLE = 2;
+        private static final int CALL = 3;
+
+        private final String sql;
+        private final int kind;
+        private final String[] generatedKeysColumnNames;
+        private final int hashCode;
+
+        private StatementKey(String sql, int kind, String[] generatedKeysColumnNames)
+        {
+            this.sql = sql;
+            this.kind = kind;
+            this.generatedKeysColumnNames = generatedKeysColumnNames;
+            this.hashCode = 31 * (31 * sql.hashCode() + kind) + Arrays.hashCode(generatedKeysColumnNames);
+        }
+
+        static StatementKey forPrepare(String sql, StatementContext ctx)
+        {
+            if (ctx.isReturningGeneratedKeys()) {
+                String[] columnNames = ctx.getGeneratedKeysColumnNames();
+                if (columnNames != null && columnNames.length == 0) {
+                    columnNames = null;
+                }
+                return new StatementKey(sql, PREPARE_GENERATED_KEYS, columnNames);
+            }
+            else if (ctx.isConcurrentUpdatable()) {
+                return new StatementKey(sql, PREPARE_CONCURRENT_UPDATABLE, null);
+            }
+            return new StatementKey(sql, PREPARE, null);
+        }
+
+        static StatementKey forCall(String sql)
+        {
+            return new StatementKey(sql, CALL, null);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return hashCode == that.hashCode
+                   && kind == that.kind
+                   && sql.equals(that.sql)
+                   && Arrays.equals(generatedKeysColumnNames, that.generatedKeysColumnNames);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
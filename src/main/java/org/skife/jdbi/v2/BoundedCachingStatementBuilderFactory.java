@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.StatementBuilder;
+import org.skife.jdbi.v2.tweak.StatementBuilderFactory;
+
+import java.sql.Connection;
+
+/**
+ * Provides StatementBuilder instances which keep a bounded, least recently used pool of prepared
+ * statements for each handle. Install it with {@link DBI#setStatementBuilderFactory(StatementBuilderFactory)}.
+ *
+ * @see BoundedCachingStatementBuilder
+ */
+public class BoundedCachingStatementBuilderFactory implements StatementBuilderFactory
+{
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private final int maxSize;
+    private final BoundedCachingStatementBuilder.Counters counters = new BoundedCachingStatementBuilder.Counters();
+
+    public BoundedCachingStatementBuilderFactory()
+    {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of idle statements kept open per connection
+     */
+    public BoundedCachingStatementBuilderFactory(int maxSize)
+    {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("cache size must be >= 0, was " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public StatementBuilder createStatementBuilder(Connection conn)
+    {
+        return new BoundedCachingStatementBuilder(new DefaultStatementBuilder(), maxSize, counters);
+    }
+
+    /**
+     * @return counters summed over every builder this factory created; the size is the number of
+     *         idle statements currently pooled across all open handles
+     */
+    public CacheStats getCacheStats()
+    {
+        return counters.stats(counters.size.get(), maxSize);
+    }
+}
@@ -0,0 +1,1591 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rows of a result set copied out of it, read through a read only {@link ResultSet} which lets
+ * ResultSetMappers map those rows on other threads. Each thread positions the shared ResultSet on
+ * a row of its own; the ResultSet stays the same instance for all rows, so mappers which plan
+ * their work once per result set keep doing so.
+ * <p/>
+ * Values are read with <code>getObject</code>, lobs are copied into byte arrays and strings. The
+ * typed getters convert from those values the way drivers commonly do, and throw an SQLException
+ * for values they cannot convert, such as a byte array read as a string. Dates and times asked for
+ * with a calendar are read as the same wall clock time in the time zone of the calendar, as
+ * drivers do. Only the getters for single values, <code>wasNull</code>,
+ * <code>findColumn</code>, <code>getRow</code> and <code>getMetaData</code> are supported, every
+ * other method throws {@link SQLFeatureNotSupportedException}.
+ */
+final class BufferedResultSet implements ResultSet
+{
+    private final int columnCount;
+    private final Map<String, Integer> positions;
+    private final Metadata metadata;
+    private final ThreadLocal<Cursor> cursor = new ThreadLocal<Cursor>()
+    {
+        @Override
+        protected Cursor initialValue()
+        {
+            return new Cursor();
+        }
+    };
+
+    BufferedResultSet(ResultSetMetaData source) throws SQLException
+    {
+        this.metadata = new Metadata(source);
+        this.columnCount = metadata.labels.length;
+        this.positions = new HashMap<String, Integer>(columnCount * 2);
+        for (int i = columnCount - 1; i >= 0; i--) {
+            positions.put(metadata.labels[i].toLowerCase(), i + 1);
+        }
+    }
+
+    /**
+     * Copies the values of the current row of the given result set.
+     */
+    Object[] read(ResultSet rs) throws SQLException
+    {
+        Object[] row = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            Object value = rs.getObject(i + 1);
+            if (value instanceof Blob) {
+                Blob blob = (Blob) value;
+                value = blob.getBytes(1, (int) blob.length());
+            }
+            else if (value instanceof Clob) {
+                Clob clob = (Clob) value;
+                value = clob.getSubString(1, (int) clob.length());
+            }
+            row[i] = value;
+        }
+        return row;
+    }
+
+    /**
+     * Positions the ResultSet, for the calling thread only, on the given row.
+     */
+    void position(int rowNumber, Object[] row)
+    {
+        Cursor cursor = this.cursor.get();
+        cursor.rowNumber = rowNumber;
+        cursor.row = row;
+        cursor.wasNull = false;
+    }
+
+    /**
+     * Forgets the position of the calling thread, so that a pooled thread does not keep its last
+     * row alive.
+     */
+    void release()
+    {
+        cursor.remove();
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException
+    {
+        return value(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value instanceof byte[]) {
+            throw cannotConvert(value, "String");
+        }
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException
+    {
+        return getString(columnIndex);
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        String s = value.toString().trim();
+        return s.equalsIgnoreCase("true") || s.equals("1");
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        return value == null ? 0 : number(value).byteValue();
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        return value == null ? 0 : number(value).shortValue();
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        return value == null ? 0 : number(value).intValue();
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        return value == null ? 0 : number(value).longValue();
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        return value == null ? 0 : number(value).floatValue();
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        return value == null ? 0 : number(value).doubleValue();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(number(value).toString());
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException
+    {
+        BigDecimal value = getBigDecimal(columnIndex);
+        return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        throw cannotConvert(value, "byte[]");
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof java.util.Date) {
+            return new Date(((java.util.Date) value).getTime());
+        }
+        throw cannotConvert(value, "Date");
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException
+    {
+        Date value = getDate(columnIndex);
+        return value == null || cal == null ? value : new Date(inZone(value, cal));
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof Time) {
+            return (Time) value;
+        }
+        if (value instanceof java.util.Date) {
+            return new Time(((java.util.Date) value).getTime());
+        }
+        throw cannotConvert(value, "Time");
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException
+    {
+        Time value = getTime(columnIndex);
+        return value == null || cal == null ? value : new Time(inZone(value, cal));
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException
+    {
+        Object value = value(columnIndex);
+        if (value == null || value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        if (value instanceof java.util.Date) {
+            return new Timestamp(((java.util.Date) value).getTime());
+        }
+        throw cannotConvert(value, "Timestamp");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException
+    {
+        Timestamp value = getTimestamp(columnIndex);
+        if (value == null || cal == null) {
+            return value;
+        }
+        Timestamp result = new Timestamp(inZone(value, cal));
+        result.setNanos(value.getNanos());
+        return result;
+    }
+
+    /**
+     * The values were read in the default time zone, as <code>getObject</code> does; like a
+     * driver, read the same date and time of day in the time zone of the given calendar instead.
+     */
+    private static long inZone(java.util.Date value, Calendar cal)
+    {
+        Calendar local = Calendar.getInstance();
+        local.setTime(value);
+        Calendar target = (Calendar) cal.clone();
+        target.clear();
+        for (int field : new int[] {Calendar.ERA, Calendar.YEAR, Calendar.MONTH, Calendar.DAY_OF_MONTH,
+                                    Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND, Calendar.MILLISECOND}) {
+            target.set(field, local.get(field));
+        }
+        return target.getTimeInMillis();
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException
+    {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException
+    {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException
+    {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException
+    {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException
+    {
+        return getByte(findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException
+    {
+        return getShort(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException
+    {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException
+    {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException
+    {
+        return getFloat(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException
+    {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException
+    {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException
+    {
+        return getBigDecimal(findColumn(columnLabel), scale);
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException
+    {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException
+    {
+        return getDate(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException
+    {
+        return getDate(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException
+    {
+        return getTime(findColumn(columnLabel));
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException
+    {
+        return getTime(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException
+    {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException
+    {
+        return getTimestamp(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException
+    {
+        return cursor.get().wasNull;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException
+    {
+        Integer position = positions.get(columnLabel.toLowerCase());
+        if (position == null) {
+            throw new SQLException("Column not found: " + columnLabel);
+        }
+        return position;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException
+    {
+        return metadata;
+    }
+
+    @Override
+    public int getRow() throws SQLException
+    {
+        return cursor.get().rowNumber + 1;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException
+    {
+        return false;
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException
+    {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException
+    {
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException
+    {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException
+    {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BufferedResultSet";
+    }
+
+    private Object value(int columnIndex) throws SQLException
+    {
+        if (columnIndex < 1 || columnIndex > columnCount) {
+            throw new SQLException("Column index out of range: " + columnIndex);
+        }
+        Cursor cursor = this.cursor.get();
+        if (cursor.row == null) {
+            throw new SQLException("Not positioned on a row");
+        }
+        Object value = cursor.row[columnIndex - 1];
+        cursor.wasNull = value == null;
+        return value;
+    }
+
+    private static Number number(Object value) throws SQLException
+    {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof byte[]) {
+            throw cannotConvert(value, "a number");
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        }
+        catch (NumberFormatException e) {
+            throw new SQLException("Cannot convert " + value + " to a number", e);
+        }
+    }
+
+    private static SQLException cannotConvert(Object value, String type)
+    {
+        return new SQLException(String.format("Cannot convert %s to %s", value.getClass().getName(), type));
+    }
+
+    private static SQLFeatureNotSupportedException unsupported(String method)
+    {
+        return new SQLFeatureNotSupportedException(method + " is not supported on buffered rows");
+    }
+
+    @Override
+    public boolean next() throws SQLException
+    {
+        throw unsupported("next");
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException
+    {
+        throw unsupported("getAsciiStream");
+    }
+
+    @Override
+    @Deprecated
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException
+    {
+        throw unsupported("getUnicodeStream");
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException
+    {
+        throw unsupported("getBinaryStream");
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException
+    {
+        throw unsupported("getAsciiStream");
+    }
+
+    @Override
+    @Deprecated
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException
+    {
+        throw unsupported("getUnicodeStream");
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException
+    {
+        throw unsupported("getBinaryStream");
+    }
+
+    @Override
+    public String getCursorName() throws SQLException
+    {
+        throw unsupported("getCursorName");
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException
+    {
+        throw unsupported("getCharacterStream");
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException
+    {
+        throw unsupported("getCharacterStream");
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException
+    {
+        throw unsupported("isBeforeFirst");
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException
+    {
+        throw unsupported("isAfterLast");
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException
+    {
+        throw unsupported("isFirst");
+    }
+
+    @Override
+    public boolean isLast() throws SQLException
+    {
+        throw unsupported("isLast");
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException
+    {
+        throw unsupported("beforeFirst");
+    }
+
+    @Override
+    public void afterLast() throws SQLException
+    {
+        throw unsupported("afterLast");
+    }
+
+    @Override
+    public boolean first() throws SQLException
+    {
+        throw unsupported("first");
+    }
+
+    @Override
+    public boolean last() throws SQLException
+    {
+        throw unsupported("last");
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException
+    {
+        throw unsupported("absolute");
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException
+    {
+        throw unsupported("relative");
+    }
+
+    @Override
+    public boolean previous() throws SQLException
+    {
+        throw unsupported("previous");
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException
+    {
+        throw unsupported("setFetchDirection");
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException
+    {
+        throw unsupported("getFetchDirection");
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException
+    {
+        throw unsupported("setFetchSize");
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException
+    {
+        throw unsupported("getFetchSize");
+    }
+
+    @Override
+    public int getType() throws SQLException
+    {
+        throw unsupported("getType");
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException
+    {
+        throw unsupported("getConcurrency");
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException
+    {
+        throw unsupported("rowUpdated");
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException
+    {
+        throw unsupported("rowInserted");
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException
+    {
+        throw unsupported("rowDeleted");
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException
+    {
+        throw unsupported("updateNull");
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException
+    {
+        throw unsupported("updateBoolean");
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException
+    {
+        throw unsupported("updateByte");
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException
+    {
+        throw unsupported("updateShort");
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException
+    {
+        throw unsupported("updateInt");
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException
+    {
+        throw unsupported("updateLong");
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException
+    {
+        throw unsupported("updateFloat");
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException
+    {
+        throw unsupported("updateDouble");
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException
+    {
+        throw unsupported("updateBigDecimal");
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException
+    {
+        throw unsupported("updateString");
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException
+    {
+        throw unsupported("updateBytes");
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException
+    {
+        throw unsupported("updateDate");
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException
+    {
+        throw unsupported("updateTime");
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException
+    {
+        throw unsupported("updateTimestamp");
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException
+    {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException
+    {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException
+    {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException
+    {
+        throw unsupported("updateNull");
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException
+    {
+        throw unsupported("updateBoolean");
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException
+    {
+        throw unsupported("updateByte");
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException
+    {
+        throw unsupported("updateShort");
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException
+    {
+        throw unsupported("updateInt");
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException
+    {
+        throw unsupported("updateLong");
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException
+    {
+        throw unsupported("updateFloat");
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException
+    {
+        throw unsupported("updateDouble");
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException
+    {
+        throw unsupported("updateBigDecimal");
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException
+    {
+        throw unsupported("updateString");
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException
+    {
+        throw unsupported("updateBytes");
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException
+    {
+        throw unsupported("updateDate");
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException
+    {
+        throw unsupported("updateTime");
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException
+    {
+        throw unsupported("updateTimestamp");
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x, int length) throws SQLException
+    {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException
+    {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException
+    {
+        throw unsupported("updateObject");
+    }
+
+    @Override
+    public void insertRow() throws SQLException
+    {
+        throw unsupported("insertRow");
+    }
+
+    @Override
+    public void updateRow() throws SQLException
+    {
+        throw unsupported("updateRow");
+    }
+
+    @Override
+    public void deleteRow() throws SQLException
+    {
+        throw unsupported("deleteRow");
+    }
+
+    @Override
+    public void refreshRow() throws SQLException
+    {
+        throw unsupported("refreshRow");
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException
+    {
+        throw unsupported("cancelRowUpdates");
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException
+    {
+        throw unsupported("moveToInsertRow");
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException
+    {
+        throw unsupported("moveToCurrentRow");
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException
+    {
+        throw unsupported("getStatement");
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException
+    {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException
+    {
+        throw unsupported("getRef");
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException
+    {
+        throw unsupported("getBlob");
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException
+    {
+        throw unsupported("getClob");
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException
+    {
+        throw unsupported("getArray");
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException
+    {
+        throw unsupported("getObject");
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException
+    {
+        throw unsupported("getRef");
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException
+    {
+        throw unsupported("getBlob");
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException
+    {
+        throw unsupported("getClob");
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException
+    {
+        throw unsupported("getArray");
+    }
+
+    @Override
+    public URL getURL(int columnIndex) throws SQLException
+    {
+        throw unsupported("getURL");
+    }
+
+    @Override
+    public URL getURL(String columnLabel) throws SQLException
+    {
+        throw unsupported("getURL");
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException
+    {
+        throw unsupported("updateRef");
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException
+    {
+        throw unsupported("updateRef");
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException
+    {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException
+    {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException
+    {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException
+    {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException
+    {
+        throw unsupported("updateArray");
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException
+    {
+        throw unsupported("updateArray");
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException
+    {
+        throw unsupported("getRowId");
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException
+    {
+        throw unsupported("getRowId");
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException
+    {
+        throw unsupported("updateRowId");
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException
+    {
+        throw unsupported("updateRowId");
+    }
+
+    @Override
+    public int getHoldability() throws SQLException
+    {
+        throw unsupported("getHoldability");
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String x) throws SQLException
+    {
+        throw unsupported("updateNString");
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String x) throws SQLException
+    {
+        throw unsupported("updateNString");
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob x) throws SQLException
+    {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob x) throws SQLException
+    {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException
+    {
+        throw unsupported("getNClob");
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException
+    {
+        throw unsupported("getNClob");
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException
+    {
+        throw unsupported("getSQLXML");
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException
+    {
+        throw unsupported("getSQLXML");
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException
+    {
+        throw unsupported("updateSQLXML");
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException
+    {
+        throw unsupported("updateSQLXML");
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException
+    {
+        throw unsupported("getNCharacterStream");
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException
+    {
+        throw unsupported("getNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader x, long length) throws SQLException
+    {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException
+    {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader x) throws SQLException
+    {
+        throw unsupported("updateNCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException
+    {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException
+    {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException
+    {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException
+    {
+        throw unsupported("updateAsciiStream");
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException
+    {
+        throw unsupported("updateBinaryStream");
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader x) throws SQLException
+    {
+        throw unsupported("updateCharacterStream");
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream x) throws SQLException
+    {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream x) throws SQLException
+    {
+        throw unsupported("updateBlob");
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader x) throws SQLException
+    {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader x) throws SQLException
+    {
+        throw unsupported("updateClob");
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader x) throws SQLException
+    {
+        throw unsupported("updateNClob");
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader x) throws SQLException
+    {
+        throw unsupported("updateNClob");
+    }
+
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException
+    {
+        throw unsupported("getObject");
+    }
+
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException
+    {
+        throw unsupported("getObject");
+    }
+
+    private static final class Cursor
+    {
+        private int rowNumber;
+        private Object[] row;
+        private boolean wasNull;
+    }
+
+    /**
+     * A detached copy of the metadata of the result set the rows were read from.
+     */
+    private static final class Metadata implements ResultSetMetaData
+    {
+        private final String[] labels;
+        private final String[] names;
+        private final int[] types;
+        private final String[] typeNames;
+        private final String[] classNames;
+
+        Metadata(ResultSetMetaData source) throws SQLException
+        {
+            int count = source.getColumnCount();
+            labels = new String[count];
+            names = new String[count];
+            types = new int[count];
+            typeNames = new String[count];
+            classNames = new String[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = source.getColumnName(i + 1);
+                labels[i] = source.getColumnLabel(i + 1);
+                if (labels[i] == null) {
+                    labels[i] = names[i];
+                }
+                types[i] = source.getColumnType(i + 1);
+                typeNames[i] = source.getColumnTypeName(i + 1);
+                classNames[i] = source.getColumnClassName(i + 1);
+            }
+        }
+
+        @Override
+        public int getColumnCount() throws SQLException
+        {
+            return labels.length;
+        }
+
+        @Override
+        public String getColumnLabel(int column) throws SQLException
+        {
+            return labels[index(column)];
+        }
+
+        @Override
+        public String getColumnName(int column) throws SQLException
+        {
+            return names[index(column)];
+        }
+
+        @Override
+        public int getColumnType(int column) throws SQLException
+        {
+            return types[index(column)];
+        }
+
+        @Override
+        public String getColumnTypeName(int column) throws SQLException
+        {
+            return typeNames[index(column)];
+        }
+
+        @Override
+        public String getColumnClassName(int column) throws SQLException
+        {
+            return classNames[index(column)];
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException
+        {
+            if (iface.isInstance(this)) {
+                return iface.cast(this);
+            }
+            throw new SQLException("Not a wrapper for " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException
+        {
+            return iface.isInstance(this);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "BufferedResultSetMetaData";
+        }
+
+        private int index(int column) throws SQLException
+        {
+            if (column < 1 || column > labels.length) {
+                throw new SQLException("Column index out of range: " + column);
+            }
+            return column - 1;
+        }
+
+        @Override
+        public boolean isAutoIncrement(int column) throws SQLException
+        {
+            throw unsupported("isAutoIncrement");
+        }
+
+        @Override
+        public boolean isCaseSensitive(int column) throws SQLException
+        {
+            throw unsupported("isCaseSensitive");
+        }
+
+        @Override
+        public boolean isSearchable(int column) throws SQLException
+        {
+            throw unsupported("isSearchable");
+        }
+
+        @Override
+        public boolean isCurrency(int column) throws SQLException
+        {
+            throw unsupported("isCurrency");
+        }
+
+        @Override
+        public int isNullable(int column) throws SQLException
+        {
+            throw unsupported("isNullable");
+        }
+
+        @Override
+        public boolean isSigned(int column) throws SQLException
+        {
+            throw unsupported("isSigned");
+        }
+
+        @Override
+        public int getColumnDisplaySize(int column) throws SQLException
+        {
+            throw unsupported("getColumnDisplaySize");
+        }
+
+        @Override
+        public String getSchemaName(int column) throws SQLException
+        {
+            throw unsupported("getSchemaName");
+        }
+
+        @Override
+        public int getPrecision(int column) throws SQLException
+        {
+            throw unsupported("getPrecision");
+        }
+
+        @Override
+        public int getScale(int column) throws SQLException
+        {
+            throw unsupported("getScale");
+        }
+
+        @Override
+        public String getTableName(int column) throws SQLException
+        {
+            throw unsupported("getTableName");
+        }
+
+        @Override
+        public String getCatalogName(int column) throws SQLException
+        {
+            throw unsupported("getCatalogName");
+        }
+
+        @Override
+        public boolean isReadOnly(int column) throws SQLException
+        {
+            throw unsupported("isReadOnly");
+        }
+
+        @Override
+        public boolean isWritable(int column) throws SQLException
+        {
+            throw unsupported("isWritable");
+        }
+
+        @Override
+        public boolean isDefinitelyWritable(int column) throws SQLException
+        {
+            throw unsupported("isDefinitelyWritable");
+        }
+    }
+}
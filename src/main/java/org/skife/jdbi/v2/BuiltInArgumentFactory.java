@@ -14,7 +14,7 @@
 package org.skife.jdbi.v2;
 
 import org.skife.jdbi.v2.tweak.Argument;
-import org.skife.jdbi.v2.tweak.ArgumentFactory;
+import org.skife.jdbi.v2.tweak.TypeStableArgumentFactory;
 
 import java.lang.reflect.Constructor;
 import java.math.BigDecimal;
@@ -26,7 +26,7 @@ import java.sql.Timestamp;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
-public final class BuiltInArgumentFactory implements ArgumentFactory
+public final class BuiltInArgumentFactory implements TypeStableArgumentFactory<Object>
 {
     private static final Map<Class, P> b = new IdentityHashMap<Class, P>();
 
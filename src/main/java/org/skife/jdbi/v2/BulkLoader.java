@@ -0,0 +1,513 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads rows with a prepared batch statement on several handles at once. The calling thread
+ * reads the rows and cuts them into chunks, which worker threads, each with its own handle and
+ * prepared batch, take from a bounded queue and execute. Reading blocks while the queue is full,
+ * so no more than a few chunks are held in memory however many rows there are.
+ * <p/>
+ * A chunk which fails does not stop the load: by default every chunk runs in its own
+ * transaction, so a failed chunk leaves nothing behind, and the failures are reported in the
+ * {@link Result} together with the aggregated update counts. Chunks complete in no particular
+ * order. The prepared statement of a worker is only reused from one chunk to the next when the
+ * {@link DBI} pools statements, see {@link BoundedCachingStatementBuilderFactory}.
+ *
+ * @see DBI#bulkLoader(String, RowBinder)
+ */
+public class BulkLoader<T>
+{
+    private final DBI dbi;
+    private final String sql;
+    private final RowBinder<? super T> binder;
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = 1000;
+    private int queueCapacity = 0;
+    private boolean transactional = true;
+
+    BulkLoader(DBI dbi, String sql, RowBinder<? super T> binder)
+    {
+        this.dbi = dbi;
+        this.sql = sql;
+        this.binder = binder;
+    }
+
+    /**
+     * The number of handles to load with concurrently, defaults to the number of processors
+     *
+     * @return this
+     */
+    public BulkLoader<T> workers(int workers)
+    {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be > 0, was " + workers);
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * The number of rows executed as one batch, defaults to 1000
+     *
+     * @return this
+     */
+    public BulkLoader<T> chunkSize(int rows)
+    {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("chunk size must be > 0, was " + rows);
+        }
+        this.chunkSize = rows;
+        return this;
+    }
+
+    /**
+     * The number of chunks waiting for a worker before reading rows blocks, defaults to twice the
+     * number of workers
+     *
+     * @return this
+     */
+    public BulkLoader<T> queueCapacity(int chunks)
+    {
+        if (chunks <= 0) {
+            throw new IllegalArgumentException("queue capacity must be > 0, was " + chunks);
+        }
+        this.queueCapacity = chunks;
+        return this;
+    }
+
+    /**
+     * Whether each chunk is executed in a transaction of its own, the default, or in auto commit
+     * mode, in which case a failed chunk may be partially loaded
+     *
+     * @return this
+     */
+    public BulkLoader<T> transactional(boolean transactional)
+    {
+        this.transactional = transactional;
+        return this;
+    }
+
+    public Result load(Iterable<? extends T> rows)
+    {
+        return load(rows.iterator());
+    }
+
+    /**
+     * Load all rows, returning once every chunk has been executed. An exception thrown by the
+     * iterator stops the load, chunks not yet taken by a worker are dropped, and the exception is
+     * rethrown once the workers have finished. An error thrown while loading a chunk, rather than
+     * an exception, ends its worker and stops the load in the same way.
+     *
+     * @throws org.skife.jdbi.v2.exceptions.UnableToObtainConnectionException if the handles
+     *         cannot be opened, in which case nothing is loaded
+     */
+    public Result load(Iterator<? extends T> rows)
+    {
+        final List<Handle> handles = new ArrayList<Handle>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                handles.add(dbi.open());
+            }
+        }
+        catch (RuntimeException e) {
+            for (Handle handle : handles) {
+                handle.close();
+            }
+            throw e;
+        }
+
+        final BlockingQueue<Chunk<T>> queue =
+            new ArrayBlockingQueue<Chunk<T>>(queueCapacity > 0 ? queueCapacity : 2 * workers);
+        final List<Worker<T>> running = new ArrayList<Worker<T>>(workers);
+        final List<Thread> threads = new ArrayList<Thread>(workers);
+        for (int i = 0; i < workers; i++) {
+            Worker<T> worker = new Worker<T>(handles.get(i), sql, binder, transactional, queue);
+            Thread thread = new Thread(worker, "jdbi-bulk-loader-" + i);
+            thread.setDaemon(true);
+            running.add(worker);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        boolean complete = false;
+        long rowCount = 0;
+        int chunkCount = 0;
+        try {
+            while (rows.hasNext() && failure(running) == null) {
+                List<T> chunk = new ArrayList<T>(chunkSize);
+                while (chunk.size() < chunkSize && rows.hasNext()) {
+                    chunk.add(rows.next());
+                }
+                if (!enqueue(queue, new Chunk<T>(chunkCount++, rowCount, chunk), threads)) {
+                    break;
+                }
+                rowCount += chunk.size();
+            }
+            complete = failure(running) == null;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnableToExecuteStatementException("Interrupted while loading rows", e,
+                                                        (StatementContext) null);
+        }
+        finally {
+            if (!complete) {
+                queue.clear();
+            }
+            stop(queue, threads);
+            for (Handle handle : handles) {
+                handle.close();
+            }
+        }
+
+        Throwable failure = failure(running);
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        else if (failure != null) {
+            throw new UnableToExecuteStatementException("Bulk load worker failed", failure,
+                                                        (StatementContext) null);
+        }
+
+        long updateCount = 0;
+        List<ChunkFailure> failures = new ArrayList<ChunkFailure>();
+        for (Worker<T> worker : running) {
+            updateCount += worker.updateCount;
+            failures.addAll(worker.failures);
+        }
+        Collections.sort(failures, new Comparator<ChunkFailure>()
+        {
+            @Override
+            public int compare(ChunkFailure a, ChunkFailure b)
+            {
+                return a.chunk < b.chunk ? -1 : (a.chunk == b.chunk ? 0 : 1);
+            }
+        });
+        return new Result(rowCount, chunkCount, updateCount, failures);
+    }
+
+    /**
+     * The error which ended a worker, if any did
+     */
+    private static <T> Throwable failure(List<Worker<T>> running)
+    {
+        for (Worker<T> worker : running) {
+            if (worker.failure != null) {
+                return worker.failure;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queues a chunk, waiting for room as long as a worker is left to make it
+     *
+     * @return false if every worker has ended, in which case the chunk is not queued
+     */
+    private static <T> boolean enqueue(BlockingQueue<Chunk<T>> queue, Chunk<T> chunk, List<Thread> threads)
+        throws InterruptedException
+    {
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (!anyAlive(threads)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean anyAlive(List<Thread> threads)
+    {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends every worker and waits for them, even if this thread is interrupted meanwhile.
+     */
+    private static <T> void stop(BlockingQueue<Chunk<T>> queue, List<Thread> threads)
+    {
+        boolean interrupted = false;
+        int stopped = 0;
+        while (stopped < threads.size()) {
+            try {
+                if (!enqueue(queue, Chunk.<T>end(), threads)) {
+                    break;
+                }
+                stopped++;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Binds one row to a part of the batch
+     */
+    public interface RowBinder<T>
+    {
+        void bind(PreparedBatchPart part, T row);
+    }
+
+    /**
+     * The outcome of a load
+     */
+    public static final class Result
+    {
+        private final long rowCount;
+        private final int chunkCount;
+        private final long updateCount;
+        private final List<ChunkFailure> failures;
+
+        Result(long rowCount, int chunkCount, long updateCount, List<ChunkFailure> failures)
+        {
+            this.rowCount = rowCount;
+            this.chunkCount = chunkCount;
+            this.updateCount = updateCount;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * The number of rows read
+         */
+        public long getRowCount()
+        {
+            return rowCount;
+        }
+
+        /**
+         * The number of chunks the rows were cut into
+         */
+        public int getChunkCount()
+        {
+            return chunkCount;
+        }
+
+        /**
+         * The total of the update counts of the chunks which succeeded, leaving out parts for which
+         * the driver reported no count
+         */
+        public long getUpdateCount()
+        {
+            return updateCount;
+        }
+
+        /**
+         * The chunks which failed, in the order they were read
+         */
+        public List<ChunkFailure> getFailures()
+        {
+            return failures;
+        }
+
+        public boolean isSuccessful()
+        {
+            return failures.isEmpty();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("BulkLoader.Result{rows=%d, chunks=%d, updateCount=%d, failures=%d}",
+                                 rowCount, chunkCount, updateCount, failures.size());
+        }
+    }
+
+    /**
+     * A chunk which failed to load
+     */
+    public static final class ChunkFailure
+    {
+        private final int chunk;
+        private final long firstRow;
+        private final int rowCount;
+        private final Exception exception;
+
+        ChunkFailure(int chunk, long firstRow, int rowCount, Exception exception)
+        {
+            this.chunk = chunk;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.exception = exception;
+        }
+
+        /**
+         * The index of the chunk, counting from zero
+         */
+        public int getChunk()
+        {
+            return chunk;
+        }
+
+        /**
+         * The index of the first row of the chunk among all rows read, counting from zero
+         */
+        public long getFirstRow()
+        {
+            return firstRow;
+        }
+
+        public int getRowCount()
+        {
+            return rowCount;
+        }
+
+        public Exception getException()
+        {
+            return exception;
+        }
+    }
+
+    private static final class Chunk<T>
+    {
+        private static final Chunk<Object> END = new Chunk<Object>(-1, -1, Collections.emptyList());
+
+        private final int index;
+        private final long firstRow;
+        private final List<T> rows;
+
+        Chunk(int index, long firstRow, List<T> rows)
+        {
+            this.index = index;
+            this.firstRow = firstRow;
+            this.rows = rows;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Chunk<T> end()
+        {
+            return (Chunk<T>) END;
+        }
+    }
+
+    private static final class Worker<T> implements Runnable
+    {
+        private final Handle handle;
+        private final String sql;
+        private final RowBinder<? super T> binder;
+        private final boolean transactional;
+        private final BlockingQueue<Chunk<T>> queue;
+
+        // read by the loading thread after joining this worker's thread
+        private long updateCount = 0;
+        private final List<ChunkFailure> failures = new ArrayList<ChunkFailure>();
+
+        // an error which ended this worker, read while it may still be running
+        private volatile Throwable failure;
+
+        private PreparedBatch batch;
+
+        Worker(Handle handle, String sql, RowBinder<? super T> binder, boolean transactional,
+               BlockingQueue<Chunk<T>> queue)
+        {
+            this.handle = handle;
+            this.sql = sql;
+            this.binder = binder;
+            this.transactional = transactional;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run()
+        {
+            while (true) {
+                final Chunk<T> chunk;
+                try {
+                    chunk = queue.take();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                if (chunk == Chunk.END) {
+                    return;
+                }
+
+                try {
+                    final int[] counts;
+                    if (transactional) {
+                        counts = handle.inTransaction(new TransactionCallback<int[]>()
+                        {
+                            @Override
+                            public int[] inTransaction(Handle conn, TransactionStatus status)
+                            {
+                                return execute(chunk);
+                            }
+                        });
+                    }
+                    else {
+                        counts = execute(chunk);
+                    }
+                    for (int count : counts) {
+                        if (count > 0) {
+                            updateCount += count;
+                        }
+                    }
+                }
+                catch (Exception e) {
+                    // parts bound before the failure would otherwise stay in the batch
+                    batch = null;
+                    failures.add(new ChunkFailure(chunk.index, chunk.firstRow, chunk.rows.size(), e));
+                }
+                catch (Throwable e) {
+                    batch = null;
+                    failure = e;
+                    return;
+                }
+            }
+        }
+
+        private int[] execute(Chunk<T> chunk)
+        {
+            if (batch == null) {
+                batch = handle.prepareBatch(sql);
+            }
+            for (T row : chunk.rows) {
+                binder.bind(batch.add(), row);
+            }
+            return batch.execute();
+        }
+    }
+}
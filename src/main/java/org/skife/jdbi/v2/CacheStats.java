@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+/**
+ * Point in time snapshot of the counters of one of the caches jDBI maintains internally.
+ */
+public final class CacheStats
+{
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    private final int maxSize;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, int size, int maxSize)
+    {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Number of lookups which found a cached value
+     */
+    public long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Number of lookups which did not find a cached value
+     */
+    public long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Number of entries dropped because the cache was full
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+     * Number of entries in the cache when the snapshot was taken
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Maximum number of entries the cache will hold
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Fraction of lookups which were hits, 1.0 if there were no lookups at all
+     */
+    public double getHitRate()
+    {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("CacheStats{hits=%d, misses=%d, evictions=%d, size=%d, maxSize=%d}",
+                             hitCount, missCount, evictionCount, size, maxSize);
+    }
+}
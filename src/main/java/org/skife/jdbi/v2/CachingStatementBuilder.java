@@ -25,7 +25,7 @@ import org.skife.jdbi.v2.tweak.StatementBuilder;
 
 /**
  * A StatementBuilder which decorates another StatementBuilder and caches
- * @deprecated This should be done in the JDBC driver, not here
+ * @deprecated This should be done in the JDBC driver, not here, or use {@link BoundedCachingStatementBuilderFactory}
  */
 @Deprecated
 public class CachingStatementBuilder implements StatementBuilder
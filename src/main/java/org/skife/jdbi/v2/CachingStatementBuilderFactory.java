@@ -21,7 +21,7 @@ import java.sql.Connection;
 /**
  * Provides StatementBuilder instances
  * which cache all prepared statements for a given handle instance.
- * @deprecated let the data source handle prepared statement caching
+ * @deprecated let the data source handle prepared statement caching, or use {@link BoundedCachingStatementBuilderFactory}
  */
 public class CachingStatementBuilderFactory implements StatementBuilderFactory
 {
@@ -39,6 +39,7 @@ public class Call extends SQLStatement<Call>
     Call(Handle handle,
          StatementLocator locator,
          StatementRewriter rewriter,
+         RewrittenStatementCache rewrittenStatementCache,
          StatementBuilder cache,
          String sql,
          ConcreteStatementContext ctx,
@@ -48,7 +49,7 @@ public class Call extends SQLStatement<Call>
          Foreman foreman,
          ContainerFactoryRegistry containerFactoryRegistry )
     {
-        super(new Binding(), locator, rewriter, handle, cache, sql, ctx, log, timingCollector, customizers, foreman, containerFactoryRegistry);
+        super(new Binding(), locator, rewriter, rewrittenStatementCache, handle, cache, sql, ctx, log, timingCollector, customizers, foreman, containerFactoryRegistry);
     }
 
     /**
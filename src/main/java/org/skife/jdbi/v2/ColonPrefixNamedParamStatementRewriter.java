@@ -13,9 +13,6 @@
  */
 package org.skife.jdbi.v2;
 
-import org.antlr.runtime.ANTLRStringStream;
-import org.antlr.runtime.Token;
-import org.skife.jdbi.rewriter.colon.ColonStatementLexer;
 import org.skife.jdbi.v2.exceptions.UnableToCreateStatementException;
 import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import org.skife.jdbi.v2.tweak.Argument;
@@ -25,26 +22,53 @@ import org.skife.jdbi.v2.tweak.StatementRewriter;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
-
-import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.DOUBLE_QUOTED_TEXT;
-import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.ESCAPED_TEXT;
-import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.LITERAL;
-import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.NAMED_PARAM;
-import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.POSITIONAL_PARAM;
-import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.QUOTED_TEXT;
 
 /**
  * Statement rewriter which replaces named parameter tokens of the form :tokenName
  * <p/>
- * This is the default statement rewriter
+ * This is the default statement rewriter. It uses a hand written scanner; the original ANTLR
+ * based implementation is still available as {@link AntlrColonPrefixNamedParamStatementRewriter}.
  */
 public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
 {
-    private final Map<String, ParsedStatement> cache = Collections.synchronizedMap(new WeakHashMap<String, ParsedStatement>());
+    /**
+     * Number of parsed statements retained by a rewriter created with the no-arg constructor
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private static final boolean[] NAME_CHARS = asciiTable("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_.#");
+    private static final boolean[] LITERAL_CHARS = asciiTable("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"
+                                                              + " \t\n\r,*#.@_!=;()[]+-/><%&^|$~{}`");
+
+    private final BoundedCache<String, ParsedStatement> cache;
+
+    public ColonPrefixNamedParamStatementRewriter()
+    {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a rewriter which retains up to <code>cacheSize</code> parsed statements, evicting
+     * the least recently used ones beyond that. Install it with
+     * {@link DBI#setStatementRewriter(StatementRewriter)} to tune the cache for a DBI.
+     *
+     * @param cacheSize maximum number of parsed statements to retain, 0 disables caching
+     */
+    public ColonPrefixNamedParamStatementRewriter(int cacheSize)
+    {
+        this.cache = new BoundedCache<String, ParsedStatement>(cacheSize);
+    }
+
+    /**
+     * @return hit, miss and eviction counters for the parsed statement cache
+     */
+    public CacheStats getCacheStats()
+    {
+        return cache.stats();
+    }
 
     /**
      * Munge up the SQL as desired. Responsible for figuring out ow to bind any
@@ -72,44 +96,149 @@ public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
         return new MyRewrittenStatement(stmt, ctx);
     }
 
+    /**
+     * Single pass scanner over the statement text. Recognizes the same tokens, and rejects the same
+     * input, as the ANTLR based <code>ColonStatementLexer</code> used by
+     * {@link AntlrColonPrefixNamedParamStatementRewriter}, without creating a token per literal chunk.
+     */
     ParsedStatement parseString(final String sql) throws IllegalArgumentException
     {
-        ParsedStatement stmt = new ParsedStatement();
-        StringBuilder b = new StringBuilder(sql.length());
-        ColonStatementLexer lexer = new ColonStatementLexer(new ANTLRStringStream(sql));
-        Token t = lexer.nextToken();
-        while (t.getType() != ColonStatementLexer.EOF) {
-            switch (t.getType()) {
-            case LITERAL:
-                b.append(t.getText());
-                break;
-            case NAMED_PARAM:
-                stmt.addNamedParamAt(t.getText().substring(1, t.getText().length()));
-                b.append("?");
-                break;
-            case QUOTED_TEXT:
-                b.append(t.getText());
+        final ParsedStatement stmt = new ParsedStatement();
+        final char[] in = sql.toCharArray();
+        final int len = in.length;
+        final StringBuilder b = new StringBuilder(len);
+
+        // start of the run of characters which are copied through verbatim
+        int copyFrom = 0;
+        int i = 0;
+        while (i < len) {
+            final char c = in[i];
+            switch (c) {
+            case '\'':
+                i = skipQuotedText(in, i);
                 break;
-            case DOUBLE_QUOTED_TEXT:
-                b.append(t.getText());
+            case '"':
+                i = skipDoubleQuotedText(in, i);
                 break;
-            case POSITIONAL_PARAM:
-                b.append("?");
+            case '?':
+                b.append(in, copyFrom, i - copyFrom).append('?');
                 stmt.addPositionalParamAt();
+                copyFrom = ++i;
                 break;
-            case ESCAPED_TEXT:
-                b.append(t.getText().substring(1));
+            case '\\':
+                // the escape character is dropped, the escaped one kept; like the lexer, a
+                // trailing escape character simply disappears
+                b.append(in, copyFrom, i - copyFrom);
+                copyFrom = ++i;
+                i = Math.min(i + 1, len);
+                break;
+            case ':':
+                if (i + 1 < len && in[i + 1] == ':') {
+                    // postgres style cast, part of the literal text
+                    i += 2;
+                    break;
+                }
+                final int nameStart = i + 1;
+                int nameEnd = nameStart;
+                while (nameEnd < len && isNameChar(in[nameEnd])) {
+                    nameEnd++;
+                }
+                if (nameEnd == nameStart) {
+                    throw unexpected(in, nameStart);
+                }
+                b.append(in, copyFrom, i - copyFrom).append('?');
+                stmt.addNamedParamAt(new String(in, nameStart, nameEnd - nameStart));
+                copyFrom = i = nameEnd;
                 break;
             default:
+                if (!isLiteralChar(c)) {
+                    throw unexpected(in, i);
+                }
+                i++;
                 break;
             }
-            t = lexer.nextToken();
         }
-        stmt.sql = b.toString();
+        b.append(in, copyFrom, len - copyFrom);
+        stmt.complete(b.toString());
         return stmt;
     }
 
-    private static class MyRewrittenStatement implements RewrittenStatement
+    /**
+     * @return index just past the closing quote
+     */
+    private static int skipQuotedText(char[] in, int start)
+    {
+        final int len = in.length;
+        int i = start + 1;
+        while (i < len) {
+            final char c = in[i];
+            if (c == '\'') {
+                return i + 1;
+            }
+            // an escaped quote only counts as such if something follows it, exactly like the lexer
+            if (c == '\\' && i + 2 < len && in[i + 1] == '\'') {
+                i += 2;
+            }
+            else {
+                i++;
+            }
+        }
+        throw unterminated(in, start);
+    }
+
+    /**
+     * @return index just past the closing double quote
+     */
+    private static int skipDoubleQuotedText(char[] in, int start)
+    {
+        final int len = in.length;
+        int i = start + 1;
+        if (i < len && in[i] == '"') {
+            throw unexpected(in, i);
+        }
+        while (i < len) {
+            if (in[i] == '"') {
+                return i + 1;
+            }
+            i++;
+        }
+        throw unterminated(in, start);
+    }
+
+    private static boolean isNameChar(char c)
+    {
+        return c < 128 && NAME_CHARS[c];
+    }
+
+    private static boolean isLiteralChar(char c)
+    {
+        return c < 128 && LITERAL_CHARS[c];
+    }
+
+    private static boolean[] asciiTable(String chars)
+    {
+        boolean[] table = new boolean[128];
+        for (int i = 0; i < chars.length(); i++) {
+            table[chars.charAt(i)] = true;
+        }
+        return table;
+    }
+
+    private static IllegalArgumentException unexpected(char[] in, int position)
+    {
+        if (position >= in.length) {
+            return new IllegalArgumentException(String.format("Unexpected end of statement at position %d", position));
+        }
+        return new IllegalArgumentException(String.format("Unexpected character '%s' (\\u%04x) at position %d",
+                                                          in[position], (int) in[position], position));
+    }
+
+    private static IllegalArgumentException unterminated(char[] in, int position)
+    {
+        return new IllegalArgumentException(String.format("Unterminated quoted text starting at position %d", position));
+    }
+
+    private static class MyRewrittenStatement implements ContextualRewrittenStatement
     {
         private final ParsedStatement stmt;
         private final StatementContext context;
@@ -120,6 +249,12 @@ public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
             this.stmt = stmt;
         }
 
+        @Override
+        public RewrittenStatement withContext(StatementContext ctx)
+        {
+            return new MyRewrittenStatement(stmt, ctx);
+        }
+
         @Override
         public void bind(Binding params, PreparedStatement statement) throws SQLException
         {
@@ -144,13 +279,23 @@ public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
                 }
             }
             else {
-                //List<String> named_params = stmt.params;
-                int i = 0;
-                for (String named_param : stmt.params) {
-                    if ("*".equals(named_param)) {
-                        continue;
+                // names were resolved to their JDBC slots when the statement was parsed; a name
+                // used in several slots is looked up in the binding only once
+                final String[] names = stmt.bindPlan;
+                final Argument[] resolved = stmt.distinctNames < names.length ? new Argument[stmt.distinctNames] : null;
+                for (int i = 0; i < names.length; i++) {
+                    final String named_param = names[i];
+                    Argument a;
+                    if (resolved == null) {
+                        a = params.forName(named_param);
+                    }
+                    else {
+                        a = resolved[stmt.nameIndexes[i]];
+                        if (a == null) {
+                            a = params.forName(named_param);
+                            resolved[stmt.nameIndexes[i]] = a;
+                        }
                     }
-                    Argument a = params.forName(named_param);
                     if (a == null) {
                         a = params.forPosition(i);
                     }
@@ -170,7 +315,6 @@ public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
                         throw new UnableToCreateStatementException(String.format("Exception while binding '%s'",
                                                                                  named_param), e, context);
                     }
-                    i++;
                 }
             }
         }
@@ -184,9 +328,14 @@ public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
 
     static class ParsedStatement
     {
+        private static final String[] NO_NAMES = new String[0];
+
         private String sql;
         private boolean positionalOnly = true;
         private List<String> params = new ArrayList<String>();
+        private String[] bindPlan = NO_NAMES;
+        private int[] nameIndexes = new int[0];
+        private int distinctNames = 0;
 
         public void addNamedParamAt(String name)
         {
@@ -199,6 +348,44 @@ public class ColonPrefixNamedParamStatementRewriter implements StatementRewriter
             params.add("*");
         }
 
+        List<String> getParams()
+        {
+            return params;
+        }
+
+        /**
+         * Record the rewritten sql and resolve the named parameters to the JDBC slots they will
+         * be bound to, so that binding is an indexed loop rather than a walk over the parameter list.
+         * Names are interned so that looking them up against the literal names used in bind calls
+         * mostly succeeds on the identity check. The arguments themselves are bound by name and
+         * may change between executions, so each distinct name is still looked up once per bind,
+         * however many slots it fills.
+         */
+        void complete(String sql)
+        {
+            this.sql = sql;
+            if (!positionalOnly) {
+                List<String> named = new ArrayList<String>(params.size());
+                for (String param : params) {
+                    if (!"*".equals(param)) {
+                        named.add(param.intern());
+                    }
+                }
+                bindPlan = named.toArray(new String[named.size()]);
+                nameIndexes = new int[bindPlan.length];
+                Map<String, Integer> indexes = new HashMap<String, Integer>();
+                for (int i = 0; i < bindPlan.length; i++) {
+                    Integer index = indexes.get(bindPlan[i]);
+                    if (index == null) {
+                        index = indexes.size();
+                        indexes.put(bindPlan[i], index);
+                    }
+                    nameIndexes[i] = index;
+                }
+                distinctNames = indexes.size();
+            }
+        }
+
         public String getParsedSql()
         {
             return sql;
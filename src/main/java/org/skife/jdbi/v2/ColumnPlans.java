@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+
+/**
+ * Remembers what a mapper worked out from the metadata of a result set, such as the property each
+ * column maps to, so that the following rows of the same result set can reuse it. The plan is kept
+ * in the context of the statement being mapped, so statements sharing a mapper concurrently do not
+ * replace each other's plans. Contexts not created by jDBI fall back to a single plan per mapper.
+ */
+final class ColumnPlans<P>
+{
+    private volatile Entry<P> fallback;
+
+    /**
+     * @return the plan stored for the given result set, or null
+     */
+    @SuppressWarnings("unchecked")
+    P get(ResultSet rs, StatementContext ctx)
+    {
+        final Entry<P> entry = ctx instanceof ConcreteStatementContext
+                               ? (Entry<P>) ((ConcreteStatementContext) ctx).getColumnPlan(this)
+                               : fallback;
+        return entry != null && entry.resultSet.get() == rs ? entry.plan : null;
+    }
+
+    void put(ResultSet rs, StatementContext ctx, P plan)
+    {
+        final Entry<P> entry = new Entry<P>(rs, plan);
+        if (ctx instanceof ConcreteStatementContext) {
+            ((ConcreteStatementContext) ctx).setColumnPlan(this, entry);
+        }
+        else {
+            fallback = entry;
+        }
+    }
+
+    private static final class Entry<P>
+    {
+        private final WeakReference<ResultSet> resultSet;
+        private final P plan;
+
+        Entry(ResultSet rs, P plan)
+        {
+            this.resultSet = new WeakReference<ResultSet>(rs);
+            this.plan = plan;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of a query held column by column: numeric and boolean columns are read into
+ * primitive arrays with a bitmap of the rows which were null, all other columns into an
+ * <code>Object[]</code>. Obtained from {@link Query#columnar()}.
+ * <p/>
+ * Columns are addressed by their zero based position or by their label, ignoring case. The
+ * arrays returned are the ones backing the result, exactly {@link #getRowCount()} long; they are
+ * not copied.
+ */
+public final class ColumnarResult
+{
+    /**
+     * How the values of a column are held.
+     */
+    public enum ColumnType
+    {
+        LONG, INT, DOUBLE, BOOLEAN, OBJECT;
+
+        /**
+         * @return the column type used for the given {@link java.sql.Types} constant
+         */
+        static ColumnType forSqlType(int sqlType)
+        {
+            switch (sqlType) {
+                case Types.BIGINT:
+                    return LONG;
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    return INT;
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.REAL:
+                    return DOUBLE;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    return BOOLEAN;
+                default:
+                    return OBJECT;
+            }
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String[] names;
+    private final Map<String, Integer> positions;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private ColumnarResult(String[] names, Column[] columns, int rowCount)
+    {
+        this.names = names;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.positions = new HashMap<String, Integer>(names.length * 2);
+        for (int i = names.length - 1; i >= 0; i--) {
+            positions.put(names[i].toLowerCase(), i);
+        }
+    }
+
+    /**
+     * Reads all remaining rows of the result set.
+     *
+     * @param types column types to use instead of the ones derived from the result set metadata,
+     *              keyed on column label, ignoring case
+     */
+    static ColumnarResult read(ResultSet rs, Map<String, ColumnType> types) throws SQLException
+    {
+        Map<String, ColumnType> hints = new HashMap<String, ColumnType>();
+        for (Map.Entry<String, ColumnType> entry : types.entrySet()) {
+            hints.put(entry.getKey().toLowerCase(), entry.getValue());
+        }
+
+        ResultSetMetaData metadata = rs.getMetaData();
+        int columnCount = metadata.getColumnCount();
+        String[] names = new String[columnCount];
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metadata.getColumnLabel(i + 1);
+            ColumnType type = hints.get(names[i].toLowerCase());
+            if (type == null) {
+                type = ColumnType.forSqlType(metadata.getColumnType(i + 1));
+            }
+            columns[i] = Column.create(type, i + 1);
+        }
+
+        int row = 0;
+        while (rs.next()) {
+            for (Column column : columns) {
+                column.read(rs, row);
+            }
+            row++;
+        }
+
+        for (Column column : columns) {
+            column.trim(row);
+        }
+        return new ColumnarResult(names, columns, row);
+    }
+
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    public int getColumnCount()
+    {
+        return columns.length;
+    }
+
+    /**
+     * @return the label of the column at the given zero based position
+     */
+    public String getColumnName(int column)
+    {
+        return names[column];
+    }
+
+    /**
+     * @return the zero based position of the first column with the given label, ignoring case,
+     *         or -1 if there is none
+     */
+    public int indexOf(String name)
+    {
+        Integer position = positions.get(name.toLowerCase());
+        return position == null ? -1 : position;
+    }
+
+    public ColumnType getColumnType(int column)
+    {
+        return columns[column].type;
+    }
+
+    public ColumnType getColumnType(String name)
+    {
+        return getColumnType(position(name));
+    }
+
+    /**
+     * @return true if the value of the given row and column was SQL NULL. The primitive arrays
+     *         hold 0 or false for such rows.
+     */
+    public boolean isNull(int row, int column)
+    {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + rowCount);
+        }
+        return columns[column].isNull(row);
+    }
+
+    public boolean isNull(int row, String name)
+    {
+        return isNull(row, position(name));
+    }
+
+    public long[] getLongs(int column)
+    {
+        return ((LongColumn) column(column, ColumnType.LONG)).values;
+    }
+
+    public long[] getLongs(String name)
+    {
+        return getLongs(position(name));
+    }
+
+    public int[] getInts(int column)
+    {
+        return ((IntColumn) column(column, ColumnType.INT)).values;
+    }
+
+    public int[] getInts(String name)
+    {
+        return getInts(position(name));
+    }
+
+    public double[] getDoubles(int column)
+    {
+        return ((DoubleColumn) column(column, ColumnType.DOUBLE)).values;
+    }
+
+    public double[] getDoubles(String name)
+    {
+        return getDoubles(position(name));
+    }
+
+    public boolean[] getBooleans(int column)
+    {
+        return ((BooleanColumn) column(column, ColumnType.BOOLEAN)).values;
+    }
+
+    public boolean[] getBooleans(String name)
+    {
+        return getBooleans(position(name));
+    }
+
+    public Object[] getObjects(int column)
+    {
+        return ((ObjectColumn) column(column, ColumnType.OBJECT)).values;
+    }
+
+    public Object[] getObjects(String name)
+    {
+        return getObjects(position(name));
+    }
+
+    private int position(String name)
+    {
+        int position = indexOf(name);
+        if (position < 0) {
+            throw new IllegalArgumentException("No column named " + name);
+        }
+        return position;
+    }
+
+    private Column column(int position, ColumnType type)
+    {
+        Column column = columns[position];
+        if (column.type != type) {
+            throw new IllegalArgumentException(String.format("Column %s is held as %s, not %s",
+                                                             names[position], column.type, type));
+        }
+        return column;
+    }
+
+    private abstract static class Column
+    {
+        final ColumnType type;
+        final int index;
+        private BitSet nulls;
+
+        Column(ColumnType type, int index)
+        {
+            this.type = type;
+            this.index = index;
+        }
+
+        static Column create(ColumnType type, int index)
+        {
+            switch (type) {
+                case LONG:
+                    return new LongColumn(index);
+                case INT:
+                    return new IntColumn(index);
+                case DOUBLE:
+                    return new DoubleColumn(index);
+                case BOOLEAN:
+                    return new BooleanColumn(index);
+                default:
+                    return new ObjectColumn(index);
+            }
+        }
+
+        abstract void read(ResultSet rs, int row) throws SQLException;
+
+        abstract void trim(int size);
+
+        final void checkNull(ResultSet rs, int row) throws SQLException
+        {
+            if (rs.wasNull()) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(row);
+            }
+        }
+
+        boolean isNull(int row)
+        {
+            return nulls != null && nulls.get(row);
+        }
+
+        static int grow(int capacity)
+        {
+            return Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+        }
+    }
+
+    private static final class LongColumn extends Column
+    {
+        long[] values = new long[0];
+
+        LongColumn(int index)
+        {
+            super(ColumnType.LONG, index);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException
+        {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = rs.getLong(index);
+            checkNull(rs, row);
+        }
+
+        @Override
+        void trim(int size)
+        {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    private static final class IntColumn extends Column
+    {
+        int[] values = new int[0];
+
+        IntColumn(int index)
+        {
+            super(ColumnType.INT, index);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException
+        {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = rs.getInt(index);
+            checkNull(rs, row);
+        }
+
+        @Override
+        void trim(int size)
+        {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    private static final class DoubleColumn extends Column
+    {
+        double[] values = new double[0];
+
+        DoubleColumn(int index)
+        {
+            super(ColumnType.DOUBLE, index);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException
+        {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = rs.getDouble(index);
+            checkNull(rs, row);
+        }
+
+        @Override
+        void trim(int size)
+        {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    private static final class BooleanColumn extends Column
+    {
+        boolean[] values = new boolean[0];
+
+        BooleanColumn(int index)
+        {
+            super(ColumnType.BOOLEAN, index);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException
+        {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = rs.getBoolean(index);
+            checkNull(rs, row);
+        }
+
+        @Override
+        void trim(int size)
+        {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    private static final class ObjectColumn extends Column
+    {
+        Object[] values = new Object[0];
+
+        ObjectColumn(int index)
+        {
+            super(ColumnType.OBJECT, index);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException
+        {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[row] = rs.getObject(index);
+        }
+
+        @Override
+        boolean isNull(int row)
+        {
+            return values[row] == null;
+        }
+
+        @Override
+        void trim(int size)
+        {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+}
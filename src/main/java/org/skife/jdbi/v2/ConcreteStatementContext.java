@@ -22,6 +22,8 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.skife.jdbi.v2.tweak.ResultColumnMapper;
 
@@ -43,6 +45,9 @@ public final class ConcreteStatementContext implements StatementContext
     private boolean           concurrentUpdatable;
     private String[]          generatedKeysColumnNames;
     private Foreman           foreman;
+    private QueryResultCache.HandleScope resultCacheScope;
+    private QueryResultCache.Policy resultCachePolicy;
+    private volatile ConcurrentMap<ColumnPlans<?>, Object> columnPlans;
 
     ConcreteStatementContext() {
         this(new HashMap<String, Object>(), new MappingRegistry(), new SqlObjectContext());
@@ -292,4 +297,42 @@ public final class ConcreteStatementContext implements StatementContext
     void setForeman(Foreman foreman) {
         this.foreman = foreman;
     }
+
+    QueryResultCache.HandleScope getResultCacheScope() {
+        return resultCacheScope;
+    }
+
+    void setResultCacheScope(QueryResultCache.HandleScope resultCacheScope) {
+        this.resultCacheScope = resultCacheScope;
+    }
+
+    QueryResultCache.Policy getResultCachePolicy() {
+        return resultCachePolicy;
+    }
+
+    void setResultCachePolicy(QueryResultCache.Policy resultCachePolicy) {
+        this.resultCachePolicy = resultCachePolicy;
+    }
+
+    /**
+     * Rows may be mapped on several threads, see {@link Query#listInParallel(java.util.concurrent.Executor)}.
+     */
+    Object getColumnPlan(ColumnPlans<?> plans) {
+        final ConcurrentMap<ColumnPlans<?>, Object> columnPlans = this.columnPlans;
+        return columnPlans == null ? null : columnPlans.get(plans);
+    }
+
+    void setColumnPlan(ColumnPlans<?> plans, Object plan) {
+        ConcurrentMap<ColumnPlans<?>, Object> columnPlans = this.columnPlans;
+        if (columnPlans == null) {
+            synchronized (this) {
+                columnPlans = this.columnPlans;
+                if (columnPlans == null) {
+                    columnPlans = new ConcurrentHashMap<ColumnPlans<?>, Object>(4);
+                    this.columnPlans = columnPlans;
+                }
+            }
+        }
+        columnPlans.put(plans, plan);
+    }
 }
@@ -23,31 +23,37 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Registered container factories, with the factory resolved for each container type cached.
+ * Children share their parent's state until a factory is registered on either of them.
+ */
 class ContainerFactoryRegistry
 {
-    private final Map<Class<?>, ContainerFactory<?>> cache     = new ConcurrentHashMap<Class<?>, ContainerFactory<?>>();
-    private final List<ContainerFactory>             factories = new CopyOnWriteArrayList<ContainerFactory>();
+    private volatile State state;
 
     ContainerFactoryRegistry()
     {
-        factories.add(new ListContainerFactory());
-        factories.add(new SetContainerFactory());
-        factories.add(new SortedSetContainerFactory());
-        factories.add(new UnwrappedSingleValueFactory());
+        this.state = new State(new ContainerFactory<?>[] {
+            new ListContainerFactory(),
+            new SetContainerFactory(),
+            new SortedSetContainerFactory(),
+            new UnwrappedSingleValueFactory()
+        });
     }
 
     ContainerFactoryRegistry(ContainerFactoryRegistry parent)
     {
-        cache.putAll(parent.cache);
-        factories.addAll(parent.factories);
+        this.state = parent.state;
     }
 
-    void register(ContainerFactory<?> factory)
+    synchronized void register(ContainerFactory<?> factory)
     {
-        factories.add(factory);
-        cache.clear();
+        final ContainerFactory<?>[] factories = state.factories;
+        final ContainerFactory<?>[] extended = new ContainerFactory<?>[factories.length + 1];
+        System.arraycopy(factories, 0, extended, 0, factories.length);
+        extended[factories.length] = factory;
+        state = new State(extended);
     }
 
     public ContainerFactoryRegistry createChild()
@@ -57,15 +63,16 @@ class ContainerFactoryRegistry
 
     public ContainerBuilder createBuilderFor(Class<?> type)
     {
-        if (cache.containsKey(type)) {
-            return cache.get(type).newContainerBuilderFor(type);
+        final State state = this.state;
+        final ContainerFactory<?> cached = state.cache.get(type);
+        if (cached != null) {
+            return cached.newContainerBuilderFor(type);
         }
 
-
-        for (int i = factories.size(); i > 0; i--) {
-            ContainerFactory factory = factories.get(i - 1);
+        for (int i = state.factories.length; i > 0; i--) {
+            ContainerFactory<?> factory = state.factories[i - 1];
             if (factory.accepts(type)) {
-                cache.put(type, factory);
+                state.cache.put(type, factory);
                 return factory.newContainerBuilderFor(type);
             }
         }
@@ -73,6 +80,17 @@ class ContainerFactoryRegistry
         throw new IllegalStateException("No container builder available for " + type.getName());
     }
 
+    private static final class State
+    {
+        private final ContainerFactory<?>[] factories;
+        private final Map<Class<?>, ContainerFactory<?>> cache = new ConcurrentHashMap<Class<?>, ContainerFactory<?>>();
+
+        State(ContainerFactory<?>[] factories)
+        {
+            this.factories = factories;
+        }
+    }
+
     static class SortedSetContainerFactory implements ContainerFactory<SortedSet<?>> {
 
         @Override
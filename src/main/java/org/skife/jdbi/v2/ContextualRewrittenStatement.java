@@ -0,0 +1,28 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.RewrittenStatement;
+
+/**
+ * A rewritten statement whose only per-execution state is the statement context, so that it can
+ * be kept in a {@link RewrittenStatementCache} and reused by later executions.
+ */
+interface ContextualRewrittenStatement extends RewrittenStatement
+{
+    /**
+     * @return an equivalent statement which passes the given context to its arguments
+     */
+    RewrittenStatement withContext(StatementContext ctx);
+}
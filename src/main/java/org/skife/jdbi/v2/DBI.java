@@ -59,6 +59,8 @@ public class DBI implements IDBI
     private AtomicReference<StatementLocator> statementLocator = new AtomicReference<StatementLocator>(new ClasspathStatementLocator());
     private AtomicReference<TransactionHandler> transactionhandler = new AtomicReference<TransactionHandler>(new LocalTransactionHandler());
     private AtomicReference<StatementBuilderFactory> statementBuilderFactory = new AtomicReference<StatementBuilderFactory>(new DefaultStatementBuilderFactory());
+    private AtomicReference<RewrittenStatementCache> rewrittenStatementCache = new AtomicReference<RewrittenStatementCache>();
+    private AtomicReference<QueryResultCache> queryResultCache = new AtomicReference<QueryResultCache>();
     private AtomicReference<SQLLog> log = new AtomicReference<SQLLog>(new NoOpLog());
     private AtomicReference<TimingCollector> timingCollector = new AtomicReference<TimingCollector>(TimingCollector.NOP_TIMING_COLLECTOR);
 
@@ -215,6 +217,8 @@ public class DBI implements IDBI
                                        statementLocator.get(),
                                        cache,
                                        statementRewriter.get(),
+                                       rewrittenStatementCache.get(),
+                                       queryResultCache.get(),
                                        conn,
                                        globalStatementAttributes,
                                        log.get(),
@@ -388,6 +392,18 @@ public class DBI implements IDBI
         });
     }
 
+    /**
+     * Create a loader which executes a prepared batch statement for many rows concurrently, on
+     * handles of its own.
+     *
+     * @param sql the statement to execute for each row, or a name the statement locator resolves
+     * @param binder binds each row to a part of the batch
+     */
+    public <T> BulkLoader<T> bulkLoader(String sql, BulkLoader.RowBinder<? super T> binder)
+    {
+        return new BulkLoader<T>(this, sql, binder);
+    }
+
     /**
      * Open a handle and attach a new sql object of the specified type to that handle. Be sure to close the
      * sql object (via a close() method, or calling {@link IDBI#close(Object)}
@@ -523,6 +539,36 @@ public class DBI implements IDBI
         return this.statementBuilderFactory.get();
     }
 
+    /**
+     * Remember located and rewritten statements in the given cache, so that handles created from
+     * this DBI skip locating and rewriting on repeated executions of the same statement. Pass
+     * null, the default, to locate and rewrite every time.
+     */
+    public void setRewrittenStatementCache(RewrittenStatementCache cache)
+    {
+        this.rewrittenStatementCache.set(cache);
+    }
+
+    public RewrittenStatementCache getRewrittenStatementCache()
+    {
+        return this.rewrittenStatementCache.get();
+    }
+
+    /**
+     * Keep the results of queries which ask for it, see {@link Query#cacheResult(long, java.util.concurrent.TimeUnit, String...)},
+     * in the given cache, shared by all handles created from this DBI after the call. Pass null,
+     * the default, to not cache any results.
+     */
+    public void setQueryResultCache(QueryResultCache cache)
+    {
+        this.queryResultCache.set(cache);
+    }
+
+    public QueryResultCache getQueryResultCache()
+    {
+        return this.queryResultCache.get();
+    }
+
     /**
      * Specify the class used to log sql statements. Will be passed to all handles created from
      * this instance
@@ -19,12 +19,17 @@ import org.skife.jdbi.v2.tweak.ResultSetMapper;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Maps each row to a <code>Map&lt;String, Object&gt;</code> of column label to value. The rows of
+ * one result set share a single index of the (by default lower cased) column labels and only hold
+ * an array of their own values, so large results cost little more than the values themselves.
+ */
 public class DefaultMapper implements ResultSetMapper<Map<String, Object>>
 {
     private final boolean foldCase;
+    private final ColumnPlans<RowMap.Columns> plans = new ColumnPlans<RowMap.Columns>();
 
     public DefaultMapper() {
         this(true);
@@ -37,7 +42,31 @@ public class DefaultMapper implements ResultSetMapper<Map<String, Object>>
     @Override
     public Map<String, Object> map(int index, ResultSet r, StatementContext ctx)
     {
-        Map<String, Object> row = foldCase ? new DefaultResultMap() : new HashMap<String, Object>();
+        final RowMap.Columns columns = columnsFor(index, r, ctx);
+        final Object[] values = new Object[columns.size()];
+
+        try
+        {
+            for (int i = 0; i < values.length; i++)
+            {
+                values[i] = r.getObject(columns.resultSetColumn(i));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new ResultSetException("Unable to access specific metadata from " +
+                                         "result set metadata", e, ctx);
+        }
+        return new RowMap(columns, values);
+    }
+
+    private RowMap.Columns columnsFor(int index, ResultSet r, StatementContext ctx)
+    {
+        RowMap.Columns columns = index > 0 ? plans.get(r, ctx) : null;
+        if (columns != null) {
+            return columns;
+        }
+
         ResultSetMetaData m;
         try
         {
@@ -50,42 +79,33 @@ public class DefaultMapper implements ResultSetMapper<Map<String, Object>>
 
         try
         {
-            for (int i = 1; i <= m.getColumnCount(); i ++)
+            String[] labels = new String[m.getColumnCount()];
+            for (int i = 1; i <= labels.length; i ++)
             {
                 String key = m.getColumnName(i);
                 String alias = m.getColumnLabel(i);
-                Object value = r.getObject(i);
-                row.put(alias != null ? alias : key, value);
+                labels[i - 1] = alias != null ? alias : key;
             }
+            columns = new RowMap.Columns(labels, foldCase);
         }
         catch (SQLException e)
         {
             throw new ResultSetException("Unable to access specific metadata from " +
                                          "result set metadata", e, ctx);
         }
-        return row;
+        plans.put(r, ctx, columns);
+        return columns;
     }
 
-    private static class DefaultResultMap extends HashMap<String, Object>
+    @Override
+    public boolean equals(Object o)
     {
-        public static final long serialVersionUID = 1L;
-
-        @Override
-        public Object get(Object o)
-        {
-            return super.get(((String)o).toLowerCase());
-        }
-
-        @Override
-        public Object put(String key, Object value)
-        {
-            return super.put(key.toLowerCase(), value);
-        }
+        return o != null && o.getClass() == getClass() && foldCase == ((DefaultMapper) o).foldCase;
+    }
 
-        @Override
-        public boolean containsKey(Object key)
-        {
-            return super.containsKey(((String)key).toLowerCase());
-        }
+    @Override
+    public int hashCode()
+    {
+        return foldCase ? 1 : 0;
     }
 }
@@ -14,10 +14,12 @@
 package org.skife.jdbi.v2;
 
 import org.skife.jdbi.v2.tweak.Argument;
+import org.skife.jdbi.v2.util.EnumLookup;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 class EnumArgument<T extends Enum<T>> implements Argument {
@@ -34,7 +36,11 @@ class EnumArgument<T extends Enum<T>> implements Argument {
             statement.setNull(position, Types.VARCHAR);
         }
         else {
-            statement.setString(position, value.name());
+            final Foreman foreman = ctx == null ? null : ctx.getForeman();
+            final EnumLookup<T> lookup = foreman == null
+                                         ? EnumLookup.byCode(value.getDeclaringClass())
+                                         : foreman.getEnumLookups().byCode(value.getDeclaringClass());
+            statement.setString(position, lookup.toDatabase(value));
         }
     }
 
@@ -42,4 +48,24 @@ class EnumArgument<T extends Enum<T>> implements Argument {
     public String toString() {
         return value != null ? value.toString() : "<null>";
     }
+
+    /**
+     * The tables enums are bound with, built once per enum type.
+     */
+    static final class Lookups {
+        private final ConcurrentHashMap<Class<?>, EnumLookup<?>> lookups = new ConcurrentHashMap<Class<?>, EnumLookup<?>>();
+
+        @SuppressWarnings("unchecked")
+        <E extends Enum<E>> EnumLookup<E> byCode(Class<E> type) {
+            EnumLookup<?> found = lookups.get(type);
+            if (found == null) {
+                found = EnumLookup.byCode(type);
+                EnumLookup<?> existing = lookups.putIfAbsent(type, found);
+                if (existing != null) {
+                    found = existing;
+                }
+            }
+            return (EnumLookup<E>) found;
+        }
+    }
 }
@@ -15,27 +15,51 @@ package org.skife.jdbi.v2;
 
 import org.skife.jdbi.v2.tweak.Argument;
 import org.skife.jdbi.v2.tweak.ArgumentFactory;
+import org.skife.jdbi.v2.tweak.TypeStableArgumentFactory;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Foreman will select best ArgumentFactory to use from all the registered
  * ArgumentFactory instances and return an Argument created from that
  * ArgumentFactory.
+ * <p/>
+ * The choice is remembered per expected type and value class whenever every factory which had to
+ * be asked is a {@link TypeStableArgumentFactory}.
  */
 public class Foreman
 {
-    private final List<ArgumentFactory> factories = new CopyOnWriteArrayList<ArgumentFactory>();
+    private static final ArgumentFactory<?> BUILT_INS = new BuiltInArgumentFactory();
+
+    /**
+     * Shared with children until either side registers a factory, which publishes a new state
+     * rather than changing this one.
+     */
+    private volatile State state;
+
+    /**
+     * Shared with all children, so the getters of a bean type live as long as the DBI.
+     */
+    private final GeneratedBeanArguments.Getters beanGetters;
+
+    /**
+     * Shared with all children, so the tables of an enum type live as long as the DBI.
+     */
+    private final EnumArgument.Lookups enumLookups;
 
     Foreman()
     {
-        factories.add(BUILT_INS);
+        this.state = new State(new ArgumentFactory<?>[] { BUILT_INS });
+        this.beanGetters = new GeneratedBeanArguments.Getters();
+        this.enumLookups = new EnumArgument.Lookups();
     }
 
-    Foreman(List<ArgumentFactory> factories)
+    private Foreman(State state, GeneratedBeanArguments.Getters beanGetters, EnumArgument.Lookups enumLookups)
     {
-        this.factories.addAll(factories);
+        this.state = state;
+        this.beanGetters = beanGetters;
+        this.enumLookups = enumLookups;
     }
 
     /**
@@ -47,12 +71,26 @@ public class Foreman
      */
     public Argument createArgument(Class<?> expectedType, Object boundValue, StatementContext ctx)
     {
-        ArgumentFactory candidate = null;
+        final State state = this.state;
+        final ArgumentFactory<?>[] factories = state.factories;
+        final ConcurrentMap<ResolutionKey, Resolution> resolutions = state.resolutions;
+        final ResolutionKey key = new ResolutionKey(expectedType, boundValue == null ? null : boundValue.getClass());
+        final Resolution resolved = resolutions.get(key);
+        if (resolved != null) {
+            return resolved.build(boundValue, ctx);
+        }
+
+        ArgumentFactory<?> candidate = null;
+        boolean typeStable = true;
 
-        for (int i = factories.size() - 1; i >= 0; i--) {
-            ArgumentFactory factory = factories.get(i);
+        for (int i = factories.length - 1; i >= 0; i--) {
+            ArgumentFactory<?> factory = factories[i];
+            typeStable &= factory instanceof TypeStableArgumentFactory;
             if (factory.accepts(expectedType, boundValue, ctx)) {
-                return factory.build(expectedType, boundValue, ctx);
+                if (typeStable) {
+                    resolutions.putIfAbsent(key, new Resolution(factory, expectedType));
+                }
+                return build(factory, expectedType, boundValue, ctx);
             }
             // Fall back to any factory accepting Object if necessary but
             // prefer any more specific factory first.
@@ -61,23 +99,102 @@ public class Foreman
             }
         }
         if (candidate != null) {
-            return candidate.build(Object.class, boundValue, ctx);
+            if (typeStable) {
+                resolutions.putIfAbsent(key, new Resolution(candidate, Object.class));
+            }
+            return build(candidate, Object.class, boundValue, ctx);
         }
 
         throw new IllegalStateException("Unbindable argument passed: " + String.valueOf(boundValue));
     }
 
-    private static final ArgumentFactory BUILT_INS = new BuiltInArgumentFactory();
+    /**
+     * A factory only ever sees values it accepted, so it is asked to build them as if it took any
+     * Object.
+     */
+    @SuppressWarnings("unchecked")
+    private static Argument build(ArgumentFactory<?> factory, Class<?> expectedType, Object boundValue, StatementContext ctx)
+    {
+        return ((ArgumentFactory<Object>) factory).build(expectedType, boundValue, ctx);
+    }
 
-    void register(ArgumentFactory<?> argumentFactory)
+    synchronized void register(ArgumentFactory<?> argumentFactory)
     {
-        factories.add(argumentFactory);
+        final ArgumentFactory<?>[] factories = state.factories;
+        final ArgumentFactory<?>[] extended = new ArgumentFactory<?>[factories.length + 1];
+        System.arraycopy(factories, 0, extended, 0, factories.length);
+        extended[factories.length] = argumentFactory;
+        state = new State(extended);
     }
 
     Foreman createChild()
     {
-        return new Foreman(factories);
+        return new Foreman(state, beanGetters, enumLookups);
+    }
+
+    GeneratedBeanArguments.Getters getBeanGetters()
+    {
+        return beanGetters;
+    }
+
+    EnumArgument.Lookups getEnumLookups()
+    {
+        return enumLookups;
     }
 
+    private static final class State
+    {
+        private final ArgumentFactory<?>[] factories;
+        private final ConcurrentMap<ResolutionKey, Resolution> resolutions = new ConcurrentHashMap<ResolutionKey, Resolution>();
+
+        State(ArgumentFactory<?>[] factories)
+        {
+            this.factories = factories;
+        }
+    }
 
+    private static final class ResolutionKey
+    {
+        private final Class<?> expectedType;
+        private final Class<?> valueType;
+
+        ResolutionKey(Class<?> expectedType, Class<?> valueType)
+        {
+            this.expectedType = expectedType;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey that = (ResolutionKey) o;
+            return expectedType == that.expectedType && valueType == that.valueType;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(expectedType) + System.identityHashCode(valueType);
+        }
+    }
+
+    private static final class Resolution
+    {
+        private final ArgumentFactory<?> factory;
+        private final Class<?> buildType;
+
+        Resolution(ArgumentFactory<?> factory, Class<?> buildType)
+        {
+            this.factory = factory;
+            this.buildType = buildType;
+        }
+
+        Argument build(Object boundValue, StatementContext ctx)
+        {
+            return Foreman.build(factory, buildType, boundValue, ctx);
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import net.sf.cglib.reflect.FastClass;
+import net.sf.cglib.reflect.FastMethod;
+import org.skife.jdbi.v2.exceptions.UnableToCreateStatementException;
+import org.skife.jdbi.v2.tweak.Argument;
+import org.skife.jdbi.v2.tweak.NamedArgumentFinder;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds named arguments from the JavaBean properties of an object, like
+ * {@link BeanPropertyArguments}, but calls the getters through a cglib generated class. The
+ * getters of a bean type are looked up once and shared by the statements of a DBI, through its
+ * {@link Foreman}, rather than held by a static cache which would keep bean classes loaded.
+ */
+class GeneratedBeanArguments implements NamedArgumentFinder
+{
+    private final String prefix;
+    private final Object bean;
+    private final Map<String, Getter> getters;
+    private final StatementContext ctx;
+    private final Foreman foreman;
+
+    GeneratedBeanArguments(String prefix, Object bean, StatementContext ctx, Foreman foreman)
+    {
+        this.prefix = prefix == null || prefix.length() == 0 ? null : prefix + ".";
+        this.bean = bean;
+        this.ctx = ctx;
+        this.foreman = foreman;
+        this.getters = foreman.getBeanGetters().gettersFor(bean.getClass(), ctx);
+    }
+
+    @Override
+    public Argument find(String name)
+    {
+        if (prefix != null) {
+            if (!name.startsWith(prefix)) {
+                return null;
+            }
+            name = name.substring(prefix.length());
+        }
+
+        Getter getter = getters.get(name);
+        if (getter == null) {
+            return null;
+        }
+
+        try {
+            return foreman.createArgument(getter.type, getter.method.invoke(bean, null), ctx);
+        }
+        catch (InvocationTargetException e) {
+            throw new UnableToCreateStatementException(String.format("Invocation target exception invoking " +
+                                                                     "getter for bean property [%s] on [%s]",
+                                                                     name, bean), e, ctx);
+        }
+    }
+
+    private static Map<String, Getter> introspect(Class<?> type, StatementContext ctx)
+    {
+        if (!Modifier.isPublic(type.getModifiers())) {
+            throw new UnableToCreateStatementException(String.format("%s is not public, its properties cannot be " +
+                                                                     "bound through generated code", type.getName()), null, ctx);
+        }
+
+        final PropertyDescriptor[] descriptors;
+        try {
+            descriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+        }
+        catch (IntrospectionException e) {
+            throw new UnableToCreateStatementException("Failed to introspect object which is supposed ot be used to" +
+                                                       " set named args for a statement via JavaBean properties", e, ctx);
+        }
+
+        FastClass fastClass = FastClass.create(type);
+        Map<String, Getter> getters = new HashMap<String, Getter>();
+        for (PropertyDescriptor descriptor : descriptors) {
+            Method readMethod = descriptor.getReadMethod();
+            if (readMethod != null
+                && readMethod.getDeclaringClass() != Object.class
+                && Modifier.isPublic(readMethod.getDeclaringClass().getModifiers())) {
+                getters.put(descriptor.getName(), new Getter(fastClass.getMethod(readMethod), readMethod.getReturnType()));
+            }
+        }
+        return getters;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringBuilder().append("{lazy generated bean property arguments \"").append(bean).append("\"").toString();
+    }
+
+    /**
+     * The getters of each bean type bound so far.
+     */
+    static final class Getters
+    {
+        private final ConcurrentHashMap<Class<?>, Map<String, Getter>> getters = new ConcurrentHashMap<Class<?>, Map<String, Getter>>();
+
+        Map<String, Getter> gettersFor(Class<?> type, StatementContext ctx)
+        {
+            Map<String, Getter> found = getters.get(type);
+            if (found == null) {
+                found = introspect(type, ctx);
+                Map<String, Getter> existing = getters.putIfAbsent(type, found);
+                if (existing != null) {
+                    found = existing;
+                }
+            }
+            return found;
+        }
+    }
+
+    private static final class Getter
+    {
+        private final FastMethod method;
+        private final Class<?> type;
+
+        Getter(FastMethod method, Class<?> type)
+        {
+            this.method = method;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import net.sf.cglib.beans.BulkBean;
+import net.sf.cglib.beans.BulkBeanException;
+import net.sf.cglib.reflect.FastClass;
+import org.skife.jdbi.v2.tweak.ResultColumnMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A result set mapper which maps the columns of a row onto the properties of a JavaBean, like
+ * {@link BeanMapper}, but through classes generated with cglib: the bean is instantiated with a
+ * direct constructor call and all of a row's values are handed to the setters in a single
+ * generated call, without reflection. Columns are read through the column mapper registered for
+ * the property type, so primitive properties are read with the primitive ResultSet getters.
+ * <p/>
+ * The bean class and the setters used must be public, and the bean must have a public no-argument
+ * constructor.
+ *
+ * @see GeneratedBeanMapperFactory
+ */
+public class GeneratedBeanMapper<T> implements ResultSetMapper<T>
+{
+    private final Class<T> type;
+    private final FastClass fastClass;
+    private final Map<String, PropertyDescriptor> properties = new HashMap<String, PropertyDescriptor>();
+    private final ConcurrentHashMap<List<String>, BulkBean> setterBeans = new ConcurrentHashMap<List<String>, BulkBean>();
+    private final ColumnPlans<ColumnPlan> plans = new ColumnPlans<ColumnPlan>();
+
+    public GeneratedBeanMapper(Class<T> type)
+    {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            throw new IllegalArgumentException(String.format("%s is not a public, concrete class", type.getName()));
+        }
+        try {
+            type.getConstructor();
+        }
+        catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(String.format("%s has no public no-argument constructor", type.getName()), e);
+        }
+
+        this.type = type;
+        this.fastClass = FastClass.create(type);
+        try {
+            BeanInfo info = Introspector.getBeanInfo(type);
+
+            for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
+                Method setter = descriptor.getWriteMethod();
+                if (setter != null && Modifier.isPublic(setter.getModifiers())) {
+                    properties.put(descriptor.getName().toLowerCase(), descriptor);
+                }
+            }
+        }
+        catch (IntrospectionException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @return true if at least one property of the bean can be written
+     */
+    boolean hasWritableProperties()
+    {
+        return !properties.isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public T map(int row, ResultSet rs, StatementContext ctx)
+        throws SQLException
+    {
+        T bean;
+        try {
+            bean = (T) fastClass.newInstance();
+        }
+        catch (InvocationTargetException e) {
+            throw new IllegalArgumentException(String.format("A bean, %s, was mapped " +
+                                                             "which was not instantiable", type.getName()), e);
+        }
+
+        final ColumnPlan plan = planFor(row, rs, ctx);
+        final int[] columns = plan.columns;
+        final ResultColumnMapper<?>[] mappers = plan.mappers;
+        final Object[] values = new Object[columns.length];
+
+        for (int c = 0; c < columns.length; c++) {
+            final ResultColumnMapper<?> mapper = mappers[c];
+            values[c] = mapper != null ? mapper.mapColumn(rs, columns[c], ctx) : rs.getObject(columns[c]);
+        }
+
+        try {
+            plan.setters.setPropertyValues(bean, values);
+        }
+        catch (BulkBeanException e) {
+            throw new IllegalArgumentException(String.format("Exception trying to invoke setter for " +
+                                                             "the %s property", plan.names[e.getIndex()]), e.getCause());
+        }
+        catch (ClassCastException e) {
+            throw new IllegalArgumentException(String.format("A column of %s mapped to a value of the " +
+                                                             "wrong type", type.getName()), e);
+        }
+        return bean;
+    }
+
+    private ColumnPlan planFor(int row, ResultSet rs, StatementContext ctx) throws SQLException
+    {
+        ColumnPlan plan = row > 0 ? plans.get(rs, ctx) : null;
+        if (plan != null) {
+            return plan;
+        }
+
+        ResultSetMetaData metadata = rs.getMetaData();
+        int columnCount = metadata.getColumnCount();
+
+        int[] columns = new int[columnCount];
+        String[] names = new String[columnCount];
+        String[] setterNames = new String[columnCount];
+        Class<?>[] types = new Class<?>[columnCount];
+        ResultColumnMapper<?>[] mappers = new ResultColumnMapper<?>[columnCount];
+        int n = 0;
+
+        for (int i = 1; i <= columnCount; ++i) {
+            String name = metadata.getColumnLabel(i).toLowerCase();
+
+            PropertyDescriptor descriptor = properties.get(name);
+
+            if (descriptor != null) {
+                columns[n] = i;
+                names[n] = name;
+                setterNames[n] = descriptor.getWriteMethod().getName();
+                types[n] = descriptor.getPropertyType();
+                mappers[n] = ctx.columnMapperFor(types[n]);
+                n++;
+            }
+        }
+
+        plan = new ColumnPlan(Arrays.copyOf(columns, n), Arrays.copyOf(names, n), Arrays.copyOf(mappers, n),
+                              setterBean(Arrays.copyOf(setterNames, n), Arrays.copyOf(types, n)));
+        plans.put(rs, ctx, plan);
+        return plan;
+    }
+
+    private BulkBean setterBean(String[] setterNames, Class<?>[] types)
+    {
+        List<String> key = Arrays.asList(setterNames);
+        BulkBean bean = setterBeans.get(key);
+        if (bean == null) {
+            bean = BulkBean.create(type, new String[setterNames.length], setterNames, types);
+            BulkBean existing = setterBeans.putIfAbsent(key, bean);
+            if (existing != null) {
+                bean = existing;
+            }
+        }
+        return bean;
+    }
+
+    private static final class ColumnPlan
+    {
+        private final int[] columns;
+        private final String[] names;
+        private final ResultColumnMapper<?>[] mappers;
+        private final BulkBean setters;
+
+        ColumnPlan(int[] columns, String[] names, ResultColumnMapper<?>[] mappers, BulkBean setters)
+        {
+            this.columns = columns;
+            this.names = names;
+            this.mappers = mappers;
+            this.setters = setters;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o != null && o.getClass() == getClass() && type.equals(((GeneratedBeanMapper<?>) o).type);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return type.hashCode();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A ResultSetMapperFactory which maps rows onto JavaBeans with a {@link GeneratedBeanMapper}, so
+ * that <code>query.mapTo(Something.class)</code> uses generated code rather than reflection:
+ * <pre>
+ * dbi.registerMapper(new GeneratedBeanMapperFactory(Something.class));
+ * </pre>
+ * Created without any types, the factory accepts every public, concrete class with a public
+ * no-argument constructor and at least one public setter which is not already mapped as a single
+ * column (strings, numbers, dates and so on) and does not live in <code>java.*</code>. As such a
+ * factory is very eager, register it before any more specific mappers. A class which looks like
+ * a bean but for which no mapper can be generated fails the query with the cause.
+ */
+public class GeneratedBeanMapperFactory implements ResultSetMapperFactory
+{
+    private static final Object NOT_A_BEAN = new Object();
+
+    private final Set<Class<?>> types;
+    private final ConcurrentHashMap<Class<?>, Object> mappers = new ConcurrentHashMap<Class<?>, Object>();
+
+    /**
+     * Create a factory which accepts any eligible bean class.
+     */
+    public GeneratedBeanMapperFactory()
+    {
+        this.types = null;
+    }
+
+    /**
+     * Create a factory which only maps the given bean classes.
+     */
+    public GeneratedBeanMapperFactory(Class<?>... types)
+    {
+        this.types = new HashSet<Class<?>>(Arrays.asList(types));
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // the factory interface hands over a raw Class
+    public boolean accepts(Class type, StatementContext ctx)
+    {
+        if (types != null && !types.contains(type)) {
+            return false;
+        }
+        if (types == null && !isCandidate(type, ctx)) {
+            return false;
+        }
+        return mapper(type) != null;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ResultSetMapper<?> mapperFor(Class type, StatementContext ctx)
+    {
+        ResultSetMapper<?> mapper = mapper(type);
+        if (mapper == null) {
+            throw new IllegalArgumentException(String.format("%s cannot be mapped as a bean", type.getName()));
+        }
+        return mapper;
+    }
+
+    private ResultSetMapper<?> mapper(Class<?> type)
+    {
+        Object mapper = mappers.get(type);
+        if (mapper == null) {
+            mapper = generate(type);
+            Object existing = mappers.putIfAbsent(type, mapper);
+            if (existing != null) {
+                mapper = existing;
+            }
+        }
+        return mapper == NOT_A_BEAN ? null : (ResultSetMapper<?>) mapper;
+    }
+
+    /**
+     * Failures other than the type not being a bean, such as the code generation failing, are
+     * thrown rather than remembered, so they are not mistaken for a missing mapper.
+     */
+    private <T> Object generate(Class<T> type)
+    {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())
+            || !hasPublicNoArgConstructor(type)) {
+            return NOT_A_BEAN;
+        }
+        GeneratedBeanMapper<T> mapper = new GeneratedBeanMapper<T>(type);
+        return mapper.hasWritableProperties() ? mapper : NOT_A_BEAN;
+    }
+
+    private static boolean hasPublicNoArgConstructor(Class<?> type)
+    {
+        try {
+            type.getConstructor();
+            return true;
+        }
+        catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isCandidate(Class<?> type, StatementContext ctx)
+    {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface()
+            || Modifier.isAbstract(type.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.")) {
+            return false;
+        }
+        return ctx.columnMapperFor(type) == null;
+    }
+}
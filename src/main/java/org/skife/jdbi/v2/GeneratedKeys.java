@@ -20,6 +20,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -133,6 +134,69 @@ public class GeneratedKeys<Type> implements ResultBearing<Type>
         return list(Integer.MAX_VALUE);
     }
 
+    /**
+     * Returns all generated keys read from the first column of the keys as longs, without
+     * boxing them and without going through the mapper.
+     *
+     * @return the keys, or an empty array if no keys were returned
+     */
+    public long[] asLongArray()
+    {
+        try {
+            long[] keys = new long[16];
+            int size = 0;
+            if (results != null && !results.isClosed()) {
+                while (results.next()) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                    }
+                    keys[size++] = results.getLong(1);
+                }
+            }
+            return size == keys.length ? keys : Arrays.copyOf(keys, size);
+        }
+        catch (SQLException e) {
+            throw new ResultSetException("Exception thrown while attempting to traverse the result set", e, context);
+        }
+        finally {
+            jdbiStatement.cleanup();
+        }
+    }
+
+    /**
+     * Returns all generated keys read from the first column of the keys as ints, see
+     * {@link #asLongArray()}.
+     *
+     * @return the keys, or an empty array if no keys were returned
+     * @throws ResultSetException if a key does not fit an int
+     */
+    public int[] asIntArray()
+    {
+        try {
+            int[] keys = new int[16];
+            int size = 0;
+            if (results != null && !results.isClosed()) {
+                while (results.next()) {
+                    final long key = results.getLong(1);
+                    if ((int) key != key) {
+                        throw new ResultSetException("Generated key " + key + " does not fit an int", null, context);
+                    }
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                    }
+                    keys[size++] = (int) key;
+                }
+            }
+            return size == keys.length ? keys : Arrays.copyOf(keys, size);
+        }
+        catch (SQLException e) {
+            throw new ResultSetException("Exception thrown while attempting to traverse the result set", e, context);
+        }
+        finally {
+            jdbiStatement.cleanup();
+        }
+    }
+
     /**
      * Returns a iterator over all generated keys.
      *
@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.lang.reflect.Type;
+
+/**
+ * A result set mapper factory which is offered the full generic type being mapped to, so that
+ * <code>List&lt;Foo&gt;</code> and <code>List&lt;Bar&gt;</code> can be mapped differently. Factories
+ * which do not implement this only ever see the erasure of the type.
+ */
+public interface GenericResultSetMapperFactory extends ResultSetMapperFactory
+{
+    /**
+     * Can this factory provide a result set mapper which maps to the desired generic type
+     * @param type the target type to map to, a Class or a ParameterizedType
+     * @return true if it can, false if it cannot
+     */
+    boolean acceptsType(Type type, StatementContext ctx);
+
+    /**
+     * Supplies a result set mapper which will map result sets to type
+     */
+    ResultSetMapper<?> mapperForType(Type type, StatementContext ctx);
+}
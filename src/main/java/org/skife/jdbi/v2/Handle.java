@@ -24,6 +24,7 @@ import org.skife.jdbi.v2.tweak.StatementLocator;
 import org.skife.jdbi.v2.tweak.StatementRewriter;
 
 import java.io.Closeable;
+import java.io.Reader;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
@@ -209,6 +210,15 @@ public interface Handle extends Closeable
      */
     Script createScript(String name);
 
+    /**
+     * Creates an SQL script read from the given reader, which is read as the script is
+     * executed and not closed. Wrap a channel with {@link java.nio.channels.Channels#newReader}
+     * to read a script from one. The script can only be executed once. Unlike
+     * {@link #createScript(String)}, which loads the whole script as a String first, this keeps
+     * only the statements of the batch being executed in memory.
+     */
+    Script createScript(Reader reader);
+
     /**
      * Execute some SQL with no return value
      * @param sql the sql to execute
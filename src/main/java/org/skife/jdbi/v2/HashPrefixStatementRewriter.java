@@ -25,10 +25,9 @@ import org.skife.jdbi.v2.tweak.StatementRewriter;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import static org.skife.jdbi.rewriter.hash.HashStatementLexer.DOUBLE_QUOTED_TEXT;
 import static org.skife.jdbi.rewriter.hash.HashStatementLexer.ESCAPED_TEXT;
@@ -42,7 +41,37 @@ import static org.skife.jdbi.rewriter.hash.HashStatementLexer.QUOTED_TEXT;
  */
 public class HashPrefixStatementRewriter implements StatementRewriter
 {
-    private final Map<String, ParsedStatement> cache = Collections.synchronizedMap(new WeakHashMap<String, ParsedStatement>());
+    /**
+     * Number of parsed statements retained by a rewriter created with the no-arg constructor
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private final BoundedCache<String, ParsedStatement> cache;
+
+    public HashPrefixStatementRewriter()
+    {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a rewriter which retains up to <code>cacheSize</code> parsed statements, evicting
+     * the least recently used ones beyond that. Install it with
+     * {@link DBI#setStatementRewriter(StatementRewriter)} to tune the cache for a DBI.
+     *
+     * @param cacheSize maximum number of parsed statements to retain, 0 disables caching
+     */
+    public HashPrefixStatementRewriter(int cacheSize)
+    {
+        this.cache = new BoundedCache<String, ParsedStatement>(cacheSize);
+    }
+
+    /**
+     * @return hit, miss and eviction counters for the parsed statement cache
+     */
+    public CacheStats getCacheStats()
+    {
+        return cache.stats();
+    }
 
     /**
      * Munge up the SQL as desired. Responsible for figuring out ow to bind any
@@ -104,11 +133,11 @@ public class HashPrefixStatementRewriter implements StatementRewriter
             }
             t = lexer.nextToken();
         }
-        stmt.sql = b.toString();
+        stmt.complete(b.toString());
         return stmt;
     }
 
-    private static class MyRewrittenStatement implements RewrittenStatement
+    private static class MyRewrittenStatement implements ContextualRewrittenStatement
     {
         private final ParsedStatement stmt;
         private final StatementContext context;
@@ -119,6 +148,12 @@ public class HashPrefixStatementRewriter implements StatementRewriter
             this.stmt = stmt;
         }
 
+        @Override
+        public RewrittenStatement withContext(StatementContext ctx)
+        {
+            return new MyRewrittenStatement(stmt, ctx);
+        }
+
         @Override
         public void bind(Binding params, PreparedStatement statement) throws SQLException
         {
@@ -143,13 +178,23 @@ public class HashPrefixStatementRewriter implements StatementRewriter
                 }
             }
             else {
-                //List<String> named_params = stmt.params;
-                int i = 0;
-                for (String named_param : stmt.params) {
-                    if ("*".equals(named_param)) {
-                        continue;
+                // names were resolved to their JDBC slots when the statement was parsed; a name
+                // used in several slots is looked up in the binding only once
+                final String[] names = stmt.bindPlan;
+                final Argument[] resolved = stmt.distinctNames < names.length ? new Argument[stmt.distinctNames] : null;
+                for (int i = 0; i < names.length; i++) {
+                    final String named_param = names[i];
+                    Argument a;
+                    if (resolved == null) {
+                        a = params.forName(named_param);
+                    }
+                    else {
+                        a = resolved[stmt.nameIndexes[i]];
+                        if (a == null) {
+                            a = params.forName(named_param);
+                            resolved[stmt.nameIndexes[i]] = a;
+                        }
                     }
-                    Argument a = params.forName(named_param);
                     if (a == null) {
                         a = params.forPosition(i);
                     }
@@ -169,7 +214,6 @@ public class HashPrefixStatementRewriter implements StatementRewriter
                         throw new UnableToCreateStatementException(String.format("Exception while binding '%s'",
                                                                                  named_param), e, context);
                     }
-                    i++;
                 }
             }
         }
@@ -183,9 +227,14 @@ public class HashPrefixStatementRewriter implements StatementRewriter
 
     static class ParsedStatement
     {
+        private static final String[] NO_NAMES = new String[0];
+
         private String sql;
         private boolean positionalOnly = true;
         private List<String> params = new ArrayList<String>();
+        private String[] bindPlan = NO_NAMES;
+        private int[] nameIndexes = new int[0];
+        private int distinctNames = 0;
 
         public void addNamedParamAt(String name)
         {
@@ -198,6 +247,35 @@ public class HashPrefixStatementRewriter implements StatementRewriter
             params.add("*");
         }
 
+        /**
+         * Record the rewritten sql and resolve the named parameters to the JDBC slots they will
+         * be bound to, see {@link ColonPrefixNamedParamStatementRewriter}.
+         */
+        void complete(String sql)
+        {
+            this.sql = sql;
+            if (!positionalOnly) {
+                List<String> named = new ArrayList<String>(params.size());
+                for (String param : params) {
+                    if (!"*".equals(param)) {
+                        named.add(param.intern());
+                    }
+                }
+                bindPlan = named.toArray(new String[named.size()]);
+                nameIndexes = new int[bindPlan.length];
+                Map<String, Integer> indexes = new HashMap<String, Integer>();
+                for (int i = 0; i < bindPlan.length; i++) {
+                    Integer index = indexes.get(bindPlan[i]);
+                    if (index == null) {
+                        index = indexes.size();
+                        indexes.put(bindPlan[i], index);
+                    }
+                    nameIndexes[i] = index;
+                }
+                distinctNames = indexes.size();
+            }
+        }
+
         public String getParsedSql()
         {
             return sql;
@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.io.Closeable;
+
+/**
+ * A forward-only iterator over the <code>long</code> values of the first column of a result,
+ * read without boxing. It behaves like a {@link ResultIterator}: the underlying result set is
+ * closed when the last value has been read, or by calling {@link #close()}.
+ *
+ * @see Query#longIterator()
+ */
+public interface LongResultIterator extends Closeable
+{
+    boolean hasNext();
+
+    /**
+     * @return the next value, 0 if it was null
+     */
+    long nextLong();
+
+    /**
+     * @return true if the value last returned by {@link #nextLong()} was null
+     */
+    boolean wasNull();
+
+    @Override
+    /**
+     * Close the underlying result set.
+     */
+    void close();
+}
@@ -18,34 +18,46 @@ import org.skife.jdbi.v2.tweak.ResultColumnMapper;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 import org.skife.jdbi.v2.util.SingleColumnMapper;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Registered row and column mappers, with the mapper resolved for each type cached.
+ * <p/>
+ * Copies are cheap: a copy shares the registrations and caches of the registry it was made from
+ * until a mapper is registered on either of them, at which point that one alone forks its state.
+ * Row mappers are resolved and cached per {@link Type}, so <code>List&lt;Foo&gt;</code> and
+ * <code>List&lt;Bar&gt;</code> may resolve differently, column mappers per class. Resolutions are
+ * cached including the types nothing accepts. A fork keeps
+ * using the resolutions of the state it was forked from which the new registration cannot
+ * change, those made by an earlier registered factory of the same kind.
+ */
 class MappingRegistry
 {
     private static final PrimitivesColumnMapperFactory BUILT_INS = new PrimitivesColumnMapperFactory();
 
-    private final List<ResultSetMapperFactory> rowFactories = new CopyOnWriteArrayList<ResultSetMapperFactory>();
-    private final ConcurrentHashMap<Class, ResultSetMapper> rowCache = new ConcurrentHashMap<Class, ResultSetMapper>();
-
-    private final List<ResultColumnMapperFactory> columnFactories = new CopyOnWriteArrayList<ResultColumnMapperFactory>();
-    private final ConcurrentHashMap<Class, ResultColumnMapper> columnCache = new ConcurrentHashMap<Class, ResultColumnMapper>();
+    private volatile State state;
 
     /**
      * Copy Constructor
      */
     MappingRegistry(MappingRegistry parent)
     {
-        rowFactories.addAll(parent.rowFactories);
-        rowCache.putAll(parent.rowCache);
-
-        columnFactories.addAll(parent.columnFactories);
-        columnCache.putAll(parent.columnCache);
+        this.state = parent.state;
     }
 
     MappingRegistry() {
-
+        this.state = new State(Collections.<ResultSetMapperFactory>emptyList(),
+                               Collections.<ResultColumnMapperFactory>emptyList());
     }
 
     public void addMapper(ResultSetMapper mapper)
@@ -53,34 +65,52 @@ class MappingRegistry
         this.addMapper(new InferredMapperFactory(mapper));
     }
 
-    public void addMapper(ResultSetMapperFactory factory)
+    public synchronized void addMapper(ResultSetMapperFactory factory)
     {
-        rowFactories.add(factory);
-        rowCache.clear();
+        state = new State(state, append(state.rowFactories, factory), state.columnFactories, true);
     }
 
     public ResultSetMapper<?> mapperFor(Class<?> type, StatementContext ctx) {
-        ResultSetMapper<?> mapper = rowCache.get(type);
-        if (mapper != null) {
-            return mapper;
+        return mapperFor((Type) type, ctx);
+    }
+
+    /**
+     * A {@link GenericResultSetMapperFactory} is consulted with the type itself, other factories
+     * with its erasure; the resolution is cached for the type itself.
+     */
+    public ResultSetMapper<?> mapperFor(Type type, StatementContext ctx) {
+        final State state = this.state;
+        Resolution<ResultSetMapper<?>> resolution = state.cachedRow(type);
+        if (resolution == null) {
+            resolution = resolveRow(state, type, ctx);
+            state.rowCache.put(type, resolution);
         }
+        if (resolution.mapper == null) {
+            throw new DBIException("No mapper registered for " + nameOf(type)) {};
+        }
+        return resolution.mapper;
+    }
 
-        for (ResultSetMapperFactory factory : rowFactories) {
-            if (factory.accepts(type, ctx)) {
-                mapper = factory.mapperFor(type, ctx);
-                rowCache.put(type, mapper);
-                return mapper;
+    private static Resolution<ResultSetMapper<?>> resolveRow(State state, Type type, StatementContext ctx)
+    {
+        final Class<?> raw = erase(type);
+        for (ResultSetMapperFactory factory : state.rowFactories) {
+            if (factory instanceof GenericResultSetMapperFactory) {
+                GenericResultSetMapperFactory generic = (GenericResultSetMapperFactory) factory;
+                if (generic.acceptsType(type, ctx)) {
+                    return new Resolution<ResultSetMapper<?>>(generic.mapperForType(type, ctx), true);
+                }
+            }
+            else if (factory.accepts(raw, ctx)) {
+                return new Resolution<ResultSetMapper<?>>(factory.mapperFor(raw, ctx), true);
             }
         }
 
-        ResultColumnMapper columnMapper = columnMapperFor(type, ctx);
+        ResultColumnMapper<?> columnMapper = columnMapperFor(state, raw, ctx);
         if (columnMapper != null) {
-            mapper = new SingleColumnMapper(columnMapper);
-            rowCache.put(type, mapper);
-            return mapper;
+            return new Resolution<ResultSetMapper<?>>(new SingleColumnMapper(columnMapper), false);
         }
-
-        throw new DBIException("No mapper registered for " + type.getName()) {};
+        return new Resolution<ResultSetMapper<?>>(null, false);
     }
 
     public void addColumnMapper(ResultColumnMapper mapper)
@@ -88,31 +118,164 @@ class MappingRegistry
         this.addColumnMapper(new InferredColumnMapperFactory(mapper));
     }
 
-    public void addColumnMapper(ResultColumnMapperFactory factory) {
-        columnFactories.add(factory);
-        columnCache.clear();
+    public synchronized void addColumnMapper(ResultColumnMapperFactory factory) {
+        state = new State(state, state.rowFactories, append(state.columnFactories, factory), false);
     }
 
     public ResultColumnMapper<?> columnMapperFor(Class<?> type, StatementContext ctx) {
-        ResultColumnMapper<?> mapper = columnCache.get(type);
-        if (mapper != null) {
-            return mapper;
+        return columnMapperFor(state, type, ctx);
+    }
+
+    private static ResultColumnMapper<?> columnMapperFor(State state, Class<?> type, StatementContext ctx) {
+        Resolution<ResultColumnMapper<?>> resolution = state.cachedColumn(type);
+        if (resolution == null) {
+            resolution = resolveColumn(state, type, ctx);
+            state.columnCache.put(type, resolution);
         }
+        return resolution.mapper;
+    }
 
-        for (ResultColumnMapperFactory factory : columnFactories) {
+    private static Resolution<ResultColumnMapper<?>> resolveColumn(State state, Class<?> type, StatementContext ctx)
+    {
+        for (ResultColumnMapperFactory factory : state.columnFactories) {
             if (factory.accepts(type, ctx)) {
-                mapper = factory.columnMapperFor(type, ctx);
-                columnCache.put(type, mapper);
-                return mapper;
+                return new Resolution<ResultColumnMapper<?>>(factory.columnMapperFor(type, ctx), true);
             }
         }
 
         if (BUILT_INS.accepts(type, ctx)) {
-            mapper = BUILT_INS.columnMapperFor(type, ctx);
-            columnCache.put(type, mapper);
-            return mapper;
+            return new Resolution<ResultColumnMapper<?>>(BUILT_INS.columnMapperFor(type, ctx), false);
+        }
+        return new Resolution<ResultColumnMapper<?>>(null, false);
+    }
+
+    static Class<?> erase(Type type)
+    {
+        if (type instanceof Class) {
+            return (Class<?>) type;
         }
+        else if (type instanceof ParameterizedType) {
+            return erase(((ParameterizedType) type).getRawType());
+        }
+        else if (type instanceof GenericArrayType) {
+            return Array.newInstance(erase(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        else if (type instanceof TypeVariable) {
+            return erase(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        else if (type instanceof WildcardType) {
+            return erase(((WildcardType) type).getUpperBounds()[0]);
+        }
+        throw new IllegalArgumentException("unsupported type " + type);
+    }
 
-        return null;
+    private static String nameOf(Type type)
+    {
+        return type instanceof Class ? ((Class<?>) type).getName() : type.toString();
+    }
+
+    private static <T> List<T> append(List<T> list, T element)
+    {
+        List<T> result = new ArrayList<T>(list.size() + 1);
+        result.addAll(list);
+        result.add(element);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The mapper resolved for a type, null if nothing accepts it.
+     */
+    private static final class Resolution<M>
+    {
+        private final M mapper;
+        private final boolean registered;
+
+        Resolution(M mapper, boolean registered)
+        {
+            this.mapper = mapper;
+            this.registered = registered;
+        }
+    }
+
+    /**
+     * Registrations are never modified once published, the caches are shared by every registry
+     * holding the same state.
+     */
+    private static final class State
+    {
+        private final List<ResultSetMapperFactory> rowFactories;
+        private final ConcurrentHashMap<Type, Resolution<ResultSetMapper<?>>> rowCache =
+            new ConcurrentHashMap<Type, Resolution<ResultSetMapper<?>>>();
+
+        private final List<ResultColumnMapperFactory> columnFactories;
+        private final ConcurrentHashMap<Class<?>, Resolution<ResultColumnMapper<?>>> columnCache =
+            new ConcurrentHashMap<Class<?>, Resolution<ResultColumnMapper<?>>>();
+
+        // caches of the state this one was forked from, only one level deep
+        private final Map<Type, Resolution<ResultSetMapper<?>>> inheritedRows;
+        private final Map<Class<?>, Resolution<ResultColumnMapper<?>>> inheritedColumns;
+        private final boolean inheritAllColumns;
+
+        State(List<ResultSetMapperFactory> rowFactories, List<ResultColumnMapperFactory> columnFactories)
+        {
+            this.rowFactories = rowFactories;
+            this.columnFactories = columnFactories;
+            this.inheritedRows = null;
+            this.inheritedColumns = null;
+            this.inheritAllColumns = false;
+        }
+
+        /**
+         * A row factory added after all others cannot change how columns are mapped, nor
+         * displace a row factory which accepted a type before it; a column factory added after all
+         * others cannot displace row factories or column factories which accepted a type before
+         * it. Everything else, single column row mappers, built in column mappers and misses, is
+         * resolved again.
+         */
+        State(State previous,
+              List<ResultSetMapperFactory> rowFactories,
+              List<ResultColumnMapperFactory> columnFactories,
+              boolean rowFactoryAdded)
+        {
+            this.rowFactories = rowFactories;
+            this.columnFactories = columnFactories;
+            if (previous.rowCache.isEmpty() && previous.columnCache.isEmpty() && previous.inheritedRows != null) {
+                // registrations in a row, nothing was resolved in between
+                this.inheritedRows = previous.inheritedRows;
+                this.inheritedColumns = previous.inheritedColumns;
+                this.inheritAllColumns = rowFactoryAdded && previous.inheritAllColumns;
+            }
+            else {
+                this.inheritedRows = previous.rowCache;
+                this.inheritedColumns = previous.columnCache;
+                this.inheritAllColumns = rowFactoryAdded;
+            }
+        }
+
+        Resolution<ResultSetMapper<?>> cachedRow(Type type)
+        {
+            Resolution<ResultSetMapper<?>> resolution = rowCache.get(type);
+            if (resolution == null && inheritedRows != null) {
+                resolution = inheritedRows.get(type);
+                if (resolution == null || !resolution.registered) {
+                    return null;
+                }
+                rowCache.put(type, resolution);
+            }
+            return resolution;
+        }
+
+        Resolution<ResultColumnMapper<?>> cachedColumn(Class<?> type)
+        {
+            Resolution<ResultColumnMapper<?>> resolution = columnCache.get(type);
+            if (resolution == null && inheritedColumns != null) {
+                resolution = inheritedColumns.get(type);
+                if (resolution == null || !(inheritAllColumns || resolution.registered)) {
+                    return null;
+                }
+                columnCache.put(type, resolution);
+            }
+            return resolution;
+        }
     }
 }
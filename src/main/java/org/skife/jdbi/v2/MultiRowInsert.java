@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.Argument;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The shape of a rewritten <code>INSERT ... VALUES (...)</code> statement, and the statements
+ * inserting several rows at once made from it by repeating the values tuple.
+ * <p/>
+ * Only statements whose placeholders all sit in a single values tuple at the very end are
+ * supported; anything else is executed as a plain batch.
+ */
+final class MultiRowInsert
+{
+    /**
+     * Keeps the statements below the parameter limits of common drivers, SQL Server allowing the
+     * fewest with 2100.
+     */
+    static final int DEFAULT_MAX_PARAMETERS = 2000;
+
+    private static final MultiRowInsert NOT_SUPPORTED = new MultiRowInsert("", "", "", 0);
+    private static final BoundedCache<String, MultiRowInsert> SHAPES = new BoundedCache<String, MultiRowInsert>(256);
+
+    private final String prefix;
+    private final String tuple;
+    private final String suffix;
+    private final int parametersPerRow;
+
+    private MultiRowInsert(String prefix, String tuple, String suffix, int parametersPerRow)
+    {
+        this.prefix = prefix;
+        this.tuple = tuple;
+        this.suffix = suffix;
+        this.parametersPerRow = parametersPerRow;
+    }
+
+    /**
+     * @return the shape of the statement, or null if it cannot be turned into a multi row insert
+     */
+    static MultiRowInsert of(String sql)
+    {
+        MultiRowInsert shape = SHAPES.get(sql);
+        if (shape == null) {
+            shape = parse(sql);
+            SHAPES.put(sql, shape);
+        }
+        return shape == NOT_SUPPORTED ? null : shape;
+    }
+
+    int getParametersPerRow()
+    {
+        return parametersPerRow;
+    }
+
+    /**
+     * The largest power of two no larger than the number of rows, the maximum rows per statement
+     * and the parameter limit, so that only a handful of statement shapes are ever prepared.
+     */
+    int bucketFor(int rows, int maxRows, int maxParameters)
+    {
+        int limit = Math.min(rows, Math.min(maxRows, Math.max(1, maxParameters / Math.max(1, parametersPerRow))));
+        return Integer.highestOneBit(Math.max(1, limit));
+    }
+
+    String sqlFor(int rows)
+    {
+        StringBuilder b = new StringBuilder(prefix.length() + suffix.length() + rows * (tuple.length() + 2));
+        b.append(prefix).append(tuple);
+        for (int i = 1; i < rows; i++) {
+            b.append(", ").append(tuple);
+        }
+        return b.append(suffix).toString();
+    }
+
+    /**
+     * @return a view of the binding of a row whose arguments are applied at their positions
+     *         shifted by the offset, so that the row is bound into a tuple of its own
+     */
+    static Binding offset(Binding row, int offset)
+    {
+        return offset == 0 ? row : new OffsetBinding(row, offset);
+    }
+
+    static MultiRowInsert parse(String sql)
+    {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        if (!sql.regionMatches(true, start, "insert", 0, 6)) {
+            return NOT_SUPPORTED;
+        }
+
+        int placeholders = 0;
+        int valuesAt = -1;
+        int tupleStart = -1;
+        int tupleEnd = -1;
+        int depth = 0;
+        for (int i = start; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int close = sql.indexOf(c, i + 1);
+                if (close < 0) {
+                    return NOT_SUPPORTED;
+                }
+                i = close;
+            }
+            else if (c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-'
+                     || c == '/' && i + 1 < sql.length() && sql.charAt(i + 1) == '*') {
+                return NOT_SUPPORTED;
+            }
+            else if (c == '?') {
+                if (tupleStart < 0 || tupleEnd >= 0) {
+                    return NOT_SUPPORTED;
+                }
+                placeholders++;
+            }
+            else if (c == '(') {
+                if (depth == 0 && valuesAt >= 0 && tupleStart < 0) {
+                    tupleStart = i;
+                }
+                depth++;
+            }
+            else if (c == ')') {
+                depth--;
+                if (depth == 0 && tupleStart >= 0 && tupleEnd < 0) {
+                    tupleEnd = i;
+                }
+            }
+            else if (depth == 0 && valuesAt < 0 && isKeyword(sql, i, "values")) {
+                valuesAt = i;
+                i += 5;
+            }
+            else if (depth == 0 && tupleEnd >= 0 && !Character.isWhitespace(c)) {
+                // something follows the tuple, such as a second tuple or an upsert clause
+                return NOT_SUPPORTED;
+            }
+            else if (depth == 0 && valuesAt >= 0 && tupleStart < 0 && !Character.isWhitespace(c)) {
+                // values followed by something else than a tuple
+                return NOT_SUPPORTED;
+            }
+        }
+        if (tupleEnd < 0 || depth != 0) {
+            return NOT_SUPPORTED;
+        }
+        return new MultiRowInsert(sql.substring(0, tupleStart),
+                                  sql.substring(tupleStart, tupleEnd + 1),
+                                  sql.substring(tupleEnd + 1),
+                                  placeholders);
+    }
+
+    private static boolean isKeyword(String sql, int at, String keyword)
+    {
+        int end = at + keyword.length();
+        return sql.regionMatches(true, at, keyword, 0, keyword.length())
+               && (at == 0 || !Character.isJavaIdentifierPart(sql.charAt(at - 1)))
+               && (end == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(end)));
+    }
+
+    private static final class OffsetBinding extends Binding
+    {
+        private final Binding row;
+        private final int offset;
+
+        OffsetBinding(Binding row, int offset)
+        {
+            this.row = row;
+            this.offset = offset;
+        }
+
+        @Override
+        public Argument forName(String name)
+        {
+            return shift(row.forName(name));
+        }
+
+        @Override
+        public Argument forPosition(int position)
+        {
+            return shift(row.forPosition(position));
+        }
+
+        @Override
+        public String toString()
+        {
+            return row.toString();
+        }
+
+        private Argument shift(final Argument argument)
+        {
+            if (argument == null) {
+                return null;
+            }
+            return new Argument()
+            {
+                @Override
+                public void apply(int position, PreparedStatement statement, StatementContext ctx) throws SQLException
+                {
+                    argument.apply(position + offset, statement, ctx);
+                }
+
+                @Override
+                public String toString()
+                {
+                    return argument.toString();
+                }
+            };
+        }
+    }
+}
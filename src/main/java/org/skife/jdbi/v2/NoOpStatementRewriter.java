@@ -33,7 +33,7 @@ public class NoOpStatementRewriter implements StatementRewriter
         return new NoOpRewrittenStatement(sql, ctx);
     }
 
-    private static class NoOpRewrittenStatement implements RewrittenStatement
+    private static class NoOpRewrittenStatement implements ContextualRewrittenStatement
     {
         private final String sql;
         private final StatementContext context;
@@ -44,6 +44,12 @@ public class NoOpStatementRewriter implements StatementRewriter
             this.sql = sql;
         }
 
+        @Override
+        public RewrittenStatement withContext(StatementContext ctx)
+        {
+            return new NoOpRewrittenStatement(sql, ctx);
+        }
+
         @Override
         public void bind(Binding params, PreparedStatement statement) throws SQLException
         {
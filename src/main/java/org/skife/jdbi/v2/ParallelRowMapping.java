@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.exceptions.ResultSetException;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Maps the rows of a result set on the threads of an executor: the calling thread copies rows
+ * out of the result set in chunks into a {@link BufferedResultSet}, the chunks are mapped
+ * concurrently and the mapped rows are added to a container, in result set order or in the order
+ * the chunks complete. At most a few chunks per processor are in flight at any time.
+ */
+final class ParallelRowMapping<T>
+{
+    static final int CHUNK_SIZE = 256;
+
+    private final ResultSetMapper<T> mapper;
+    private final StatementContext ctx;
+    private final Executor executor;
+    private final boolean ordered;
+    private final int maxInFlight;
+
+    private final LinkedList<Future<List<T>>> inFlight = new LinkedList<Future<List<T>>>();
+    private final CompletionService<List<T>> completion;
+
+    ParallelRowMapping(ResultSetMapper<T> mapper, StatementContext ctx, Executor executor, boolean ordered)
+    {
+        this.mapper = mapper;
+        this.ctx = ctx;
+        this.executor = executor;
+        this.ordered = ordered;
+        this.maxInFlight = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+        this.completion = ordered ? null : new ExecutorCompletionService<List<T>>(executor);
+    }
+
+    void map(ResultSet rs, ContainerBuilder<?> builder) throws SQLException
+    {
+        final BufferedResultSet buffered = new BufferedResultSet(rs.getMetaData());
+        try {
+            int rowNumber = 0;
+            boolean more = true;
+            while (more) {
+                final int first = rowNumber;
+                final List<Object[]> rows = new ArrayList<Object[]>(CHUNK_SIZE);
+                while (rows.size() < CHUNK_SIZE && (more = rs.next())) {
+                    rows.add(buffered.read(rs));
+                    rowNumber++;
+                }
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                submit(new Callable<List<T>>()
+                {
+                    @Override
+                    public List<T> call() throws Exception
+                    {
+                        List<T> mapped = new ArrayList<T>(rows.size());
+                        try {
+                            for (int i = 0; i < rows.size(); i++) {
+                                buffered.position(first + i, rows.get(i));
+                                mapped.add(mapper.map(first + i, buffered, ctx));
+                            }
+                        }
+                        finally {
+                            buffered.release();
+                        }
+                        return mapped;
+                    }
+                });
+
+                if (inFlight.size() >= maxInFlight) {
+                    collect(builder);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                collect(builder);
+            }
+        }
+        finally {
+            for (Future<List<T>> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void submit(Callable<List<T>> chunk)
+    {
+        if (ordered) {
+            FutureTask<List<T>> task = new FutureTask<List<T>>(chunk);
+            inFlight.add(task);
+            executor.execute(task);
+        }
+        else {
+            inFlight.add(completion.submit(chunk));
+        }
+    }
+
+    private void collect(ContainerBuilder<?> builder) throws SQLException
+    {
+        try {
+            final Future<List<T>> done;
+            if (ordered) {
+                done = inFlight.removeFirst();
+            }
+            else {
+                done = completion.take();
+                inFlight.remove(done);
+            }
+            for (T row : done.get()) {
+                builder.add(row);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResultSetException("Interrupted while mapping rows", e, ctx);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ResultSetException("Error thrown mapping result set into return type", e, ctx);
+        }
+    }
+}
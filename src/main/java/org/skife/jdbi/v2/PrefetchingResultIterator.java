@@ -0,0 +1,353 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.exceptions.ResultSetException;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ResultIterator which advances the result set and maps its rows on a separate thread, ahead of
+ * the consumer, into a bounded buffer. When the buffer is full the producer waits for the consumer
+ * to catch up.
+ * <p/>
+ * Closing the iterator, exhausting it or the producer failing stops the producer and cleans up the
+ * statement. The handle must not be used for anything else until then. A producer waiting on a full
+ * buffer also stops once the statement is cleaned up, the handle is closed or the iterator has been
+ * abandoned and garbage collected, so that it gives its thread back.
+ * <p/>
+ * The producer must run on another thread than the one creating the iterator, which would block
+ * forever on a full buffer, so an executor which runs it on the calling thread is rejected.
+ */
+class PrefetchingResultIterator<Type> implements ResultIterator<Type>
+{
+    /**
+     * The executor for iterators which are not given one: daemon threads which end after a minute
+     * without work. A producer holds its thread until its iterator is done, so a new producer
+     * always gets a thread of its own rather than waiting in a queue for one which may only be
+     * given back once the caller, who is waiting for that producer, gets to it.
+     */
+    static final Executor SHARED_EXECUTOR = sharedExecutor();
+
+    /**
+     * How long a producer waits on a full buffer before checking whether it should stop.
+     */
+    private static final long OFFER_WAIT_MILLIS = 100;
+
+    private static final Object END = new Object();
+    private static final Object NULL = new Object();
+
+    private final SQLStatement<?> jdbiStatement;
+    private final StatementContext context;
+    private final Producer<Type> producer;
+
+    private boolean closed = false;
+    private Object next = null;
+
+    PrefetchingResultIterator(final ResultSetMapper<Type> mapper,
+                              final SQLStatement<?> jdbiStatement,
+                              final Statement stmt,
+                              final StatementContext context,
+                              final int bufferSize,
+                              final Executor executor)
+            throws SQLException
+    {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("buffer size must be >= 1, was " + bufferSize);
+        }
+        this.jdbiStatement = jdbiStatement;
+        this.context = context;
+
+        final ResultSet results = stmt.getResultSet();
+        this.jdbiStatement.addCleanable(Cleanables.forResultSet(results));
+        this.producer = new Producer<Type>(this, mapper, results, bufferSize);
+        this.jdbiStatement.addCleanable(producer);
+
+        try {
+            executor.execute(producer);
+        }
+        catch (RejectedExecutionException e) {
+            producer.done.countDown();
+            close();
+            throw e;
+        }
+        if (producer.ranOnCaller) {
+            close();
+            throw new IllegalArgumentException("the executor must run the prefetching on another thread than the caller's");
+        }
+    }
+
+    private static Executor sharedExecutor()
+    {
+        final ThreadFactory daemons = new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "jdbi-prefetch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                                      new SynchronousQueue<Runnable>(), daemons);
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+
+        producer.stopped = true;
+        producer.buffer.clear();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                producer.done.await();
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        producer.buffer.clear();
+        jdbiStatement.cleanup();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (closed) {
+            return false;
+        }
+
+        try {
+            while (next == null) {
+                next = producer.buffer.poll(OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (next == null && producer.done.getCount() == 0) {
+                    // the producer was stopped by someone else, e.g. the statement cleaned up
+                    next = producer.buffer.poll();
+                    if (next == null) {
+                        next = new Failure(new ResultSetException("Statement cleaned up while prefetching result set", null, context));
+                    }
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new ResultSetException("Interrupted waiting for result set rows", e, context);
+        }
+
+        if (next == END) {
+            close();
+            return false;
+        }
+        if (next instanceof Failure) {
+            Throwable failure = ((Failure) next).cause;
+            close();
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Type next()
+    {
+        if (closed) {
+            throw new IllegalStateException("iterator is closed");
+        }
+
+        if (!hasNext()) {
+            throw new IllegalStateException("No element to advance to");
+        }
+
+        Object value = next;
+        next = null;
+        return value == NULL ? null : (Type) value;
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException("Deleting from a result set iterator is not yet supported");
+    }
+
+    /**
+     * Reads the rows into the buffer. It only holds the iterator weakly, and is the statement's
+     * cleanable rather than the iterator, so that an abandoned iterator can be collected.
+     */
+    private static final class Producer<Type> implements Runnable, Cleanable
+    {
+        private final WeakReference<PrefetchingResultIterator<Type>> consumer;
+        private final SQLStatement<?> jdbiStatement;
+        private final StatementContext context;
+        private final ResultSetMapper<Type> mapper;
+        private final ResultSet results;
+        private final BlockingQueue<Object> buffer;
+        private final Thread caller = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile boolean stopped = false;
+        private volatile boolean ranOnCaller = false;
+
+        Producer(PrefetchingResultIterator<Type> consumer, ResultSetMapper<Type> mapper, ResultSet results, int bufferSize)
+        {
+            this.consumer = new WeakReference<PrefetchingResultIterator<Type>>(consumer);
+            this.jdbiStatement = consumer.jdbiStatement;
+            this.context = consumer.context;
+            this.mapper = mapper;
+            this.results = results;
+            this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+        }
+
+        /**
+         * Run when the statement is cleaned up, by the iterator or by its owner.
+         */
+        @Override
+        public void cleanup()
+        {
+            stopped = true;
+        }
+
+        @Override
+        public void run()
+        {
+            if (Thread.currentThread() == caller) {
+                ranOnCaller = true;
+                done.countDown();
+                return;
+            }
+            try {
+                int count = 0;
+                while (!stopped) {
+                    if (!results.next()) {
+                        offer(END);
+                        return;
+                    }
+                    Type value = mapper.map(count++, results, context);
+                    if (!offer(value == null ? NULL : value)) {
+                        return;
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                fail(new ResultSetException("Interrupted while prefetching result set", e, context));
+            }
+            catch (SQLException e) {
+                fail(new ResultSetException("Error thrown mapping result set into return type", e, context));
+            }
+            catch (RuntimeException e) {
+                fail(e);
+            }
+            catch (Exception e) {
+                fail(new ResultSetException("Error thrown mapping result set into return type", e, context));
+            }
+            catch (Error e) {
+                fail(e);
+            }
+            finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Waits for room in the buffer for as long as anyone may still take the value.
+         *
+         * @return false if the producer should stop instead
+         */
+        private boolean offer(Object value) throws InterruptedException
+        {
+            while (!buffer.offer(value, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    return false;
+                }
+                if (consumer.get() == null) {
+                    // nobody will close the abandoned iterator, release its statement here
+                    stopped = true;
+                    try {
+                        jdbiStatement.cleanup();
+                    }
+                    catch (RuntimeException e) {
+                        // the handle may be gone already
+                    }
+                    return false;
+                }
+                if (jdbiStatement.getHandle().isClosed()) {
+                    stopped = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Hands the failure to the consumer, which would otherwise wait for rows forever. Interrupts
+         * are deferred until it is delivered or the producer is stopped.
+         */
+        private void fail(Throwable t)
+        {
+            boolean interrupted = Thread.interrupted();
+            while (true) {
+                try {
+                    offer(new Failure(t));
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Failure
+    {
+        private final Throwable cause;
+
+        Failure(Throwable cause)
+        {
+            this.cause = cause;
+        }
+    }
+}
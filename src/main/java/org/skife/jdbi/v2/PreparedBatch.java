@@ -25,11 +25,17 @@ import org.skife.jdbi.v2.tweak.StatementLocator;
 import org.skife.jdbi.v2.tweak.StatementRewriter;
 import org.skife.jdbi.v2.util.SingleColumnMapper;
 
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -39,14 +45,37 @@ import java.util.Map;
  * statement, and then executed multiple times in a single batch. This is, generally,
  * a very efficient way to execute large numbers of the same statement where
  * the statement only varies by the arguments bound to it.
+ * <p/>
+ * By default all parts are kept until the batch is executed. See {@link #flushEvery(int, long)}
+ * for loading more rows than fit in memory.
  */
-public class PreparedBatch extends SQLStatement<PreparedBatch>
+public class PreparedBatch extends SQLStatement<PreparedBatch> implements Closeable
 {
+    private static final String[] NO_COLUMN_NAMES = new String[0];
+
     private final List<PreparedBatchPart> parts = new ArrayList<PreparedBatchPart>();
     private Binding currentBinding;
 
+    private int flushRows = 0;
+    private long flushBytes = Long.MAX_VALUE;
+    private boolean keepUpdateCounts = true;
+    private int valuesRowsPerStatement = 0;
+    private int valuesMaxParameters = MultiRowInsert.DEFAULT_MAX_PARAMETERS;
+
+    // streaming state, reset on execute
+    private PreparedBatchPart pending;
+    private RewrittenStatement streamRewritten;
+    private PreparedStatement streamStatement;
+    private ArgumentSizer streamSizer;
+    private int unflushedRows = 0;
+    private long unflushedBytes = 0;
+    private int[] updateCounts = new int[0];
+    private int updateCountsSize = 0;
+    private long updateCount = 0;
+
     PreparedBatch(StatementLocator locator,
                   StatementRewriter rewriter,
+                  RewrittenStatementCache rewrittenStatementCache,
                   Handle handle,
                   StatementBuilder statementBuilder,
                   String sql,
@@ -57,7 +86,7 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
                   Foreman foreman,
                   ContainerFactoryRegistry containerFactoryRegistry)
     {
-        super(new Binding(), locator, rewriter, handle, statementBuilder, sql, ctx, log, timingCollector, statementCustomizers, foreman, containerFactoryRegistry);
+        super(new Binding(), locator, rewriter, rewrittenStatementCache, handle, statementBuilder, sql, ctx, log, timingCollector, statementCustomizers, foreman, containerFactoryRegistry);
         this.currentBinding = new Binding();
     }
 
@@ -91,15 +120,312 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
         return this;
     }
 
+    /**
+     * Stream the batch: rather than keeping every part until {@link #execute()}, each part is
+     * bound into the prepared statement as soon as the next one is added, and the statement is
+     * executed every <code>rows</code> parts. Memory then depends on the flush size rather than
+     * on the number of parts. When binding or flushing fails, the parts not flushed yet are
+     * discarded while those flushed before stay executed, so run a streaming batch in a
+     * transaction if it has to be all or nothing. The statement stays open from the first part
+     * until the batch is executed; {@link #close()} a batch which is given up on, or it is
+     * closed along with its handle.
+     *
+     * @param rows the number of parts to send to the database at a time
+     *
+     * @return this
+     */
+    public PreparedBatch flushEvery(int rows)
+    {
+        return flushEvery(rows, Long.MAX_VALUE);
+    }
+
+    /**
+     * Stream the batch, see {@link #flushEvery(int)}, also executing the statement once the
+     * parts bound since the last flush add up to about <code>bytes</code>. The size of a part is
+     * a rough estimate by type of every value bound into the statement, including those found
+     * through bindBean or bindFromMap: the length of byte arrays and strings, a fixed size for
+     * numbers and dates. It is only computed when a byte limit is given.
+     *
+     * @param rows the maximum number of parts to send to the database at a time
+     * @param bytes the approximate maximum size of the parts to send at a time
+     *
+     * @return this
+     */
+    public PreparedBatch flushEvery(int rows, long bytes)
+    {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("rows must be > 0, was " + rows);
+        }
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("bytes must be > 0, was " + bytes);
+        }
+        if (!parts.isEmpty()) {
+            throw new IllegalStateException("a batch can only be made streaming before parts are added");
+        }
+        if (valuesRowsPerStatement > 0) {
+            throw new IllegalStateException("a streaming batch cannot insert multiple rows per statement");
+        }
+        this.flushRows = rows;
+        this.flushBytes = bytes;
+        return this;
+    }
+
+    /**
+     * Execute an <code>INSERT ... VALUES (...)</code> batch as inserts of up to
+     * <code>maxRowsPerStatement</code> rows each, by repeating the values tuple of the rewritten
+     * statement, rather than as one execution per part. Drivers which send every part of a batch
+     * separately need far fewer round trips this way.
+     * <p/>
+     * The number of rows per statement is always a power of two, so that only a few distinct
+     * statements are prepared and statement caches stay effective, and is kept low enough for
+     * the parameters to fit the limits of common drivers, 2000 parameters per statement, see
+     * {@link #multiRowValues(int, int)}. A row is reported as one inserted row when its statement
+     * inserted all of its rows, as {@link Statement#SUCCESS_NO_INFO} otherwise. Statements of
+     * any other shape, with placeholders outside the single values tuple or anything after it,
+     * and batches returning generated keys are executed as usual.
+     * <p/>
+     * The statements of each size are executed as a JDBC batch of their own, largest first. When
+     * one of those fails, the rows of the sizes executed before stay inserted unless the batch
+     * runs in a transaction, and the exception does not tell which rows they were.
+     *
+     * @param maxRowsPerStatement the maximum number of rows to insert with one statement
+     *
+     * @return this
+     */
+    public PreparedBatch multiRowValues(int maxRowsPerStatement)
+    {
+        return multiRowValues(maxRowsPerStatement, MultiRowInsert.DEFAULT_MAX_PARAMETERS);
+    }
+
+    /**
+     * Execute an <code>INSERT ... VALUES (...)</code> batch as multi row inserts, see
+     * {@link #multiRowValues(int)}, with no more than <code>maxParameters</code> parameters per
+     * statement, for drivers whose limit differs from the default.
+     *
+     * @param maxRowsPerStatement the maximum number of rows to insert with one statement
+     * @param maxParameters the maximum number of parameters of one statement; a row with more
+     *        parameters is inserted on its own
+     *
+     * @return this
+     */
+    public PreparedBatch multiRowValues(int maxRowsPerStatement, int maxParameters)
+    {
+        if (maxRowsPerStatement <= 0) {
+            throw new IllegalArgumentException("maxRowsPerStatement must be > 0, was " + maxRowsPerStatement);
+        }
+        if (maxParameters <= 0) {
+            throw new IllegalArgumentException("maxParameters must be > 0, was " + maxParameters);
+        }
+        if (flushRows > 0) {
+            throw new IllegalStateException("a streaming batch cannot insert multiple rows per statement");
+        }
+        this.valuesRowsPerStatement = maxRowsPerStatement;
+        this.valuesMaxParameters = maxParameters;
+        return this;
+    }
+
+    /**
+     * Do not keep the update count of each part of a streaming batch, only their total, see
+     * {@link #getUpdateCount()}. {@link #execute()} then returns an empty array.
+     *
+     * @return this
+     */
+    public PreparedBatch discardUpdateCounts()
+    {
+        this.keepUpdateCounts = false;
+        return this;
+    }
+
+    /**
+     * The total number of rows changed by the flushed parts of the streaming batch in progress,
+     * or of the one executed last. Parts for which the driver does not report a count are not
+     * included.
+     */
+    public long getUpdateCount()
+    {
+        return updateCount;
+    }
+
     /**
      * Execute the batch
      *
      * @return the number of rows modified or inserted per batch part.
      */
     public int[] execute() {
+        if (flushRows > 0) {
+            if (streamStatement == null) {
+                // nothing flushed yet, so this is the start of a run
+                updateCount = 0;
+            }
+            return executeStreaming();
+        }
         return (int[]) internalBatchExecute(null, null);
     }
 
+    private int[] executeStreaming()
+    {
+        try {
+            pushPending();
+            if (unflushedRows > 0) {
+                flush();
+            }
+            if (streamStatement != null) {
+                afterExecution(streamStatement);
+            }
+            int[] result = new int[updateCountsSize];
+            System.arraycopy(updateCounts, 0, result, 0, updateCountsSize);
+            return result;
+        }
+        finally {
+            resetStream();
+        }
+    }
+
+    private void pushPending()
+    {
+        if (pending != null) {
+            PreparedBatchPart part = pending;
+            pending = null;
+            push(part.getParams());
+        }
+    }
+
+    /**
+     * Binds a part into the statement, preparing it on the first part, and flushes if the part
+     * reached the limit.
+     */
+    private void push(Binding binding)
+    {
+        boolean ok = false;
+        try {
+            if (streamStatement == null) {
+                updateCount = 0;
+                streamRewritten = locateAndRewrite(binding);
+                try {
+                    Connection connection = getHandle().getConnection();
+                    getConcreteContext().setReturningGeneratedKeys(false);
+                    getConcreteContext().setGeneratedKeysColumnNames(NO_COLUMN_NAMES);
+                    streamStatement = getStatementBuilder().create(connection, streamRewritten.getSql(), getContext());
+                    addCleanable(new Cleanables.StatementBuilderCleanable(getStatementBuilder(), connection, streamRewritten.getSql(), streamStatement));
+                    if (getHandle() instanceof BasicHandle) {
+                        ((BasicHandle) getHandle()).batchOpened(this);
+                    }
+                }
+                catch (SQLException e) {
+                    throw new UnableToCreateStatementException(e, getContext());
+                }
+                beforeExecution(streamStatement);
+            }
+
+            try {
+                if (flushBytes == Long.MAX_VALUE) {
+                    streamRewritten.bind(binding, streamStatement);
+                }
+                else {
+                    if (streamSizer == null) {
+                        streamSizer = new ArgumentSizer(streamStatement);
+                    }
+                    streamRewritten.bind(binding, streamSizer.statement);
+                    unflushedBytes += streamSizer.take();
+                }
+                streamStatement.addBatch();
+            }
+            catch (SQLException e) {
+                throw new UnableToExecuteStatementException("Exception while binding parameters", e, getContext());
+            }
+            unflushedRows++;
+            if (unflushedRows >= flushRows || unflushedBytes >= flushBytes) {
+                flush();
+            }
+            ok = true;
+        }
+        finally {
+            if (!ok) {
+                resetStream();
+            }
+        }
+    }
+
+    private void flush()
+    {
+        final int[] rs;
+        try {
+            final long start = System.nanoTime();
+            rs = streamStatement.executeBatch();
+            final long elapsedTime = System.nanoTime() - start;
+            getLog().logPreparedBatch(elapsedTime / 1000000L, streamRewritten.getSql(), unflushedRows);
+            getTimingCollector().collect(elapsedTime, getContext());
+        }
+        catch (SQLException e) {
+            throw new UnableToExecuteStatementException(e, getContext());
+        }
+        invalidateQueryResults(streamRewritten.getSql());
+
+        for (int count : rs) {
+            if (count >= 0) {
+                updateCount += count;
+            }
+        }
+        if (keepUpdateCounts) {
+            if (updateCountsSize + rs.length > updateCounts.length) {
+                int[] grown = new int[Math.max(updateCountsSize + rs.length, updateCounts.length * 2)];
+                System.arraycopy(updateCounts, 0, grown, 0, updateCountsSize);
+                updateCounts = grown;
+            }
+            System.arraycopy(rs, 0, updateCounts, updateCountsSize, rs.length);
+            updateCountsSize += rs.length;
+        }
+        unflushedRows = 0;
+        unflushedBytes = 0;
+    }
+
+    @SuppressWarnings("PMD.EmptyCatchBlock")
+    private void resetStream()
+    {
+        try {
+            if (streamStatement != null && unflushedRows > 0) {
+                // a caching statement builder may hand the statement out again
+                try {
+                    streamStatement.clearBatch();
+                }
+                catch (SQLException e) {
+                    // closed by the cleanup below anyway
+                }
+            }
+            cleanup();
+        }
+        finally {
+            if (streamStatement != null && getHandle() instanceof BasicHandle) {
+                ((BasicHandle) getHandle()).batchClosed(this);
+            }
+            pending = null;
+            streamRewritten = null;
+            streamStatement = null;
+            streamSizer = null;
+            unflushedRows = 0;
+            unflushedBytes = 0;
+            updateCounts = new int[0];
+            updateCountsSize = 0;
+            currentBinding = new Binding();
+        }
+    }
+
+    /**
+     * Discard the parts which have not been executed and release the statement of a streaming
+     * batch in progress. Parts a streaming batch flushed already stay executed. The batch may be
+     * used again afterwards.
+     */
+    @Override
+    public void close()
+    {
+        try {
+            resetStream();
+        }
+        finally {
+            parts.clear();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <GeneratedKeyType> GeneratedKeys<GeneratedKeyType> executeAndGenerateKeys(final ResultSetMapper<GeneratedKeyType> mapper) {
         return (GeneratedKeys<GeneratedKeyType>) internalBatchExecute(new QueryResultMunger<GeneratedKeys<GeneratedKeyType>>() {
@@ -140,6 +466,9 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
     }
 
     private <Result> Object internalBatchExecute(QueryResultMunger<Result> munger, String[] columnNames) {
+        if (flushRows > 0) {
+            throw new IllegalStateException("generated keys are not available from a streaming batch");
+        }
         boolean generateKeys = munger != null;
         // short circuit empty batch
         if (parts.size() == 0) {
@@ -150,29 +479,22 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
         }
 
         PreparedBatchPart current = parts.get(0);
-        final String my_sql ;
-        try {
-            my_sql = getStatementLocator().locate(getSql(), getContext());
-        }
-        catch (Exception e) {
-            throw new UnableToCreateStatementException(String.format("Exception while locating statement for [%s]",
-                                                                     getSql()), e, getContext());
-        }
-        final RewrittenStatement rewritten = getRewriter().rewrite(my_sql, current.getParams(), getContext());
+        final RewrittenStatement rewritten = locateAndRewrite(current.getParams());
         PreparedStatement stmt = null;
         try {
+            if (!generateKeys && valuesRowsPerStatement > 1 && parts.size() > 1) {
+                MultiRowInsert shape = MultiRowInsert.of(rewritten.getSql());
+                if (shape != null) {
+                    return executeMultiRow(rewritten, shape);
+                }
+            }
+
             try {
                 Connection connection = getHandle().getConnection();
-                if (generateKeys) {
-                    if (columnNames != null) {
-                        stmt = connection.prepareStatement(rewritten.getSql(), columnNames);
-                    } else  {
-                        stmt = connection.prepareStatement(rewritten.getSql(), Statement.RETURN_GENERATED_KEYS);
-                    }
-                } else {
-                    stmt = connection.prepareStatement(rewritten.getSql(), Statement.NO_GENERATED_KEYS);
-                }
-                addCleanable(Cleanables.forStatement(stmt));
+                getConcreteContext().setReturningGeneratedKeys(generateKeys);
+                getConcreteContext().setGeneratedKeysColumnNames(columnNames == null ? NO_COLUMN_NAMES : columnNames);
+                stmt = getStatementBuilder().create(connection, rewritten.getSql(), getContext());
+                addCleanable(new Cleanables.StatementBuilderCleanable(getStatementBuilder(), connection, rewritten.getSql(), stmt));
             }
             catch (SQLException e) {
                 throw new UnableToCreateStatementException(e, getContext());
@@ -197,6 +519,7 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
                 final long elapsedTime = System.nanoTime() - start;
                 getLog().logPreparedBatch(elapsedTime / 1000000L, rewritten.getSql(), parts.size());
                 getTimingCollector().collect(elapsedTime, getContext());
+                invalidateQueryResults(rewritten.getSql());
 
                 afterExecution(stmt);
 
@@ -218,6 +541,70 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
         }
     }
 
+    private int[] executeMultiRow(RewrittenStatement rewritten, MultiRowInsert shape)
+    {
+        final Connection connection = getHandle().getConnection();
+        final int rows = parts.size();
+        final int parameters = shape.getParametersPerRow();
+        final int[] counts = new int[rows];
+        getConcreteContext().setReturningGeneratedKeys(false);
+        getConcreteContext().setGeneratedKeysColumnNames(NO_COLUMN_NAMES);
+
+        int done = 0;
+        while (done < rows) {
+            // full statements of the largest size, then at most one of each smaller size
+            final int bucket = shape.bucketFor(rows - done, valuesRowsPerStatement, valuesMaxParameters);
+            final int statements = (rows - done) / bucket;
+            final String sql = shape.sqlFor(bucket);
+
+            final PreparedStatement stmt;
+            try {
+                stmt = getStatementBuilder().create(connection, sql, getContext());
+                addCleanable(new Cleanables.StatementBuilderCleanable(getStatementBuilder(), connection, sql, stmt));
+            }
+            catch (SQLException e) {
+                throw new UnableToCreateStatementException(e, getContext());
+            }
+
+            try {
+                for (int i = 0; i < statements; i++) {
+                    for (int row = 0; row < bucket; row++) {
+                        Binding params = parts.get(done + i * bucket + row).getParams();
+                        rewritten.bind(MultiRowInsert.offset(params, row * parameters), stmt);
+                    }
+                    stmt.addBatch();
+                }
+            }
+            catch (SQLException e) {
+                throw new UnableToExecuteStatementException("Exception while binding parameters", e, getContext());
+            }
+
+            beforeExecution(stmt);
+
+            final int[] rs;
+            try {
+                final long start = System.nanoTime();
+                rs = stmt.executeBatch();
+                final long elapsedTime = System.nanoTime() - start;
+                getLog().logPreparedBatch(elapsedTime / 1000000L, sql, statements);
+                getTimingCollector().collect(elapsedTime, getContext());
+            }
+            catch (SQLException e) {
+                throw new UnableToExecuteStatementException(e, getContext());
+            }
+
+            afterExecution(stmt);
+
+            for (int i = 0; i < statements; i++) {
+                int count = i < rs.length && rs[i] == bucket ? 1 : Statement.SUCCESS_NO_INFO;
+                Arrays.fill(counts, done + i * bucket, done + (i + 1) * bucket, count);
+            }
+            done += statements * bucket;
+        }
+        invalidateQueryResults(rewritten.getSql());
+        return counts;
+    }
+
     /**
      * Add a statement (part) to this batch. You'll need to bindBinaryStream any arguments to the
      * part.
@@ -226,6 +613,9 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
      */
     public PreparedBatchPart add()
     {
+        if (flushRows > 0) {
+            pushPending();
+        }
         PreparedBatchPart part = new PreparedBatchPart(this.currentBinding,
                                                        this,
                                                        getStatementLocator(),
@@ -238,13 +628,28 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
                                                        getTimingCollector(),
                                                        getForeman(),
                                                        getContainerMapperRegistry());
-        parts.add(part);
+        if (flushRows > 0) {
+            pending = part;
+        }
+        else {
+            parts.add(part);
+        }
         this.currentBinding = new Binding();
         return part;
     }
 
     public PreparedBatch add(Object... args)
     {
+        if (flushRows > 0) {
+            // bind straight into the statement, without a part
+            pushPending();
+            for (int i = 0; i < args.length; ++i) {
+                bind(i, args[i]);
+            }
+            push(currentBinding);
+            currentBinding.clear();
+            return this;
+        }
         PreparedBatchPart part = add();
         for (int i = 0; i < args.length; ++i) {
             part.bind(i, args[i]);
@@ -269,18 +674,23 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
     }
 
     /**
-     * The number of statements which are in this batch
+     * The number of statements which are in this batch, for a streaming batch those not flushed
+     * yet
      */
     public int getSize()
     {
-        return parts.size();
+        return size();
     }
 
     /**
-     * The number of statements which are in this batch
+     * The number of statements which are in this batch, for a streaming batch those not flushed
+     * yet
      */
     public int size()
     {
+        if (flushRows > 0) {
+            return unflushedRows + (pending == null ? 0 : 1);
+        }
         return parts.size();
     }
 
@@ -289,4 +699,47 @@ public class PreparedBatch extends SQLStatement<PreparedBatch>
     {
         return this.currentBinding;
     }
+
+    /**
+     * Passes the values bound into a statement on, adding up their estimated size.
+     */
+    private static final class ArgumentSizer implements InvocationHandler
+    {
+        private final PreparedStatement target;
+        private final PreparedStatement statement;
+        private long bytes = 0;
+
+        ArgumentSizer(PreparedStatement target)
+        {
+            this.target = target;
+            this.statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                                        new Class<?>[]{PreparedStatement.class},
+                                                                        this);
+        }
+
+        long take()
+        {
+            long taken = bytes;
+            bytes = 0;
+            return taken;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            if (method.getName().startsWith("set") && args != null) {
+                // the first argument is the parameter index
+                bytes += 16;
+                for (int i = 1; i < args.length; i++) {
+                    bytes += QueryResultCache.estimateSize(args[i]);
+                }
+            }
+            try {
+                return method.invoke(target, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
 }
@@ -43,7 +43,7 @@ public class PreparedBatchPart extends SQLStatement<PreparedBatchPart>
                       Foreman foreman,
                       ContainerFactoryRegistry containerFactoryRegistry)
     {
-        super(binding, locator, rewriter, handle, cache, sql, context, log, timingCollector, Collections.<StatementCustomizer>emptyList(), foreman, containerFactoryRegistry);
+        super(binding, locator, rewriter, null, handle, cache, sql, context, log, timingCollector, Collections.<StatementCustomizer>emptyList(), foreman, containerFactoryRegistry);
         this.batch = batch;
     }
 
@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.exceptions.ResultSetException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Cursor handling shared by the iterators over the primitive values of the first column of a
+ * result, following {@link ResultSetResultIterator}.
+ */
+abstract class PrimitiveResultSetIterator
+{
+    private final SQLStatement<?> jdbiStatement;
+    final ResultSet results;
+    final StatementContext context;
+
+    private boolean alreadyAdvanced = false;
+    private boolean hasNext = false;
+    private boolean closed = false;
+    private boolean wasNull = false;
+
+    PrimitiveResultSetIterator(SQLStatement<?> jdbiStatement, Statement stmt, StatementContext context)
+            throws SQLException
+    {
+        this.context = context;
+        this.jdbiStatement = jdbiStatement;
+        this.results = stmt.getResultSet();
+
+        this.jdbiStatement.addCleanable(Cleanables.forResultSet(results));
+    }
+
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        jdbiStatement.cleanup();
+    }
+
+    public boolean hasNext()
+    {
+        if (closed) {
+            return false;
+        }
+
+        if (alreadyAdvanced) {
+            return hasNext;
+        }
+
+        hasNext = safeNext();
+
+        if (hasNext) {
+            alreadyAdvanced = true;
+        }
+        else {
+            close();
+        }
+
+        return hasNext;
+    }
+
+    public boolean wasNull()
+    {
+        return wasNull;
+    }
+
+    /**
+     * Positions the result set on the next row, to be read by the caller followed by {@link #advanced()}.
+     */
+    final void advance()
+    {
+        if (closed) {
+            throw new IllegalStateException("iterator is closed");
+        }
+
+        if (!hasNext()) {
+            close();
+            throw new IllegalStateException("No element to advance to");
+        }
+    }
+
+    /**
+     * Records whether the value just read was null and moves past the row.
+     */
+    final void advanced()
+    {
+        try {
+            wasNull = results.wasNull();
+        }
+        catch (SQLException e) {
+            throw new ResultSetException("Error thrown reading result set", e, context);
+        }
+        finally {
+            alreadyAdvanced = safeNext();
+            if (!alreadyAdvanced) {
+                close();
+            }
+        }
+    }
+
+    final ResultSetException readFailed(SQLException e)
+    {
+        alreadyAdvanced = false;
+        close();
+        return new ResultSetException("Error thrown reading result set", e, context);
+    }
+
+    private boolean safeNext()
+    {
+        try {
+            return results.next();
+        }
+        catch (SQLException e) {
+            throw new ResultSetException("Unable to advance result set", e, context);
+        }
+    }
+
+    static final class LongIterator extends PrimitiveResultSetIterator implements LongResultIterator
+    {
+        LongIterator(SQLStatement<?> jdbiStatement, Statement stmt, StatementContext context) throws SQLException
+        {
+            super(jdbiStatement, stmt, context);
+        }
+
+        @Override
+        public long nextLong()
+        {
+            advance();
+            final long value;
+            try {
+                value = results.getLong(1);
+            }
+            catch (SQLException e) {
+                throw readFailed(e);
+            }
+            advanced();
+            return value;
+        }
+    }
+
+    static final class IntIterator extends PrimitiveResultSetIterator implements IntResultIterator
+    {
+        IntIterator(SQLStatement<?> jdbiStatement, Statement stmt, StatementContext context) throws SQLException
+        {
+            super(jdbiStatement, stmt, context);
+        }
+
+        @Override
+        public int nextInt()
+        {
+            advance();
+            final int value;
+            try {
+                value = results.getInt(1);
+            }
+            catch (SQLException e) {
+                throw readFailed(e);
+            }
+            advanced();
+            return value;
+        }
+    }
+
+    static final class DoubleIterator extends PrimitiveResultSetIterator implements DoubleResultIterator
+    {
+        DoubleIterator(SQLStatement<?> jdbiStatement, Statement stmt, StatementContext context) throws SQLException
+        {
+            super(jdbiStatement, stmt, context);
+        }
+
+        @Override
+        public double nextDouble()
+        {
+            advance();
+            final double value;
+            try {
+                value = results.getDouble(1);
+            }
+            catch (SQLException e) {
+                throw readFailed(e);
+            }
+            advanced();
+            return value;
+        }
+    }
+}
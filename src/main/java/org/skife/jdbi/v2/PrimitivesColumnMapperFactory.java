@@ -82,7 +82,7 @@ public class PrimitivesColumnMapperFactory implements ResultColumnMapperFactory
     @Override
     public ResultColumnMapper columnMapperFor(Class type, StatementContext ctx) {
         if (type.isEnum()) {
-            return EnumColumnMapper.byName(type);
+            return EnumColumnMapper.byCode(type);
         }
         return mappers.get(type);
     }
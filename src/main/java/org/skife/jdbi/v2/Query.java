@@ -13,8 +13,10 @@
  */
 package org.skife.jdbi.v2;
 
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
 import org.skife.jdbi.v2.tweak.ResultColumnMapper;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.tweak.RewrittenStatement;
 import org.skife.jdbi.v2.tweak.SQLLog;
 import org.skife.jdbi.v2.tweak.StatementBuilder;
 import org.skife.jdbi.v2.tweak.StatementCustomizer;
@@ -22,12 +24,19 @@ import org.skife.jdbi.v2.tweak.StatementLocator;
 import org.skife.jdbi.v2.tweak.StatementRewriter;
 import org.skife.jdbi.v2.util.SingleColumnMapper;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -42,6 +51,7 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
           ResultSetMapper<ResultType> mapper,
           StatementLocator locator,
           StatementRewriter statementRewriter,
+          RewrittenStatementCache rewrittenStatementCache,
           Handle handle,
           StatementBuilder cache,
           String sql,
@@ -53,7 +63,7 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
           Foreman foreman,
           ContainerFactoryRegistry containerFactoryRegistry)
     {
-        super(params, locator, statementRewriter, handle, cache, sql, ctx, log, timingCollector, customizers, foreman, containerFactoryRegistry);
+        super(params, locator, statementRewriter, rewrittenStatementCache, handle, cache, sql, ctx, log, timingCollector, customizers, foreman, containerFactoryRegistry);
         this.mapper = mapper;
         this.mappingRegistry = mappingRegistry;
     }
@@ -78,19 +88,54 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
     @Override
     public <ContainerType> ContainerType list(Class<ContainerType> containerType)
     {
-        ContainerBuilder<ContainerType> builder = getContainerMapperRegistry().createBuilderFor(containerType);
-        return fold(builder, new Folder3<ContainerBuilder<ContainerType>, ResultType>()
-        {
-            @Override
-            public ContainerBuilder<ContainerType> fold(ContainerBuilder<ContainerType> accumulator,
-                                                        ResultType rs,
-                                                        FoldController ctl,
-                                                        StatementContext ctx) throws SQLException
+        return collect(containerType, false);
+    }
+
+    /**
+     * Executes the select, mapping rows on the threads of the given executor and keeping the
+     * order of the result. See {@link #listInParallel(Class, Executor, boolean)}.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ResultType> listInParallel(Executor executor)
+    {
+        return listInParallel(List.class, executor, true);
+    }
+
+    /**
+     * Executes the select, copying the rows out of the result set on the calling thread and
+     * mapping them on the threads of the given executor. This pays off when mapping a row costs
+     * much more than reading it.
+     * <p/>
+     * The mapper is called concurrently and must be thread safe. It sees a read only result set
+     * which supports the getters for single values, <code>wasNull</code>,
+     * <code>findColumn</code> and <code>getMetaData</code>; lobs are read into memory up front.
+     *
+     * @param containerType the container to collect the mapped rows into
+     * @param executor runs the mapping
+     * @param ordered whether the rows are added to the container in result set order, or in
+     *                the order they were mapped in
+     */
+    @SuppressWarnings("unchecked")
+    public <ContainerType> ContainerType listInParallel(Class<ContainerType> containerType,
+                                                        final Executor executor,
+                                                        final boolean ordered)
+    {
+        final ContainerBuilder<ContainerType> builder = getContainerMapperRegistry().createBuilderFor(containerType);
+        try {
+            this.internalExecute(new QueryResultSetMunger<Void>(this)
             {
-                accumulator.add(rs);
-                return accumulator;
-            }
-        }).build();
+                @Override
+                public Void munge(ResultSet rs) throws SQLException
+                {
+                    new ParallelRowMapping<ResultType>(mapper, getContext(), executor, ordered).map(rs, builder);
+                    return null;
+                }
+            });
+            return builder.build();
+        }
+        finally {
+            cleanup();
+        }
     }
 
     /**
@@ -168,9 +213,19 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
 
     public <AccumulatorType> AccumulatorType fold(final AccumulatorType accumulator,
                                                   final Folder3<AccumulatorType, ResultType> folder)
+    {
+        return fold(null, accumulator, folder);
+    }
+
+    /**
+     * @param rewritten the rewrite of this statement to execute, or null to rewrite it now
+     */
+    private <AccumulatorType> AccumulatorType fold(final RewrittenStatement rewritten,
+                                                   final AccumulatorType accumulator,
+                                                   final Folder3<AccumulatorType, ResultType> folder)
     {
         try {
-            return this.internalExecute(new QueryResultSetMunger<AccumulatorType>(this)
+            final QueryResultSetMunger<AccumulatorType> munger = new QueryResultSetMunger<AccumulatorType>(this)
             {
                 private int idx = 0;
                 private AccumulatorType ac = accumulator;
@@ -185,6 +240,45 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
                     }
                     return ac;
                 }
+            };
+            return rewritten == null ? this.internalExecute(munger) : this.internalExecute(rewritten, munger);
+        }
+        finally {
+            cleanup();
+        }
+    }
+
+
+    /**
+     * Reduce the rows of each key into one aggregate, for instance an order and its line items
+     * from a join, and fold over the aggregates. Rows of a key must be adjacent in the result, so
+     * order the query by the key. Only the aggregate being built is held in memory; each one is
+     * passed to the folder as soon as a row with a different key is read.
+     *
+     * @param accumulator The initial accumulator value
+     * @param reducer     Groups the rows into aggregates
+     * @param folder      Folds over the aggregates, may abort after any of them
+     *
+     * @return The return value from the last invocation of the folder
+     */
+    public <AccumulatorType, AggregateType> AccumulatorType reduceRows(final AccumulatorType accumulator,
+                                                                       final RowReducer<?, AggregateType> reducer,
+                                                                       final Folder3<AccumulatorType, AggregateType> folder)
+    {
+        try {
+            return this.internalExecute(new QueryResultSetMunger<AccumulatorType>(this)
+            {
+                @Override
+                protected AccumulatorType munge(ResultSet rs) throws SQLException
+                {
+                    final FoldController ctl = new FoldController(rs);
+                    final RowReduction<?, AggregateType> reduction = RowReduction.of(reducer, rs, getContext());
+                    AccumulatorType ac = accumulator;
+                    while (!ctl.isAborted() && reduction.hasNext()) {
+                        ac = folder.fold(ac, reduction.next(), ctl, getContext());
+                    }
+                    return ac;
+                }
             });
         }
         finally {
@@ -192,6 +286,32 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
         }
     }
 
+    /**
+     * Reduce the rows of each key into one aggregate, see
+     * {@link #reduceRows(Object, RowReducer, Folder3)}. The query is executed by the methods of
+     * the returned object; its <code>iterator</code> streams the aggregates, reading the rows of
+     * one key at a time.
+     *
+     * @param reducer Groups the rows into aggregates
+     *
+     * @return the aggregates, which ignore the mapper of this query
+     */
+    public <AggregateType> ResultBearing<AggregateType> reduceRows(RowReducer<?, AggregateType> reducer)
+    {
+        return new ReducedResults<AggregateType>(this, reducer);
+    }
+
+    <AggregateType> ResultIterator<AggregateType> reducingIterator(final RowReducer<?, AggregateType> reducer)
+    {
+        return this.internalExecute(new QueryResultMunger<ResultIterator<AggregateType>>()
+        {
+            @Override
+            public ResultIterator<AggregateType> munge(Statement stmt) throws SQLException
+            {
+                return new ReducingResultIterator<AggregateType>(reducer, Query.this, stmt, getContext());
+            }
+        });
+    }
 
     /**
      * Used to execute the query and traverse the result set with a accumulator.
@@ -230,6 +350,132 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
         }
     }
 
+    /**
+     * Executes the select and reads the whole result column by column into primitive arrays
+     * rather than mapping it row by row, see {@link ColumnarResult}. Column types are derived from
+     * the result set metadata; the mapper of this query is not used.
+     */
+    public ColumnarResult columnar()
+    {
+        return columnar(Collections.<String, ColumnarResult.ColumnType>emptyMap());
+    }
+
+    /**
+     * Executes the select and reads the whole result column by column into primitive arrays.
+     *
+     * @param types column types to use instead of the ones derived from the result set metadata,
+     *              keyed on column label, ignoring case
+     */
+    public ColumnarResult columnar(final Map<String, ColumnarResult.ColumnType> types)
+    {
+        try {
+            return this.internalExecute(new QueryResultSetMunger<ColumnarResult>(this)
+            {
+                @Override
+                public ColumnarResult munge(ResultSet rs) throws SQLException
+                {
+                    return ColumnarResult.read(rs, types);
+                }
+            });
+        }
+        finally {
+            cleanup();
+        }
+    }
+
+    /**
+     * Folds over the first column of the result, read with <code>ResultSet#getLong</code> without
+     * boxing; null values are folded as 0. The mapper of this query is not used.
+     *
+     * @param accumulator The initial accumulator value
+     * @param folder      Defines the function which will fold over the values.
+     *
+     * @return The return value from the last invocation of the folder
+     */
+    public long foldLong(final long accumulator, final LongFolder folder)
+    {
+        try {
+            return this.internalExecute(new QueryResultSetMunger<Long>(this)
+            {
+                @Override
+                protected Long munge(ResultSet rs) throws SQLException
+                {
+                    final FoldController ctl = new FoldController(rs);
+                    long ac = accumulator;
+                    while (!ctl.isAborted() && rs.next()) {
+                        ac = folder.fold(ac, rs.getLong(1), ctl, getContext());
+                    }
+                    return ac;
+                }
+            });
+        }
+        finally {
+            cleanup();
+        }
+    }
+
+    /**
+     * Folds over the first column of the result, read with <code>ResultSet#getInt</code> without
+     * boxing; null values are folded as 0. The mapper of this query is not used.
+     *
+     * @param accumulator The initial accumulator value
+     * @param folder      Defines the function which will fold over the values.
+     *
+     * @return The return value from the last invocation of the folder
+     */
+    public int foldInt(final int accumulator, final IntFolder folder)
+    {
+        try {
+            return this.internalExecute(new QueryResultSetMunger<Integer>(this)
+            {
+                @Override
+                protected Integer munge(ResultSet rs) throws SQLException
+                {
+                    final FoldController ctl = new FoldController(rs);
+                    int ac = accumulator;
+                    while (!ctl.isAborted() && rs.next()) {
+                        ac = folder.fold(ac, rs.getInt(1), ctl, getContext());
+                    }
+                    return ac;
+                }
+            });
+        }
+        finally {
+            cleanup();
+        }
+    }
+
+    /**
+     * Folds over the first column of the result, read with <code>ResultSet#getDouble</code> without
+     * boxing; null values are folded as 0. The mapper of this query is not used.
+     *
+     * @param accumulator The initial accumulator value
+     * @param folder      Defines the function which will fold over the values.
+     *
+     * @return The return value from the last invocation of the folder
+     */
+    public double foldDouble(final double accumulator, final DoubleFolder folder)
+    {
+        try {
+            return this.internalExecute(new QueryResultSetMunger<Double>(this)
+            {
+                @Override
+                protected Double munge(ResultSet rs) throws SQLException
+                {
+                    final FoldController ctl = new FoldController(rs);
+                    double ac = accumulator;
+                    while (!ctl.isAborted() && rs.next()) {
+                        ac = folder.fold(ac, rs.getDouble(1), ctl, getContext());
+                    }
+                    return ac;
+                }
+            });
+        }
+        finally {
+            cleanup();
+        }
+    }
+
     /**
      * Obtain a forward-only result set iterator. Note that you must explicitely close
      * the iterator to close the underlying resources.
@@ -250,6 +496,96 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
         });
     }
 
+    /**
+     * Obtain a forward-only result set iterator which reads and maps rows on a shared pool of
+     * daemon threads, up to <code>bufferSize</code> rows ahead of the caller. Every open iterator
+     * holds a thread of the pool, which starts a new one when none is idle, so any number of them
+     * can be read from at once. See {@link #prefetchingIterator(int, Executor)}.
+     */
+    public ResultIterator<ResultType> prefetchingIterator(int bufferSize)
+    {
+        return prefetchingIterator(bufferSize, PrefetchingResultIterator.SHARED_EXECUTOR);
+    }
+
+    /**
+     * Obtain a forward-only result set iterator which advances the result set and maps rows on a
+     * thread of the given executor, up to <code>bufferSize</code> rows ahead of the caller, so that
+     * fetching from the database overlaps with the work done on the rows.
+     * <p/>
+     * The handle must not be used for anything else until the iterator has been exhausted or
+     * closed. Note that you must explicitely close the iterator to close the underlying resources.
+     * <p/>
+     * The executor must run the prefetching on another thread: one which runs it on the calling
+     * thread, such as a direct executor or a pool with a caller-runs policy which is saturated,
+     * would block on the full buffer forever and is rejected with an IllegalArgumentException.
+     * Likewise, an executor which queues the prefetching once its threads are busy lets the caller
+     * wait forever on an iterator queued behind others it has yet to read from.
+     */
+    public ResultIterator<ResultType> prefetchingIterator(final int bufferSize, final Executor executor)
+    {
+        return this.internalExecute(new QueryResultMunger<ResultIterator<ResultType>>()
+        {
+            @Override
+            public ResultIterator<ResultType> munge(Statement stmt) throws SQLException
+            {
+                return new PrefetchingResultIterator<ResultType>(mapper,
+                                                                 Query.this,
+                                                                 stmt,
+                                                                 getContext(),
+                                                                 bufferSize,
+                                                                 executor);
+            }
+        });
+    }
+
+    /**
+     * Obtain a forward-only iterator over the first column of the result, read without boxing.
+     * Note that you must explicitely close the iterator to close the underlying resources.
+     */
+    public LongResultIterator longIterator()
+    {
+        return this.internalExecute(new QueryResultMunger<LongResultIterator>()
+        {
+            @Override
+            public LongResultIterator munge(Statement stmt) throws SQLException
+            {
+                return new PrimitiveResultSetIterator.LongIterator(Query.this, stmt, getContext());
+            }
+        });
+    }
+
+    /**
+     * Obtain a forward-only iterator over the first column of the result, read without boxing.
+     * Note that you must explicitely close the iterator to close the underlying resources.
+     */
+    public IntResultIterator intIterator()
+    {
+        return this.internalExecute(new QueryResultMunger<IntResultIterator>()
+        {
+            @Override
+            public IntResultIterator munge(Statement stmt) throws SQLException
+            {
+                return new PrimitiveResultSetIterator.IntIterator(Query.this, stmt, getContext());
+            }
+        });
+    }
+
+    /**
+     * Obtain a forward-only iterator over the first column of the result, read without boxing.
+     * Note that you must explicitely close the iterator to close the underlying resources.
+     */
+    public DoubleResultIterator doubleIterator()
+    {
+        return this.internalExecute(new QueryResultMunger<DoubleResultIterator>()
+        {
+            @Override
+            public DoubleResultIterator munge(Statement stmt) throws SQLException
+            {
+                return new PrimitiveResultSetIterator.DoubleIterator(Query.this, stmt, getContext());
+            }
+        });
+    }
+
     /**
      * Executes the select.
      * <p/>
@@ -268,18 +604,176 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
     public <T> T first(Class<T> containerType)
     {
         addStatementCustomizer(StatementCustomizers.MAX_ROW_ONE);
-        ContainerBuilder builder = getContainerMapperRegistry().createBuilderFor(containerType);
+        return collect(containerType, true);
+    }
+
+    /**
+     * Collects the mapped rows, or only the first one, into a container, going through the query
+     * result cache if this query asked for it. A handle in a transaction neither reads nor fills
+     * the cache, as it may see rows other handles cannot, or not yet.
+     */
+    private <ContainerType> ContainerType collect(Class<ContainerType> containerType, final boolean firstOnly)
+    {
+        final ContainerBuilder<ContainerType> builder = getContainerMapperRegistry().createBuilderFor(containerType);
+        final QueryResultCache.HandleScope scope = getConcreteContext().getResultCacheScope();
+        final QueryResultCache.Policy policy = getConcreteContext().getResultCachePolicy();
+        if (scope == null || policy == null) {
+            return collect(null, builder, firstOnly).build();
+        }
+
+        final RewrittenStatement rewritten;
+        final QueryResultCache.Key key;
+        try {
+            if (scope.isInTransaction()) {
+                return collect(null, builder, firstOnly).build();
+            }
+            final Object rowMapper = mapperKey();
+            final List<StatementCustomizer> customizers = customizersKey();
+            if (rowMapper == null || customizers == null) {
+                return collect(null, builder, firstOnly).build();
+            }
+            rewritten = locateAndRewrite(getParams());
+            key = QueryResultCache.Key.create(rewritten,
+                                              getParams(),
+                                              Arrays.asList(rowMapper,
+                                                            customizers,
+                                                            containerType,
+                                                            firstOnly,
+                                                            getContext().getSqlObjectType(),
+                                                            getContext().getSqlObjectMethod()));
+        }
+        catch (RuntimeException e) {
+            cleanup();
+            throw e;
+        }
+        if (key == null) {
+            return collect(rewritten, builder, firstOnly).build();
+        }
+
+        final QueryResultCache cache = scope.getCache();
+        final List<Object> cached = cache.get(key);
+        if (cached != null) {
+            cleanup();
+            for (Object row : cached) {
+                builder.add(row);
+            }
+            return builder.build();
+        }
+
+        final long stamp = cache.stamp();
+        final List<Object> rows = new ArrayList<Object>();
+        ContainerType result = collect(rewritten, new ContainerBuilder<ContainerType>()
+        {
+            @Override
+            public ContainerBuilder<ContainerType> add(Object it)
+            {
+                rows.add(it);
+                builder.add(it);
+                return this;
+            }
+
+            @Override
+            public ContainerType build()
+            {
+                return builder.build();
+            }
+        }, firstOnly).build();
+        cache.put(key, rows, policy, stamp);
+        return result;
+    }
+
+    /**
+     * What identifies the mapper in the key of a cached result. A registered mapper is keyed by
+     * what it resolves to on this handle, and the mapper of a SqlObject method annotated with
+     * <code>@Mapper</code>, which is created anew on each call, by its class. Any other mapper
+     * is keyed by itself if it overrides <code>equals</code>, and by its class if it has no
+     * state; the results of a mapper which is neither are not cached, as a fresh instance of it,
+     * such as <code>map(new FooMapper(...))</code> creates, would never be hit again.
+     *
+     * @return the key, or null to bypass the cache
+     */
+    private Object mapperKey()
+    {
+        if (mapper instanceof RegisteredMapper) {
+            return ((RegisteredMapper<?>) mapper).resolve(getContext());
+        }
+        final Method method = getContext().getSqlObjectMethod();
+        if (method != null) {
+            final Mapper annotation = method.getAnnotation(Mapper.class);
+            if (annotation != null && annotation.value() == mapper.getClass()) {
+                return mapper.getClass();
+            }
+        }
+        return QueryResultCache.mapperKey(mapper);
+    }
+
+    /**
+     * The statement customizers which may change the result, such as the maximum number of rows,
+     * in the key of a cached result. Those known not to, such as the fetch size, are left out, and
+     * <code>first</code> is part of the key already.
+     *
+     * @return the customizers, or null to bypass the cache as a customizer is not known
+     */
+    private List<StatementCustomizer> customizersKey()
+    {
+        final List<StatementCustomizer> key = new ArrayList<StatementCustomizer>();
+        for (StatementCustomizer customizer : getStatementCustomizers()) {
+            if (customizer == StatementCustomizers.MAX_ROW_ONE
+                || customizer instanceof StatementCleaningCustomizer
+                || customizer instanceof StatementCustomizers.FetchSizeCustomizer
+                || customizer instanceof StatementCustomizers.QueryTimeoutCustomizer) {
+                continue;
+            }
+            if (customizer instanceof StatementCustomizers.MaxRowsCustomizer
+                || customizer instanceof StatementCustomizers.MaxFieldSizeCustomizer
+                || customizer instanceof StatementCustomizers.FetchDirectionStatementCustomizer) {
+                key.add(customizer);
+            }
+            else {
+                return null;
+            }
+        }
+        return key;
+    }
 
-        return (T) this.fold(builder, new Folder3<ContainerBuilder, ResultType>()
+    private <ContainerType> ContainerBuilder<ContainerType> collect(RewrittenStatement rewritten,
+                                                                    ContainerBuilder<ContainerType> builder,
+                                                                    final boolean firstOnly)
+    {
+        return fold(rewritten, builder, new Folder3<ContainerBuilder<ContainerType>, ResultType>()
         {
             @Override
-            public ContainerBuilder fold(ContainerBuilder accumulator, ResultType rs, FoldController control, StatementContext ctx) throws SQLException
+            public ContainerBuilder<ContainerType> fold(ContainerBuilder<ContainerType> accumulator,
+                                                        ResultType rs,
+                                                        FoldController control,
+                                                        StatementContext ctx) throws SQLException
             {
                 accumulator.add(rs);
-                control.abort();
+                if (firstOnly) {
+                    control.abort();
+                }
                 return accumulator;
             }
-        }).build();
+        });
+    }
+
+    /**
+     * Keep the result of this query in the query result cache of the DBI, if it has one, see
+     * {@link QueryResultCache}. Only the results of <code>list</code> and <code>first</code> are
+     * cached, and not while the handle is in a transaction. The mapped rows of a cached result are
+     * handed to every caller which hits it, so treat them as read only.
+     *
+     * @param ttl how long to keep the result
+     * @param unit the unit of ttl
+     * @param tables the tables the query reads from; the result is dropped when a statement
+     *               executed through the same DBI writes to one of them
+     *
+     * @return the same Query instance
+     */
+    public Query<ResultType> cacheResult(long ttl, TimeUnit unit, String... tables)
+    {
+        getConcreteContext().setResultCachePolicy(new QueryResultCache.Policy(ttl, unit, tables));
+        return this;
     }
 
     /**
@@ -312,6 +806,20 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
         return this.map(new RegisteredMapper(resultType, mappingRegistry));
     }
 
+    /**
+     * Makes use of registered mappers to map the result set to the desired generic type. Factories
+     * implementing {@link GenericResultSetMapperFactory} are offered the type itself, so that
+     * <code>List&lt;Foo&gt;</code> and <code>List&lt;Bar&gt;</code> can be mapped differently.
+     *
+     * @param resultType the type to map the query results to
+     *
+     * @return a new query instance which will map to the desired type
+     */
+    public Query<?> mapTo(Type resultType)
+    {
+        return this.map(new RegisteredMapper<Object>(resultType, mappingRegistry));
+    }
+
     public <T> Query<T> map(ResultColumnMapper<T> mapper) {
         return this.map(new SingleColumnMapper(mapper));
     }
@@ -322,6 +830,7 @@ public class Query<ResultType> extends SQLStatement<Query<ResultType>> implement
                             mapper,
                             getStatementLocator(),
                             getRewriter(),
+                            getRewrittenStatementCache(),
                             getHandle(),
                             getStatementBuilder(),
                             getSql(),
@@ -0,0 +1,570 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.RewrittenStatement;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An opt-in cache of query results, shared by all handles of a {@link DBI}:
+ * <pre>
+ * dbi.setQueryResultCache(new QueryResultCache(10000, 64 * 1024 * 1024));
+ * ...
+ * handle.createQuery("select * from country where code = :code")
+ *       .bind("code", "NL")
+ *       .cacheResult(1, TimeUnit.HOURS, "country")
+ *       .mapTo(Country.class)
+ *       .first();
+ * </pre>
+ * Only queries which ask for it, through {@link Query#cacheResult(long, TimeUnit, String...)} or
+ * the <code>@CacheResult</code> SqlObject annotation, are cached, and only their <code>list</code>
+ * and <code>first</code> results. Results are keyed on the rewritten SQL, the values bound to it,
+ * the mapper, the container asked for and the customizers which may limit or order the rows, such
+ * as the maximum number of rows; a query with a customizer of its own is not cached. Mappers are told apart with <code>equals</code>, or by
+ * their class if they have no fields; the results of a mapper which has fields but does not
+ * override <code>equals</code> are not cached, unless it is registered or named by a SqlObject
+ * <code>@Mapper</code> annotation. Mapped rows are shared between all readers of an entry and
+ * must not be modified.
+ * <p/>
+ * Entries expire after their time to live, are evicted least recently used first when the cache
+ * holds more than its maximum number of entries or (roughly estimated) bytes, and can be
+ * invalidated explicitly. Entries which declare the tables they read from are also invalidated
+ * when a statement executed through the same DBI writes to one of those tables; a statement whose
+ * target table cannot be determined invalidates all such entries.
+ * <p/>
+ * A handle in a transaction bypasses the cache, and invalidates the tables it wrote to again when
+ * the transaction commits or rolls back, so that neither uncommitted rows nor rows read by other
+ * handles before the commit outlive it. A result whose tables were invalidated while its query
+ * ran is not stored.
+ */
+public final class QueryResultCache
+{
+    private static final Pattern WRITTEN_TABLE = Pattern.compile(
+        "^\\s*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into|replace\\s+into|truncate\\s+table|truncate)\\s+([\\w.\"`\\[\\]]+)",
+        Pattern.CASE_INSENSITIVE);
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByTable = new HashMap<String, Set<Key>>();
+    private long bytes = 0;
+
+    /**
+     * Ticks on every invalidation, so a result read before one of its tables was invalidated can
+     * be told apart from one read after.
+     */
+    private long clock = 0;
+    private long allTablesInvalidatedAt = 0;
+    private final Map<String, Long> tableInvalidatedAt = new HashMap<String, Long>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries maximum number of results to keep
+     */
+    public QueryResultCache(int maxEntries)
+    {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxEntries maximum number of results to keep
+     * @param maxBytes   maximum estimated size of all results kept
+     */
+    public QueryResultCache(int maxEntries, long maxBytes)
+    {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("cache size must be >= 0, was " + maxEntries);
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("cache bytes must be >= 0, was " + maxBytes);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Drop all cached results.
+     */
+    public synchronized void invalidateAll()
+    {
+        allTablesInvalidatedAt = ++clock;
+        entries.clear();
+        keysByTable.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Drop the cached results which declared to read from the given table.
+     */
+    public synchronized void invalidateTable(String table)
+    {
+        final String normalized = normalizeTable(table);
+        tableInvalidatedAt.put(normalized, ++clock);
+        Set<Key> keys = keysByTable.remove(normalized);
+        if (keys != null) {
+            for (Key key : new ArrayList<Key>(keys)) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction counters; expired entries count as misses
+     */
+    public synchronized CacheStats getCacheStats()
+    {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), maxEntries);
+    }
+
+    /**
+     * @return the estimated size of all cached results
+     */
+    public synchronized long getSizeInBytes()
+    {
+        return bytes;
+    }
+
+    synchronized List<Object> get(Key key)
+    {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.rows;
+    }
+
+    /**
+     * @return the value to pass to {@link #put} for a result about to be read
+     */
+    synchronized long stamp()
+    {
+        return clock;
+    }
+
+    /**
+     * @param stamp taken before the result was read; if one of its tables has been invalidated
+     *              since, the result may be stale and is not stored
+     */
+    synchronized void put(Key key, List<Object> rows, Policy policy, long stamp)
+    {
+        if (allTablesInvalidatedAt > stamp) {
+            return;
+        }
+        for (String table : policy.tables) {
+            Long invalidatedAt = tableInvalidatedAt.get(table);
+            if (invalidatedAt != null && invalidatedAt > stamp) {
+                return;
+            }
+        }
+
+        long size = estimateSize(key.arguments) + estimateSize(rows) + 128;
+        if (maxEntries == 0 || size > maxBytes) {
+            return;
+        }
+        remove(key);
+
+        entries.put(key, new Entry(Collections.unmodifiableList(rows), System.nanoTime() + policy.ttlNanos, policy.tables, size));
+        bytes += size;
+        for (String table : policy.tables) {
+            Set<Key> keys = keysByTable.get(table);
+            if (keys == null) {
+                keys = new HashSet<Key>();
+                keysByTable.put(table, keys);
+            }
+            keys.add(key);
+        }
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param table as returned by {@link #writtenTable(String)}, null for all tables
+     */
+    private void invalidateWrittenTable(String table)
+    {
+        if (table != null) {
+            invalidateTable(table);
+        }
+        else {
+            invalidateAllTables();
+        }
+    }
+
+    /**
+     * @return the normalized table the statement writes to, or null if it cannot be determined
+     */
+    static String writtenTable(String sql)
+    {
+        Matcher matcher = WRITTEN_TABLE.matcher(sql);
+        return matcher.find() ? normalizeTable(matcher.group(1)) : null;
+    }
+
+    private synchronized void invalidateAllTables()
+    {
+        allTablesInvalidatedAt = ++clock;
+        for (Set<Key> keys : new ArrayList<Set<Key>>(keysByTable.values())) {
+            for (Key key : new ArrayList<Key>(keys)) {
+                remove(key);
+            }
+        }
+    }
+
+    private void remove(Key key)
+    {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    private void unindex(Key key, Entry entry)
+    {
+        bytes -= entry.bytes;
+        for (String table : entry.tables) {
+            Set<Key> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the mapper if it overrides <code>equals</code>, its class if it has no instance
+     *         fields, and null otherwise, as two instances of it may map rows differently
+     */
+    static Object mapperKey(Object mapper)
+    {
+        final Class<?> type = mapper.getClass();
+        try {
+            if (type.getMethod("equals", Object.class).getDeclaringClass() != Object.class) {
+                return mapper;
+            }
+        }
+        catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return null;
+                }
+            }
+        }
+        return type;
+    }
+
+    static String normalizeTable(String table)
+    {
+        String name = table.replaceAll("[\"`\\[\\]]", "");
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    /**
+     * A rough estimate of the heap used by a cached value.
+     */
+    static long estimateSize(Object value)
+    {
+        if (value == null) {
+            return 0;
+        }
+        else if (value instanceof String) {
+            return 40 + 2 * ((String) value).length();
+        }
+        else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        else if (value instanceof ByteBuffer) {
+            return 64 + ((ByteBuffer) value).capacity();
+        }
+        else if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                 || value instanceof java.util.Date || value instanceof Enum) {
+            return 24;
+        }
+        else if (value instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        else if (value instanceof Collection) {
+            long size = 40;
+            for (Object element : (Collection<?>) value) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        }
+        else if (value instanceof Object[]) {
+            long size = 16;
+            for (Object element : (Object[]) value) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        }
+        return 64;
+    }
+
+    /**
+     * The cache as seen by one handle. Results are neither read nor stored while the handle is in
+     * a transaction, and the tables it writes to in a transaction are invalidated once more when
+     * the transaction ends.
+     */
+    static final class HandleScope
+    {
+        private final QueryResultCache cache;
+        private final Handle handle;
+        private final Set<String> writtenTables = new HashSet<String>();
+        private boolean writtenUnknownTable = false;
+
+        HandleScope(QueryResultCache cache, Handle handle)
+        {
+            this.cache = cache;
+            this.handle = handle;
+        }
+
+        QueryResultCache getCache()
+        {
+            return cache;
+        }
+
+        boolean isInTransaction()
+        {
+            return handle.isInTransaction();
+        }
+
+        /**
+         * Called after the handle executed a statement which may have written to the database.
+         */
+        void written(String sql)
+        {
+            final String table = writtenTable(sql);
+            cache.invalidateWrittenTable(table);
+            if (handle.isInTransaction()) {
+                if (table == null) {
+                    writtenUnknownTable = true;
+                }
+                else {
+                    writtenTables.add(table);
+                }
+            }
+        }
+
+        /**
+         * Called once the transaction of the handle committed or rolled back.
+         */
+        void transactionEnded()
+        {
+            if (writtenUnknownTable) {
+                cache.invalidateAllTables();
+            }
+            else {
+                for (String table : writtenTables) {
+                    cache.invalidateTable(table);
+                }
+            }
+            writtenTables.clear();
+            writtenUnknownTable = false;
+        }
+    }
+
+    /**
+     * How long a result is kept, and which tables it reads from.
+     */
+    static final class Policy
+    {
+        private final long ttlNanos;
+        private final Set<String> tables;
+
+        Policy(long ttl, TimeUnit unit, String... tables)
+        {
+            if (ttl <= 0) {
+                throw new IllegalArgumentException("time to live must be > 0, was " + ttl);
+            }
+            this.ttlNanos = unit.toNanos(ttl);
+            Set<String> normalized = new HashSet<String>();
+            for (String table : tables) {
+                normalized.add(normalizeTable(table));
+            }
+            this.tables = Collections.unmodifiableSet(normalized);
+        }
+    }
+
+    private static final class Entry
+    {
+        private final List<Object> rows;
+        private final long expiresAt;
+        private final Set<String> tables;
+        private final long bytes;
+
+        Entry(List<Object> rows, long expiresAt, Set<String> tables, long bytes)
+        {
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+            this.tables = tables;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Identifies a result: the statement with the values bound to it, and how its rows are
+     * mapped and collected.
+     */
+    static final class Key
+    {
+        private final String sql;
+        private final List<Object> arguments;
+        private final Object mapping;
+        private final int hashCode;
+
+        private Key(String sql, List<Object> arguments, Object mapping)
+        {
+            this.sql = sql;
+            this.arguments = arguments;
+            this.mapping = mapping;
+            this.hashCode = 31 * (31 * sql.hashCode() + arguments.hashCode()) + mapping.hashCode();
+        }
+
+        /**
+         * @param mapping identifies the mapper, container and anything else the result depends on
+         * @return the key, or null if a bound value cannot be part of a key, e.g. a stream
+         */
+        static Key create(RewrittenStatement rewritten, Binding params, Object mapping)
+        {
+            ArgumentRecorder recorder = new ArgumentRecorder();
+            PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                                                new Class<?>[]{PreparedStatement.class},
+                                                                                recorder);
+            try {
+                rewritten.bind(params, stmt);
+            }
+            catch (Exception e) {
+                return null;
+            }
+            if (recorder.arguments == null) {
+                return null;
+            }
+            return new Key(rewritten.getSql(), recorder.arguments, mapping);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hashCode == that.hashCode
+                   && sql.equals(that.sql)
+                   && arguments.equals(that.arguments)
+                   && mapping.equals(that.mapping);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Stands in for the PreparedStatement while the arguments are bound, and records the values.
+     */
+    private static final class ArgumentRecorder implements InvocationHandler
+    {
+        private List<Object> arguments = new ArrayList<Object>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            final String name = method.getName();
+            if (!name.startsWith("set") || args == null) {
+                throw new UnsupportedOperationException(name);
+            }
+            if (arguments == null) {
+                return null;
+            }
+            arguments.add(name);
+            for (Object arg : args) {
+                if (arg instanceof InputStream || arg instanceof Reader || arg instanceof Blob || arg instanceof Clob
+                    || arg instanceof Ref || arg instanceof java.sql.Array) {
+                    arguments = null;
+                    return null;
+                }
+                else if (arg instanceof byte[]) {
+                    byte[] bytes = (byte[]) arg;
+                    arguments.add(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length)));
+                }
+                else if (arg != null && arg.getClass().isArray()) {
+                    arguments = null;
+                    return null;
+                }
+                else if (arg instanceof java.util.Date) {
+                    arguments.add(((java.util.Date) arg).clone());
+                }
+                else {
+                    arguments.add(arg);
+                }
+            }
+            return null;
+        }
+    }
+}
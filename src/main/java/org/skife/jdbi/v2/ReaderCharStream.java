@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.antlr.runtime.CharStream;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A character stream for the ANTLR lexers which reads from a {@link Reader} as the lexer asks
+ * for characters, rather than reading all of the input up front as
+ * {@link org.antlr.runtime.ANTLRReaderStream} does. Only the characters from the start of the
+ * token being lexed on are kept: once its user is done with a token, it calls
+ * {@link #discardConsumed()} and the characters before it may be dropped.
+ */
+class ReaderCharStream implements CharStream
+{
+    private static final int INITIAL_SIZE = 8192;
+
+    private final Reader reader;
+    private final String sourceName;
+
+    private char[] data = new char[INITIAL_SIZE];
+    private int offset = 0;
+    private int count = 0;
+    private boolean endOfInput = false;
+    private int keepFrom = 0;
+
+    private int p = 0;
+    private int line = 1;
+    private int charPositionInLine = 0;
+
+    private int[] markers = new int[0];
+    private int markDepth = 0;
+    private int lastMarker;
+
+    ReaderCharStream(Reader reader, String sourceName)
+    {
+        this.reader = reader;
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Allows the characters before the current position to be dropped, as no token text will be
+     * asked for which starts before it.
+     */
+    void discardConsumed()
+    {
+        keepFrom = p;
+    }
+
+    @Override
+    public void consume()
+    {
+        if (available(p)) {
+            charPositionInLine++;
+            if (data[p - offset] == '\n') {
+                line++;
+                charPositionInLine = 0;
+            }
+            p++;
+        }
+    }
+
+    @Override
+    public int LA(int i)
+    {
+        if (i == 0) {
+            return 0;
+        }
+        if (i < 0) {
+            i++;
+            if (p + i - 1 < offset) {
+                return EOF;
+            }
+        }
+        final int index = p + i - 1;
+        if (!available(index)) {
+            return EOF;
+        }
+        return data[index - offset];
+    }
+
+    @Override
+    public int LT(int i)
+    {
+        return LA(i);
+    }
+
+    @Override
+    public int mark()
+    {
+        if (markDepth * 3 == markers.length) {
+            markers = Arrays.copyOf(markers, Math.max(3, markers.length * 2));
+        }
+        markers[markDepth * 3] = p;
+        markers[markDepth * 3 + 1] = line;
+        markers[markDepth * 3 + 2] = charPositionInLine;
+        markDepth++;
+        lastMarker = markDepth;
+        return markDepth;
+    }
+
+    @Override
+    public void rewind(int marker)
+    {
+        final int state = (marker - 1) * 3;
+        seek(markers[state]);
+        line = markers[state + 1];
+        charPositionInLine = markers[state + 2];
+        release(marker);
+    }
+
+    @Override
+    public void rewind()
+    {
+        rewind(lastMarker);
+    }
+
+    @Override
+    public void release(int marker)
+    {
+        markDepth = marker - 1;
+    }
+
+    @Override
+    public void seek(int index)
+    {
+        if (index <= p) {
+            // line and column are restored by the caller, as for ANTLRStringStream
+            p = index;
+            return;
+        }
+        while (p < index && LA(1) != EOF) {
+            consume();
+        }
+    }
+
+    @Override
+    public int index()
+    {
+        return p;
+    }
+
+    /**
+     * The number of characters read so far, the size of the whole input is not known until it
+     * has been read
+     */
+    @Override
+    public int size()
+    {
+        return offset + count;
+    }
+
+    @Override
+    public String getSourceName()
+    {
+        return sourceName;
+    }
+
+    @Override
+    public String substring(int start, int stop)
+    {
+        return new String(data, start - offset, stop - start + 1);
+    }
+
+    @Override
+    public int getLine()
+    {
+        return line;
+    }
+
+    @Override
+    public void setLine(int line)
+    {
+        this.line = line;
+    }
+
+    @Override
+    public void setCharPositionInLine(int pos)
+    {
+        this.charPositionInLine = pos;
+    }
+
+    @Override
+    public int getCharPositionInLine()
+    {
+        return charPositionInLine;
+    }
+
+    private boolean available(int index)
+    {
+        while (index >= offset + count) {
+            if (endOfInput || !fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill()
+    {
+        if (count == data.length) {
+            int keep = keepFrom;
+            for (int i = 0; i < markDepth; i++) {
+                keep = Math.min(keep, markers[i * 3]);
+            }
+            final int drop = keep - offset;
+            if (drop > 0) {
+                System.arraycopy(data, drop, data, 0, count - drop);
+                count -= drop;
+                offset += drop;
+            }
+            if (count == data.length) {
+                // a single token longer than the buffer
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+        }
+        final int read;
+        try {
+            read = reader.read(data, count, data.length - count);
+        }
+        catch (IOException e) {
+            throw new ReadFailedException(e);
+        }
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        count += read;
+        return true;
+    }
+
+    /**
+     * Thrown through the lexer when reading fails, as the streams it uses cannot throw checked
+     * exceptions
+     */
+    static final class ReadFailedException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        ReadFailedException(IOException cause)
+        {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause()
+        {
+            return (IOException) super.getCause();
+        }
+    }
+}
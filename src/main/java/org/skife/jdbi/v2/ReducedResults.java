@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The aggregates of a query reduced by a {@link RowReducer}. Each call executes the query again.
+ */
+class ReducedResults<ResultType> implements ResultBearing<ResultType>
+{
+    private final Query<?> query;
+    private final RowReducer<?, ResultType> reducer;
+
+    ReducedResults(Query<?> query, RowReducer<?, ResultType> reducer)
+    {
+        this.query = query;
+        this.reducer = reducer;
+    }
+
+    @Override
+    public ResultIterator<ResultType> iterator()
+    {
+        return query.reducingIterator(reducer);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ResultType> list()
+    {
+        return (List<ResultType>) list(List.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ResultType> list(int maxRows)
+    {
+        return (List<ResultType>) collect(List.class, maxRows);
+    }
+
+    @Override
+    public <ContainerType> ContainerType list(Class<ContainerType> containerType)
+    {
+        return collect(containerType, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ResultType first()
+    {
+        return (ResultType) first(UnwrappedSingleValue.class);
+    }
+
+    @Override
+    public <T> T first(Class<T> containerType)
+    {
+        return collect(containerType, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <ContainerType> ContainerType collect(Class<ContainerType> containerType, final int maxAggregates)
+    {
+        final ContainerBuilder<ContainerType> builder = query.getContainerMapperRegistry().createBuilderFor(containerType);
+        if (maxAggregates <= 0) {
+            return builder.build();
+        }
+        return query.reduceRows(builder, reducer, new Folder3<ContainerBuilder<ContainerType>, ResultType>()
+        {
+            private int count = 0;
+
+            @Override
+            public ContainerBuilder<ContainerType> fold(ContainerBuilder<ContainerType> accumulator,
+                                                        ResultType aggregate,
+                                                        FoldController control,
+                                                        StatementContext ctx) throws SQLException
+            {
+                accumulator.add(aggregate);
+                if (++count >= maxAggregates) {
+                    control.abort();
+                }
+                return accumulator;
+            }
+        }).build();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.exceptions.ResultSetException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Iterates over the aggregates a {@link RowReducer} builds, reading the rows of one key per call
+ * to {@link #next()}.
+ */
+class ReducingResultIterator<Type> implements ResultIterator<Type>
+{
+    private final SQLStatement<?> jdbiStatement;
+    private final RowReduction<?, Type> reduction;
+    private final StatementContext context;
+
+    private boolean closed = false;
+
+    ReducingResultIterator(RowReducer<?, Type> reducer,
+                           SQLStatement<?> jdbiStatement,
+                           Statement stmt,
+                           StatementContext context)
+            throws SQLException
+    {
+        this.jdbiStatement = jdbiStatement;
+        this.context = context;
+        ResultSet results = stmt.getResultSet();
+        this.jdbiStatement.addCleanable(Cleanables.forResultSet(results));
+        this.reduction = RowReduction.of(reducer, results, context);
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        jdbiStatement.cleanup();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (closed) {
+            return false;
+        }
+        final boolean hasNext;
+        try {
+            hasNext = reduction.hasNext();
+        }
+        catch (SQLException e) {
+            close();
+            throw new ResultSetException("Unable to advance result set", e, context);
+        }
+        if (!hasNext) {
+            close();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Type next()
+    {
+        if (!hasNext()) {
+            throw new IllegalStateException("No element to advance to");
+        }
+        try {
+            Type aggregate = reduction.next();
+            if (!reduction.hasNext()) {
+                close();
+            }
+            return aggregate;
+        }
+        catch (SQLException e) {
+            close();
+            throw new ResultSetException("Error thrown reducing result set rows", e, context);
+        }
+        catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException("Deleting from a result set iterator is not yet supported");
+    }
+}
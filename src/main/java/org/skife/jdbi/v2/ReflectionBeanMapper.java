@@ -18,6 +18,7 @@ import org.skife.jdbi.v2.tweak.ResultColumnMapper;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.sql.ResultSet;
@@ -33,6 +34,7 @@ public class ReflectionBeanMapper<T> implements ResultSetMapper<T>
 {
     private final Class<T> type;
     private final Map<String, Field> properties = new HashMap<String, Field>();
+    private final ColumnPlans<ColumnPlan> plans = new ColumnPlans<ColumnPlan>();
 
     public ReflectionBeanMapper(Class<T> type)
     {
@@ -64,38 +66,99 @@ public class ReflectionBeanMapper<T> implements ResultSetMapper<T>
                     "which was not instantiable", type.getName()), e);
         }
 
+        final ColumnPlan plan = planFor(row, rs, ctx);
+
+        for (int c = 0; c < plan.columns.length; c++) {
+            final int i = plan.columns[c];
+            final ResultColumnMapper<?> mapper = plan.mappers[c];
+
+            Object value;
+            if (mapper != null) {
+                value = mapper.mapColumn(rs, i, ctx);
+            }
+            else {
+                value = rs.getObject(i);
+            }
+
+            try
+            {
+                plan.fields[c].set(bean, value);
+            }
+            catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format("Unable to access " +
+                        "property, %s", plan.names[c]), e);
+            }
+        }
+
+        return bean;
+    }
+
+    /**
+     * The plan is computed from the metadata on the first row of a result set and reused for
+     * the following rows of the same result set.
+     */
+    private ColumnPlan planFor(int row, ResultSet rs, StatementContext ctx) throws SQLException
+    {
+        ColumnPlan plan = row > 0 ? plans.get(rs, ctx) : null;
+        if (plan != null) {
+            return plan;
+        }
+
         ResultSetMetaData metadata = rs.getMetaData();
+        int columnCount = metadata.getColumnCount();
 
-        for (int i = 1; i <= metadata.getColumnCount(); ++i) {
+        int[] columns = new int[columnCount];
+        String[] names = new String[columnCount];
+        Field[] fields = new Field[columnCount];
+        ResultColumnMapper<?>[] mappers = new ResultColumnMapper<?>[columnCount];
+        int n = 0;
+
+        for (int i = 1; i <= columnCount; ++i) {
             String name = metadata.getColumnLabel(i).toLowerCase();
 
             Field field = properties.get(name);
 
             if (field != null) {
-                Class type = field.getType();
-
-                Object value;
-                ResultColumnMapper mapper = ctx.columnMapperFor(type);
-                if (mapper != null) {
-                    value = mapper.mapColumn(rs, i, ctx);
-                }
-                else {
-                    value = rs.getObject(i);
-                }
-
-                try
-                {
-                    field.setAccessible(true);
-                    field.set(bean, value);
-                }
-                catch (IllegalAccessException e) {
-                    throw new IllegalArgumentException(String.format("Unable to access " +
-                            "property, %s", name), e);
-                }
+                field.setAccessible(true);
+                columns[n] = i;
+                names[n] = name;
+                fields[n] = field;
+                mappers[n] = ctx.columnMapperFor(field.getType());
+                n++;
             }
         }
 
-        return bean;
+        plan = new ColumnPlan(Arrays.copyOf(columns, n), Arrays.copyOf(names, n),
+                              Arrays.copyOf(fields, n), Arrays.copyOf(mappers, n));
+        plans.put(rs, ctx, plan);
+        return plan;
+    }
+
+    private static final class ColumnPlan
+    {
+        private final int[] columns;
+        private final String[] names;
+        private final Field[] fields;
+        private final ResultColumnMapper<?>[] mappers;
+
+        ColumnPlan(int[] columns, String[] names, Field[] fields, ResultColumnMapper<?>[] mappers)
+        {
+            this.columns = columns;
+            this.names = names;
+            this.fields = fields;
+            this.mappers = mappers;
+        }
     }
-}
 
+    @Override
+    public boolean equals(Object o)
+    {
+        return o != null && o.getClass() == getClass() && type.equals(((ReflectionBeanMapper<?>) o).type);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return type.hashCode();
+    }
+}
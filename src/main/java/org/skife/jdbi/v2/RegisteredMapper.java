@@ -15,16 +15,17 @@ package org.skife.jdbi.v2;
 
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
+import java.lang.reflect.Type;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 class RegisteredMapper<T> implements ResultSetMapper<T>
 {
 
-    private final Class<T> type;
+    private final Type type;
     private final MappingRegistry registry;
 
-    RegisteredMapper(Class<T> type, MappingRegistry registry) {
+    RegisteredMapper(Type type, MappingRegistry registry) {
         this.type = type;
         this.registry = registry;
     }
@@ -32,6 +33,15 @@ class RegisteredMapper<T> implements ResultSetMapper<T>
     @Override
     public T map(int index, ResultSet r, StatementContext ctx) throws SQLException
     {
-        return (T) registry.mapperFor(type, ctx).map(index, r, ctx);
+        return (T) resolve(ctx).map(index, r, ctx);
+    }
+
+    /**
+     * The mapper rows are currently mapped with, which is what cached query results depend on:
+     * the same target type maps differently on handles with different registrations.
+     */
+    ResultSetMapper<?> resolve(StatementContext ctx)
+    {
+        return registry.mapperFor(type, ctx);
     }
 }
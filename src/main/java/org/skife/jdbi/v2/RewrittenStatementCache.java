@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.skife.jdbi.v2.tweak.RewrittenStatement;
+import org.skife.jdbi.v2.tweak.StatementLocator;
+import org.skife.jdbi.v2.tweak.StatementRewriter;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the outcome of locating and rewriting a statement so that repeated executions of the
+ * same SQL skip both steps. Entries are keyed on the raw SQL, the locator and rewriter in use, the
+ * SqlObject type and method the statement is executed for, and the statement's attributes (as set
+ * through <code>define</code> and the global statement attributes).
+ * <p/>
+ * Caching is only correct if locating and rewriting depend on nothing else, which holds for the
+ * locators and rewriters shipped with jDBI. The rewritten statements of the built in rewriters are
+ * reused as is; for other rewriters only the located SQL is cached and the rewriter is still
+ * invoked on each execution.
+ * <p/>
+ * Disabled by default, enable it with {@link DBI#setRewrittenStatementCache(RewrittenStatementCache)}.
+ * One instance may be shared by many DBI instances.
+ */
+public final class RewrittenStatementCache
+{
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private final BoundedCache<Key, Entry> cache;
+
+    public RewrittenStatementCache()
+    {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of statements to remember
+     */
+    public RewrittenStatementCache(int maxSize)
+    {
+        this.cache = new BoundedCache<Key, Entry>(maxSize);
+    }
+
+    /**
+     * Drop all remembered statements, for instance after reloading externalized SQL.
+     */
+    public void clear()
+    {
+        cache.clear();
+    }
+
+    public CacheStats getCacheStats()
+    {
+        return cache.stats();
+    }
+
+    Entry get(String sql, StatementLocator locator, StatementRewriter rewriter, StatementContext ctx)
+    {
+        return cache.get(new Key(sql, locator, rewriter, ctx.getSqlObjectType(), ctx.getSqlObjectMethod(), ctx.getAttributes()));
+    }
+
+    void put(String sql, StatementLocator locator, StatementRewriter rewriter, StatementContext ctx,
+             String locatedSql, RewrittenStatement rewritten)
+    {
+        Key key = new Key(sql, locator, rewriter, ctx.getSqlObjectType(), ctx.getSqlObjectMethod(),
+                          new HashMap<String, Object>(ctx.getAttributes()));
+        cache.put(key, new Entry(locatedSql, rewritten instanceof ContextualRewrittenStatement ? rewritten : null));
+    }
+
+    static final class Entry
+    {
+        private final String locatedSql;
+        private final RewrittenStatement rewritten;
+
+        Entry(String locatedSql, RewrittenStatement rewritten)
+        {
+            this.locatedSql = locatedSql;
+            this.rewritten = rewritten;
+        }
+
+        String getLocatedSql()
+        {
+            return locatedSql;
+        }
+
+        /**
+         * @return the cached statement bound to the given context, or null if the rewriter has to
+         *         be invoked again
+         */
+        RewrittenStatement getRewritten(StatementContext ctx)
+        {
+            return rewritten == null ? null : ((ContextualRewrittenStatement) rewritten).withContext(ctx);
+        }
+    }
+
+    private static final class Key
+    {
+        private final String sql;
+        private final StatementLocator locator;
+        private final StatementRewriter rewriter;
+        private final Class<?> sqlObjectType;
+        private final Method sqlObjectMethod;
+        private final Map<String, Object> attributes;
+        private final int hashCode;
+
+        Key(String sql,
+            StatementLocator locator,
+            StatementRewriter rewriter,
+            Class<?> sqlObjectType,
+            Method sqlObjectMethod,
+            Map<String, Object> attributes)
+        {
+            this.sql = sql;
+            this.locator = locator;
+            this.rewriter = rewriter;
+            this.sqlObjectType = sqlObjectType;
+            this.sqlObjectMethod = sqlObjectMethod;
+            this.attributes = attributes;
+
+            int h = sql.hashCode();
+            h = 31 * h + System.identityHashCode(locator);
+            h = 31 * h + System.identityHashCode(rewriter);
+            h = 31 * h + (sqlObjectType == null ? 0 : sqlObjectType.hashCode());
+            h = 31 * h + (sqlObjectMethod == null ? 0 : sqlObjectMethod.hashCode());
+            h = 31 * h + attributes.hashCode();
+            this.hashCode = h;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hashCode == that.hashCode
+                   && locator == that.locator
+                   && rewriter == that.rewriter
+                   && sqlObjectType == that.sqlObjectType
+                   && (sqlObjectMethod == null ? that.sqlObjectMethod == null : sqlObjectMethod.equals(that.sqlObjectMethod))
+                   && sql.equals(that.sql)
+                   && attributes.equals(that.attributes);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The row representation used by {@link DefaultMapper}: all rows of a result set share one
+ * immutable {@link Columns} index of the column names, each row only holds the array of its values.
+ * <p/>
+ * Rows remain fully mutable. Entries for the columns of the result set are removed by marking
+ * their slot, any other keys put into a row are kept in a separate map.
+ */
+class RowMap extends AbstractMap<String, Object> implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final Object REMOVED = Removed.INSTANCE;
+
+    private final Columns columns;
+    private final Object[] values;
+    private int removed = 0;
+    private Map<String, Object> extra;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    RowMap(Columns columns, Object[] values)
+    {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    @Override
+    public int size()
+    {
+        return values.length - removed + (extra == null ? 0 : extra.size());
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        int i = columns.indexOf(key);
+        if (i >= 0) {
+            return values[i] != REMOVED;
+        }
+        return extra != null && extra.containsKey(columns.fold(key));
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        int i = columns.indexOf(key);
+        if (i >= 0) {
+            Object value = values[i];
+            return value == REMOVED ? null : value;
+        }
+        return extra == null ? null : extra.get(columns.fold(key));
+    }
+
+    @Override
+    public Object put(String key, Object value)
+    {
+        int i = columns.indexOf(key);
+        if (i >= 0) {
+            Object old = values[i];
+            values[i] = value;
+            if (old == REMOVED) {
+                removed--;
+                return null;
+            }
+            return old;
+        }
+        if (extra == null) {
+            extra = new LinkedHashMap<String, Object>();
+        }
+        return extra.put((String) columns.fold(key), value);
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        int i = columns.indexOf(key);
+        if (i >= 0) {
+            return removeAt(i);
+        }
+        return extra == null ? null : extra.remove(columns.fold(key));
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(values, REMOVED);
+        removed = values.length;
+        extra = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet()
+    {
+        Set<Map.Entry<String, Object>> entrySet = this.entrySet;
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+            this.entrySet = entrySet;
+        }
+        return entrySet;
+    }
+
+    /**
+     * Marks the slot of a removed column; an enum so that it stays a singleton when serialized.
+     */
+    private enum Removed
+    {
+        INSTANCE
+    }
+
+    private Object removeAt(int i)
+    {
+        Object old = values[i];
+        if (old == REMOVED) {
+            return null;
+        }
+        values[i] = REMOVED;
+        removed++;
+        return old;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>>
+    {
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator()
+        {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return RowMap.this.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            RowMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>>
+    {
+        private int next = advance(0);
+        private int current = -1;
+        private Iterator<Map.Entry<String, Object>> extraIterator;
+        /** whether the last entry returned came from the extra entries rather than a column */
+        private boolean currentIsExtra = false;
+
+        private int advance(int i)
+        {
+            while (i < values.length && values[i] == REMOVED) {
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next < values.length) {
+                return true;
+            }
+            if (extraIterator == null && extra != null) {
+                extraIterator = extra.entrySet().iterator();
+            }
+            return extraIterator != null && extraIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (next < values.length) {
+                current = next;
+                currentIsExtra = false;
+                next = advance(next + 1);
+                return new Entry(current);
+            }
+            current = -1;
+            currentIsExtra = true;
+            return extraIterator.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            if (currentIsExtra) {
+                extraIterator.remove();
+            }
+            else if (current >= 0 && values[current] != REMOVED) {
+                removeAt(current);
+            }
+            else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, Object>
+    {
+        private final int i;
+
+        Entry(int i)
+        {
+            this.i = i;
+        }
+
+        @Override
+        public String getKey()
+        {
+            return columns.names[i];
+        }
+
+        @Override
+        public Object getValue()
+        {
+            Object value = values[i];
+            return value == REMOVED ? null : value;
+        }
+
+        @Override
+        public Object setValue(Object value)
+        {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> that = (Map.Entry<?, ?>) o;
+            Object value = getValue();
+            return getKey().equals(that.getKey()) && (value == null ? that.getValue() == null : value.equals(that.getValue()));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * The column names of a result set, in column order and with duplicate names collapsed onto
+     * the last column carrying them. Names are lower cased when case folding is enabled.
+     */
+    static final class Columns implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean foldCase;
+        private final String[] names;
+        private final int[] resultSetColumns;
+        private final HashMap<String, Integer> positions;
+
+        Columns(String[] labels, boolean foldCase)
+        {
+            this.foldCase = foldCase;
+            this.positions = new HashMap<String, Integer>(labels.length * 2);
+
+            String[] names = new String[labels.length];
+            int[] resultSetColumns = new int[labels.length];
+            int n = 0;
+            for (int i = 0; i < labels.length; i++) {
+                String name = foldCase ? labels[i].toLowerCase() : labels[i];
+                Integer position = positions.get(name);
+                if (position == null) {
+                    positions.put(name, n);
+                    names[n] = name;
+                    resultSetColumns[n] = i + 1;
+                    n++;
+                }
+                else {
+                    resultSetColumns[position] = i + 1;
+                }
+            }
+            this.names = Arrays.copyOf(names, n);
+            this.resultSetColumns = Arrays.copyOf(resultSetColumns, n);
+        }
+
+        /**
+         * @return the number of distinct columns, which is the size of a row's value array
+         */
+        int size()
+        {
+            return names.length;
+        }
+
+        /**
+         * @return the 1-based result set column the value at position i is read from
+         */
+        int resultSetColumn(int i)
+        {
+            return resultSetColumns[i];
+        }
+
+        int indexOf(Object key)
+        {
+            if (!(key instanceof String)) {
+                return -1;
+            }
+            Integer position = positions.get(key);
+            if (position == null && foldCase) {
+                position = positions.get(((String) key).toLowerCase());
+            }
+            return position == null ? -1 : position;
+        }
+
+        Object fold(Object key)
+        {
+            return foldCase && key instanceof String ? ((String) key).toLowerCase() : key;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reduces consecutive rows sharing a key, such as the rows of a parent joined to its children,
+ * into one aggregate per key. The query must return the rows of a key next to each other,
+ * typically by ordering on the key.
+ *
+ * @param <KeyType> the type of the key grouping rows
+ * @param <AggregateType> the type built from the rows of one key
+ *
+ * @see Query#reduceRows(RowReducer)
+ */
+public interface RowReducer<KeyType, AggregateType>
+{
+    /**
+     * Read the key of the current row. Keys are compared with {@link Object#equals(Object)}.
+     */
+    KeyType key(ResultSet r, StatementContext ctx) throws SQLException;
+
+    /**
+     * Create the aggregate for a key, from the first row with that key.
+     */
+    AggregateType start(KeyType key, ResultSet r, StatementContext ctx) throws SQLException;
+
+    /**
+     * Add a row, including the first one, to the aggregate of its key.
+     */
+    void accumulate(AggregateType aggregate, ResultSet r, StatementContext ctx) throws SQLException;
+}
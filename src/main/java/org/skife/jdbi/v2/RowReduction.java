@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Walks a result set one key at a time for a {@link RowReducer}, keeping only the aggregate
+ * being built.
+ */
+class RowReduction<KeyType, AggregateType>
+{
+    private final RowReducer<KeyType, AggregateType> reducer;
+    private final ResultSet results;
+    private final StatementContext context;
+
+    private boolean onRow = false;
+    private boolean exhausted = false;
+    private KeyType key;
+
+    private RowReduction(RowReducer<KeyType, AggregateType> reducer, ResultSet results, StatementContext context)
+    {
+        this.reducer = reducer;
+        this.results = results;
+        this.context = context;
+    }
+
+    static <KeyType, AggregateType> RowReduction<KeyType, AggregateType> of(RowReducer<KeyType, AggregateType> reducer,
+                                                                            ResultSet results,
+                                                                            StatementContext context)
+    {
+        return new RowReduction<KeyType, AggregateType>(reducer, results, context);
+    }
+
+    boolean hasNext() throws SQLException
+    {
+        if (!onRow && !exhausted) {
+            onRow = results.next();
+            exhausted = !onRow;
+            if (onRow) {
+                key = reducer.key(results, context);
+            }
+        }
+        return onRow;
+    }
+
+    /**
+     * Reduces the rows of the next key, leaving the result set on the first row of the key after.
+     */
+    AggregateType next() throws SQLException
+    {
+        if (!hasNext()) {
+            throw new IllegalStateException("No element to advance to");
+        }
+        final KeyType current = key;
+        final AggregateType aggregate = reducer.start(current, results, context);
+        while (true) {
+            reducer.accumulate(aggregate, results, context);
+            onRow = results.next();
+            if (!onRow) {
+                exhausted = true;
+                key = null;
+                return aggregate;
+            }
+            key = reducer.key(results, context);
+            if (current == null ? key != null : !current.equals(key)) {
+                return aggregate;
+            }
+        }
+    }
+}
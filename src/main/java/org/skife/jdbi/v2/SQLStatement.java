@@ -57,6 +57,7 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
 
     private StatementLocator  locator;
     private StatementRewriter rewriter;
+    private final RewrittenStatementCache rewrittenStatementCache;
 
     /**
      * This will be set on execution, not before
@@ -70,6 +71,7 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
     SQLStatement(Binding params,
                  StatementLocator locator,
                  StatementRewriter rewriter,
+                 RewrittenStatementCache rewrittenStatementCache,
                  Handle handle,
                  StatementBuilder statementBuilder,
                  String sql,
@@ -88,6 +90,7 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
         this.log = log;
         this.statementBuilder = statementBuilder;
         this.rewriter = rewriter;
+        this.rewrittenStatementCache = rewrittenStatementCache;
         this.handle = handle;
         this.sql = sql;
         this.timingCollector = timingCollector;
@@ -225,6 +228,11 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
         return rewriter;
     }
 
+    RewrittenStatementCache getRewrittenStatementCache()
+    {
+        return rewrittenStatementCache;
+    }
+
     protected Binding getParams()
     {
         return params;
@@ -317,6 +325,35 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
         return bindNamedArgumentFinder(new BeanPropertyArguments(o, getContext(), getForeman()));
     }
 
+    /**
+     * Binds named parameters from JavaBean properties on o, like {@link #bindFromProperties(Object)},
+     * but reads the properties through generated code rather than reflection. The class of o
+     * and its getters must be public.
+     *
+     * @param o source of named parameter values to use as arguments
+     *
+     * @return modified statement
+     */
+    public SelfType bindFromGeneratedProperties(Object o)
+    {
+        return bindFromGeneratedProperties(null, o);
+    }
+
+    /**
+     * Binds named parameters from JavaBean properties on o through generated code, with the
+     * parameter names qualified by prefix: property <code>id</code> is bound as
+     * <code>:prefix.id</code>.
+     *
+     * @param prefix qualifier of the parameter names, or null to bind the bare property names
+     * @param o source of named parameter values to use as arguments
+     *
+     * @return modified statement
+     */
+    public SelfType bindFromGeneratedProperties(String prefix, Object o)
+    {
+        return bindNamedArgumentFinder(new GeneratedBeanArguments(prefix, o, getContext(), getForeman()));
+    }
+
     /**
      * Binds named parameters from a map of String to Object instances
      *
@@ -1289,12 +1326,43 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
         }
     }
 
-    protected <Result> Result internalExecute(final QueryResultMunger<Result> munger)
+    /**
+     * Locate and rewrite the statement, or take both from the rewritten statement cache if one is
+     * configured and has seen this statement before.
+     */
+    RewrittenStatement locateAndRewrite(Binding params)
     {
-        final String located_sql = wrapLookup(sql);
+        final RewrittenStatementCache cache = rewrittenStatementCache;
+        RewrittenStatementCache.Entry cached = null;
+        if (cache != null) {
+            cached = cache.get(sql, locator, rewriter, getContext());
+        }
+
+        final String located_sql = cached == null ? wrapLookup(sql) : cached.getLocatedSql();
         getConcreteContext().setLocatedSql(located_sql);
-        rewritten = rewriter.rewrite(located_sql, getParams(), getContext());
-        getConcreteContext().setRewrittenSql(rewritten.getSql());
+
+        RewrittenStatement result = cached == null ? null : cached.getRewritten(getContext());
+        if (result == null) {
+            result = rewriter.rewrite(located_sql, params, getContext());
+            if (cache != null && cached == null) {
+                cache.put(sql, locator, rewriter, getContext(), located_sql, result);
+            }
+        }
+        getConcreteContext().setRewrittenSql(result.getSql());
+        return result;
+    }
+
+    protected <Result> Result internalExecute(final QueryResultMunger<Result> munger)
+    {
+        return internalExecute(locateAndRewrite(getParams()), munger);
+    }
+
+    /**
+     * Execute the given rewrite of this statement, for callers which needed it before executing.
+     */
+    final <Result> Result internalExecute(RewrittenStatement rewrittenStatement, final QueryResultMunger<Result> munger)
+    {
+        rewritten = rewrittenStatement;
         try {
             if (getClass().isAssignableFrom(Call.class)) {
                 stmt = statementBuilder.createCall(handle.getConnection(), rewritten.getSql(), getContext());
@@ -1328,6 +1396,9 @@ public abstract class SQLStatement<SelfType extends SQLStatement<SelfType>> exte
             final long elapsedTime = System.nanoTime() - start;
             log.logSQL(elapsedTime / 1000000L, rewritten.getSql());
             timingCollector.collect(elapsedTime, getContext());
+            if (!(this instanceof Query)) {
+                invalidateQueryResults(rewritten.getSql());
+            }
         }
         catch (SQLException e) {
             try {
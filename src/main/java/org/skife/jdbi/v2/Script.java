@@ -14,10 +14,12 @@
 package org.skife.jdbi.v2;
 
 import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
 import org.antlr.runtime.Token;
 import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import org.skife.jdbi.v2.tweak.StatementLocator;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,31 +28,53 @@ import java.util.List;
  */
 public class Script
 {
+    private static final int READER_STATEMENTS_PER_BATCH = 1000;
 
     private final Handle handle;
     private final StatementLocator locator;
     private final String name;
+    private final Reader reader;
     private final StatementContext statementContext;
+    private boolean consumed = false;
 
     Script(Handle h, StatementLocator locator, String name, StatementContext statementContext)
     {
         this.handle = h;
         this.locator = locator;
         this.name = name;
+        this.reader = null;
+        this.statementContext = statementContext;
+    }
+
+    Script(Handle h, Reader reader, StatementContext statementContext)
+    {
+        this.handle = h;
+        this.locator = null;
+        this.name = "<reader>";
+        this.reader = reader;
         this.statementContext = statementContext;
     }
 
     /**
-     * Execute this script in a batch statement
+     * Execute this script in a batch statement. A script created from a {@link Reader} is
+     * executed in batches of 1000 statements instead, as it is read, see
+     * {@link #executeInBatches(int)}.
      *
      * @return an array of ints which are the results of each statement in the script
      */
     public int[] execute() {
-        final List<String> statements = getStatements();
-        Batch b = handle.createBatch();
-        for (String s : statements) {
-            b.add(s);
+        if (reader != null) {
+            final CountCollector counts = new CountCollector();
+            executeInBatches(READER_STATEMENTS_PER_BATCH, counts);
+            return counts.toArray();
         }
+        final Batch b = handle.createBatch();
+        forEachStatement(new StatementHandler() {
+            @Override
+            public void handle(String statement) {
+                b.add(statement);
+            }
+        });
         return b.execute();
     }
 
@@ -58,41 +82,185 @@ public class Script
      * Execute this script as a set of separate statements
      */
     public void executeAsSeparateStatements() {
-        for (String s : getStatements()) {
-            handle.execute(s);
+        forEachStatement(new StatementHandler() {
+            @Override
+            public void handle(String statement) {
+                handle.execute(statement);
+            }
+        });
+    }
+
+    /**
+     * Execute this script in batch statements of at most <code>statementsPerBatch</code>
+     * statements each. Statements of a script created from a {@link Reader} are split off as it
+     * is read, so it is never held in memory as a whole.
+     *
+     * @return the number of statements executed
+     */
+    public long executeInBatches(int statementsPerBatch) {
+        return executeInBatches(statementsPerBatch, null);
+    }
+
+    /**
+     * Execute this script in batch statements of at most <code>statementsPerBatch</code>
+     * statements each, see {@link #executeInBatches(int)}, telling the listener about every
+     * batch executed.
+     *
+     * @return the number of statements executed
+     */
+    public long executeInBatches(final int statementsPerBatch, final ProgressListener listener) {
+        if (statementsPerBatch <= 0) {
+            throw new IllegalArgumentException("statementsPerBatch must be > 0, was " + statementsPerBatch);
         }
+        final BatchExecutor executor = new BatchExecutor(statementsPerBatch, listener);
+        forEachStatement(executor);
+        executor.flush();
+        return executor.executed;
     }
 
-    private List<String> getStatements() {
+    /**
+     * A script created from a {@link Reader} is handed to the handler statement by statement as it
+     * is read. A located script is split as a whole first, so that nothing is executed if it
+     * cannot be parsed.
+     */
+    private void forEachStatement(final StatementHandler handler) {
+        if (reader != null) {
+            if (consumed) {
+                throw new IllegalStateException("a script read from a Reader can only be executed once");
+            }
+            consumed = true;
+            parse(new ReaderCharStream(reader, name), handler);
+            return;
+        }
+
         final String script;
         try {
             script = locator.locate(name, statementContext);
         } catch (Exception e) {
             throw new UnableToExecuteStatementException(String.format("Error while loading script [%s]", name), e, statementContext);
         }
-
-        return splitToStatements(script);
-    }
-
-    private List<String> splitToStatements(String script) {
         final List<String> statements = new ArrayList<String>();
-        String lastStatement = new SqlScriptParser(new SqlScriptParser.TokenHandler() {
+        parse(new ANTLRStringStream(script), new StatementHandler() {
             @Override
-            public void handle(Token t, StringBuilder sb) {
-                addStatement(sb.toString(), statements);
-                sb.setLength(0);
+            public void handle(String statement) {
+                statements.add(statement);
             }
-        }).parse(new ANTLRStringStream(script));
-        addStatement(lastStatement, statements);
+        });
+        for (String statement : statements) {
+            handler.handle(statement);
+        }
+    }
 
-        return statements;
+    private void parse(CharStream stream, final StatementHandler handler) {
+        try {
+            String lastStatement = new SqlScriptParser(new SqlScriptParser.TokenHandler() {
+                @Override
+                public void handle(Token t, StringBuilder sb) {
+                    handleStatement(sb.toString(), handler);
+                    sb.setLength(0);
+                }
+            }).parse(stream);
+            handleStatement(lastStatement, handler);
+        } catch (ReaderCharStream.ReadFailedException e) {
+            throw new UnableToExecuteStatementException(String.format("Error while loading script [%s]", name), e.getCause(), statementContext);
+        }
     }
 
-    private void addStatement(String statement, List<String> statements) {
+    private static void handleStatement(String statement, StatementHandler handler) {
         String trimmedStatement = statement.trim();
         if (trimmedStatement.isEmpty()) {
             return;
         }
-        statements.add(trimmedStatement);
+        handler.handle(trimmedStatement);
+    }
+
+    /**
+     * Told about every batch executed by {@link Script#executeInBatches(int, ProgressListener)}
+     */
+    public interface ProgressListener
+    {
+        /**
+         * @param batch the number of the batch, counting from one
+         * @param counts the results of the statements in the batch
+         * @param executed the number of statements executed so far, including this batch
+         * @param elapsedMillis how long executing the batch took
+         */
+        void batchExecuted(int batch, int[] counts, long executed, long elapsedMillis);
+    }
+
+    private interface StatementHandler
+    {
+        void handle(String statement);
+    }
+
+    private static final class CountCollector implements ProgressListener
+    {
+        private int[] counts = new int[0];
+        private int size = 0;
+
+        @Override
+        public void batchExecuted(int batch, int[] batchCounts, long executed, long elapsedMillis)
+        {
+            if (size + batchCounts.length > counts.length) {
+                int[] grown = new int[Math.max(size + batchCounts.length, counts.length * 2)];
+                System.arraycopy(counts, 0, grown, 0, size);
+                counts = grown;
+            }
+            System.arraycopy(batchCounts, 0, counts, size, batchCounts.length);
+            size += batchCounts.length;
+        }
+
+        int[] toArray()
+        {
+            int[] result = new int[size];
+            System.arraycopy(counts, 0, result, 0, size);
+            return result;
+        }
+    }
+
+    private final class BatchExecutor implements StatementHandler
+    {
+        private final int statementsPerBatch;
+        private final ProgressListener listener;
+
+        private Batch batch;
+        private int size = 0;
+        private int batches = 0;
+        private long executed = 0;
+
+        BatchExecutor(int statementsPerBatch, ProgressListener listener)
+        {
+            this.statementsPerBatch = statementsPerBatch;
+            this.listener = listener;
+        }
+
+        @Override
+        public void handle(String statement)
+        {
+            if (batch == null) {
+                batch = handle.createBatch();
+            }
+            batch.add(statement);
+            if (++size == statementsPerBatch) {
+                flush();
+            }
+        }
+
+        void flush()
+        {
+            if (size == 0) {
+                return;
+            }
+            final long start = System.nanoTime();
+            final int[] counts = batch.execute();
+            final long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+            executed += size;
+            batches++;
+            batch = null;
+            size = 0;
+            if (listener != null) {
+                listener.batchExecuted(batches, counts, executed, elapsedMillis);
+            }
+        }
     }
 }
@@ -59,6 +59,10 @@ class SqlScriptParser {
                 default:
                     throw new IllegalArgumentException("Unrecognizable token " + t);
             }
+            if (charStream instanceof ReaderCharStream) {
+                // the token's text has been used, the stream may drop it
+                ((ReaderCharStream) charStream).discardConsumed();
+            }
         }
         return sb.toString();
     }
@@ -53,6 +53,22 @@ public final class StatementCustomizers
         {
             q.setFetchDirection(direction);
         }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            FetchDirectionStatementCustomizer that = (FetchDirectionStatementCustomizer) o;
+            return direction == null ? that.direction == null : direction.equals(that.direction);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return direction == null ? 0 : direction.hashCode();
+        }
     }
 
     public static final class QueryTimeoutCustomizer extends BaseStatementCustomizer
@@ -101,6 +117,22 @@ public final class StatementCustomizers
         {
             stmt.setMaxRows(maxRows);
         }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof MaxRowsCustomizer)) {
+                return false;
+            }
+            MaxRowsCustomizer that = (MaxRowsCustomizer) o;
+            return maxRows == that.maxRows;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return maxRows;
+        }
     }
 
     public static final class MaxFieldSizeCustomizer extends BaseStatementCustomizer
@@ -117,5 +149,21 @@ public final class StatementCustomizers
         {
             stmt.setMaxFieldSize(maxFieldSize);
         }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof MaxFieldSizeCustomizer)) {
+                return false;
+            }
+            MaxFieldSizeCustomizer that = (MaxFieldSizeCustomizer) o;
+            return maxFieldSize == that.maxFieldSize;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return maxFieldSize;
+        }
     }
 }
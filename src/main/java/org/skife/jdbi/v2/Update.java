@@ -35,6 +35,7 @@ public class Update extends SQLStatement<Update>
     Update(Handle handle,
            StatementLocator locator,
            StatementRewriter statementRewriter,
+           RewrittenStatementCache rewrittenStatementCache,
            StatementBuilder statementBuilder,
            String sql,
            ConcreteStatementContext ctx,
@@ -43,7 +44,7 @@ public class Update extends SQLStatement<Update>
            Foreman foreman,
            ContainerFactoryRegistry containerFactoryRegistry)
     {
-        super(new Binding(), locator, statementRewriter, handle, statementBuilder, sql, ctx, log, timingCollector, Collections.<StatementCustomizer>emptyList(), foreman, containerFactoryRegistry);
+        super(new Binding(), locator, statementRewriter, rewrittenStatementCache, handle, statementBuilder, sql, ctx, log, timingCollector, Collections.<StatementCustomizer>emptyList(), foreman, containerFactoryRegistry);
     }
 
     /**
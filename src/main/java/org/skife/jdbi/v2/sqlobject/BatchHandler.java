@@ -14,14 +14,14 @@
 package org.skife.jdbi.v2.sqlobject;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 
 import net.sf.cglib.proxy.MethodProxy;
 
+import org.skife.jdbi.v2.GeneratedKeys;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.PreparedBatch;
 import org.skife.jdbi.v2.PreparedBatchPart;
@@ -35,14 +35,13 @@ import org.skife.jdbi.v2.util.IntegerColumnMapper;
 
 import com.fasterxml.classmate.members.ResolvedMethod;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
 class BatchHandler extends CustomizingStatementHandler
 {
     private final String  sql;
     private final boolean transactional;
     private final ChunkSizeFunction batchChunkSize;
     private final Returner returner;
+    private final Class<?> resultType;
 
     BatchHandler(Class<?> sqlObjectType, ResolvedMethod method)
     {
@@ -57,36 +56,53 @@ class BatchHandler extends CustomizingStatementHandler
         this.batchChunkSize = determineBatchChunkSize(sqlObjectType, raw_method);
         final GetGeneratedKeys getGeneratedKeys = raw_method.getAnnotation(GetGeneratedKeys.class);
         if (getGeneratedKeys == null) {
+            if (raw_method.getReturnType().equals(long[].class)) {
+                throw new UnableToCreateSqlObjectException(method.getDeclaringType() + "." + method +
+                                                           " method is annotated with @SqlBatch and returns long[]," +
+                                                           " which is only supported with @GetGeneratedKeys");
+            }
             returner = new Returner()
             {
                 @Override
-                public int[] value(PreparedBatch batch)
+                public Object value(PreparedBatch batch)
                 {
                     return batch.execute();
                 }
             };
         }
-        else if (getGeneratedKeys.columnName().isEmpty()) {
-            returner = new Returner()
-            {
-                @Override
-                public int[] value(PreparedBatch batch)
-                {
-                    return toPrimitiveArray(batch.executeAndGenerateKeys(IntegerColumnMapper.PRIMITIVE).list());
-                }
-            };
-        }
         else {
-            returner = new Returner()
-            {
-                @Override
-                public int[] value(PreparedBatch batch)
+            final String columnName = getGeneratedKeys.columnName().isEmpty() ? null : getGeneratedKeys.columnName();
+            if (raw_method.getReturnType().equals(long[].class)) {
+                returner = new Returner()
                 {
-                    String columnName = getGeneratedKeys.columnName();
-                    return toPrimitiveArray(batch.executeAndGenerateKeys(IntegerColumnMapper.PRIMITIVE, columnName).list());
-                }
-            };
+                    @Override
+                    public Object value(PreparedBatch batch)
+                    {
+                        return generatedKeys(batch, columnName).asLongArray();
+                    }
+                };
+            }
+            else {
+                returner = new Returner()
+                {
+                    @Override
+                    public Object value(PreparedBatch batch)
+                    {
+                        return generatedKeys(batch, columnName).asIntArray();
+                    }
+                };
+            }
+        }
+        this.resultType = raw_method.getReturnType().equals(long[].class) ? long.class : int.class;
+    }
+
+    private static GeneratedKeys<Integer> generatedKeys(PreparedBatch batch, String columnName)
+    {
+        // the keys are read straight from the result set, the mapper is not used
+        if (columnName == null) {
+            return batch.executeAndGenerateKeys(IntegerColumnMapper.PRIMITIVE);
         }
+        return batch.executeAndGenerateKeys(IntegerColumnMapper.PRIMITIVE, columnName);
     }
 
     private ChunkSizeFunction determineBatchChunkSize(Class<?> sqlObjectType, Method raw_method)
@@ -132,46 +148,23 @@ class BatchHandler extends CustomizingStatementHandler
     @Override
     public Object invoke(HandleDing h, Object target, Object[] args, MethodProxy mp)
     {
-        boolean foundIterator = false;
         Handle handle = h.getHandle();
 
-        List<Iterator> extras = new ArrayList<Iterator>();
-        for (final Object arg : args) {
-            if (arg instanceof Iterable) {
-                extras.add(((Iterable) arg).iterator());
-                foundIterator = true;
-            }
-            else if (arg instanceof Iterator) {
-                extras.add((Iterator) arg);
-                foundIterator = true;
-            }
-            else if (arg.getClass().isArray()) {
-                extras.add(Arrays.asList((Object[])arg).iterator());
+        // arguments which are not iterated over stay in place in the frame, iterated ones are
+        // overwritten with the current element before every row is bound
+        final Column[] columns = new Column[args.length];
+        final Object[] frame = args.clone();
+        boolean foundIterator = false;
+        int expectedRows = -1;
+        for (int i = 0; i < args.length; i++) {
+            Column column = Column.of(args[i]);
+            if (column != null) {
+                columns[i] = column;
                 foundIterator = true;
-            }
-            else {
-                extras.add(new Iterator()
-                {
-                    @Override
-                    public boolean hasNext()
-                    {
-                        return true;
-                    }
-
-                    @Override
-                    @SuppressFBWarnings("IT_NO_SUCH_ELEMENT")
-                    public Object next()
-                    {
-                        return arg;
-                    }
-
-                    @Override
-                    public void remove()
-                    {
-                        // NOOP
-                    }
+                int size = column.size();
+                if (size >= 0 && (expectedRows < 0 || size < expectedRows)) {
+                    expectedRows = size;
                 }
-                );
             }
         }
 
@@ -180,53 +173,40 @@ class BatchHandler extends CustomizingStatementHandler
         }
 
         int processed = 0;
-        List<int[]> rs_parts = new ArrayList<int[]>();
+        Results results = new Results(resultType, expectedRows);
 
         PreparedBatch batch = handle.prepareBatch(sql);
         applyCustomizers(batch, args);
-        Object[] _args;
         int chunk_size = batchChunkSize.call(args);
 
-        while ((_args = next(extras)) != null) {
+        while (advance(columns, frame)) {
             PreparedBatchPart part = batch.add();
-            applyBinders(part, _args);
+            applyBinders(part, frame);
 
             if (++processed == chunk_size) {
                 // execute this chunk
                 processed = 0;
-                rs_parts.add(executeBatch(handle, batch));
+                results.append(executeBatch(handle, batch));
                 batch = handle.prepareBatch(sql);
                 applyCustomizers(batch, args);
             }
         }
 
         //execute the rest
-        rs_parts.add(executeBatch(handle, batch));
-
-        // combine results
-        int end_size = 0;
-        for (int[] rs_part : rs_parts) {
-            end_size += rs_part.length;
-        }
-        int[] rs = new int[end_size];
-        int offset = 0;
-        for (int[] rs_part : rs_parts) {
-            System.arraycopy(rs_part, 0, rs, offset, rs_part.length);
-            offset += rs_part.length;
-        }
+        results.append(executeBatch(handle, batch));
 
-        return rs;
+        return results.toArray();
     }
 
-    private int[] executeBatch(final Handle handle, final PreparedBatch batch)
+    private Object executeBatch(final Handle handle, final PreparedBatch batch)
     {
         if (!handle.isInTransaction() && transactional) {
             // it is safe to use same prepared batch as the inTransaction passes in the same
             // Handle instance.
-            return handle.inTransaction(new TransactionCallback<int[]>()
+            return handle.inTransaction(new TransactionCallback<Object>()
             {
                 @Override
-                public int[] inTransaction(Handle conn, TransactionStatus status) throws Exception
+                public Object inTransaction(Handle conn, TransactionStatus status) throws Exception
                 {
                     return returner.value(batch);
                 }
@@ -237,33 +217,248 @@ class BatchHandler extends CustomizingStatementHandler
         }
     }
 
-    private static int[] toPrimitiveArray(List<Integer> list)
+    /**
+     * Moves every column to its next element, storing the elements in the frame.
+     *
+     * @return false once any of the columns is exhausted
+     */
+    private static boolean advance(Column[] columns, Object[] frame)
     {
-        int[] array = new int[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            array[i] = list.get(i);
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            if (column != null) {
+                if (!column.hasNext()) {
+                    return false;
+                }
+                frame[i] = column.next();
+            }
         }
+        return true;
+    }
 
-        return array;
+    /**
+     * Update counts (or generated keys) of all chunks, in a single int[] or long[] sized up front
+     * when the number of rows is known.
+     */
+    private static final class Results
+    {
+        private final Class<?> componentType;
+        private Object values;
+        private int capacity;
+        private int size;
+
+        Results(Class<?> componentType, int expectedRows)
+        {
+            this.componentType = componentType;
+            if (expectedRows > 0) {
+                this.values = Array.newInstance(componentType, expectedRows);
+                this.capacity = expectedRows;
+            }
+        }
+
+        void append(Object part)
+        {
+            final int length = Array.getLength(part);
+            if (size == 0 && (values == null || length >= capacity)) {
+                // a single chunk holding everything is returned as is
+                values = part;
+                capacity = length;
+                size = length;
+                return;
+            }
+            if (size + length > capacity) {
+                resize(Math.max(size + length, capacity * 2));
+            }
+            System.arraycopy(part, 0, values, size, length);
+            size += length;
+        }
+
+        Object toArray()
+        {
+            if (values == null) {
+                return Array.newInstance(componentType, 0);
+            }
+            if (size != capacity) {
+                resize(size);
+            }
+            return values;
+        }
+
+        private void resize(int newCapacity)
+        {
+            Object resized = Array.newInstance(componentType, newCapacity);
+            System.arraycopy(values, 0, resized, 0, size);
+            values = resized;
+            capacity = newCapacity;
+        }
     }
 
-    private static Object[] next(List<Iterator> args)
+    /**
+     * One iterated argument of a batch method.
+     */
+    private abstract static class Column
     {
-        List<Object> rs = new ArrayList<Object>();
-        for (Iterator arg : args) {
-            if (arg.hasNext()) {
-                rs.add(arg.next());
+        abstract boolean hasNext();
+
+        abstract Object next();
+
+        /**
+         * @return the number of elements, or -1 if it is not known up front
+         */
+        int size()
+        {
+            return -1;
+        }
+
+        /**
+         * @return the column for an argument, or null if the argument is bound as is to every row;
+         *         of the primitive arrays only <code>long[]</code> and <code>int[]</code> are columns
+         */
+        static Column of(Object arg)
+        {
+            if (arg instanceof Collection) {
+                return new IteratorColumn(((Collection<?>) arg).iterator(), ((Collection<?>) arg).size());
             }
-            else {
-                return null;
+            else if (arg instanceof Iterable) {
+                return new IteratorColumn(((Iterable<?>) arg).iterator(), -1);
+            }
+            else if (arg instanceof Iterator) {
+                return new IteratorColumn((Iterator<?>) arg, -1);
+            }
+            else if (arg instanceof Object[]) {
+                return new ObjectArrayColumn((Object[]) arg);
+            }
+            else if (arg instanceof long[]) {
+                return new LongArrayColumn((long[]) arg);
             }
+            else if (arg instanceof int[]) {
+                return new IntArrayColumn((int[]) arg);
+            }
+            // other primitive arrays, byte[] above all, are values bound to every row
+            return null;
+        }
+    }
+
+    private static final class IteratorColumn extends Column
+    {
+        private final Iterator<?> iterator;
+        private final int size;
+
+        IteratorColumn(Iterator<?> iterator, int size)
+        {
+            this.iterator = iterator;
+            this.size = size;
+        }
+
+        @Override
+        boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        Object next()
+        {
+            return iterator.next();
+        }
+
+        @Override
+        int size()
+        {
+            return size;
+        }
+    }
+
+    private static final class ObjectArrayColumn extends Column
+    {
+        private final Object[] values;
+        private int index;
+
+        ObjectArrayColumn(Object[] values)
+        {
+            this.values = values;
+        }
+
+        @Override
+        boolean hasNext()
+        {
+            return index < values.length;
+        }
+
+        @Override
+        Object next()
+        {
+            return values[index++];
+        }
+
+        @Override
+        int size()
+        {
+            return values.length;
+        }
+    }
+
+    private static final class LongArrayColumn extends Column
+    {
+        private final long[] values;
+        private int index;
+
+        LongArrayColumn(long[] values)
+        {
+            this.values = values;
+        }
+
+        @Override
+        boolean hasNext()
+        {
+            return index < values.length;
+        }
+
+        @Override
+        Object next()
+        {
+            return values[index++];
+        }
+
+        @Override
+        int size()
+        {
+            return values.length;
+        }
+    }
+
+    private static final class IntArrayColumn extends Column
+    {
+        private final int[] values;
+        private int index;
+
+        IntArrayColumn(int[] values)
+        {
+            this.values = values;
+        }
+
+        @Override
+        boolean hasNext()
+        {
+            return index < values.length;
+        }
+
+        @Override
+        Object next()
+        {
+            return values[index++];
+        }
+
+        @Override
+        int size()
+        {
+            return values.length;
         }
-        return rs.toArray();
     }
 
     private interface Returner
     {
-        int[] value(PreparedBatch batch);
+        Object value(PreparedBatch batch);
     }
 
     private interface ChunkSizeFunction
@@ -302,7 +497,7 @@ class BatchHandler extends CustomizingStatementHandler
     }
 
     private static boolean returnTypeIsValid(Class<?> type) {
-        if (type.equals(Void.TYPE) || type.isArray() && type.getComponentType().equals(Integer.TYPE)) {
+        if (type.equals(Void.TYPE) || type.equals(int[].class) || type.equals(long[].class)) {
             return true;
         }
 
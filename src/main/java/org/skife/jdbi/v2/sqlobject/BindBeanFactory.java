@@ -16,10 +16,13 @@ package org.skife.jdbi.v2.sqlobject;
 import org.skife.jdbi.v2.SQLStatement;
 
 import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 
 class BindBeanFactory implements BinderFactory
 {
@@ -28,29 +31,27 @@ class BindBeanFactory implements BinderFactory
     {
         return new Binder<BindBean, Object>()
         {
+            // introspecting the bean for every bound row dominates large batches, so the
+            // properties of the last bean type seen are kept
+            private volatile BeanProperties properties;
+
             @Override
             public void bind(SQLStatement q, BindBean bind, Object arg)
             {
-                final String prefix;
-                if (BindBean.BARE_BINDING.equals(bind.value())) {
-                    prefix = "";
-                }
-                else {
-                    prefix = bind.value() + ".";
-                }
-
                 try {
                     Class<?> beanType = bind.type().equals(BindBean.Default.class)
                         ? arg.getClass()
                         : bind.type();
 
-                    BeanInfo infos = Introspector.getBeanInfo(beanType);
-                    PropertyDescriptor[] props = infos.getPropertyDescriptors();
-                    for (PropertyDescriptor prop : props) {
-                        Method readMethod = prop.getReadMethod();
-                        if (readMethod != null) {
-                            q.dynamicBind(readMethod.getReturnType(), prefix + prop.getName(), readMethod.invoke(arg));
-                        }
+                    BeanProperties props = properties;
+                    if (props == null || props.type != beanType || props.bind != bind) {
+                        props = new BeanProperties(beanType, bind);
+                        properties = props;
+                    }
+
+                    for (int i = 0; i < props.readMethods.length; i++) {
+                        Method readMethod = props.readMethods[i];
+                        q.dynamicBind(readMethod.getReturnType(), props.names[i], readMethod.invoke(arg));
                     }
                 }
                 catch (Exception e) {
@@ -61,4 +62,39 @@ class BindBeanFactory implements BinderFactory
             }
         };
     }
+
+    private static final class BeanProperties
+    {
+        private final Class<?> type;
+        private final BindBean bind;
+        private final String[] names;
+        private final Method[] readMethods;
+
+        BeanProperties(Class<?> type, BindBean bind) throws IntrospectionException
+        {
+            this.type = type;
+            this.bind = bind;
+
+            final String prefix;
+            if (BindBean.BARE_BINDING.equals(bind.value())) {
+                prefix = "";
+            }
+            else {
+                prefix = bind.value() + ".";
+            }
+
+            List<String> names = new ArrayList<String>();
+            List<Method> readMethods = new ArrayList<Method>();
+            BeanInfo infos = Introspector.getBeanInfo(type);
+            for (PropertyDescriptor prop : infos.getPropertyDescriptors()) {
+                Method readMethod = prop.getReadMethod();
+                if (readMethod != null) {
+                    names.add(prefix + prop.getName());
+                    readMethods.add(readMethod);
+                }
+            }
+            this.names = names.toArray(new String[names.size()]);
+            this.readMethods = readMethods.toArray(new Method[readMethods.size()]);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2.sqlobject;
+
+import org.skife.jdbi.v2.SQLStatement;
+
+class BindGeneratedBeanFactory implements BinderFactory<BindGeneratedBean>
+{
+    @Override
+    public Binder<BindGeneratedBean, Object> build(BindGeneratedBean annotation)
+    {
+        return new Binder<BindGeneratedBean, Object>()
+        {
+            @Override
+            public void bind(SQLStatement<?> q, BindGeneratedBean bind, Object arg)
+            {
+                if (BindBean.BARE_BINDING.equals(bind.value())) {
+                    q.bindFromGeneratedProperties(arg);
+                }
+                else {
+                    q.bindFromGeneratedProperties(bind.value(), arg);
+                }
+            }
+        };
+    }
+}
@@ -20,34 +20,99 @@ import com.fasterxml.classmate.members.ResolvedMethod;
 import org.skife.jdbi.v2.Query;
 import org.skife.jdbi.v2.ResultBearing;
 import org.skife.jdbi.v2.ResultIterator;
+import org.skife.jdbi.v2.RowReducer;
 import org.skife.jdbi.v2.exceptions.UnableToCreateStatementException;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.sqlobject.customizers.Reducer;
 import org.skife.jdbi.v2.sqlobject.customizers.SingleValueResult;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
 abstract class ResultReturnThing
 {
+    private Constructor<? extends RowReducer<?, ?>> reducer;
+    private Constructor<? extends ResultSetMapper<?>> mapper;
+    private Type mapTo;
+
     public Object map(ResolvedMethod method, Query q, HandleDing h)
     {
-        if (method.getRawMember().isAnnotationPresent(Mapper.class)) {
-            final ResultSetMapper mapper;
-            try {
-                mapper = method.getRawMember().getAnnotation(Mapper.class).value().newInstance();
-            }
-            catch (Exception e) {
-                throw new UnableToCreateStatementException("unable to access mapper", e);
-            }
-            return result(q.map(mapper), h);
+        if (reducer != null) {
+            final RowReducer<?, ?> rowReducer = newInstance(reducer, "reducer", q);
+            return result(((Query<?>) q).reduceRows(rowReducer), h);
+        }
+        else if (mapper != null) {
+            final ResultSetMapper<?> rowMapper = newInstance(mapper, "mapper", q);
+            return result(q.map(rowMapper), h);
         }
         else {
-            return result(q.mapTo(mapTo(method)), h);
+            return result(q.mapTo(mapTo), h);
+        }
+    }
+
+    /**
+     * Mappers and reducers named by the annotations may keep state, so every call gets its own.
+     */
+    private static <T> T newInstance(Constructor<? extends T> constructor, String kind, Query<?> q)
+    {
+        try {
+            return constructor.newInstance();
+        }
+        catch (Exception e) {
+            throw new UnableToCreateStatementException("unable to access " + kind, e, q.getContext());
         }
     }
 
     static ResultReturnThing forType(ResolvedMethod method)
+    {
+        ResultReturnThing thing = create(method);
+        thing.prepare(method);
+        return thing;
+    }
+
+    /**
+     * Resolves how rows are turned into results once, when the sql object type is first used,
+     * rather than on every invocation: the constructor of the @Mapper or @Reducer class, or the
+     * full generic type to map to. Mappers registered on the handle or the statement are still
+     * looked up by the query itself, from its cache keyed by that type.
+     */
+    private void prepare(ResolvedMethod method)
+    {
+        if (method.getRawMember().isAnnotationPresent(Reducer.class)) {
+            if (this instanceof ResultBearingResultReturnThing) {
+                throw new IllegalStateException(String.format(
+                        "Method %s#%s is annotated with @Reducer, so it cannot return a Query, return the aggregates instead.",
+                        method.getDeclaringType().getErasedType().getName(),
+                        method.getName()));
+            }
+            reducer = constructor(method.getRawMember().getAnnotation(Reducer.class).value(), "reducer");
+        }
+        else if (method.getRawMember().isAnnotationPresent(Mapper.class)) {
+            mapper = constructor(method.getRawMember().getAnnotation(Mapper.class).value(), "mapper");
+        }
+        else {
+            mapTo = mapTo(method);
+        }
+    }
+
+    private static <T> Constructor<? extends T> constructor(Class<? extends T> type, String kind)
+    {
+        try {
+            Constructor<? extends T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        }
+        catch (Exception e) {
+            throw new UnableToCreateStatementException("unable to access " + kind, e, null);
+        }
+    }
+
+    private static ResultReturnThing create(ResolvedMethod method)
     {
         ResolvedType return_type = method.getReturnType();
         if (return_type == null) {
@@ -71,12 +136,95 @@ abstract class ResultReturnThing
 
     protected abstract Object result(ResultBearing q, HandleDing baton);
 
-    protected abstract Class<?> mapTo(ResolvedMethod method);
+    protected abstract Type mapTo(ResolvedMethod method);
+
+    /**
+     * The java.lang.reflect form of a resolved type, with the type variables of generic sql object
+     * interfaces bound.
+     */
+    static Type typeOf(ResolvedType type)
+    {
+        List<ResolvedType> parameters = type.getTypeParameters();
+        if (parameters.isEmpty() || type.isArray()) {
+            return type.getErasedType();
+        }
+        Type[] arguments = new Type[parameters.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = typeOf(parameters.get(i));
+        }
+        return new Parameterized(type.getErasedType(), arguments);
+    }
+
+    /**
+     * Equal to the JDK's own ParameterizedType for the same type, so both find the same mapper.
+     */
+    private static final class Parameterized implements ParameterizedType
+    {
+        private final Class<?> raw;
+        private final Type[] arguments;
+
+        Parameterized(Class<?> raw, Type[] arguments)
+        {
+            this.raw = raw;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments()
+        {
+            return arguments.clone();
+        }
+
+        @Override
+        public Type getRawType()
+        {
+            return raw;
+        }
+
+        @Override
+        public Type getOwnerType()
+        {
+            return raw.getDeclaringClass();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType other = (ParameterizedType) o;
+            Type owner = other.getOwnerType();
+            return raw.equals(other.getRawType())
+                   && (owner == null ? getOwnerType() == null : owner.equals(getOwnerType()))
+                   && Arrays.equals(arguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            Type owner = getOwnerType();
+            return Arrays.hashCode(arguments) ^ (owner == null ? 0 : owner.hashCode()) ^ raw.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder name = new StringBuilder(raw.getName()).append('<');
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) {
+                    name.append(", ");
+                }
+                name.append(arguments[i] instanceof Class ? ((Class<?>) arguments[i]).getName() : arguments[i]);
+            }
+            return name.append('>').toString();
+        }
+    }
 
 
     static class SingleValueResultReturnThing extends ResultReturnThing
     {
-        private final Class<?> returnType;
+        private final Type returnType;
         private final Class<?> containerType;
 
         SingleValueResultReturnThing(ResolvedMethod method)
@@ -87,7 +235,7 @@ abstract class ResultReturnThing
                 if(SingleValueResult.Default.class == svr.value()){
                     TypeBindings typeBindings = method.getReturnType().getTypeBindings();
                     if(typeBindings.size() == 1){
-                        this.returnType = typeBindings.getBoundType(0).getErasedType();
+                        this.returnType = typeOf(typeBindings.getBoundType(0));
                     }else{
                         throw new IllegalArgumentException("Ambiguous generic information. SingleValueResult type could not be fetched.");
                     }
@@ -98,7 +246,7 @@ abstract class ResultReturnThing
                 this.containerType = method.getReturnType().getErasedType();
             }
             else {
-                this.returnType = method.getReturnType().getErasedType();
+                this.returnType = typeOf(method.getReturnType());
                 this.containerType = null;
             }
 
@@ -111,7 +259,7 @@ abstract class ResultReturnThing
         }
 
         @Override
-        protected Class<?> mapTo(ResolvedMethod method)
+        protected Type mapTo(ResolvedMethod method)
         {
             return returnType;
         }
@@ -138,9 +286,9 @@ abstract class ResultReturnThing
         }
 
         @Override
-        protected Class<?> mapTo(ResolvedMethod method)
+        protected Type mapTo(ResolvedMethod method)
         {
-            return resolvedType.getErasedType();
+            return typeOf(resolvedType);
         }
     }
 
@@ -227,9 +375,9 @@ abstract class ResultReturnThing
         }
 
         @Override
-        protected Class<?> mapTo(ResolvedMethod method)
+        protected Type mapTo(ResolvedMethod method)
         {
-            return resolvedType.getErasedType();
+            return typeOf(resolvedType);
         }
     }
 
@@ -254,9 +402,9 @@ abstract class ResultReturnThing
         }
 
         @Override
-        protected Class<?> mapTo(ResolvedMethod method)
+        protected Type mapTo(ResolvedMethod method)
         {
-            return resolvedType.getErasedType();
+            return typeOf(resolvedType);
         }
     }
 }
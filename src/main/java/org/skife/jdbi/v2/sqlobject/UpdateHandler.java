@@ -21,6 +21,8 @@ import org.skife.jdbi.v2.Update;
 import org.skife.jdbi.v2.exceptions.UnableToCreateSqlObjectException;
 import org.skife.jdbi.v2.exceptions.UnableToCreateStatementException;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.util.LongColumnMapper;
+import org.skife.jdbi.v2.util.SingleColumnMapper;
 
 class UpdateHandler extends CustomizingStatementHandler
 {
@@ -38,7 +40,23 @@ class UpdateHandler extends CustomizingStatementHandler
         }
         this.sql = SqlObject.getSql(method.getRawMember().getAnnotation(SqlUpdate.class), method.getRawMember());
 
-        if (isGetGeneratedKeys) {
+        final Class<?> returnType = method.getRawMember().getReturnType();
+        if (isGetGeneratedKeys && (returnType.equals(long[].class) || returnType.equals(int[].class))) {
+            final GetGeneratedKeys ggk = method.getRawMember().getAnnotation(GetGeneratedKeys.class);
+            final boolean longs = returnType.equals(long[].class);
+            // the keys are read straight from the result set, the mapper is not used
+            final ResultSetMapper<Long> keyMapper = new SingleColumnMapper<Long>(LongColumnMapper.PRIMITIVE);
+            this.returner = new Returner()
+            {
+                @Override
+                public Object value(Update update, HandleDing baton)
+                {
+                    GeneratedKeys<Long> keys = update.executeAndReturnGeneratedKeys(keyMapper, ggk.columnName());
+                    return longs ? keys.asLongArray() : keys.asIntArray();
+                }
+            };
+        }
+        else if (isGetGeneratedKeys) {
 
             final ResultReturnThing magic = ResultReturnThing.forType(method);
             final GetGeneratedKeys ggk = method.getRawMember().getAnnotation(GetGeneratedKeys.class);
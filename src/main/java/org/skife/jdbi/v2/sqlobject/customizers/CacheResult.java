@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2.sqlobject.customizers;
+
+import org.skife.jdbi.v2.Query;
+import org.skife.jdbi.v2.QueryResultCache;
+import org.skife.jdbi.v2.SQLStatement;
+import org.skife.jdbi.v2.sqlobject.SqlStatementCustomizer;
+import org.skife.jdbi.v2.sqlobject.SqlStatementCustomizerFactory;
+import org.skife.jdbi.v2.sqlobject.SqlStatementCustomizingAnnotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache the results of the annotated query, or of every query on the annotated type, in the
+ * {@link QueryResultCache} configured on the DBI.
+ *
+ * @see Query#cacheResult(long, TimeUnit, String...)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@SqlStatementCustomizingAnnotation(CacheResult.Factory.class)
+public @interface CacheResult
+{
+    /**
+     * How long a cached result may be served, in {@link #unit()}s
+     */
+    long value();
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Tables the query reads; a write to any of them through the same DBI drops the cached result
+     */
+    String[] tables() default {};
+
+    @SuppressWarnings("rawtypes") // the customizer interfaces take raw types
+    class Factory implements SqlStatementCustomizerFactory
+    {
+        @Override
+        public SqlStatementCustomizer createForMethod(Annotation annotation, Class sqlObjectType, Method method)
+        {
+            return create((CacheResult) annotation);
+        }
+
+        @Override
+        public SqlStatementCustomizer createForType(Annotation annotation, Class sqlObjectType)
+        {
+            return create((CacheResult) annotation);
+        }
+
+        @Override
+        public SqlStatementCustomizer createForParameter(Annotation annotation, Class sqlObjectType, Method method, Object arg)
+        {
+            throw new UnsupportedOperationException("Not defined for parameter");
+        }
+
+        private static SqlStatementCustomizer create(final CacheResult cr)
+        {
+            return new SqlStatementCustomizer()
+            {
+                @Override
+                public void apply(SQLStatement q) throws SQLException
+                {
+                    if (q instanceof Query) {
+                        ((Query<?>) q).cacheResult(cr.value(), cr.unit(), cr.tables());
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2.sqlobject.customizers;
+
+import org.skife.jdbi.v2.RowReducer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to reduce the rows of a query method into one result per key, see
+ * {@link org.skife.jdbi.v2.Query#reduceRows(RowReducer)}. Methods returning an
+ * <code>Iterator</code> or <code>ResultIterator</code> stream the results.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface Reducer
+{
+    /**
+     * The class implementing {@link RowReducer}. It must have a no-arg constructor.
+     */
+    Class<? extends RowReducer<?, ?>> value();
+}
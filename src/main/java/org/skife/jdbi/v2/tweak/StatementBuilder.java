@@ -23,8 +23,9 @@ import java.sql.Statement;
 
 /**
  * Used to convert translated SQL into a prepared statement. The default implementation
- * created by {@link org.skife.jdbi.v2.CachingStatementBuilderFactory} caches all prepared
- * statements created against a given handle.
+ * created by {@link org.skife.jdbi.v2.DefaultStatementBuilderFactory} prepares a new statement
+ * every time, {@link org.skife.jdbi.v2.BoundedCachingStatementBuilderFactory} keeps a bounded
+ * pool of prepared statements for each handle.
  *
  * A StatementBuilder is always associated with exactly one Handle instance
  *
@@ -0,0 +1,27 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2.tweak;
+
+/**
+ * Marker for an ArgumentFactory whose {@link #accepts(Class, Object, org.skife.jdbi.v2.StatementContext)}
+ * answer depends only on the expected type and on the class of the value (or on the value being
+ * null), never on the value itself or on the statement context.
+ * <p/>
+ * When every factory consulted for a bind is type stable, the outcome is remembered per expected
+ * type and value class, and later binds of the same types skip the search through the registered
+ * factories.
+ */
+public interface TypeStableArgumentFactory<T> extends ArgumentFactory<T>
+{
+}
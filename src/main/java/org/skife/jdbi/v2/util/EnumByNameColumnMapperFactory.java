@@ -18,15 +18,30 @@ import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.tweak.ResultColumnMapper;
 
 /**
- * Produces enum column mappers, which map enums from varchar columns using {@link Enum#valueOf(Class, String)}.
+ * Produces enum column mappers, which map enums from varchar columns holding the constant names.
  */
 public class EnumByNameColumnMapperFactory implements ResultColumnMapperFactory {
+    private final boolean ignoreCase;
+
+    public EnumByNameColumnMapperFactory() {
+        this(false);
+    }
+
+    /**
+     * @param ignoreCase whether names are matched regardless of case
+     */
+    public EnumByNameColumnMapperFactory(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+    }
+
     @Override
-    public ResultColumnMapper columnMapperFor(Class type, StatementContext ctx) {
-        return EnumColumnMapper.byName(type);
+    @SuppressWarnings({"rawtypes", "unchecked"}) // the factory interface hands over a raw Class
+    public ResultColumnMapper<?> columnMapperFor(Class type, StatementContext ctx) {
+        return ignoreCase ? EnumColumnMapper.byNameIgnoreCase(type) : EnumColumnMapper.byName(type);
     }
 
     @Override
+    @SuppressWarnings("rawtypes")
     public boolean accepts(Class type, StatementContext ctx) {
         return type.isEnum();
     }
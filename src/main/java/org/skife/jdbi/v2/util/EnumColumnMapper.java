@@ -23,50 +23,59 @@ public abstract class EnumColumnMapper<E extends Enum<E>> implements ResultColum
     EnumColumnMapper() {}
 
     public static <E extends Enum<E>> ResultColumnMapper<E> byName(Class<E> type) {
-        return new ByName<E>(type);
+        return new ByString<E>(EnumLookup.byName(type));
+    }
+
+    public static <E extends Enum<E>> ResultColumnMapper<E> byNameIgnoreCase(Class<E> type) {
+        return new ByString<E>(EnumLookup.byNameIgnoreCase(type));
+    }
+
+    /**
+     * Maps enums from their {@link DbCode}, or from their name for constants without one.
+     */
+    public static <E extends Enum<E>> ResultColumnMapper<E> byCode(Class<E> type) {
+        return new ByString<E>(EnumLookup.byCode(type));
     }
 
     public static <E extends Enum<E>> ResultColumnMapper<E> byOrdinal(Class<E> type) {
-        return new ByOrdinal<E>(type);
+        return new ByOrdinal<E>(EnumLookup.byName(type));
     }
 
-    private static class ByName<E extends Enum<E>> extends EnumColumnMapper<E> {
-        private final Class<E> type;
+    private static class ByString<E extends Enum<E>> extends EnumColumnMapper<E> {
+        private final EnumLookup<E> lookup;
 
-        private ByName(Class<E> type) {
-            this.type = type;
+        private ByString(EnumLookup<E> lookup) {
+            this.lookup = lookup;
         }
 
         @Override
         public E mapColumn(ResultSet r, int columnNumber, StatementContext ctx) throws SQLException {
-            String name = r.getString(columnNumber);
-            return name == null ? null : Enum.valueOf(type, name);
+            return lookup.lookup(r.getString(columnNumber));
         }
 
         @Override
         public E mapColumn(ResultSet r, String columnLabel, StatementContext ctx) throws SQLException {
-            String name = r.getString(columnLabel);
-            return name == null ? null : Enum.valueOf(type, name);
+            return lookup.lookup(r.getString(columnLabel));
         }
     }
 
     private static class ByOrdinal<E extends Enum<E>> extends EnumColumnMapper<E> {
-        private final E[] constants;
+        private final EnumLookup<E> lookup;
 
-        private ByOrdinal(Class<E> type) {
-            this.constants = type.getEnumConstants();
+        private ByOrdinal(EnumLookup<E> lookup) {
+            this.lookup = lookup;
         }
 
         @Override
         public E mapColumn(ResultSet r, int columnNumber, StatementContext ctx) throws SQLException {
             int ordinal = r.getInt(columnNumber);
-            return r.wasNull() ? null : constants[ordinal];
+            return r.wasNull() ? null : lookup.byOrdinal(ordinal);
         }
 
         @Override
         public E mapColumn(ResultSet r, String columnLabel, StatementContext ctx) throws SQLException {
             int ordinal = r.getInt(columnLabel);
-            return r.wasNull() ? null : constants[ordinal];
+            return r.wasNull() ? null : lookup.byOrdinal(ordinal);
         }
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2.util;
+
+/**
+ * Maps the strings an enum is stored as to its constants and back. The table resolves a string
+ * with an open addressed hash lookup on the hash code the string already caches, so mapping a
+ * known value allocates nothing. Building it walks all constants, so keep the lookup around: it
+ * is not cached here, as a static cache would keep every enum type it saw, and its class loader,
+ * reachable for as long as jDBI is loaded.
+ */
+public final class EnumLookup<E extends Enum<E>> {
+    private static final int BY_NAME = 0;
+    private static final int BY_NAME_IGNORE_CASE = 1;
+    private static final int BY_CODE = 2;
+
+    private final Class<E> type;
+    private final int matching;
+    private final E[] constants;
+    private final String[] stored;
+
+    private final int mask;
+    private final int[] hashes;
+    private final String[] keys;
+    private final E[] values;
+
+    /**
+     * Match constants on their exact name, as {@link Enum#valueOf(Class, String)} does.
+     */
+    public static <E extends Enum<E>> EnumLookup<E> byName(Class<E> type) {
+        return lookup(type, BY_NAME);
+    }
+
+    /**
+     * Match constants on their name, ignoring case.
+     */
+    public static <E extends Enum<E>> EnumLookup<E> byNameIgnoreCase(Class<E> type) {
+        return lookup(type, BY_NAME_IGNORE_CASE);
+    }
+
+    /**
+     * Match constants on their {@link DbCode}, or on their name if they are not annotated.
+     */
+    public static <E extends Enum<E>> EnumLookup<E> byCode(Class<E> type) {
+        return lookup(type, BY_CODE);
+    }
+
+    private static <E extends Enum<E>> EnumLookup<E> lookup(Class<E> type, int matching) {
+        if (!type.isEnum()) {
+            throw new IllegalArgumentException(type + " is not an enum");
+        }
+        return new EnumLookup<E>(type, matching);
+    }
+
+    @SuppressWarnings("unchecked")
+    private EnumLookup(Class<E> type, int matching) {
+        this.type = type;
+        this.matching = matching;
+        this.constants = type.getEnumConstants();
+        this.stored = new String[constants.length];
+        for (E constant : constants) {
+            stored[constant.ordinal()] = matching == BY_CODE ? codeOf(type, constant) : constant.name();
+        }
+
+        int capacity = 2;
+        while (capacity < constants.length * 2) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.hashes = new int[capacity];
+        this.keys = new String[capacity];
+        this.values = (E[]) new Enum<?>[capacity];
+
+        for (E constant : constants) {
+            String key = stored[constant.ordinal()];
+            int hash = hash(key);
+            int i = spread(hash) & mask;
+            while (keys[i] != null) {
+                if (hashes[i] == hash && matches(keys[i], key)) {
+                    throw new IllegalArgumentException(String.format("%s and %s of %s are both stored as '%s'",
+                                                                     values[i], constant, type.getName(), key));
+                }
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            keys[i] = key;
+            values[i] = constant;
+        }
+    }
+
+    private static String codeOf(Class<?> type, Enum<?> constant) {
+        try {
+            DbCode code = type.getField(constant.name()).getAnnotation(DbCode.class);
+            return code == null ? constant.name() : code.value();
+        }
+        catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the constant stored as the given string, or null if the string is null
+     * @throws IllegalArgumentException if no constant is stored as the string
+     */
+    public E lookup(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = hash(value);
+        int i = spread(hash) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (hashes[i] == hash && matches(key, value)) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        throw new IllegalArgumentException("No enum constant " + type.getName() + " stored as '" + value + "'");
+    }
+
+    /**
+     * @return the constant with the given ordinal
+     * @throws IllegalArgumentException if there is no such constant
+     */
+    public E byOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= constants.length) {
+            throw new IllegalArgumentException("No enum constant " + type.getName() + " with ordinal " + ordinal);
+        }
+        return constants[ordinal];
+    }
+
+    /**
+     * @return the string the constant is stored as, or null for null
+     */
+    public String toDatabase(E constant) {
+        return constant == null ? null : stored[constant.ordinal()];
+    }
+
+    public Class<E> getType() {
+        return type;
+    }
+
+    private int hash(String s) {
+        if (matching != BY_NAME_IGNORE_CASE) {
+            return s.hashCode();
+        }
+        // consistent with String#equalsIgnoreCase
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+        }
+        return h;
+    }
+
+    private boolean matches(String key, String value) {
+        return matching == BY_NAME_IGNORE_CASE ? key.equalsIgnoreCase(value) : key.equals(value);
+    }
+
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        return h ^ (h >>> 8);
+    }
+}
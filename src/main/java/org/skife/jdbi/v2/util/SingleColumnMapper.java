@@ -57,6 +57,20 @@ public class SingleColumnMapper<T> implements ResultSetMapper<T> {
         return delegate.map(index, r, ctx);
     }
 
+    /**
+     * Mappers of the same column with equal column mappers are equal, so that cached query
+     * results can be shared between them.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SingleColumnMapper && delegate.equals(((SingleColumnMapper<?>) o).delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
     private static class ByLabel<T> implements ResultSetMapper<T> {
         private final ResultColumnMapper<T> mapper;
         private final String label;
@@ -70,6 +84,20 @@ public class SingleColumnMapper<T> implements ResultSetMapper<T> {
         public T map(int index, ResultSet r, StatementContext ctx) throws SQLException {
             return mapper.mapColumn(r, label, ctx);
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ByLabel)) {
+                return false;
+            }
+            ByLabel<?> that = (ByLabel<?>) o;
+            return mapper.equals(that.mapper) && label.equals(that.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mapper.hashCode() + label.hashCode();
+        }
     }
 
     private static class ByNumber<T> implements ResultSetMapper<T> {
@@ -85,5 +113,19 @@ public class SingleColumnMapper<T> implements ResultSetMapper<T> {
         public T map(int index, ResultSet r, StatementContext ctx) throws SQLException {
             return mapper.mapColumn(r, number, ctx);
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ByNumber)) {
+                return false;
+            }
+            ByNumber<?> that = (ByNumber<?>) o;
+            return mapper.equals(that.mapper) && number == that.number;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mapper.hashCode() + number;
+        }
     }
 }
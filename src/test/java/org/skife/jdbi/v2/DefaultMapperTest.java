@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.easymock.EasyMockRunner;
+import org.easymock.Mock;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(EasyMockRunner.class)
+public class DefaultMapperTest {
+
+    @Mock
+    ResultSet resultSet;
+
+    @Mock
+    ResultSetMetaData resultSetMetaData;
+
+    @Mock
+    StatementContext ctx;
+
+    private void expectColumns(String... labels) throws Exception {
+        expect(resultSetMetaData.getColumnCount()).andReturn(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            expect(resultSetMetaData.getColumnName(i + 1)).andReturn(labels[i]);
+            expect(resultSetMetaData.getColumnLabel(i + 1)).andReturn(labels[i]);
+        }
+        replay(resultSetMetaData);
+    }
+
+    @Test
+    public void shouldReadMetadataOncePerResultSet() throws Exception {
+        expectColumns("ID", "Name");
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn("Brian");
+        expect(resultSet.getObject(1)).andReturn(2);
+        expect(resultSet.getObject(2)).andReturn("Keith");
+        replay(resultSet);
+
+        DefaultMapper mapper = new DefaultMapper();
+        Map<String, Object> first = mapper.map(0, resultSet, ctx);
+        Map<String, Object> second = mapper.map(1, resultSet, ctx);
+
+        assertEquals(1, first.get("id"));
+        assertEquals("Brian", first.get("NAME"));
+        assertEquals(2, second.get("Id"));
+        assertEquals("Keith", second.get("name"));
+        assertEquals(2, second.size());
+        assertEquals(second.keySet(), first.keySet());
+        assertTrue(first.keySet().contains("name"));
+    }
+
+    @Test
+    public void shouldKeepCaseWhenNotFolding() throws Exception {
+        expectColumns("ID", "Name");
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn("Brian");
+        replay(resultSet);
+
+        Map<String, Object> row = new DefaultMapper(false).map(0, resultSet, ctx);
+
+        assertEquals(1, row.get("ID"));
+        assertNull(row.get("id"));
+        assertEquals("Brian", row.get("Name"));
+        assertFalse(row.containsKey("name"));
+    }
+
+    @Test
+    public void shouldUseLastOfDuplicateColumns() throws Exception {
+        expectColumns("id", "ID");
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getObject(2)).andReturn(2);
+        replay(resultSet);
+
+        Map<String, Object> row = new DefaultMapper().map(0, resultSet, ctx);
+
+        assertEquals(1, row.size());
+        assertEquals(2, row.get("id"));
+    }
+
+    @Test
+    public void shouldBehaveAsMutableMap() throws Exception {
+        expectColumns("id", "name");
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn(null);
+        replay(resultSet);
+
+        Map<String, Object> row = new DefaultMapper().map(0, resultSet, ctx);
+
+        assertTrue(row.containsKey("name"));
+        assertNull(row.put("Extra", "x"));
+        assertEquals("x", row.get("extra"));
+        assertEquals(1, row.put("ID", 10));
+        assertNull(row.remove("name"));
+        assertFalse(row.containsKey("name"));
+
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("id", 10);
+        expected.put("extra", "x");
+        assertEquals(expected, row);
+        assertEquals(expected.hashCode(), row.hashCode());
+
+        for (Iterator<String> keys = row.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().equals("id")) {
+                keys.remove();
+            }
+        }
+        assertEquals(1, row.size());
+        assertNull(row.get("id"));
+
+        row.clear();
+        assertTrue(row.isEmpty());
+        assertNull(row.put("id", 3));
+        assertEquals(3, row.get("id"));
+    }
+
+    @Test
+    public void shouldRemoveLastColumnAfterHasNextReachedExtras() throws Exception {
+        expectColumns("id", "name");
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn("Brian");
+        replay(resultSet);
+
+        Map<String, Object> row = new DefaultMapper().map(0, resultSet, ctx);
+        row.put("extra", "x");
+
+        Iterator<Map.Entry<String, Object>> entries = row.entrySet().iterator();
+        entries.next();
+        assertEquals("name", entries.next().getKey());
+        assertTrue(entries.hasNext());
+        entries.remove();
+
+        assertFalse(row.containsKey("name"));
+        assertEquals("x", entries.next().getValue());
+        entries.remove();
+
+        assertEquals(1, row.size());
+        assertEquals(1, row.get("id"));
+        assertFalse(entries.hasNext());
+    }
+
+    @Test
+    public void shouldKeepOnePlanPerStatementWhenShared() throws Exception {
+        expectColumns("id");
+        ResultSet other = createMock(ResultSet.class);
+        ResultSetMetaData otherMetaData = createMock(ResultSetMetaData.class);
+        expect(otherMetaData.getColumnCount()).andReturn(1);
+        expect(otherMetaData.getColumnName(1)).andReturn("name");
+        expect(otherMetaData.getColumnLabel(1)).andReturn("name");
+        replay(otherMetaData);
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getObject(1)).andReturn(1).times(2);
+        replay(resultSet);
+        expect(other.getMetaData()).andReturn(otherMetaData);
+        expect(other.getObject(1)).andReturn("Brian").times(2);
+        replay(other);
+
+        DefaultMapper mapper = new DefaultMapper();
+        StatementContext first = new ConcreteStatementContext();
+        StatementContext second = new ConcreteStatementContext();
+        for (int row = 0; row < 2; row++) {
+            assertEquals(1, mapper.map(row, resultSet, first).get("id"));
+            assertEquals("Brian", mapper.map(row, other, second).get("name"));
+        }
+        verify(resultSet, other);
+    }
+}
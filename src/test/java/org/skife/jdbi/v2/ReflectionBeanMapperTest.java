@@ -224,4 +224,25 @@ public class ReflectionBeanMapperTest {
 
         mapper.map(0, resultSet, ctx);
     }
+
+    @Test
+    public void shouldComputeColumnPlanOncePerResultSet() throws Exception {
+        expect(resultSetMetaData.getColumnCount()).andReturn(1);
+        expect(resultSetMetaData.getColumnLabel(1)).andReturn("longField");
+        replay(resultSetMetaData);
+
+        expect(ctx.columnMapperFor(Long.class)).andReturn(LongColumnMapper.WRAPPER);
+        replay(ctx);
+
+        expect(resultSet.getMetaData()).andReturn(resultSetMetaData);
+        expect(resultSet.getLong(1)).andReturn(1L);
+        expect(resultSet.getLong(1)).andReturn(2L);
+        expect(resultSet.getLong(1)).andReturn(3L);
+        expect(resultSet.wasNull()).andReturn(false).times(3);
+        replay(resultSet);
+
+        assertEquals(Long.valueOf(1L), mapper.map(0, resultSet, ctx).getLongField());
+        assertEquals(Long.valueOf(2L), mapper.map(1, resultSet, ctx).getLongField());
+        assertEquals(Long.valueOf(3L), mapper.map(2, resultSet, ctx).getLongField());
+    }
 }
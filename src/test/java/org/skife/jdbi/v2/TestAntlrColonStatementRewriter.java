@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the hand written scanner in the default rewriter agrees with the ANTLR lexer.
+ */
+public class TestAntlrColonStatementRewriter
+{
+    private static final List<String> STATEMENTS = Arrays.asList(
+        "select * from something\n where id = :id",
+        "~* :boo ':nope' _%&^& *@ :id",
+        ":bo0 ':nope' _%&^& *@ :id",
+        "select * from v$session",
+        "select column# from thetable where id = :id",
+        "select * from `v$session",
+        "select 1::int",
+        "select :a::int, :b.c, :d#e from x where y = ?",
+        "insert into something (id, name) values (?, ?)",
+        "select 'it''s', 'esc \\' aped', 'tail\\' from x",
+        "select \"Quoted Col\" from x where name = :name",
+        "select 'x' from y where z = '\\'",
+        "select * from x where a = \\:notparam and b = :param",
+        "select 1 /* ' \" */",
+        "select :",
+        "select 'unterminated",
+        "select \"\" from x",
+        "select * from something\n where id = :\u0087\u008e\u0092\u0097\u009c",
+        "select é from x",
+        "select * from x where y = \\");
+
+    @Test
+    public void testScannerMatchesLexer() throws Exception
+    {
+        ColonPrefixNamedParamStatementRewriter scanner = new ColonPrefixNamedParamStatementRewriter(0);
+        ColonPrefixNamedParamStatementRewriter lexer = new AntlrColonPrefixNamedParamStatementRewriter(0);
+
+        for (String sql : STATEMENTS) {
+            String expected = describe(lexer, sql);
+            assertEquals(sql, expected, describe(scanner, sql));
+        }
+    }
+
+    @Test
+    public void testLexerStillRewrites() throws Exception
+    {
+        ColonPrefixNamedParamStatementRewriter rw = new AntlrColonPrefixNamedParamStatementRewriter();
+        assertEquals("select * from something where id = ? and name = ?",
+                     rw.rewrite("select * from something where id = :id and name = :name",
+                                new Binding(),
+                                new ConcreteStatementContext()).getSql());
+    }
+
+    private static String describe(ColonPrefixNamedParamStatementRewriter rw, String sql)
+    {
+        try {
+            ColonPrefixNamedParamStatementRewriter.ParsedStatement stmt = rw.parseString(sql);
+            return stmt.getParsedSql() + " " + stmt.getParams();
+        }
+        catch (IllegalArgumentException e) {
+            return "error";
+        }
+        catch (RuntimeException e) {
+            fail("unexpected exception " + e);
+            return null;
+        }
+    }
+}
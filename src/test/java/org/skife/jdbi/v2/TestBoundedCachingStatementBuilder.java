@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestBoundedCachingStatementBuilder
+{
+    private BoundedCachingStatementBuilderFactory factory;
+    private DBI dbi;
+    private Handle setup;
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        factory = new BoundedCachingStatementBuilderFactory(2);
+        dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID());
+        setup = dbi.open();
+        setup.execute("create table something (id identity primary key, name varchar(100))");
+
+        dbi.setStatementBuilderFactory(factory);
+        handle = dbi.open();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+        setup.close();
+    }
+
+    @Test
+    public void testReusesStatement() throws Exception
+    {
+        for (int i = 0; i < 5; i++) {
+            handle.insert("insert into something (id, name) values (?, ?)", i, "name" + i);
+        }
+        assertEquals(4, factory.getCacheStats().getHitCount());
+        assertEquals(1, factory.getCacheStats().getSize());
+    }
+
+    @Test
+    public void testOpenQueriesDoNotShareStatements() throws Exception
+    {
+        handle.insert("insert into something (id, name) values (1, 'a')");
+        handle.insert("insert into something (id, name) values (2, 'b')");
+
+        ResultIterator<String> first = handle.createQuery("select name from something order by id")
+                                             .map(StringColumnMapper.INSTANCE)
+                                             .iterator();
+        List<String> second = handle.createQuery("select name from something order by id")
+                                    .map(StringColumnMapper.INSTANCE)
+                                    .list();
+        assertEquals(Arrays.asList("a", "b"), second);
+        assertEquals("a", first.next());
+        assertEquals("b", first.next());
+        first.close();
+    }
+
+    @Test
+    public void testCustomizedSettingsAreReset() throws Exception
+    {
+        handle.insert("insert into something (id, name) values (1, 'a')");
+        handle.insert("insert into something (id, name) values (2, 'b')");
+
+        String sql = "select name from something order by id";
+        assertEquals("a", handle.createQuery(sql).map(StringColumnMapper.INSTANCE).first());
+        assertEquals(Arrays.asList("a", "b"), handle.createQuery(sql).map(StringColumnMapper.INSTANCE).list());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception
+    {
+        handle.select("select 1 from something");
+        handle.select("select 2 from something");
+        handle.select("select 1 from something");
+        handle.select("select 3 from something");
+        handle.select("select 1 from something");
+
+        CacheStats stats = factory.getCacheStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(2, stats.getHitCount());
+    }
+
+    @Test
+    public void testGeneratedKeysUseTheirOwnStatement() throws Exception
+    {
+        String sql = "insert into something (name) values (:name)";
+        handle.createStatement(sql).bind("name", "a").execute();
+        Integer id = handle.createStatement(sql).bind("name", "b")
+                           .executeAndReturnGeneratedKeys(IntegerColumnMapper.WRAPPER).first();
+        assertEquals(2, id.intValue());
+        assertEquals(0, factory.getCacheStats().getHitCount());
+
+        PreparedBatch batch = handle.prepareBatch(sql);
+        batch.add().bind("name", "c");
+        batch.add().bind("name", "d");
+        batch.executeAndGenerateKeys(IntegerColumnMapper.WRAPPER).list();
+
+        batch = handle.prepareBatch(sql);
+        batch.add().bind("name", "e");
+        assertEquals(1, batch.execute().length);
+        assertEquals(2, factory.getCacheStats().getHitCount());
+        assertEquals(5, handle.createQuery("select count(*) from something")
+                              .map(IntegerColumnMapper.PRIMITIVE)
+                              .first().intValue());
+    }
+
+    @Test
+    public void testCloseReleasesPool() throws Exception
+    {
+        handle.select("select 1 from something");
+        assertEquals(1, factory.getCacheStats().getSize());
+        handle.close();
+        assertEquals(0, factory.getCacheStats().getSize());
+        handle = dbi.open();
+    }
+
+    @Test
+    public void testZeroSizeDisablesPooling() throws Exception
+    {
+        BoundedCachingStatementBuilderFactory disabled = new BoundedCachingStatementBuilderFactory(0);
+        dbi.setStatementBuilderFactory(disabled);
+        Handle h = dbi.open();
+        try {
+            h.select("select 1 from something");
+            h.select("select 1 from something");
+        }
+        finally {
+            h.close();
+        }
+        assertEquals(0, disabled.getCacheStats().getSize());
+        assertEquals(0, disabled.getCacheStats().getHitCount());
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestBulkLoader
+{
+    private static final BulkLoader.RowBinder<Something> BIND_SOMETHING = new BulkLoader.RowBinder<Something>()
+    {
+        @Override
+        public void bind(PreparedBatchPart part, Something row)
+        {
+            part.bind("id", row.getId()).bind("name", row.getName());
+        }
+    };
+
+    private DBI dbi;
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        // the in memory database lives as long as this handle is open
+        dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID());
+        handle = dbi.open();
+        handle.execute("create table something (id int primary key, name varchar(10))");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    @Test
+    public void testLoadsAllRows() throws Exception
+    {
+        BulkLoader.Result result = dbi.bulkLoader("insert into something (id, name) values (:id, :name)", BIND_SOMETHING)
+                                      .workers(4)
+                                      .chunkSize(7)
+                                      .load(somethings(100));
+
+        assertTrue(result.isSuccessful());
+        assertEquals(100, result.getRowCount());
+        assertEquals(15, result.getChunkCount());
+        assertEquals(100, result.getUpdateCount());
+        assertEquals(100, count());
+        assertEquals(4950, (int) handle.createQuery("select sum(id) from something").mapTo(Integer.class).first());
+    }
+
+    @Test
+    public void testFailedChunkIsRolledBack() throws Exception
+    {
+        List<Something> rows = somethings(50);
+        rows.get(23).setName("far too long a name");
+
+        BulkLoader.Result result = dbi.bulkLoader("insert into something (id, name) values (:id, :name)", BIND_SOMETHING)
+                                      .workers(3)
+                                      .chunkSize(10)
+                                      .load(rows);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(50, result.getRowCount());
+        assertEquals(40, result.getUpdateCount());
+        assertEquals(1, result.getFailures().size());
+        BulkLoader.ChunkFailure failure = result.getFailures().get(0);
+        assertEquals(2, failure.getChunk());
+        assertEquals(20, failure.getFirstRow());
+        assertEquals(10, failure.getRowCount());
+        assertEquals(40, count());
+    }
+
+    @Test
+    public void testFailureToBindFailsOnlyThatChunk() throws Exception
+    {
+        BulkLoader.Result result = dbi.bulkLoader("insert into something (id, name) values (:id, :name)",
+                                                  new BulkLoader.RowBinder<Something>()
+                                                  {
+                                                      @Override
+                                                      public void bind(PreparedBatchPart part, Something row)
+                                                      {
+                                                          if (row.getId() == 5) {
+                                                              throw new IllegalArgumentException("bad row");
+                                                          }
+                                                          BIND_SOMETHING.bind(part, row);
+                                                      }
+                                                  })
+                                      .workers(1)
+                                      .chunkSize(4)
+                                      .transactional(false)
+                                      .load(somethings(12));
+
+        assertEquals(1, result.getFailures().size());
+        assertEquals(1, result.getFailures().get(0).getChunk());
+        assertTrue(result.getFailures().get(0).getException() instanceof IllegalArgumentException);
+        // the parts bound before the failure are not executed with the next chunk
+        assertEquals(8, count());
+    }
+
+    @Test
+    public void testReadingIsBoundedByQueue() throws Exception
+    {
+        final AtomicInteger bound = new AtomicInteger();
+        final AtomicInteger maxAhead = new AtomicInteger();
+        final int total = 200;
+        Iterator<Something> rows = new Iterator<Something>()
+        {
+            private int read = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return read < total;
+            }
+
+            @Override
+            public Something next()
+            {
+                read++;
+                maxAhead.set(Math.max(maxAhead.get(), read - bound.get()));
+                return new Something(read, "n" + read);
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        BulkLoader.Result result = dbi.bulkLoader("insert into something (id, name) values (:id, :name)",
+                                                  new BulkLoader.RowBinder<Something>()
+                                                  {
+                                                      @Override
+                                                      public void bind(PreparedBatchPart part, Something row)
+                                                      {
+                                                          BIND_SOMETHING.bind(part, row);
+                                                          bound.incrementAndGet();
+                                                      }
+                                                  })
+                                      .workers(1)
+                                      .chunkSize(5)
+                                      .queueCapacity(2)
+                                      .load(rows);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(total, count());
+        // one chunk being loaded, two queued and one being read
+        assertTrue("read ahead " + maxAhead.get(), maxAhead.get() <= 4 * 5);
+    }
+
+    @Test
+    public void testIteratorFailureStopsLoad() throws Exception
+    {
+        final List<Something> rows = somethings(10);
+        Iterator<Something> failing = new Iterator<Something>()
+        {
+            private final Iterator<Something> delegate = rows.iterator();
+
+            @Override
+            public boolean hasNext()
+            {
+                return true;
+            }
+
+            @Override
+            public Something next()
+            {
+                if (!delegate.hasNext()) {
+                    throw new IllegalStateException("source failed");
+                }
+                return delegate.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        try {
+            dbi.bulkLoader("insert into something (id, name) values (:id, :name)", BIND_SOMETHING)
+               .workers(2)
+               .chunkSize(3)
+               .load(failing);
+            fail("expected the iterator's exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("source failed", e.getMessage());
+        }
+        assertTrue(count() <= 9);
+    }
+
+    @Test(timeout = 10000)
+    public void testErrorInWorkerStopsLoad() throws Exception
+    {
+        final Error error = new Error("worker died");
+        try {
+            dbi.bulkLoader("insert into something (id, name) values (:id, :name)",
+                           new BulkLoader.RowBinder<Something>()
+                           {
+                               @Override
+                               public void bind(PreparedBatchPart part, Something row)
+                               {
+                                   if (row.getId() == 0) {
+                                       throw error;
+                                   }
+                                   BIND_SOMETHING.bind(part, row);
+                               }
+                           })
+               .workers(1)
+               .chunkSize(2)
+               .queueCapacity(1)
+               .load(somethings(100));
+            fail("expected the worker's error");
+        }
+        catch (Error e) {
+            assertTrue(e == error);
+        }
+        // the only worker died on the first chunk, so nothing was loaded
+        assertEquals(0, count());
+    }
+
+    private int count()
+    {
+        return handle.createQuery("select count(*) from something").mapTo(Integer.class).first();
+    }
+
+    private static List<Something> somethings(int count)
+    {
+        List<Something> rows = new ArrayList<Something>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Something(i, "n" + i));
+        }
+        return rows;
+    }
+}
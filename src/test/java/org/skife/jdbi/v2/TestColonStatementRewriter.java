@@ -17,9 +17,13 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.skife.jdbi.v2.exceptions.UnableToCreateStatementException;
+import org.skife.jdbi.v2.tweak.Argument;
+import org.skife.jdbi.v2.tweak.NamedArgumentFinder;
 import org.skife.jdbi.v2.tweak.RewrittenStatement;
 
+import java.sql.PreparedStatement;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
@@ -121,6 +125,106 @@ public class TestColonStatementRewriter
         assertEquals(1, ctr.get());
     }
 
+    @Test
+    public void testCacheIsBounded() throws Exception
+    {
+        final AtomicInteger ctr = new AtomicInteger(0);
+        rw = new ColonPrefixNamedParamStatementRewriter(1)
+        {
+            @Override
+            ParsedStatement parseString(final String sql) throws IllegalArgumentException
+            {
+                ctr.incrementAndGet();
+                return super.parseString(sql);
+            }
+        };
+
+        rewrite("select * from something where id = :id");
+        rewrite("select * from something where name = :name");
+        rewrite("select * from something where id = :id");
+
+        assertEquals(3, ctr.get());
+        assertEquals(1, rw.getCacheStats().getSize());
+        assertEquals(2, rw.getCacheStats().getEvictionCount());
+    }
+
+    @Test
+    public void testCacheStats() throws Exception
+    {
+        rewrite("select * from something where id = :id");
+        rewrite("select * from something where id = :id");
+        rewrite(new StringBuilder("select * from something where id = ").append(":id").toString());
+
+        CacheStats stats = rw.getCacheStats();
+        assertEquals(1, stats.getMissCount());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(0, stats.getEvictionCount());
+    }
+
+    @Test
+    public void testBindsNamesToSlotsInOrder() throws Exception
+    {
+        final Map<Integer, String> bound = new HashMap<Integer, String>();
+        Binding binding = new Binding();
+        binding.addNamed("name", new RecordingArgument("name", bound));
+        binding.addNamed("id", new RecordingArgument("id", bound));
+        binding.addPositional(2, new RecordingArgument("third", bound));
+
+        RewrittenStatement rws = rewrite("select * from something where id = :id and name = :name or id = :other");
+        rws.bind(binding, null);
+
+        assertEquals("id", bound.get(1));
+        assertEquals("name", bound.get(2));
+        assertEquals("third", bound.get(3));
+
+        // the same parsed statement, bound a second time
+        bound.clear();
+        rewrite("select * from something where id = :id and name = :name or id = :other").bind(binding, null);
+        assertEquals(3, bound.size());
+    }
+
+    @Test
+    public void testRepeatedNameLookedUpOnce() throws Exception
+    {
+        final Map<Integer, String> bound = new HashMap<Integer, String>();
+        final AtomicInteger lookups = new AtomicInteger();
+        Binding binding = new Binding();
+        binding.addNamedArgumentFinder(new NamedArgumentFinder()
+        {
+            @Override
+            public Argument find(String name)
+            {
+                lookups.incrementAndGet();
+                return new RecordingArgument(name, bound);
+            }
+        });
+
+        rewrite("select * from something where id = :id or parent = :id or name = :name").bind(binding, null);
+
+        assertEquals(2, lookups.get());
+        assertEquals("id", bound.get(1));
+        assertEquals("id", bound.get(2));
+        assertEquals("name", bound.get(3));
+    }
+
+    private static class RecordingArgument implements Argument
+    {
+        private final String value;
+        private final Map<Integer, String> bound;
+
+        RecordingArgument(String value, Map<Integer, String> bound)
+        {
+            this.value = value;
+            this.bound = bound;
+        }
+
+        @Override
+        public void apply(int position, PreparedStatement statement, StatementContext ctx)
+        {
+            bound.put(position, value);
+        }
+    }
+
     public void testCommentQuote() throws Exception
     {
         rewrite("select 1 /* ' \" */");
@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestColumnarResult
+{
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        handle = new DBI("jdbc:h2:mem:" + UUID.randomUUID()).open();
+        handle.execute("create table measurement (id bigint primary key, sensor int, reading double, " +
+                       "valid boolean, label varchar(20), amount decimal(10, 2))");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    @Test
+    public void testTypesFromMetadata() throws Exception
+    {
+        handle.execute("insert into measurement values (1, 7, 1.5, true, 'a', 1.25)");
+        handle.execute("insert into measurement values (2, null, null, null, null, null)");
+
+        ColumnarResult result = handle.createQuery("select id, sensor, reading, valid, label, amount " +
+                                                   "from measurement order by id").columnar();
+
+        assertEquals(2, result.getRowCount());
+        assertEquals(6, result.getColumnCount());
+        assertEquals(ColumnarResult.ColumnType.LONG, result.getColumnType("id"));
+        assertEquals(ColumnarResult.ColumnType.INT, result.getColumnType("SENSOR"));
+        assertEquals(ColumnarResult.ColumnType.DOUBLE, result.getColumnType(2));
+        assertEquals(ColumnarResult.ColumnType.BOOLEAN, result.getColumnType(3));
+        assertEquals(ColumnarResult.ColumnType.OBJECT, result.getColumnType("label"));
+        assertEquals(ColumnarResult.ColumnType.OBJECT, result.getColumnType("amount"));
+
+        assertArrayEquals(new long[]{1, 2}, result.getLongs("id"));
+        assertArrayEquals(new int[]{7, 0}, result.getInts("sensor"));
+        assertEquals(1.5, result.getDoubles("reading")[0], 0);
+        assertTrue(result.getBooleans("valid")[0]);
+        assertArrayEquals(new Object[]{"a", null}, result.getObjects("label"));
+        assertEquals(new BigDecimal("1.25"), result.getObjects("amount")[0]);
+
+        for (int column = 0; column < result.getColumnCount(); column++) {
+            assertFalse(result.isNull(0, column));
+        }
+        for (int column = 1; column < result.getColumnCount(); column++) {
+            assertTrue(result.isNull(1, column));
+        }
+    }
+
+    @Test
+    public void testManyRows() throws Exception
+    {
+        PreparedBatch batch = handle.prepareBatch("insert into measurement (id, reading) values (:id, :reading)");
+        for (int i = 0; i < 1000; i++) {
+            batch.add().bind("id", i).bind("reading", i / 2.0);
+        }
+        batch.execute();
+
+        ColumnarResult result = handle.createQuery("select id, reading from measurement order by id").columnar();
+
+        assertEquals(1000, result.getRowCount());
+        long[] ids = result.getLongs(0);
+        double[] readings = result.getDoubles(1);
+        assertEquals(1000, ids.length);
+        assertEquals(1000, readings.length);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, ids[i]);
+            assertEquals(i / 2.0, readings[i], 0);
+        }
+    }
+
+    @Test
+    public void testTypeHints() throws Exception
+    {
+        handle.execute("insert into measurement (id, sensor, amount) values (1, 7, 2.50)");
+
+        ColumnarResult result = handle.createQuery("select id, sensor, amount from measurement")
+                                      .columnar(Collections.singletonMap("AMOUNT", ColumnarResult.ColumnType.DOUBLE));
+
+        assertEquals(ColumnarResult.ColumnType.DOUBLE, result.getColumnType("amount"));
+        assertEquals(2.5, result.getDoubles("amount")[0], 0);
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception
+    {
+        ColumnarResult result = handle.createQuery("select id, label from measurement").columnar();
+
+        assertEquals(0, result.getRowCount());
+        assertEquals(0, result.getLongs("id").length);
+        assertEquals(0, result.getObjects("label").length);
+    }
+
+    @Test
+    public void testWrongTypeIsRejected() throws Exception
+    {
+        ColumnarResult result = handle.createQuery("select id from measurement").columnar();
+
+        try {
+            result.getInts("id");
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(-1, result.indexOf("nope"));
+    }
+}
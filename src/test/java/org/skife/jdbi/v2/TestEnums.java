@@ -14,6 +14,9 @@
 package org.skife.jdbi.v2;
 
 import org.junit.Test;
+import org.skife.jdbi.v2.util.DbCode;
+import org.skife.jdbi.v2.util.EnumByNameColumnMapperFactory;
+import org.skife.jdbi.v2.util.StringColumnMapper;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -102,4 +105,40 @@ public class TestEnums extends DBITestCase
 
 
     }
+
+    public enum Coded
+    {
+        @DbCode("E") eric,
+        @DbCode("B") brian,
+        keith
+    }
+
+    @Test
+    public void testBindAndMapByCode() throws Exception
+    {
+        Handle h = openHandle();
+        h.createStatement("insert into something (id, name) values (1, :name)").bind("name", Coded.eric).execute();
+        h.createStatement("insert into something (id, name) values (2, :name)").bind("name", Coded.keith).execute();
+
+        assertEquals("E", h.createQuery("select name from something where id = 1")
+                           .map(StringColumnMapper.INSTANCE)
+                           .first());
+        List<Coded> results = h.createQuery("select name from something order by id")
+                               .mapTo(Coded.class)
+                               .list();
+        assertEquals(Coded.eric, results.get(0));
+        assertEquals(Coded.keith, results.get(1));
+    }
+
+    @Test
+    public void testMapEnumIgnoringCase() throws Exception
+    {
+        Handle h = openHandle();
+        h.createStatement("insert into something (id, name) values (1, 'ERIC')").execute();
+        h.registerColumnMapper(new EnumByNameColumnMapperFactory(true));
+
+        assertEquals(SomethingElse.Name.eric, h.createQuery("select name from something")
+                                               .mapTo(SomethingElse.Name.class)
+                                               .first());
+    }
 }
@@ -16,12 +16,14 @@ package org.skife.jdbi.v2;
 import org.junit.Test;
 import org.skife.jdbi.v2.tweak.Argument;
 import org.skife.jdbi.v2.tweak.ArgumentFactory;
+import org.skife.jdbi.v2.tweak.TypeStableArgumentFactory;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
 
 public class TestForeman
 {
@@ -100,6 +102,94 @@ public class TestForeman
         assertEquals(ObjectArgument.class, foreman.createArgument(Object.class, null, null).getClass());
     }
 
+    @Test
+    public void testRemembersTypeStableResolution()
+    {
+        final Foreman foreman = new Foreman();
+        final CountingArgumentFactory factory = new CountingArgumentFactory();
+        foreman.register(factory);
+
+        assertEquals(WeirdArgument.class, foreman.createArgument(Weird.class, new Weird(), null).getClass());
+        assertEquals(LongArgument.class, foreman.createArgument(Object.class, 3L, null).getClass());
+        assertEquals(ObjectArgument.class, foreman.createArgument(Object.class, null, null).getClass());
+        final int calls = factory.calls;
+
+        assertEquals(WeirdArgument.class, foreman.createArgument(Weird.class, new Weird(), null).getClass());
+        assertEquals(LongArgument.class, foreman.createArgument(Object.class, 4L, null).getClass());
+        assertEquals(ObjectArgument.class, foreman.createArgument(Object.class, null, null).getClass());
+        assertEquals(calls, factory.calls);
+    }
+
+    @Test
+    public void testDoesNotRememberAcrossOtherFactories()
+    {
+        final Foreman foreman = new Foreman();
+        final CountingArgumentFactory factory = new CountingArgumentFactory();
+        foreman.register(factory);
+        foreman.register(new WeirdValueArgumentFactory());
+
+        foreman.createArgument(Object.class, 3L, null);
+        final int calls = factory.calls;
+        foreman.createArgument(Object.class, 3L, null);
+        assertEquals(2 * calls, factory.calls);
+    }
+
+    @Test
+    public void testRegistrationReplacesResolutions()
+    {
+        final Foreman foreman = new Foreman();
+        final Foreman child = foreman.createChild();
+        assertEquals(LongArgument.class, foreman.createArgument(Long.class, 3L, null).getClass());
+
+        foreman.register(new LongArgumentFactory());
+        assertEquals(WeirdArgument.class, foreman.createArgument(Long.class, 3L, null).getClass());
+        assertEquals(LongArgument.class, child.createArgument(Long.class, 3L, null).getClass());
+
+        final Foreman grandChild = foreman.createChild();
+        assertEquals(WeirdArgument.class, grandChild.createArgument(Long.class, 3L, null).getClass());
+    }
+
+    @Test
+    public void testChildrenShareEnumLookups()
+    {
+        final Foreman foreman = new Foreman();
+        assertSame(foreman.getEnumLookups().byCode(TimeUnit.class),
+                   foreman.createChild().getEnumLookups().byCode(TimeUnit.class));
+    }
+
+    private static class CountingArgumentFactory implements TypeStableArgumentFactory<Weird>
+    {
+        private int calls;
+
+        @Override
+        public boolean accepts(Class<?> expectedType, Object value, StatementContext ctx)
+        {
+            calls++;
+            return expectedType == Weird.class;
+        }
+
+        @Override
+        public Argument build(Class<?> expectedType, Weird value, StatementContext ctx)
+        {
+            return new WeirdArgument();
+        }
+    }
+
+    private static class LongArgumentFactory implements TypeStableArgumentFactory<Long>
+    {
+        @Override
+        public boolean accepts(Class<?> expectedType, Object value, StatementContext ctx)
+        {
+            return expectedType == Long.class;
+        }
+
+        @Override
+        public Argument build(Class<?> expectedType, Long value, StatementContext ctx)
+        {
+            return new WeirdArgument();
+        }
+    }
+
     private static class Weird
     {
     }
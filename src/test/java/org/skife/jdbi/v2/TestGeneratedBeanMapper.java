@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.sqlobject.BindGeneratedBean;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+
+import java.beans.BeanDescriptor;
+import java.beans.PropertyDescriptor;
+import java.beans.SimpleBeanInfo;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestGeneratedBeanMapper
+{
+    private DBI dbi;
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID());
+        dbi.registerMapper(new GeneratedBeanMapperFactory());
+        handle = dbi.open();
+
+        handle.execute("create table something (id int primary key, name varchar(100), integerValue int, intValue int)");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.execute("drop table something");
+        handle.close();
+    }
+
+    @Test
+    public void testMapToUsesGeneratedMapper() throws Exception
+    {
+        handle.execute("insert into something (id, name, integerValue, intValue) values (1, 'Brian', 5, 6)");
+        handle.execute("insert into something (id, name) values (2, 'Keith')");
+
+        List<Something> rs = handle.createQuery("select id, name, integerValue, intValue from something order by id")
+                                   .mapTo(Something.class)
+                                   .list();
+
+        assertEquals(2, rs.size());
+        assertEquals(1, rs.get(0).getId());
+        assertEquals("Brian", rs.get(0).getName());
+        assertEquals(Integer.valueOf(5), rs.get(0).getIntegerValue());
+        assertEquals(6, rs.get(0).getIntValue());
+
+        assertEquals(2, rs.get(1).getId());
+        assertEquals("Keith", rs.get(1).getName());
+        assertNull(rs.get(1).getIntegerValue());
+        assertEquals(0, rs.get(1).getIntValue());
+    }
+
+    @Test
+    public void testUnknownColumnsAreIgnored() throws Exception
+    {
+        handle.execute("insert into something (id, name) values (1, 'Brian')");
+
+        Something something = handle.createQuery("select id, name, 'x' as extra from something")
+                                    .mapTo(Something.class)
+                                    .first();
+
+        assertEquals(1, something.getId());
+        assertEquals("Brian", something.getName());
+    }
+
+    @Test
+    public void testAccepts() throws Exception
+    {
+        GeneratedBeanMapperFactory factory = new GeneratedBeanMapperFactory();
+        StatementContext ctx = handle.createQuery("select 1").getContext();
+
+        assertTrue(factory.accepts(Something.class, ctx));
+        assertFalse(factory.accepts(String.class, ctx));
+        assertFalse(factory.accepts(Integer.class, ctx));
+        assertFalse(factory.accepts(int.class, ctx));
+        assertFalse(factory.accepts(SampleBean.class, ctx));
+        assertFalse(factory.accepts(Object.class, ctx));
+    }
+
+    @Test
+    public void testAcceptsOnlyGivenTypes() throws Exception
+    {
+        GeneratedBeanMapperFactory factory = new GeneratedBeanMapperFactory(Something.class);
+        StatementContext ctx = handle.createQuery("select 1").getContext();
+
+        assertTrue(factory.accepts(Something.class, ctx));
+        assertFalse(factory.accepts(DerivedBean.class, ctx));
+    }
+
+    @Test
+    public void testGenerationFailureIsThrown() throws Exception
+    {
+        GeneratedBeanMapperFactory factory = new GeneratedBeanMapperFactory(BrokenBean.class);
+        StatementContext ctx = handle.createQuery("select 1").getContext();
+
+        try {
+            factory.accepts(BrokenBean.class, ctx);
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("broken bean info", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBindFromGeneratedProperties() throws Exception
+    {
+        handle.createStatement("insert into something (id, name, intValue) values (:id, :name, :intValue)")
+              .bindFromGeneratedProperties(new Something(1, "Brian"))
+              .execute();
+        handle.createStatement("insert into something (id, name) values (:s.id, :s.name)")
+              .bindFromGeneratedProperties("s", new Something(2, "Keith"))
+              .execute();
+
+        List<Something> rs = handle.createQuery("select id, name, intValue from something order by id")
+                                   .mapTo(Something.class)
+                                   .list();
+
+        assertEquals(2, rs.size());
+        assertEquals("Brian", rs.get(0).getName());
+        assertEquals(0, rs.get(0).getIntValue());
+        assertEquals("Keith", rs.get(1).getName());
+    }
+
+    @Test
+    public void testBindGeneratedBeanAnnotation() throws Exception
+    {
+        Inserter inserter = handle.attach(Inserter.class);
+        inserter.insert(new Something(1, "Brian"));
+        inserter.insertPrefixed(new Something(2, "Keith"));
+
+        assertEquals("Brian", handle.createQuery("select name from something where id = 1").mapTo(String.class).first());
+        assertEquals("Keith", handle.createQuery("select name from something where id = 2").mapTo(String.class).first());
+    }
+
+    public interface Inserter
+    {
+        @SqlUpdate("insert into something (id, name) values (:id, :name)")
+        void insert(@BindGeneratedBean Something s);
+
+        @SqlUpdate("insert into something (id, name) values (:s.id, :s.name)")
+        void insertPrefixed(@BindGeneratedBean("s") Something s);
+    }
+
+    public static class BrokenBean
+    {
+        public void setName(String name)
+        {
+        }
+    }
+
+    /**
+     * Found by the Introspector by its name, and fails it.
+     */
+    public static class BrokenBeanBeanInfo extends SimpleBeanInfo
+    {
+        @Override
+        public BeanDescriptor getBeanDescriptor()
+        {
+            return new BeanDescriptor(BrokenBean.class);
+        }
+
+        @Override
+        public PropertyDescriptor[] getPropertyDescriptors()
+        {
+            throw new IllegalStateException("broken bean info");
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.Test;
+import org.skife.jdbi.v2.exceptions.DBIException;
+import org.skife.jdbi.v2.sqlobject.SomethingMapper;
+import org.skife.jdbi.v2.tweak.ResultColumnMapper;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestMappingRegistry
+{
+    @Test
+    public void testCopySeesRegistrationsMadeBeforeIt() throws Exception
+    {
+        MappingRegistry parent = new MappingRegistry();
+        SomethingMapper mapper = new SomethingMapper();
+        parent.addMapper(mapper);
+
+        MappingRegistry child = new MappingRegistry(parent);
+        assertSame(mapper, child.mapperFor(Something.class, null));
+    }
+
+    @Test
+    public void testRegistrationsDoNotLeakBetweenCopies() throws Exception
+    {
+        MappingRegistry parent = new MappingRegistry();
+        MappingRegistry child = new MappingRegistry(parent);
+
+        child.addMapper(new SomethingMapper());
+        assertNoMapper(parent);
+
+        MappingRegistry other = new MappingRegistry(parent);
+        parent.addMapper(new SomethingMapper());
+        assertNoMapper(other);
+    }
+
+    @Test
+    public void testColumnMapperReplacesCachedRowMapper() throws Exception
+    {
+        MappingRegistry registry = new MappingRegistry();
+        MappingRegistry child = new MappingRegistry(registry);
+        ResultSetMapper<?> builtIn = registry.mapperFor(String.class, null);
+
+        final ResultColumnMapper<String> custom = new ResultColumnMapper<String>()
+        {
+            @Override
+            public String mapColumn(ResultSet r, int columnNumber, StatementContext ctx) throws SQLException
+            {
+                return "custom";
+            }
+
+            @Override
+            public String mapColumn(ResultSet r, String columnLabel, StatementContext ctx) throws SQLException
+            {
+                return "custom";
+            }
+        };
+        child.addColumnMapper(custom);
+        assertSame(custom, child.columnMapperFor(String.class, null));
+        assertNotSame(builtIn, child.mapperFor(String.class, null));
+        assertSame(builtIn, registry.mapperFor(String.class, null));
+    }
+
+    @Test
+    public void testMissesAreCached() throws Exception
+    {
+        MappingRegistry registry = new MappingRegistry();
+        CountingFactory factory = new CountingFactory(Something.class);
+        registry.addMapper(factory);
+
+        assertNoMapper(registry, String[].class);
+        assertNoMapper(registry, String[].class);
+        assertEquals(1, factory.accepts);
+
+        registry.addMapper(new CountingFactory(String[].class));
+        assertTrue(registry.mapperFor(String[].class, null) != null);
+    }
+
+    @Test
+    public void testRowFactoryResolutionsSurviveRegistrations() throws Exception
+    {
+        MappingRegistry registry = new MappingRegistry();
+        CountingFactory factory = new CountingFactory(Something.class);
+        registry.addMapper(factory);
+        ResultSetMapper<?> mapper = registry.mapperFor(Something.class, null);
+
+        MappingRegistry child = new MappingRegistry(registry);
+        child.addMapper(new SomethingMapper());
+        child.addColumnMapper(new PrimitivesColumnMapperFactory());
+
+        assertSame(mapper, child.mapperFor(Something.class, null));
+        assertEquals(1, factory.created);
+    }
+
+    @Test
+    public void testContainerFactoryRegistryChildren() throws Exception
+    {
+        ContainerFactoryRegistry parent = new ContainerFactoryRegistry();
+        ContainerFactoryRegistry child = parent.createChild();
+        child.register(new TestContainerFactory.MaybeContainerFactory());
+
+        assertTrue(child.createBuilderFor(TestContainerFactory.Maybe.class) != null);
+        try {
+            parent.createBuilderFor(TestContainerFactory.Maybe.class);
+            fail("factory registered on the child must not be visible to the parent");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testResolvesPerGenericType() throws Exception
+    {
+        MappingRegistry registry = new MappingRegistry();
+        final ResultSetMapper<?> forStrings = new SomethingMapper();
+        final ResultSetMapper<?> forLongs = new SomethingMapper();
+        registry.addMapper(new GenericResultSetMapperFactory()
+        {
+            @Override
+            public boolean acceptsType(Type type, StatementContext ctx)
+            {
+                return type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class;
+            }
+
+            @Override
+            public ResultSetMapper<?> mapperForType(Type type, StatementContext ctx)
+            {
+                return ((ParameterizedType) type).getActualTypeArguments()[0] == String.class ? forStrings : forLongs;
+            }
+
+            @Override
+            public boolean accepts(Class type, StatementContext ctx)
+            {
+                throw new AssertionError("offered the erasure");
+            }
+
+            @Override
+            public ResultSetMapper mapperFor(Class type, StatementContext ctx)
+            {
+                throw new AssertionError("offered the erasure");
+            }
+        });
+
+        Type strings = Holder.class.getDeclaredField("strings").getGenericType();
+        Type longs = Holder.class.getDeclaredField("longs").getGenericType();
+        assertSame(forStrings, registry.mapperFor(strings, null));
+        assertSame(forLongs, registry.mapperFor(longs, null));
+        assertSame(forStrings, registry.mapperFor(strings, null));
+        assertNoMapper(registry, List.class);
+    }
+
+    @Test
+    public void testPlainFactoriesSeeTheErasure() throws Exception
+    {
+        MappingRegistry registry = new MappingRegistry();
+        CountingFactory factory = new CountingFactory(List.class);
+        registry.addMapper(factory);
+
+        Type strings = Holder.class.getDeclaredField("strings").getGenericType();
+        Type longs = Holder.class.getDeclaredField("longs").getGenericType();
+        registry.mapperFor(strings, null);
+        registry.mapperFor(longs, null);
+        registry.mapperFor(strings, null);
+
+        // resolved once per parameterization
+        assertEquals(2, factory.created);
+    }
+
+    private static void assertNoMapper(MappingRegistry registry)
+    {
+        assertNoMapper(registry, Something.class);
+    }
+
+    private static void assertNoMapper(MappingRegistry registry, Class<?> type)
+    {
+        try {
+            registry.mapperFor(type, null);
+            fail("no mapper expected");
+        }
+        catch (DBIException e) {
+            // expected
+        }
+    }
+
+    private static class Holder
+    {
+        List<String> strings;
+        List<Long> longs;
+    }
+
+    private static class CountingFactory implements ResultSetMapperFactory
+    {
+        private final Class<?> type;
+        private int accepts = 0;
+        private int created = 0;
+
+        CountingFactory(Class<?> type)
+        {
+            this.type = type;
+        }
+
+        @Override
+        public boolean accepts(Class type, StatementContext ctx)
+        {
+            accepts++;
+            return this.type == type;
+        }
+
+        @Override
+        public ResultSetMapper mapperFor(Class type, StatementContext ctx)
+        {
+            created++;
+            return new SomethingMapper();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestMultiRowInsert
+{
+    @Test
+    public void testRepeatsTheValuesTuple() throws Exception
+    {
+        MultiRowInsert shape = MultiRowInsert.of("insert into t (a, b) values (?, lower(?))");
+
+        assertEquals(2, shape.getParametersPerRow());
+        assertEquals("insert into t (a, b) values (?, lower(?))", shape.sqlFor(1));
+        assertEquals("insert into t (a, b) values (?, lower(?)), (?, lower(?)), (?, lower(?))", shape.sqlFor(3));
+    }
+
+    @Test
+    public void testLiterals() throws Exception
+    {
+        MultiRowInsert shape = MultiRowInsert.of("INSERT INTO \"values\" VALUES ('(?)', ?, ')')  ");
+
+        assertEquals(1, shape.getParametersPerRow());
+        assertEquals("INSERT INTO \"values\" VALUES ('(?)', ?, ')'), ('(?)', ?, ')')  ", shape.sqlFor(2));
+    }
+
+    @Test
+    public void testUnsupportedStatements() throws Exception
+    {
+        assertNull(MultiRowInsert.of("update t set a = ?"));
+        assertNull(MultiRowInsert.of("insert into t select ? from dual"));
+        assertNull(MultiRowInsert.of("insert into t values (?), (?)"));
+        assertNull(MultiRowInsert.of("insert into t values (?) on conflict do nothing"));
+        assertNull(MultiRowInsert.of("insert into t values (?) returning id"));
+        assertNull(MultiRowInsert.of("insert into t (a) values (?) -- comment"));
+        assertNull(MultiRowInsert.of("insert into t (a) values ('unterminated)"));
+    }
+
+    @Test
+    public void testBuckets() throws Exception
+    {
+        MultiRowInsert shape = MultiRowInsert.of("insert into t values (?, ?, ?)");
+
+        assertEquals(64, shape.bucketFor(1000, 100, MultiRowInsert.DEFAULT_MAX_PARAMETERS));
+        assertEquals(8, shape.bucketFor(13, 100, MultiRowInsert.DEFAULT_MAX_PARAMETERS));
+        assertEquals(1, shape.bucketFor(1, 100, MultiRowInsert.DEFAULT_MAX_PARAMETERS));
+        assertEquals(512, shape.bucketFor(100000, 100000, MultiRowInsert.DEFAULT_MAX_PARAMETERS));
+        assertEquals(8192, shape.bucketFor(100000, 100000, 32767));
+        assertEquals(1, shape.bucketFor(100, 100, 2));
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.exceptions.ResultSetException;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TestParallelMapping
+{
+    private static final int ROWS = 2000;
+
+    private Handle handle;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        executor = Executors.newFixedThreadPool(4);
+        handle = new DBI("jdbc:h2:mem:" + UUID.randomUUID()).open();
+        handle.execute("create table something (id int primary key, name varchar(100), integerValue int)");
+        PreparedBatch batch = handle.prepareBatch("insert into something (id, name, integerValue) values (:id, :name, :value)");
+        for (int i = 0; i < ROWS; i++) {
+            batch.add().bind("id", i).bind("name", "name" + i).bind("value", i % 3 == 0 ? null : i);
+        }
+        batch.execute();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testOrderedBeanMapping() throws Exception
+    {
+        List<Something> rs = handle.createQuery("select id, name, integerValue from something order by id")
+                                   .map(Something.class)
+                                   .listInParallel(executor);
+
+        assertEquals(ROWS, rs.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, rs.get(i).getId());
+            assertEquals("name" + i, rs.get(i).getName());
+            if (i % 3 == 0) {
+                assertNull(rs.get(i).getIntegerValue());
+            }
+            else {
+                assertEquals(Integer.valueOf(i), rs.get(i).getIntegerValue());
+            }
+        }
+    }
+
+    @Test
+    public void testUnorderedIntoSet() throws Exception
+    {
+        Set<Integer> ids = handle.createQuery("select id from something")
+                                 .map(new ResultSetMapper<Integer>()
+                                 {
+                                     @Override
+                                     public Integer map(int index, ResultSet r, StatementContext ctx) throws SQLException
+                                     {
+                                         return r.getInt("ID");
+                                     }
+                                 })
+                                 .listInParallel(Set.class, executor, false);
+
+        assertEquals(ROWS, ids.size());
+        List<Integer> sorted = new ArrayList<Integer>(ids);
+        Collections.sort(sorted);
+        assertEquals(Integer.valueOf(0), sorted.get(0));
+        assertEquals(Integer.valueOf(ROWS - 1), sorted.get(ROWS - 1));
+    }
+
+    @Test
+    public void testCalendarsAsSerial() throws Exception
+    {
+        handle.execute("create table moment (id int primary key, ts timestamp, d date, t time)");
+        handle.execute("insert into moment (id, ts, d, t) values (1, '2016-06-15 12:30:00.123456789', '2016-06-15', '12:30:00')");
+        handle.execute("insert into moment (id, ts, d, t) values (2, null, null, null)");
+
+        final TimeZone zone = TimeZone.getTimeZone(TimeZone.getDefault().getRawOffset() == 0 ? "Pacific/Kiritimati" : "UTC");
+        ResultSetMapper<List<Object>> mapper = new ResultSetMapper<List<Object>>()
+        {
+            @Override
+            public List<Object> map(int index, ResultSet r, StatementContext ctx) throws SQLException
+            {
+                Calendar cal = Calendar.getInstance(zone);
+                return Arrays.<Object>asList(r.getTimestamp("ts", cal), r.getDate("d", cal), r.getTime("t", cal),
+                                             r.getTimestamp(2, cal), r.getDate(3, cal), r.getTime(4, cal));
+            }
+        };
+
+        List<List<Object>> serial = handle.createQuery("select id, ts, d, t from moment order by id").map(mapper).list();
+        List<List<Object>> parallel = handle.createQuery("select id, ts, d, t from moment order by id").map(mapper).listInParallel(executor);
+
+        assertEquals(serial, parallel);
+        assertEquals(123456789, ((Timestamp) parallel.get(0).get(0)).getNanos());
+        assertNull(parallel.get(1).get(0));
+    }
+
+    @Test
+    public void testDefaultMapper() throws Exception
+    {
+        List<Map<String, Object>> rs = handle.createQuery("select id, name from something where id < 3 order by id")
+                                             .listInParallel(executor);
+
+        assertEquals(3, rs.size());
+        assertEquals(2, rs.get(2).get("id"));
+        assertEquals("name2", rs.get(2).get("NAME"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testConversions() throws Exception
+    {
+        List<Object[]> rs = handle.createQuery("select cast(1.2355 as decimal(10, 4)) d, X'0102' b from something where id = 1")
+                                  .map(new ResultSetMapper<Object[]>()
+                                  {
+                                      @Override
+                                      public Object[] map(int index, ResultSet r, StatementContext ctx) throws SQLException
+                                      {
+                                          String failure = null;
+                                          try {
+                                              r.getString("b");
+                                          }
+                                          catch (SQLException e) {
+                                              failure = e.getMessage();
+                                          }
+                                          return new Object[]{r.getBigDecimal(1, 2), r.getBytes("b"), failure};
+                                      }
+                                  })
+                                  .listInParallel(executor);
+
+        assertEquals(new BigDecimal("1.24"), rs.get(0)[0]);
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) rs.get(0)[1]);
+        assertEquals("Cannot convert [B to String", rs.get(0)[2]);
+    }
+
+    @Test
+    public void testPooledThreadDoesNotKeepLastRow() throws Exception
+    {
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        final AtomicReference<ResultSet> buffered = new AtomicReference<ResultSet>();
+        try {
+            handle.createQuery("select id from something where id < 3")
+                  .map(new ResultSetMapper<Integer>()
+                  {
+                      @Override
+                      public Integer map(int index, ResultSet r, StatementContext ctx) throws SQLException
+                      {
+                          buffered.set(r);
+                          return r.getInt(1);
+                      }
+                  })
+                  .listInParallel(single);
+
+            Future<String> read = single.submit(new Callable<String>()
+            {
+                @Override
+                public String call() throws Exception
+                {
+                    try {
+                        return "read " + buffered.get().getInt(1);
+                    }
+                    catch (SQLException e) {
+                        return e.getMessage();
+                    }
+                }
+            });
+            assertEquals("Not positioned on a row", read.get());
+        }
+        finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    public void testMapperFailure() throws Exception
+    {
+        try {
+            handle.createQuery("select id from something order by id")
+                  .map(new ResultSetMapper<Integer>()
+                  {
+                      @Override
+                      public Integer map(int index, ResultSet r, StatementContext ctx) throws SQLException
+                      {
+                          if (index == ROWS - 1) {
+                              throw new SQLException("boom");
+                          }
+                          return r.getInt(1);
+                      }
+                  })
+                  .listInParallel(executor);
+            fail("expected ResultSetException");
+        }
+        catch (ResultSetException e) {
+            assertEquals("boom", e.getCause().getMessage());
+        }
+
+        assertEquals(Integer.valueOf(ROWS), handle.createQuery("select count(*) from something")
+                                                  .mapTo(Integer.class)
+                                                  .first());
+    }
+}
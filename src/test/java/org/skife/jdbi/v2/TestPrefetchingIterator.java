@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestPrefetchingIterator
+{
+    private DBI dbi;
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID());
+        handle = dbi.open();
+        handle.execute("create table something (id int primary key, name varchar(100))");
+        PreparedBatch batch = handle.prepareBatch("insert into something (id, name) values (:id, :name)");
+        for (int i = 0; i < 500; i++) {
+            batch.add().bind("id", i).bind("name", i % 10 == 0 ? null : "name" + i);
+        }
+        batch.execute();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    @Test
+    public void testIteratesAllRowsInOrder() throws Exception
+    {
+        ResultIterator<Integer> it = handle.createQuery("select id from something order by id")
+                                           .map(IntegerColumnMapper.PRIMITIVE)
+                                           .prefetchingIterator(4);
+        int expected = 0;
+        while (it.hasNext()) {
+            assertEquals(Integer.valueOf(expected++), it.next());
+        }
+        assertEquals(500, expected);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testNullRows() throws Exception
+    {
+        ResultIterator<String> it = handle.createQuery("select name from something order by id")
+                                          .map(StringColumnMapper.INSTANCE)
+                                          .prefetchingIterator(16);
+        List<String> names = new ArrayList<String>();
+        while (it.hasNext()) {
+            names.add(it.next());
+        }
+        assertEquals(500, names.size());
+        assertNull(names.get(0));
+        assertEquals("name1", names.get(1));
+    }
+
+    @Test
+    public void testEarlyCloseReleasesHandle() throws Exception
+    {
+        ResultIterator<Integer> it = handle.createQuery("select id from something order by id")
+                                           .map(IntegerColumnMapper.PRIMITIVE)
+                                           .prefetchingIterator(1);
+        assertEquals(Integer.valueOf(0), it.next());
+        it.close();
+        assertFalse(it.hasNext());
+
+        assertEquals(Integer.valueOf(500), handle.createQuery("select count(*) from something")
+                                                 .map(IntegerColumnMapper.PRIMITIVE)
+                                                 .first());
+    }
+
+    @Test
+    public void testMapperFailureIsRethrown() throws Exception
+    {
+        ResultIterator<Integer> it = handle.createQuery("select id from something order by id")
+                                           .map(new ResultSetMapper<Integer>()
+                                           {
+                                               @Override
+                                               public Integer map(int index, ResultSet r, StatementContext ctx)
+                                                   throws SQLException
+                                               {
+                                                   if (index == 3) {
+                                                       throw new IllegalStateException("boom");
+                                                   }
+                                                   return r.getInt(1);
+                                               }
+                                           })
+                                           .prefetchingIterator(2);
+        int seen = 0;
+        try {
+            while (it.hasNext()) {
+                it.next();
+                seen++;
+            }
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertEquals(3, seen);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testExplicitExecutor() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 3; i++) {
+                ResultIterator<Integer> it = handle.createQuery("select id from something where id < 10")
+                                                   .map(IntegerColumnMapper.PRIMITIVE)
+                                                   .prefetchingIterator(8, executor);
+                int count = 0;
+                while (it.hasNext()) {
+                    it.next();
+                    count++;
+                }
+                assertEquals(10, count);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test(timeout = 20000)
+    public void testMoreOpenIteratorsThanProcessors() throws Exception
+    {
+        final Set<Thread> threads = Collections.newSetFromMap(new IdentityHashMap<Thread, Boolean>());
+        final int iterators = 4 * Runtime.getRuntime().availableProcessors() + 1;
+        List<Handle> handles = new ArrayList<Handle>();
+        List<ResultIterator<Integer>> open = new ArrayList<ResultIterator<Integer>>();
+        try {
+            for (int i = 0; i < iterators; i++) {
+                Handle h = dbi.open();
+                handles.add(h);
+                open.add(h.createQuery("select id from something where id < 3 order by id")
+                          .map(new ResultSetMapper<Integer>()
+                          {
+                              @Override
+                              public Integer map(int index, ResultSet r, StatementContext ctx) throws SQLException
+                              {
+                                  synchronized (threads) {
+                                      threads.add(Thread.currentThread());
+                                  }
+                                  return r.getInt(1);
+                              }
+                          })
+                          .prefetchingIterator(1));
+            }
+            // read the last iterator first, whose producer a bounded pool would have queued
+            for (int row = 0; row < 3; row++) {
+                for (int i = iterators - 1; i >= 0; i--) {
+                    assertEquals(Integer.valueOf(row), open.get(i).next());
+                }
+            }
+            for (ResultIterator<Integer> it : open) {
+                assertFalse(it.hasNext());
+            }
+        }
+        finally {
+            for (Handle h : handles) {
+                h.close();
+            }
+        }
+        synchronized (threads) {
+            for (Thread thread : threads) {
+                assertTrue(thread.isDaemon());
+            }
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testClosingHandlesStopsAbandonedProducers() throws Exception
+    {
+        DBI dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID());
+        Handle keeper = dbi.open();
+        try {
+            keeper.execute("create table something (id int primary key)");
+            for (int i = 0; i < 10; i++) {
+                keeper.insert("insert into something (id) values (?)", i);
+            }
+
+            // many iterators, each producer blocked on a full buffer
+            final int iterators = 2 * Runtime.getRuntime().availableProcessors() + 2;
+            List<Handle> abandoned = new ArrayList<Handle>();
+            for (int i = 0; i < iterators; i++) {
+                Handle h = dbi.open();
+                abandoned.add(h);
+                h.createQuery("select id from something order by id")
+                 .map(IntegerColumnMapper.PRIMITIVE)
+                 .prefetchingIterator(1);
+            }
+            for (Handle h : abandoned) {
+                h.close();
+            }
+
+            ResultIterator<Integer> it = keeper.createQuery("select id from something order by id")
+                                               .map(IntegerColumnMapper.PRIMITIVE)
+                                               .prefetchingIterator(1);
+            int count = 0;
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            assertEquals(10, count);
+        }
+        finally {
+            keeper.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSameThreadExecutorIsRejected() throws Exception
+    {
+        try {
+            handle.createQuery("select id from something")
+                  .map(IntegerColumnMapper.PRIMITIVE)
+                  .prefetchingIterator(2, new Executor()
+                  {
+                      @Override
+                      public void execute(Runnable command)
+                      {
+                          command.run();
+                      }
+                  });
+            fail("expected the executor to be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        // the statement was cleaned up, so the handle is usable again
+        assertEquals(500, (int) handle.createQuery("select count(*) from something").map(IntegerColumnMapper.PRIMITIVE).first());
+    }
+}
@@ -15,15 +15,26 @@ package org.skife.jdbi.v2;
 
 import org.junit.Test;
 import org.skife.jdbi.derby.DerbyHelper;
+import org.skife.jdbi.v2.exceptions.DBIException;
+import org.skife.jdbi.v2.logging.FormattedLog;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 public class TestPreparedBatch extends DBITestCase
@@ -171,4 +182,327 @@ public class TestPreparedBatch extends DBITestCase
         assertEquals(h.createQuery("select name from something order by id").mapTo(String.class).list(),
                      Arrays.asList("Jeff", "Tom"));
     }
+
+    @Test
+    public void testStreamingFlushesEveryNParts() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").flushEvery(3);
+
+        for (int i = 0; i < 7; i++) {
+            b.add().bind("id", i).bind("name", "A Name");
+        }
+        assertEquals(6, countSomething(h));
+        assertEquals(1, b.size());
+        assertEquals(6, b.getUpdateCount());
+
+        for (int i = 7; i < 10; i++) {
+            b.bind("id", i);
+            b.add().bind("name", "A Name");
+        }
+        int[] counts = b.execute();
+
+        assertEquals(10, counts.length);
+        assertEquals(10, countSomething(h));
+        assertEquals(10, b.getUpdateCount());
+        assertEquals(0, b.size());
+    }
+
+    @Test
+    public void testStreamingPositional() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (?, ?)").flushEvery(4);
+
+        for (int i = 0; i < 10; i++) {
+            b.add(i, "A Name");
+        }
+        assertEquals(8, countSomething(h));
+
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1}, b.execute());
+        assertEquals(10, countSomething(h));
+
+        b.add(10, "Reused");
+        assertArrayEquals(new int[]{1}, b.execute());
+        assertEquals(1, b.getUpdateCount());
+    }
+
+    @Test
+    public void testStreamingFlushesOnBytes() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)")
+                           .flushEvery(1000, 500)
+                           .discardUpdateCounts();
+
+        for (int i = 0; i < 20; i++) {
+            b.add().bind("id", i).bind("name", "A Name which takes up some room");
+        }
+        assertTrue(countSomething(h) > 0);
+        assertTrue(countSomething(h) < 20);
+
+        assertEquals(0, b.execute().length);
+        assertEquals(20, b.getUpdateCount());
+        assertEquals(20, countSomething(h));
+    }
+
+    @Test
+    public void testStreamingFlushesOnBytesOfBinaryArguments() throws Exception
+    {
+        Handle h = new DBI("jdbc:h2:mem:" + UUID.randomUUID()).open();
+        try {
+            h.execute("create table blobs (id int primary key, data varbinary(1000))");
+            PreparedBatch b = h.prepareBatch("insert into blobs (id, data) values (?, ?)")
+                               .flushEvery(1000, 5000)
+                               .discardUpdateCounts();
+
+            for (int i = 0; i < 7; i++) {
+                b.add(i, new byte[1000]);
+            }
+            // five parts of a kilobyte each fill the limit
+            assertEquals(5, (int) h.createQuery("select count(*) from blobs").mapTo(Integer.class).first());
+
+            b.execute();
+            assertEquals(7, (int) h.createQuery("select count(*) from blobs").mapTo(Integer.class).first());
+        }
+        finally {
+            h.close();
+        }
+    }
+
+    @Test
+    public void testStreamingFlushesOnBytesOfBeanArguments() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)")
+                           .flushEvery(1000, 500)
+                           .discardUpdateCounts();
+
+        for (int i = 0; i < 20; i++) {
+            b.add().bindFromProperties(new Something(i, "A Name which takes up some room"));
+        }
+        assertTrue(countSomething(h) > 0);
+        assertTrue(countSomething(h) < 20);
+
+        b.execute();
+        assertEquals(20, countSomething(h));
+    }
+
+    @Test
+    public void testStreamingFailureClosesStatement() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").flushEvery(2);
+
+        b.add(1, "Eric");
+        try {
+            b.add("not a number", "Brian");
+            fail("expected the batch to fail");
+        }
+        catch (DBIException e) {
+            // expected
+        }
+        assertEquals(0, b.size());
+
+        b.add(2, "Brian");
+        b.add(3, "Keith");
+        b.execute();
+        assertEquals(h.createQuery("select name from something order by id").mapTo(String.class).list(),
+                     Arrays.asList("Brian", "Keith"));
+    }
+
+    @Test
+    public void testClosingStreamingBatchReleasesStatement() throws Exception
+    {
+        Handle h = openHandle();
+        OpenStatements statements = new OpenStatements();
+        h.setStatementBuilder(statements);
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").flushEvery(2);
+
+        b.add(1, "Eric");
+        b.add(2, "Brian");
+        b.add(3, "Keith");
+        assertEquals(1, statements.open);
+
+        b.close();
+        assertEquals(0, statements.open);
+        // the flushed parts stay, the unflushed one is dropped
+        assertEquals(2, countSomething(h));
+        assertEquals(0, b.execute().length);
+        assertEquals(2, countSomething(h));
+    }
+
+    @Test
+    public void testClosingHandleReleasesStreamingBatchStatement() throws Exception
+    {
+        Handle h = openHandle();
+        OpenStatements statements = new OpenStatements();
+        h.setStatementBuilder(statements);
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").flushEvery(2);
+
+        b.add(1, "Eric");
+        b.add(2, "Brian");
+        assertEquals(1, statements.open);
+
+        h.close();
+        assertEquals(0, statements.open);
+    }
+
+    @Test
+    public void testStreamingUpdateCountIsResetPerRun() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").flushEvery(2);
+
+        b.add(1, "Eric");
+        b.add(2, "Brian");
+        b.execute();
+        assertEquals(2, b.getUpdateCount());
+
+        assertEquals(0, b.execute().length);
+        assertEquals(0, b.getUpdateCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStreamingHasNoGeneratedKeys() throws Exception
+    {
+        Handle h = openHandle();
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").flushEvery(2);
+        b.add(1, "Eric");
+        b.executeAndGenerateKeys(IntegerColumnMapper.PRIMITIVE);
+    }
+
+    @Test
+    public void testMultiRowValues() throws Exception
+    {
+        Handle h = openHandle();
+        final List<String> executed = new ArrayList<String>();
+        h.setSQLLog(new FormattedLog()
+        {
+            @Override
+            protected boolean isEnabled()
+            {
+                return true;
+            }
+
+            @Override
+            protected void log(String msg)
+            {
+                if (msg.startsWith("prepared batch")) {
+                    executed.add(msg.substring(0, msg.indexOf(" took")));
+                }
+            }
+        });
+        PreparedBatch b = h.prepareBatch("insert into something (id, name) values (:id, :name)").multiRowValues(4);
+        for (int i = 0; i < 11; i++) {
+            b.add().bind("id", i).bind("name", "name " + i);
+        }
+
+        int[] counts = b.execute();
+
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1}, counts);
+        assertEquals(Arrays.asList("prepared batch with 2 parts:[insert into something (id, name) values (?, ?), (?, ?), (?, ?), (?, ?)]",
+                                   "prepared batch with 1 parts:[insert into something (id, name) values (?, ?), (?, ?)]",
+                                   "prepared batch with 1 parts:[insert into something (id, name) values (?, ?)]"),
+                     executed);
+        List<Something> r = h.createQuery("select * from something order by id").map(Something.class).list();
+        assertEquals(11, r.size());
+        for (int i = 0; i < 11; i++) {
+            assertEquals(i, r.get(i).getId());
+            assertEquals("name " + i, r.get(i).getName());
+        }
+    }
+
+    @Test
+    public void testMultiRowValuesPositional() throws Exception
+    {
+        Handle h = openHandle();
+        int[] counts = h.prepareBatch("insert into something (id, name) values (?, ?)")
+                        .multiRowValues(100)
+                        .add(1, "Eric")
+                        .add(2, "Brian")
+                        .add(3, "Keith")
+                        .execute();
+
+        assertEquals(3, counts.length);
+        assertEquals(h.createQuery("select name from something order by id").mapTo(String.class).list(),
+                     Arrays.asList("Eric", "Brian", "Keith"));
+    }
+
+    @Test
+    public void testMultiRowValuesParameterLimit() throws Exception
+    {
+        Handle h = openHandle();
+        final List<String> executed = new ArrayList<String>();
+        h.setSQLLog(new FormattedLog()
+        {
+            @Override
+            protected boolean isEnabled()
+            {
+                return true;
+            }
+
+            @Override
+            protected void log(String msg)
+            {
+                if (msg.startsWith("prepared batch")) {
+                    executed.add(msg.substring(0, msg.indexOf(" took")));
+                }
+            }
+        });
+        int[] counts = h.prepareBatch("insert into something (id, name) values (:id, :name)")
+                        .multiRowValues(100, 5)
+                        .add(1, "Eric")
+                        .add(2, "Brian")
+                        .add(3, "Keith")
+                        .add(4, "Steven")
+                        .execute();
+
+        assertArrayEquals(new int[]{1, 1, 1, 1}, counts);
+        assertEquals(Arrays.asList("prepared batch with 2 parts:[insert into something (id, name) values (?, ?), (?, ?)]"),
+                     executed);
+        assertEquals(h.createQuery("select name from something order by id").mapTo(String.class).list(),
+                     Arrays.asList("Eric", "Brian", "Keith", "Steven"));
+    }
+
+    @Test
+    public void testMultiRowValuesFallsBackForOtherStatements() throws Exception
+    {
+        Handle h = openHandle();
+        h.prepareBatch("insert into something (id, name) values (?, ?)").add(1, "Eric").add(2, "Brian").execute();
+
+        int[] counts = h.prepareBatch("update something set name = :name where id = :id")
+                        .multiRowValues(10)
+                        .add().bind("id", 1).bind("name", "Erica").submit()
+                        .add().bind("id", 2).bind("name", "Bryan").submit()
+                        .execute();
+
+        assertArrayEquals(new int[]{1, 1}, counts);
+        assertEquals(h.createQuery("select name from something order by id").mapTo(String.class).list(),
+                     Arrays.asList("Erica", "Bryan"));
+    }
+
+    private static int countSomething(Handle h)
+    {
+        return h.createQuery("select count(*) from something").mapTo(Integer.class).first();
+    }
+
+    private static class OpenStatements extends DefaultStatementBuilder
+    {
+        private int open = 0;
+
+        @Override
+        public PreparedStatement create(Connection conn, String sql, StatementContext ctx) throws SQLException
+        {
+            open++;
+            return super.create(conn, sql, ctx);
+        }
+
+        @Override
+        public void close(Connection conn, String sql, Statement stmt) throws SQLException
+        {
+            open--;
+            super.close(conn, sql, stmt);
+        }
+    }
 }
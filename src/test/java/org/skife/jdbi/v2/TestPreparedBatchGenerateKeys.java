@@ -15,10 +15,13 @@ package org.skife.jdbi.v2;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.skife.jdbi.v2.exceptions.ResultSetException;
 import org.skife.jdbi.v2.util.IntegerColumnMapper;
+import org.skife.jdbi.v2.util.LongMapper;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 public class TestPreparedBatchGenerateKeys {
 
@@ -44,4 +47,40 @@ public class TestPreparedBatchGenerateKeys {
 
         Assert.assertEquals(Arrays.asList(new Something(10000, "Brian"), new Something(10001, "Thom")), somethings);
     }
+
+    @Test
+    public void testKeysAsPrimitiveArrays() throws Exception {
+        DBI dbi = new DBI("jdbc:hsqldb:mem:" + UUID.randomUUID(), "sa", "");
+        Handle h = dbi.open();
+        try {
+            h.execute("create table something (id bigint not null generated by default as identity (start with 10000), name varchar(50) )");
+
+            PreparedBatch batch = h.prepareBatch("insert into something (name) values (?)");
+            for (int i = 0; i < 20; i++) {
+                batch.add("name" + i);
+            }
+            int[] ints = batch.executeAndGenerateKeys(LongMapper.FIRST).asIntArray();
+            Assert.assertEquals(20, ints.length);
+            Assert.assertEquals(10000, ints[0]);
+            Assert.assertEquals(10019, ints[19]);
+
+            h.execute("alter table something alter column id restart with 5000000000");
+            batch.add("wide");
+            batch.add("wider");
+            long[] longs = batch.executeAndGenerateKeys(LongMapper.FIRST).asLongArray();
+            Assert.assertArrayEquals(new long[]{5000000000L, 5000000001L}, longs);
+
+            batch.add("too wide");
+            try {
+                batch.executeAndGenerateKeys(LongMapper.FIRST).asIntArray();
+                Assert.fail("expected a key too wide for an int to be rejected");
+            }
+            catch (ResultSetException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("5000000002"));
+            }
+        }
+        finally {
+            h.close();
+        }
+    }
 }
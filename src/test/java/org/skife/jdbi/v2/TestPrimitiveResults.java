@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestPrimitiveResults
+{
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        handle = new DBI("jdbc:h2:mem:" + UUID.randomUUID()).open();
+        handle.execute("create table amounts (id int primary key, amount bigint, ratio double)");
+        handle.execute("insert into amounts values (1, 10, 0.5)");
+        handle.execute("insert into amounts values (2, null, null)");
+        handle.execute("insert into amounts values (3, 32, 1.5)");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    @Test
+    public void testFoldLong() throws Exception
+    {
+        long sum = handle.createQuery("select amount from amounts").foldLong(0, new LongFolder()
+        {
+            @Override
+            public long fold(long accumulator, long value, FoldController control, StatementContext ctx)
+            {
+                return accumulator + value;
+            }
+        });
+        assertEquals(42, sum);
+    }
+
+    @Test
+    public void testFoldIntCanAbort() throws Exception
+    {
+        int seen = handle.createQuery("select id from amounts order by id").foldInt(0, new IntFolder()
+        {
+            @Override
+            public int fold(int accumulator, int value, FoldController control, StatementContext ctx)
+                throws SQLException
+            {
+                if (value == 2) {
+                    control.abort();
+                }
+                return accumulator + value;
+            }
+        });
+        assertEquals(3, seen);
+    }
+
+    @Test
+    public void testFoldDouble() throws Exception
+    {
+        double sum = handle.createQuery("select ratio from amounts").foldDouble(1, new DoubleFolder()
+        {
+            @Override
+            public double fold(double accumulator, double value, FoldController control, StatementContext ctx)
+            {
+                return accumulator + value;
+            }
+        });
+        assertEquals(3.0, sum, 0);
+    }
+
+    @Test
+    public void testLongIterator() throws Exception
+    {
+        LongResultIterator it = handle.createQuery("select amount from amounts order by id").longIterator();
+
+        assertTrue(it.hasNext());
+        assertEquals(10, it.nextLong());
+        assertFalse(it.wasNull());
+        assertEquals(0, it.nextLong());
+        assertTrue(it.wasNull());
+        assertTrue(it.hasNext());
+        assertEquals(32, it.nextLong());
+        assertFalse(it.hasNext());
+
+        try {
+            it.nextLong();
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIntAndDoubleIterators() throws Exception
+    {
+        IntResultIterator ids = handle.createQuery("select id from amounts order by id").intIterator();
+        int sum = 0;
+        while (ids.hasNext()) {
+            sum += ids.nextInt();
+        }
+        assertEquals(6, sum);
+
+        DoubleResultIterator ratios = handle.createQuery("select ratio from amounts order by id").doubleIterator();
+        assertEquals(0.5, ratios.nextDouble(), 0);
+        ratios.close();
+        assertFalse(ratios.hasNext());
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.CacheResult;
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.sqlobject.customizers.MaxRows;
+import org.skife.jdbi.v2.tweak.BaseStatementCustomizer;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestQueryResultCache
+{
+    private DBI dbi;
+    private QueryResultCache cache;
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID() + ";MVCC=TRUE");
+        cache = new QueryResultCache(2);
+        dbi.setQueryResultCache(cache);
+        handle = dbi.open();
+        handle.execute("create table something (id int primary key, name varchar(50))");
+        handle.execute("insert into something (id, name) values (1, 'eric')");
+        handle.execute("insert into something (id, name) values (2, 'brian')");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    private List<String> names(Handle h, int minId)
+    {
+        return h.createQuery("select name from something where id >= :id order by id")
+                .bind("id", minId)
+                .map(StringColumnMapper.INSTANCE)
+                .cacheResult(1, TimeUnit.HOURS, "something")
+                .list();
+    }
+
+    @Test
+    public void testHitAcrossHandles() throws Exception
+    {
+        assertEquals(Arrays.asList("eric", "brian"), names(handle, 1));
+
+        Handle other = dbi.open();
+        try {
+            assertEquals(Arrays.asList("eric", "brian"), names(other, 1));
+        }
+        finally {
+            other.close();
+        }
+        assertEquals(1, cache.getCacheStats().getHitCount());
+        assertEquals(1, cache.getCacheStats().getMissCount());
+    }
+
+    @Test
+    public void testServesStaleRowsUntilInvalidated() throws Exception
+    {
+        names(handle, 1);
+        handle.getConnection().createStatement().executeUpdate("insert into something (id, name) values (3, 'keith')");
+
+        assertEquals(Arrays.asList("eric", "brian"), names(handle, 1));
+
+        cache.invalidateTable("SOMETHING");
+        assertEquals(Arrays.asList("eric", "brian", "keith"), names(handle, 1));
+    }
+
+    @Test
+    public void testWriteToDeclaredTableInvalidates() throws Exception
+    {
+        names(handle, 1);
+        handle.createStatement("update something set name = :name where id = 1").bind("name", "erica").execute();
+
+        assertEquals(Arrays.asList("erica", "brian"), names(handle, 1));
+        assertEquals(0, cache.getCacheStats().getHitCount());
+
+        names(handle, 1);
+        handle.prepareBatch("insert into something (id, name) values (:id, :name)")
+              .add(3, "keith").execute();
+        assertEquals(Arrays.asList("erica", "brian", "keith"), names(handle, 1));
+        assertEquals(1, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testRegisteredMappersArePartOfTheKey() throws Exception
+    {
+        Handle upper = dbi.open();
+        Handle lower = dbi.open();
+        try {
+            upper.registerMapper(new CaseMapper(true));
+            lower.registerMapper(new CaseMapper(false));
+
+            assertEquals("ERIC", cased(upper).name);
+            assertEquals("eric", cased(lower).name);
+            assertEquals("ERIC", cased(upper).name);
+            assertEquals(1, cache.getCacheStats().getHitCount());
+        }
+        finally {
+            upper.close();
+            lower.close();
+        }
+    }
+
+    @Test
+    public void testRegisteringAMapperChangesTheKey() throws Exception
+    {
+        assertEquals("eric", name(handle));
+
+        handle.registerMapper(new ResultSetMapper<String>()
+        {
+            @Override
+            public String map(int index, ResultSet r, StatementContext ctx) throws SQLException
+            {
+                return r.getString("name").toUpperCase();
+            }
+        });
+        assertEquals("ERIC", name(handle));
+        assertEquals(0, cache.getCacheStats().getHitCount());
+    }
+
+    private static String name(Handle h)
+    {
+        return h.createQuery("select name from something where id = 1")
+                .mapTo(String.class)
+                .cacheResult(1, TimeUnit.HOURS, "something")
+                .first();
+    }
+
+    private static Cased cased(Handle h)
+    {
+        return h.createQuery("select name from something where id = 1")
+                .mapTo(Cased.class)
+                .cacheResult(1, TimeUnit.HOURS, "something")
+                .first();
+    }
+
+    @Test
+    public void testBindingsArePartOfTheKey() throws Exception
+    {
+        assertEquals(Arrays.asList("eric", "brian"), names(handle, 1));
+        assertEquals(Arrays.asList("brian"), names(handle, 2));
+        assertEquals(2, cache.getCacheStats().getMissCount());
+        assertEquals(0, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testFirstAndListAreCachedSeparately() throws Exception
+    {
+        String first = handle.createQuery("select name from something order by id")
+                             .map(StringColumnMapper.INSTANCE)
+                             .cacheResult(1, TimeUnit.HOURS)
+                             .first();
+        List<String> all = handle.createQuery("select name from something order by id")
+                                 .map(StringColumnMapper.INSTANCE)
+                                 .cacheResult(1, TimeUnit.HOURS)
+                                 .list();
+        assertEquals("eric", first);
+        assertEquals(Arrays.asList("eric", "brian"), all);
+        assertEquals(0, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception
+    {
+        names(handle, 1);
+        names(handle, 2);
+        names(handle, 3);
+
+        CacheStats stats = cache.getCacheStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getEvictionCount());
+
+        names(handle, 1);
+        assertEquals(0, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception
+    {
+        Query<String> query = handle.createQuery("select name from something where id = 1")
+                                    .map(StringColumnMapper.INSTANCE)
+                                    .cacheResult(1, TimeUnit.MILLISECONDS);
+        query.list();
+        Thread.sleep(10);
+        handle.createQuery("select name from something where id = 1")
+              .map(StringColumnMapper.INSTANCE)
+              .cacheResult(1, TimeUnit.MILLISECONDS)
+              .list();
+
+        assertEquals(0, cache.getCacheStats().getHitCount());
+        assertEquals(2, cache.getCacheStats().getMissCount());
+    }
+
+    @Test
+    public void testUncachedQueriesBypassTheCache() throws Exception
+    {
+        handle.createQuery("select name from something").map(StringColumnMapper.INSTANCE).list();
+        assertEquals(0, cache.getCacheStats().getMissCount());
+        assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void testRolledBackRowsAreNotServed() throws Exception
+    {
+        handle.begin();
+        handle.execute("insert into something (id, name) values (3, 'keith')");
+        assertEquals(Arrays.asList("eric", "brian", "keith"), names(handle, 1));
+        handle.rollback();
+
+        assertEquals(Arrays.asList("eric", "brian"), names(handle, 1));
+        assertEquals(0, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testRowsCachedByOtherHandlesBeforeCommitAreInvalidated() throws Exception
+    {
+        Handle other = dbi.open();
+        try {
+            handle.begin();
+            handle.execute("update something set name = 'erica' where id = 1");
+
+            assertEquals(Arrays.asList("eric", "brian"), names(other, 1));
+            assertEquals(1, cache.getCacheStats().getSize());
+
+            handle.commit();
+            assertEquals(Arrays.asList("erica", "brian"), names(other, 1));
+            assertEquals(0, cache.getCacheStats().getHitCount());
+        }
+        finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void testMaxRowsArePartOfTheKey() throws Exception
+    {
+        assertEquals(Arrays.asList("eric"), limitedNames(handle.createQuery("select name from something order by id")
+                                                               .setMaxRows(1)));
+        assertEquals(Arrays.asList("eric", "brian"), limitedNames(handle.createQuery("select name from something order by id")
+                                                                        .setMaxRows(100)));
+        assertEquals(Arrays.asList("eric"), limitedNames(handle.createQuery("select name from something order by id")
+                                                               .setMaxRows(1)));
+        assertEquals(1, cache.getCacheStats().getHitCount());
+
+        Dao dao = handle.attach(Dao.class);
+        assertEquals(Arrays.asList("eric"), dao.findNames(1));
+        assertEquals(Arrays.asList("eric", "brian"), dao.findNames(100));
+        assertEquals(Arrays.asList("eric"), dao.findNames(1));
+        assertEquals(2, cache.getCacheStats().getHitCount());
+    }
+
+    private static List<String> limitedNames(Query<Map<String, Object>> query)
+    {
+        return query.map(StringColumnMapper.INSTANCE)
+                    .cacheResult(1, TimeUnit.HOURS, "something")
+                    .list();
+    }
+
+    @Test
+    public void testUnknownCustomizersBypassTheCache() throws Exception
+    {
+        for (int i = 0; i < 2; i++) {
+            handle.createQuery("select name from something order by id")
+                  .addStatementCustomizer(new BaseStatementCustomizer())
+                  .map(StringColumnMapper.INSTANCE)
+                  .cacheResult(1, TimeUnit.HOURS, "something")
+                  .list();
+        }
+        assertEquals(0, cache.getCacheStats().getMissCount());
+        assertEquals(0, cache.getCacheStats().getSize());
+    }
+
+    @Test
+    public void testSqlObject() throws Exception
+    {
+        Dao dao = handle.attach(Dao.class);
+        assertEquals("eric", dao.findName(1));
+        dao.rename(1, "erica");
+        assertEquals("erica", dao.findName(1));
+        assertEquals("erica", dao.findName(1));
+
+        assertEquals(1, cache.getCacheStats().getHitCount());
+        assertTrue(cache.getSizeInBytes() > 0);
+    }
+
+    @Test
+    public void testSqlObjectMapper() throws Exception
+    {
+        Dao dao = handle.attach(Dao.class);
+        assertEquals("ERIC", dao.findUpper(1).name);
+        assertEquals("ERIC", dao.findUpper(1).name);
+        assertEquals("BRIAN", dao.findUpper(2).name);
+
+        assertEquals(1, cache.getCacheStats().getHitCount());
+        assertEquals(2, cache.getCacheStats().getSize());
+    }
+
+    @Test
+    public void testFreshStatelessMapperHits() throws Exception
+    {
+        for (int i = 0; i < 2; i++) {
+            assertEquals("ERIC", handle.createQuery("select name from something where id = 1")
+                                       .map(new UpperMapper())
+                                       .cacheResult(1, TimeUnit.HOURS, "something")
+                                       .first().name);
+        }
+        assertEquals(1, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testFreshStatefulMapperBypassesTheCache() throws Exception
+    {
+        names(handle, 1);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("eric", handle.createQuery("select name from something where id = 1")
+                                       .map(new CaseMapper(false))
+                                       .cacheResult(1, TimeUnit.HOURS, "something")
+                                       .first().name);
+        }
+        assertEquals(1, cache.getCacheStats().getMissCount());
+        assertEquals(1, cache.getCacheStats().getSize());
+        assertEquals(Arrays.asList("eric", "brian"), names(handle, 1));
+        assertEquals(1, cache.getCacheStats().getHitCount());
+    }
+
+    public interface Dao
+    {
+        @SqlQuery("select name from something where id = :id")
+        @CacheResult(value = 10, unit = TimeUnit.MINUTES, tables = "something")
+        String findName(@Bind("id") int id);
+
+        @SqlQuery("select name from something where id = :id")
+        @CacheResult(value = 10, unit = TimeUnit.MINUTES, tables = "something")
+        @Mapper(CountingUpperMapper.class)
+        Cased findUpper(@Bind("id") int id);
+
+        @SqlQuery("select name from something order by id")
+        @CacheResult(value = 10, unit = TimeUnit.MINUTES, tables = "something")
+        List<String> findNames(@MaxRows(1) int maxRows);
+
+        @SqlUpdate("update something set name = :name where id = :id")
+        void rename(@Bind("id") int id, @Bind("name") String name);
+    }
+
+    static class Cased
+    {
+        final String name;
+
+        Cased(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    static class CaseMapper implements ResultSetMapper<Cased>
+    {
+        private final boolean upper;
+
+        CaseMapper(boolean upper)
+        {
+            this.upper = upper;
+        }
+
+        @Override
+        public Cased map(int index, ResultSet r, StatementContext ctx) throws SQLException
+        {
+            String name = r.getString("name");
+            return new Cased(upper ? name.toUpperCase() : name);
+        }
+    }
+
+    static class UpperMapper implements ResultSetMapper<Cased>
+    {
+        @Override
+        public Cased map(int index, ResultSet r, StatementContext ctx) throws SQLException
+        {
+            return new Cased(r.getString("name").toUpperCase());
+        }
+    }
+
+    public static class CountingUpperMapper implements ResultSetMapper<Cased>
+    {
+        private int rows = 0;
+
+        @Override
+        public Cased map(int index, ResultSet r, StatementContext ctx) throws SQLException
+        {
+            rows++;
+            return new Cased(r.getString("name").toUpperCase());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
+import org.skife.jdbi.v2.tweak.Argument;
+import org.skife.jdbi.v2.tweak.StatementLocator;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestRewrittenStatementCache
+{
+    private RewrittenStatementCache cache;
+    private DBI dbi;
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        cache = new RewrittenStatementCache();
+        dbi = new DBI("jdbc:h2:mem:" + UUID.randomUUID());
+        dbi.setRewrittenStatementCache(cache);
+        handle = dbi.open();
+        handle.execute("create table something (id int primary key, name varchar(100))");
+        handle.execute("create table other (id int primary key, name varchar(100))");
+        handle.execute("insert into something (id, name) values (1, 'Brian')");
+        handle.execute("insert into other (id, name) values (1, 'Keith')");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    @Test
+    public void testSkipsLocateOnRepeat() throws Exception
+    {
+        CountingLocator locator = new CountingLocator();
+        handle.setStatementLocator(locator);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Brian", handle.createQuery("select name from something where id = :id")
+                                        .bind("id", 1)
+                                        .map(StringColumnMapper.INSTANCE)
+                                        .first());
+        }
+        assertEquals(1, locator.count);
+        assertEquals(2, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testAttributesArePartOfTheKey() throws Exception
+    {
+        String sql = "select name from <table> where id = :id";
+        handle.setStatementLocator(new TableDefiningLocator());
+
+        assertEquals("Brian", handle.createQuery(sql).define("table", "something").bind("id", 1)
+                                    .map(StringColumnMapper.INSTANCE).first());
+        assertEquals("Keith", handle.createQuery(sql).define("table", "other").bind("id", 1)
+                                    .map(StringColumnMapper.INSTANCE).first());
+        assertEquals("Brian", handle.createQuery(sql).define("table", "something").bind("id", 1)
+                                    .map(StringColumnMapper.INSTANCE).first());
+        assertEquals(1, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testSqlObjectDefines() throws Exception
+    {
+        Dao dao = handle.attach(Dao.class);
+        assertEquals("Brian", dao.findName("something", 1));
+        assertEquals("Keith", dao.findName("other", 1));
+        assertEquals("Brian", dao.findName("something", 1));
+        assertEquals("Keith", dao.findName("other", 1));
+        assertEquals(2, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testArgumentsSeeTheirOwnContext() throws Exception
+    {
+        for (int i = 0; i < 2; i++) {
+            Query<String> q = handle.createQuery("select name from something where id = :id")
+                                    .map(StringColumnMapper.INSTANCE);
+            ContextCheckingArgument arg = new ContextCheckingArgument();
+            q.bind("id", arg);
+            q.first();
+            assertSame(q.getContext(), arg.ctx);
+        }
+        assertEquals(1, cache.getCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testPreparedBatch() throws Exception
+    {
+        for (int i = 2; i < 4; i++) {
+            PreparedBatch b = handle.prepareBatch("insert into something (id, name) values (:id, :name)");
+            b.add().bind("id", i).bind("name", "n" + i);
+            b.execute();
+        }
+        assertEquals(1, cache.getCacheStats().getHitCount());
+        assertEquals("n3", handle.createQuery("select name from something where id = 3")
+                                 .map(StringColumnMapper.INSTANCE).first());
+    }
+
+    @UseStringTemplate3StatementLocator
+    public interface Dao
+    {
+        @SqlQuery("select name from <table> where id = :id")
+        String findName(@Define("table") String table, @Bind("id") int id);
+    }
+
+    private static class CountingLocator implements StatementLocator
+    {
+        private int count;
+
+        @Override
+        public String locate(String name, StatementContext ctx) throws Exception
+        {
+            count++;
+            return name;
+        }
+    }
+
+    private static class TableDefiningLocator implements StatementLocator
+    {
+        @Override
+        public String locate(String name, StatementContext ctx) throws Exception
+        {
+            return name.replace("<table>", String.valueOf(ctx.getAttribute("table")));
+        }
+    }
+
+    private static class ContextCheckingArgument implements Argument
+    {
+        private StatementContext ctx;
+
+        @Override
+        public void apply(int position, PreparedStatement statement, StatementContext ctx) throws SQLException
+        {
+            this.ctx = ctx;
+            statement.setInt(position, 1);
+        }
+    }
+}
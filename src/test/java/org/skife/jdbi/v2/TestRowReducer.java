@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.Reducer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestRowReducer
+{
+    private static final String ORDERS = "select o.id, o.customer, i.product from orders o " +
+                                         "left join item i on i.order_id = o.id order by o.id, i.product";
+
+    private Handle handle;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        handle = new DBI("jdbc:h2:mem:" + UUID.randomUUID()).open();
+        handle.execute("create table orders (id int primary key, customer varchar(50))");
+        handle.execute("create table item (order_id int, product varchar(50))");
+        handle.execute("insert into orders values (1, 'eric')");
+        handle.execute("insert into orders values (2, 'brian')");
+        handle.execute("insert into orders values (3, 'keith')");
+        handle.execute("insert into item values (1, 'apple')");
+        handle.execute("insert into item values (1, 'pear')");
+        handle.execute("insert into item values (3, 'fig')");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        handle.close();
+    }
+
+    @Test
+    public void testList() throws Exception
+    {
+        List<Order> orders = handle.createQuery(ORDERS).reduceRows(new OrderReducer()).list();
+
+        assertEquals(3, orders.size());
+        assertEquals(new Order(1, "eric", "apple", "pear"), orders.get(0));
+        assertEquals(new Order(2, "brian"), orders.get(1));
+        assertEquals(new Order(3, "keith", "fig"), orders.get(2));
+    }
+
+    @Test
+    public void testIteratorBuildsOneAggregateAtATime() throws Exception
+    {
+        final List<Integer> started = new ArrayList<Integer>();
+        ResultIterator<Order> orders = handle.createQuery(ORDERS).reduceRows(new OrderReducer()
+        {
+            @Override
+            public Order start(Integer key, ResultSet r, StatementContext ctx) throws SQLException
+            {
+                started.add(key);
+                return super.start(key, r, ctx);
+            }
+        }).iterator();
+
+        assertTrue(orders.hasNext());
+        assertEquals(new Order(1, "eric", "apple", "pear"), orders.next());
+        assertEquals(Arrays.asList(1), started);
+
+        assertEquals(new Order(2, "brian"), orders.next());
+        assertEquals(new Order(3, "keith", "fig"), orders.next());
+        assertFalse(orders.hasNext());
+        assertEquals(Arrays.asList(1, 2, 3), started);
+    }
+
+    @Test
+    public void testFoldAborts() throws Exception
+    {
+        List<Integer> ids = handle.createQuery(ORDERS).reduceRows(new ArrayList<Integer>(), new OrderReducer(),
+                                                                  new Folder3<List<Integer>, Order>()
+        {
+            @Override
+            public List<Integer> fold(List<Integer> accumulator, Order order, FoldController control, StatementContext ctx)
+            {
+                accumulator.add(order.id);
+                if (order.id == 2) {
+                    control.abort();
+                }
+                return accumulator;
+            }
+        });
+
+        assertEquals(Arrays.asList(1, 2), ids);
+    }
+
+    @Test
+    public void testFirstAndLimit() throws Exception
+    {
+        ResultBearing<Order> orders = handle.createQuery(ORDERS).reduceRows(new OrderReducer());
+
+        assertEquals(new Order(1, "eric", "apple", "pear"), orders.first());
+        assertEquals(2, orders.list(2).size());
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        ResultBearing<Order> orders = handle.createQuery(ORDERS + " limit 0").reduceRows(new OrderReducer());
+
+        assertNull(orders.first());
+        assertTrue(orders.list().isEmpty());
+        assertFalse(orders.iterator().hasNext());
+    }
+
+    @Test
+    public void testSqlObject() throws Exception
+    {
+        Dao dao = handle.attach(Dao.class);
+
+        Iterator<Order> orders = dao.iterate();
+        assertEquals(new Order(1, "eric", "apple", "pear"), orders.next());
+        assertEquals(new Order(2, "brian"), orders.next());
+        assertEquals(new Order(3, "keith", "fig"), orders.next());
+        assertFalse(orders.hasNext());
+
+        assertEquals(3, dao.list().size());
+        assertEquals(new Order(1, "eric", "apple", "pear"), dao.first());
+    }
+
+    @Test
+    public void testSqlObjectReturningQueryIsRejected() throws Exception
+    {
+        try {
+            handle.attach(QueryDao.class);
+            fail("a reduced query is not a Query");
+        }
+        catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("@Reducer"));
+        }
+    }
+
+    public interface QueryDao
+    {
+        @SqlQuery(ORDERS)
+        @Reducer(OrderReducer.class)
+        Query<Order> query();
+    }
+
+    public interface Dao
+    {
+        @SqlQuery(ORDERS)
+        @Reducer(OrderReducer.class)
+        Iterator<Order> iterate();
+
+        @SqlQuery(ORDERS)
+        @Reducer(OrderReducer.class)
+        List<Order> list();
+
+        @SqlQuery(ORDERS)
+        @Reducer(OrderReducer.class)
+        Order first();
+    }
+
+    public static class OrderReducer implements RowReducer<Integer, Order>
+    {
+        @Override
+        public Integer key(ResultSet r, StatementContext ctx) throws SQLException
+        {
+            return r.getInt("id");
+        }
+
+        @Override
+        public Order start(Integer key, ResultSet r, StatementContext ctx) throws SQLException
+        {
+            return new Order(key, r.getString("customer"));
+        }
+
+        @Override
+        public void accumulate(Order order, ResultSet r, StatementContext ctx) throws SQLException
+        {
+            String product = r.getString("product");
+            if (product != null) {
+                order.products.add(product);
+            }
+        }
+    }
+
+    public static class Order
+    {
+        private final int id;
+        private final String customer;
+        private final List<String> products = new ArrayList<String>();
+
+        Order(int id, String customer, String... products)
+        {
+            this.id = id;
+            this.customer = customer;
+            this.products.addAll(Arrays.asList(products));
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Order)) {
+                return false;
+            }
+            Order that = (Order) o;
+            return id == that.id && customer.equals(that.customer) && products.equals(that.products);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return id;
+        }
+
+        @Override
+        public String toString()
+        {
+            return id + " " + customer + " " + products;
+        }
+    }
+}
@@ -13,9 +13,20 @@
  */
 package org.skife.jdbi.v2;
 
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.Token;
 import org.junit.Test;
 import org.skife.jdbi.v2.exceptions.StatementException;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+import org.skife.jdbi.v2.logging.FormattedLog;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -85,4 +96,147 @@ public class TestScript extends DBITestCase
             assertEquals(context.getRawSql().trim(), "insert into something(id, name) values (2, eric)");
         }
     }
+
+    @Test
+    public void testMalformedScriptExecutesNothing() throws Exception {
+        Handle h = openHandle();
+        Script script = h.createScript("insert into something (id, name) values (1, 'keith');\n" +
+                                       "insert into something (id, name) values (2, 'eric');\n" +
+                                       "insert into something (id, name) values (3, 'brian");
+        try {
+            script.executeAsSeparateStatements();
+            fail("Should fail because the last quote is not closed");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(0, h.select("select * from something").size());
+    }
+
+    @Test
+    public void testStreamedScriptInBatches() throws Exception {
+        BasicHandle h = openHandle();
+        Reader reader = new InputStreamReader(getClass().getResourceAsStream("/insert-script-with-comments.sql"), "UTF-8");
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        final List<Long> executed = new ArrayList<Long>();
+        try {
+            long statements = h.createScript(reader).executeInBatches(2, new Script.ProgressListener() {
+                @Override
+                public void batchExecuted(int batch, int[] counts, long executedSoFar, long elapsedMillis) {
+                    assertEquals(batchSizes.size() + 1, batch);
+                    batchSizes.add(counts.length);
+                    executed.add(executedSoFar);
+                }
+            });
+            assertEquals(3, statements);
+        }
+        finally {
+            reader.close();
+        }
+
+        assertEquals(Arrays.asList(2, 1), batchSizes);
+        assertEquals(Arrays.asList(2L, 3L), executed);
+        List<Map<String, Object>> rows = h.select("select * from something order by id");
+        assertEquals(3, rows.size());
+        assertEquals("three", rows.get(2).get("name"));
+    }
+
+    @Test
+    public void testStreamedScriptExecutesInBatches() throws Exception {
+        BasicHandle h = openHandle();
+        final List<String> batches = new ArrayList<String>();
+        h.setSQLLog(new FormattedLog() {
+            @Override
+            protected boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            protected void log(String msg) {
+                if (msg.startsWith("batch:")) {
+                    batches.add(msg);
+                }
+            }
+        });
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            script.append("insert into something (id, name) values (").append(i).append(", 'n');\n");
+        }
+
+        int[] counts = h.createScript(new StringReader(script.toString())).execute();
+
+        assertEquals(2500, counts.length);
+        assertEquals(1, counts[2499]);
+        assertEquals(3, batches.size());
+        assertEquals(2500, h.select("select * from something").size());
+    }
+
+    @Test
+    public void testStreamedScriptSplitsLikeLocatedScript() throws Exception {
+        // long enough to move the stream's buffer along, with a token longer than the buffer
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            script.append("insert into something (id, name) values (").append(i).append(", 'a;b')");
+            script.append(i % 7 == 0 ? "; -- comment; with semicolons\n" : ";\n");
+            if (i == 1500) {
+                script.append("/* ").append(new String(new char[20000]).replace('\0', 'x')).append(" */\n");
+                script.append("insert into something (id, name) values (-1, '");
+                script.append(new String(new char[20000]).replace('\0', 'y')).append("');\n");
+            }
+        }
+
+        assertEquals(split(new ANTLRStringStream(script.toString())),
+                     split(new ReaderCharStream(new StringReader(script.toString()), "test")));
+    }
+
+    @Test
+    public void testStreamedScriptReadFailure() throws Exception {
+        BasicHandle h = openHandle();
+        Reader failing = new Reader() {
+            private boolean first = true;
+
+            @Override
+            public int read(char[] buffer, int off, int len) throws IOException {
+                if (first) {
+                    first = false;
+                    String statement = "insert into something (id, name) values (1, 'eric');";
+                    statement.getChars(0, statement.length(), buffer, off);
+                    return statement.length();
+                }
+                throw new IOException("disk on fire");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Script script = h.createScript(failing);
+        try {
+            script.executeAsSeparateStatements();
+            fail("expected the read failure");
+        }
+        catch (UnableToExecuteStatementException e) {
+            assertEquals("disk on fire", e.getCause().getMessage());
+        }
+        assertEquals(1, h.select("select * from something").size());
+
+        try {
+            script.execute();
+            fail("a script read from a reader can only be executed once");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static List<String> split(CharStream stream) {
+        final List<String> statements = new ArrayList<String>();
+        statements.add(new SqlScriptParser(new SqlScriptParser.TokenHandler() {
+            @Override
+            public void handle(Token t, StringBuilder sb) {
+                statements.add(sb.toString());
+                sb.setLength(0);
+            }
+        }).parse(stream));
+        return statements;
+    }
 }
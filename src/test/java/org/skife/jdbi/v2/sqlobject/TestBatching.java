@@ -23,7 +23,9 @@ import org.skife.jdbi.v2.Something;
 import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
+import org.skife.jdbi.v2.util.ByteArrayColumnMapper;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -150,6 +152,52 @@ public class TestBatching
         }
     }
 
+    @Test
+    public void testPrimitiveArrayColumns() throws Exception
+    {
+        UsesBatching b = handle.attach(UsesBatching.class);
+        int[] counts = b.insertIds(new long[]{1, 2, 3}, new String[]{"Brian", "Henri", "Patrick"});
+        assertThat(counts.length, equalTo(3));
+
+        b.insertIds(new int[]{4, 5}, "Robert");
+
+        List<String> names = handle.createQuery("select name from something order by id")
+                                   .mapTo(String.class)
+                                   .list();
+        assertThat(names, equalTo(Arrays.asList("Brian", "Henri", "Patrick", "Robert", "Robert")));
+    }
+
+    @Test
+    public void testConstantByteArray() throws Exception
+    {
+        handle.execute("create table payload (id int primary key, data varbinary(10))");
+        UsesBatching b = handle.attach(UsesBatching.class);
+        byte[] data = new byte[]{1, 2, 3, 4, 5};
+        int[] counts = b.insertPayloads(Arrays.asList(1L, 2L), data);
+        assertThat(counts.length, equalTo(2));
+
+        List<byte[]> stored = handle.createQuery("select data from payload order by id")
+                                    .map(ByteArrayColumnMapper.INSTANCE)
+                                    .list();
+        assertThat(stored.size(), equalTo(2));
+        assertThat(stored.get(0), equalTo(data));
+        assertThat(stored.get(1), equalTo(data));
+    }
+
+    @Test
+    public void testChunkedResultsInOrder() throws Exception
+    {
+        handle.execute("insert into something (id, name) values (1, 'a')");
+        handle.execute("insert into something (id, name) values (3, 'b')");
+        handle.execute("insert into something (id, name) values (4, 'c')");
+        UsesBatching b = handle.attach(UsesBatching.class);
+
+        List<Integer> ids = Arrays.asList(1, 2, 3, 4, 5);
+        assertThat(b.renameChunked(ids, "x"), equalTo(new int[]{1, 0, 1, 1, 0}));
+        assertThat(b.renameChunked(ids.iterator(), "y"), equalTo(new int[]{1, 0, 1, 1, 0}));
+        assertThat(b.renameChunked(new ArrayList<Integer>(), "z"), equalTo(new int[0]));
+    }
+
     @Test(timeout=5000, expected=UnableToExecuteStatementException.class)
     public void testForgotIterableInt() throws Exception
     {
@@ -189,6 +237,23 @@ public class TestBatching
         @SqlBatch
         public int[] insertChunked(@BatchChunkSize int size, @BindBean("it") Iterable<Something> its);
 
+        @SqlBatch("insert into something (id, name) values (:id, :name)")
+        public int[] insertIds(@Bind("id") long[] ids, @Bind("name") String[] names);
+
+        @SqlBatch("insert into something (id, name) values (:id, :name)")
+        public int[] insertIds(@Bind("id") int[] ids, @Bind("name") String name);
+
+        @SqlBatch("insert into payload (id, data) values (:id, :data)")
+        public int[] insertPayloads(@Bind("id") List<Long> ids, @Bind("data") byte[] data);
+
+        @SqlBatch("update something set name = :name where id = :id")
+        @BatchChunkSize(2)
+        public int[] renameChunked(@Bind("id") Iterable<Integer> ids, @Bind("name") String name);
+
+        @SqlBatch("update something set name = :name where id = :id")
+        @BatchChunkSize(2)
+        public int[] renameChunked(@Bind("id") Iterator<Integer> ids, @Bind("name") String name);
+
         @SqlQuery("select count(*) from something")
         public int size();
 
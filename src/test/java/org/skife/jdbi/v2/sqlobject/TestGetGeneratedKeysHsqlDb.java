@@ -52,6 +52,14 @@ public class TestGetGeneratedKeysHsqlDb {
         @GetGeneratedKeys
         public int[] insert(@Bind List<String> names);
 
+        @SqlBatch("insert into something (name) values (:it)")
+        @GetGeneratedKeys
+        public long[] insertReturningLongs(@Bind List<String> names);
+
+        @SqlUpdate("insert into something (name) values ('a'), ('b'), ('c')")
+        @GetGeneratedKeys
+        public long[] insertThree();
+
         @SqlQuery("select name from something where id = :it")
         public String findNameById(@Bind long id);
     }
@@ -82,4 +90,30 @@ public class TestGetGeneratedKeysHsqlDb {
         dao.close();
     }
 
+    @Test
+    public void testBatchReturningLongs() throws Exception
+    {
+        DAO dao = dbi.open(DAO.class);
+
+        long[] ids = dao.insertReturningLongs(Arrays.asList("Burt", "Macklin", "Ann"));
+
+        assertThat(ids.length, equalTo(3));
+        assertThat(dao.findNameById(ids[0]), equalTo("Burt"));
+        assertThat(dao.findNameById(ids[2]), equalTo("Ann"));
+
+        dao.close();
+    }
+
+    @Test
+    public void testUpdateReturningLongs() throws Exception
+    {
+        DAO dao = dbi.open(DAO.class);
+
+        long[] ids = dao.insertThree();
+
+        assertThat(ids.length, equalTo(3));
+        assertThat(dao.findNameById(ids[1]), equalTo("b"));
+
+        dao.close();
+    }
 }
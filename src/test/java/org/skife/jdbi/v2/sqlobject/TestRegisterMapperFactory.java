@@ -19,6 +19,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.GenericResultSetMapperFactory;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.ResultSetMapperFactory;
 import org.skife.jdbi.v2.StatementContext;
@@ -26,6 +27,8 @@ import org.skife.jdbi.v2.sqlobject.TestRegisterMapperFactory.Foo.FooMapper;
 import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapperFactory;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
@@ -73,6 +76,75 @@ public class TestRegisterMapperFactory
 
     }
 
+    @Test
+    public void testGenericReturnTypes() throws Exception
+    {
+        ColumnDao dao = dbi.onDemand(ColumnDao.class);
+        dao.insert(1, "John Doe");
+
+        Assert.assertEquals("John Doe", dao.names().get(0).value);
+        Assert.assertEquals(Integer.valueOf(1), dao.ids().get(0).value);
+        Assert.assertEquals("John Doe", dao.names().get(0).value);
+    }
+
+    @RegisterMapperFactory(ColumnFactory.class)
+    public static interface ColumnDao extends FooDao
+    {
+        @SqlQuery("select * from something")
+        List<Column<String>> names();
+
+        @SqlQuery("select * from something")
+        List<Column<Integer>> ids();
+    }
+
+    public static class Column<T>
+    {
+        private final T value;
+
+        Column(T value)
+        {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Maps Column&lt;String&gt; from the name, Column&lt;Integer&gt; from the id.
+     */
+    public static class ColumnFactory implements GenericResultSetMapperFactory
+    {
+        @Override
+        public boolean accepts(Class type, StatementContext ctx)
+        {
+            return false;
+        }
+
+        @Override
+        public ResultSetMapper mapperFor(Class type, StatementContext ctx)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean acceptsType(Type type, StatementContext ctx)
+        {
+            return type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == Column.class;
+        }
+
+        @Override
+        public ResultSetMapper<?> mapperForType(Type type, StatementContext ctx)
+        {
+            final boolean names = ((ParameterizedType) type).getActualTypeArguments()[0] == String.class;
+            return new ResultSetMapper<Column<?>>()
+            {
+                @Override
+                public Column<?> map(int index, ResultSet r, StatementContext ctx) throws SQLException
+                {
+                    return names ? new Column<String>(r.getString("name")) : new Column<Integer>(r.getInt("id"));
+                }
+            };
+        }
+    }
+
     @RegisterMapperFactory(MyFactory.class)
     public static interface FooDao
     {
@@ -20,9 +20,14 @@ import org.junit.Test;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.Something;
+import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -105,8 +110,35 @@ public class TestReturningQueryResults
         assertTrue(all.contains(new Something(3, "Diego")));
     }
 
+    @Test
+    public void testStatefulMapperIsCreatedPerCall() throws Exception
+    {
+        handle.execute("insert into something (id, name) values (7, 'Tim')");
+        handle.execute("insert into something (id, name) values (3, 'Diego')");
+
+        Spiffy spiffy = SqlObjectBuilder.open(dbi, Spiffy.class);
+
+        assertEquals(Arrays.asList("1 Diego", "2 Tim"), spiffy.numberedNames());
+        assertEquals(Arrays.asList("1 Diego", "2 Tim"), spiffy.numberedNames());
+    }
+
+    public static class NumberingMapper implements ResultSetMapper<String>
+    {
+        private int count = 0;
+
+        @Override
+        public String map(int index, ResultSet r, StatementContext ctx) throws SQLException
+        {
+            return ++count + " " + r.getString("name");
+        }
+    }
+
     public static interface Spiffy extends CloseMe
     {
+        @SqlQuery("select name from something order by id")
+        @Mapper(NumberingMapper.class)
+        public List<String> numberedNames();
+
         @SqlQuery("select id, name from something where id = :id")
         @Mapper(SomethingMapper.class)
         public Something findById(@Bind("id") int id);
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.skife.jdbi.v2.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TestEnumLookup
+{
+    public enum Status
+    {
+        @DbCode("A") ACTIVE,
+        @DbCode("I") INACTIVE,
+        DELETED
+    }
+
+    public enum Clashing
+    {
+        value, VALUE
+    }
+
+    @Test
+    public void testByName() throws Exception
+    {
+        EnumLookup<TimeUnit> lookup = EnumLookup.byName(TimeUnit.class);
+        for (TimeUnit unit : TimeUnit.values()) {
+            assertSame(unit, lookup.lookup(new String(unit.name())));
+            assertEquals(unit.name(), lookup.toDatabase(unit));
+        }
+        assertNull(lookup.lookup(null));
+        assertUnknown(lookup, "seconds");
+        assertUnknown(lookup, "");
+    }
+
+    @Test
+    public void testByNameIgnoreCase() throws Exception
+    {
+        EnumLookup<TimeUnit> lookup = EnumLookup.byNameIgnoreCase(TimeUnit.class);
+        assertSame(TimeUnit.SECONDS, lookup.lookup("seconds"));
+        assertSame(TimeUnit.SECONDS, lookup.lookup("SeCoNdS"));
+        assertUnknown(lookup, "second");
+    }
+
+    @Test
+    public void testByCode() throws Exception
+    {
+        EnumLookup<Status> lookup = EnumLookup.byCode(Status.class);
+        assertSame(Status.ACTIVE, lookup.lookup("A"));
+        assertSame(Status.DELETED, lookup.lookup("DELETED"));
+        assertUnknown(lookup, "ACTIVE");
+        assertEquals("I", lookup.toDatabase(Status.INACTIVE));
+        assertEquals("DELETED", lookup.toDatabase(Status.DELETED));
+
+        assertSame(Status.ACTIVE, EnumLookup.byName(Status.class).lookup("ACTIVE"));
+    }
+
+    @Test
+    public void testByOrdinal() throws Exception
+    {
+        EnumLookup<Status> lookup = EnumLookup.byName(Status.class);
+        assertSame(Status.DELETED, lookup.byOrdinal(2));
+        try {
+            lookup.byOrdinal(3);
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testClashingNamesIgnoringCase() throws Exception
+    {
+        assertSame(Clashing.VALUE, EnumLookup.byName(Clashing.class).lookup("VALUE"));
+        try {
+            EnumLookup.byNameIgnoreCase(Clashing.class);
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void assertUnknown(EnumLookup<?> lookup, String value)
+    {
+        try {
+            lookup.lookup(value);
+            fail("expected IllegalArgumentException for " + value);
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}